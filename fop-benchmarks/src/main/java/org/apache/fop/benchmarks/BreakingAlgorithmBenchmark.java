@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.fop.fo.Constants;
+import org.apache.fop.layoutmgr.BlockKnuthSequence;
+import org.apache.fop.layoutmgr.BreakingAlgorithm;
+import org.apache.fop.layoutmgr.InlineKnuthSequence;
+import org.apache.fop.layoutmgr.KnuthBox;
+import org.apache.fop.layoutmgr.KnuthElement;
+import org.apache.fop.layoutmgr.KnuthGlue;
+import org.apache.fop.layoutmgr.KnuthPenalty;
+import org.apache.fop.layoutmgr.KnuthSequence;
+
+/**
+ * Measures the Knuth breaking algorithms on their own, on element lists shaped like the ones
+ * produced by the line layout manager (words, spaces and hyphenation points) and by the
+ * flow layout managers (lines, paragraph spacing and break possibilities). The element
+ * lists are generated from a fixed seed, so every run sees the same input.
+ * <p>
+ * Both lists are broken by minimal subclasses of {@link BreakingAlgorithm}, since the page
+ * breaking algorithm of the layout managers is not public; its footnote and float handling
+ * is measured by {@link LayoutBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BreakingAlgorithmBenchmark {
+
+    private static final int LINE_WIDTH = 400000;
+    private static final int LINE_HEIGHT = 14400;
+    private static final int PAGE_HEIGHT = 700000;
+
+    /** The number of words per paragraph, and of lines per flow. */
+    @Param({"100", "1000"})
+    private int size;
+
+    private KnuthSequence paragraph;
+
+    private KnuthSequence flow;
+
+    /**
+     * Generates the element lists. The algorithms only modify their input when content
+     * does not fit, which never happens with these lists, so they are shared by all the
+     * invocations of an iteration.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Random random = new Random(42);
+        paragraph = createParagraph(random);
+        flow = createFlow(random);
+    }
+
+    private KnuthSequence createParagraph(Random random) {
+        KnuthSequence seq = new InlineKnuthSequence();
+        for (int i = 0; i < size; i++) {
+            int syllables = 1 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                if (s > 0) {
+                    seq.add(new KnuthPenalty(3000, 50, true, null, false));
+                }
+                seq.add(new KnuthBox(5000 + random.nextInt(15000), null, false));
+            }
+            if (i < size - 1) {
+                seq.add(new KnuthGlue(3333, 1666, 1111, null, false));
+            }
+        }
+        seq.add(new KnuthPenalty(0, KnuthElement.INFINITE, false, null, false));
+        seq.add(new KnuthGlue(0, 10000000, 0, null, false));
+        seq.add(new KnuthPenalty(0, -KnuthElement.INFINITE, false, null, false));
+        return seq;
+    }
+
+    private KnuthSequence createFlow(Random random) {
+        KnuthSequence seq = new BlockKnuthSequence();
+        int linesLeft = 0;
+        for (int i = 0; i < size; i++) {
+            if (linesLeft == 0) {
+                if (i > 0) {
+                    seq.add(new KnuthPenalty(0, 0, false, null, false));
+                    seq.add(new KnuthGlue(6000, 2000, 1000, null, false));
+                }
+                linesLeft = 1 + random.nextInt(12);
+            } else {
+                seq.add(new KnuthPenalty(0, 0, false, null, false));
+            }
+            seq.add(new KnuthBox(LINE_HEIGHT, null, false));
+            linesLeft--;
+        }
+        seq.add(new KnuthPenalty(0, KnuthElement.INFINITE, false, null, false));
+        seq.add(new KnuthGlue(0, 10000000, 0, null, false));
+        seq.add(new KnuthPenalty(0, -KnuthElement.INFINITE, false, null, false));
+        return seq;
+    }
+
+    /**
+     * Breaks a justified paragraph into lines.
+     * @return the number of lines
+     */
+    @Benchmark
+    public int lineBreaking() {
+        BreakingAlgorithm algorithm = new Breaker(Constants.EN_JUSTIFY);
+        algorithm.setConstantLineWidth(LINE_WIDTH);
+        return algorithm.findBreakingPoints(paragraph, 1, true, BreakingAlgorithm.ALL_BREAKS);
+    }
+
+    /**
+     * Breaks a flow of lines into pages.
+     * @return the number of pages
+     */
+    @Benchmark
+    public int pageBreaking() {
+        BreakingAlgorithm algorithm = new Breaker(Constants.EN_START);
+        algorithm.setConstantLineWidth(PAGE_HEIGHT);
+        return algorithm.findBreakingPoints(flow, 1, true, BreakingAlgorithm.ALL_BREAKS);
+    }
+
+    /** A minimal breaking algorithm, which only computes the break points. */
+    private static class Breaker extends BreakingAlgorithm {
+
+        Breaker(int align) {
+            super(align, Constants.EN_START, true, false, 2);
+        }
+
+        @Override
+        public void updateData1(int total, double demerits) {
+            //nop
+        }
+
+        @Override
+        public void updateData2(KnuthNode bestActiveNode, KnuthSequence sequence, int total) {
+            //nop
+        }
+
+        @Override
+        protected int filterActiveNodes() {
+            // leave only the active node with fewest total demerits
+            KnuthNode bestActiveNode = null;
+            for (int i = startLine; i < endLine; i++) {
+                for (KnuthNode node = getNode(i); node != null; node = node.next) {
+                    bestActiveNode = compareNodes(bestActiveNode, node);
+                    if (node != bestActiveNode) {
+                        removeNode(i, node);
+                    }
+                }
+            }
+            return bestActiveNode.line;
+        }
+    }
+}
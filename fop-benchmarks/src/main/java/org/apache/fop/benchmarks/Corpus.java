@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+
+/**
+ * The fixed set of FO documents the benchmarks run on. The documents are taken from the
+ * layout engine test cases in {@code fop/test/layoutengine/standard-testcases} and extracted
+ * with the same {@code testcase2fo.xsl} stylesheet the layout engine tests use.
+ * <p>
+ * The test case directory is looked up relative to the working directory; it can be set
+ * explicitly with the {@code fop.benchmarks.testcases} system property.
+ */
+public final class Corpus {
+
+    /** System property naming the directory containing the layout engine test cases. */
+    public static final String TESTCASES_PROPERTY = "fop.benchmarks.testcases";
+
+    private static final String[] TESTCASES = {
+        "block_basic_1.xml",
+        "block_white-space_4.xml",
+        "block_word-spacing_text-align_justify.xml",
+        "footnote_basic.xml",
+        "list-block_basic.xml",
+        "markers_7.xml",
+        "page-number-citation_basic.xml",
+        "table_basic.xml",
+        "table_border-collapse_collapse_spans_2.xml",
+        "table-cell_break-before_inside.xml"
+    };
+
+    private static final String[] SEARCH_PATH = {
+        "fop/test/layoutengine/standard-testcases",
+        "../fop/test/layoutengine/standard-testcases",
+        "test/layoutengine/standard-testcases"
+    };
+
+    private static Corpus instance;
+
+    private final File baseDir;
+
+    private final List<byte[]> documents;
+
+    private Corpus(File baseDir, List<byte[]> documents) {
+        this.baseDir = baseDir;
+        this.documents = Collections.unmodifiableList(documents);
+    }
+
+    /**
+     * Returns the corpus, loading it on first use.
+     * @return the corpus
+     * @throws Exception if the test cases cannot be found or transformed
+     */
+    public static synchronized Corpus getInstance() throws Exception {
+        if (instance == null) {
+            instance = load(findTestCaseDir());
+        }
+        return instance;
+    }
+
+    private static File findTestCaseDir() throws FileNotFoundException {
+        String dir = System.getProperty(TESTCASES_PROPERTY);
+        if (dir != null) {
+            return new File(dir);
+        }
+        for (String path : SEARCH_PATH) {
+            File candidate = new File(path);
+            if (candidate.isDirectory()) {
+                return candidate;
+            }
+        }
+        throw new FileNotFoundException("Layout engine test cases not found. Please set the "
+                + TESTCASES_PROPERTY + " system property.");
+    }
+
+    private static Corpus load(File testCaseDir) throws TransformerException {
+        File stylesheet = new File(testCaseDir.getParentFile(), "testcase2fo.xsl");
+        TransformerFactory tFactory = TransformerFactory.newInstance();
+        Templates testcase2fo = tFactory.newTemplates(new StreamSource(stylesheet));
+        List<byte[]> documents = new ArrayList<byte[]>(TESTCASES.length);
+        for (String testcase : TESTCASES) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Transformer transformer = testcase2fo.newTransformer();
+            transformer.transform(new StreamSource(new File(testCaseDir, testcase)),
+                    new StreamResult(out));
+            documents.add(out.toByteArray());
+        }
+        return new Corpus(testCaseDir, documents);
+    }
+
+    /**
+     * Returns the FO documents of the corpus.
+     * @return the serialized FO documents
+     */
+    public List<byte[]> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Creates a new FopFactory resolving relative URIs against the test case directory.
+     * @return a new FopFactory
+     */
+    public FopFactory newFopFactory() {
+        return FopFactory.newInstance(baseDir.toURI());
+    }
+
+    /**
+     * Feeds an FO document to the given {@link Fop} instance.
+     * @param fop the processor
+     * @param document the serialized FO document
+     * @throws FOPException if the processor cannot be set up
+     * @throws TransformerException if an error occurs while processing the document
+     */
+    public static void process(Fop fop, byte[] document)
+            throws FOPException, TransformerException {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(toSource(document), new SAXResult(fop.getDefaultHandler()));
+    }
+
+    /**
+     * Returns a new {@link Source} for a serialized document.
+     * @param document the serialized document
+     * @return the source
+     */
+    public static Source toSource(byte[] document) {
+        return new StreamSource(new ByteArrayInputStream(document));
+    }
+
+    /**
+     * Creates a user agent with deterministic metadata for the given factory.
+     * @param fopFactory the factory
+     * @return the user agent
+     */
+    public static FOUserAgent newUserAgent(FopFactory fopFactory) {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setCreationDate(new Date(0));
+        return userAgent;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.UnsupportedEncodingException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.FOEventHandler;
+
+/**
+ * Measures building the FO tree, including property resolution, without any layout.
+ * The documents are fed through {@code FOTreeBuilder} into an FO event handler that ignores
+ * all events.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FOTreeBuilderBenchmark {
+
+    /** The number of rows of the table built by {@link #buildTableFOTree(Blackhole)}. */
+    private static final int TABLE_ROWS = 10000;
+
+    private List<byte[]> documents;
+
+    private byte[] table;
+
+    private FopFactory fopFactory;
+
+    /**
+     * Loads the corpus and sets up the factory.
+     * @throws Exception if the corpus cannot be loaded
+     */
+    @Setup
+    public void setUp() throws Exception {
+        Corpus corpus = Corpus.getInstance();
+        documents = corpus.getDocuments();
+        fopFactory = corpus.newFopFactory();
+        table = createTable(TABLE_ROWS);
+    }
+
+    private static byte[] createTable(int rows) throws UnsupportedEncodingException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'>"
+                + "<fo:layout-master-set><fo:simple-page-master master-name='A4'"
+                + " page-width='210mm' page-height='297mm'><fo:region-body margin='2cm'/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference='A4'><fo:flow flow-name='xsl-region-body'>"
+                + "<fo:table table-layout='fixed' width='100%' font-size='9pt'>"
+                + "<fo:table-column column-width='30%'/><fo:table-column column-width='70%'/>"
+                + "<fo:table-body>");
+        for (int i = 0; i < rows; i++) {
+            sb.append("<fo:table-row><fo:table-cell border='0.5pt solid black' padding='1pt'>"
+                    + "<fo:block>").append(i).append("</fo:block></fo:table-cell>"
+                    + "<fo:table-cell border='0.5pt solid black' padding='1pt'>"
+                    + "<fo:block text-align='end'>Row ").append(i)
+                    .append("</fo:block></fo:table-cell></fo:table-row>");
+        }
+        sb.append("</fo:table-body></fo:table></fo:flow></fo:page-sequence></fo:root>");
+        return sb.toString().getBytes("UTF-8");
+    }
+
+    /**
+     * Builds the FO tree for every document of the corpus.
+     * @param blackhole the JMH blackhole
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void buildFOTree(Blackhole blackhole) throws Exception {
+        for (byte[] document : documents) {
+            FOUserAgent userAgent = Corpus.newUserAgent(fopFactory);
+            userAgent.setFOEventHandlerOverride(new FOEventHandler(userAgent) { });
+            Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent,
+                    new NullOutputStream());
+            Corpus.process(fop, document);
+            blackhole.consume(fop);
+        }
+    }
+
+    /**
+     * Builds the FO tree of a table with 10,000 rows. Run with {@code -prof gc} to see the
+     * memory allocated per FO tree.
+     * @param blackhole the JMH blackhole
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void buildTableFOTree(Blackhole blackhole) throws Exception {
+        FOUserAgent userAgent = Corpus.newUserAgent(fopFactory);
+        userAgent.setFOEventHandlerOverride(new FOEventHandler(userAgent) { });
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent,
+                new NullOutputStream());
+        Corpus.process(fop, table);
+        blackhole.consume(fop);
+    }
+}
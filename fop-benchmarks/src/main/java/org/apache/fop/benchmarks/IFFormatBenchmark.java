@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.stream.StreamResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.render.intermediate.BinaryIFParser;
+import org.apache.fop.render.intermediate.IFDocumentHandler;
+import org.apache.fop.render.intermediate.IFParser;
+import org.apache.fop.render.intermediate.IFUtil;
+
+/**
+ * Compares the XML intermediate format with its binary encoding: reading each of them into
+ * a serializer of the same format, and into the PDF document handler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IFFormatBenchmark {
+
+    private List<byte[]> xmlDocuments;
+
+    private List<byte[]> binaryDocuments;
+
+    private FopFactory fopFactory;
+
+    /**
+     * Renders the corpus to both intermediate formats.
+     * @throws Exception if an error occurs
+     */
+    @Setup
+    public void setUp() throws Exception {
+        Corpus corpus = Corpus.getInstance();
+        fopFactory = corpus.newFopFactory();
+        xmlDocuments = render(corpus, MimeConstants.MIME_FOP_IF);
+        binaryDocuments = render(corpus, MimeConstants.MIME_FOP_IF_BINARY);
+    }
+
+    private List<byte[]> render(Corpus corpus, String outputFormat) throws Exception {
+        List<byte[]> documents = new ArrayList<byte[]>();
+        for (byte[] document : corpus.getDocuments()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Fop fop = fopFactory.newFop(outputFormat, Corpus.newUserAgent(fopFactory), out);
+            Corpus.process(fop, document);
+            documents.add(out.toByteArray());
+        }
+        return documents;
+    }
+
+    /**
+     * Parses and re-serializes the XML intermediate format.
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void xmlRoundTrip() throws Exception {
+        renderXML(MimeConstants.MIME_FOP_IF);
+    }
+
+    /**
+     * Parses and re-serializes the binary intermediate format.
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void binaryRoundTrip() throws Exception {
+        renderBinary(MimeConstants.MIME_FOP_IF_BINARY);
+    }
+
+    /**
+     * Produces PDF from the XML intermediate format.
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void xmlToPDF() throws Exception {
+        renderXML(MimeConstants.MIME_PDF);
+    }
+
+    /**
+     * Produces PDF from the binary intermediate format.
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void binaryToPDF() throws Exception {
+        renderBinary(MimeConstants.MIME_PDF);
+    }
+
+    private void renderXML(String outputFormat) throws Exception {
+        for (byte[] document : xmlDocuments) {
+            FOUserAgent userAgent = Corpus.newUserAgent(fopFactory);
+            new IFParser().parse(Corpus.toSource(document),
+                    createDocumentHandler(userAgent, outputFormat), userAgent);
+        }
+    }
+
+    private void renderBinary(String outputFormat) throws Exception {
+        for (byte[] document : binaryDocuments) {
+            FOUserAgent userAgent = Corpus.newUserAgent(fopFactory);
+            new BinaryIFParser().parse(new ByteArrayInputStream(document),
+                    createDocumentHandler(userAgent, outputFormat), userAgent);
+        }
+    }
+
+    private IFDocumentHandler createDocumentHandler(FOUserAgent userAgent, String outputFormat)
+            throws Exception {
+        IFDocumentHandler documentHandler = userAgent.getRendererFactory()
+                .createDocumentHandler(userAgent, outputFormat);
+        documentHandler.setResult(new StreamResult(new NullOutputStream()));
+        IFUtil.setupFonts(documentHandler);
+        return documentHandler;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.PageViewport;
+import org.apache.fop.render.intermediate.IFRenderer;
+
+/**
+ * Measures the layout stage: layout managers, line breaking and page breaking, up to
+ * the finished area tree. The FO tree is built as part of each run; finished pages are
+ * dropped instead of being rendered.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LayoutBenchmark {
+
+    private List<byte[]> documents;
+
+    private FopFactory fopFactory;
+
+    /**
+     * Loads the corpus and sets up the factory.
+     * @throws Exception if the corpus cannot be loaded
+     */
+    @Setup
+    public void setUp() throws Exception {
+        Corpus corpus = Corpus.getInstance();
+        documents = corpus.getDocuments();
+        fopFactory = corpus.newFopFactory();
+    }
+
+    /**
+     * Lays out every document of the corpus.
+     * @param blackhole the JMH blackhole
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void layout(Blackhole blackhole) throws Exception {
+        for (byte[] document : documents) {
+            FOUserAgent userAgent = Corpus.newUserAgent(fopFactory);
+            userAgent.setRendererOverride(new IFRenderer(userAgent) {
+                @Override
+                public void renderPage(PageViewport page) {
+                    //nop
+                }
+            });
+            Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_IF, userAgent,
+                    new NullOutputStream());
+            Corpus.process(fop, document);
+            blackhole.consume(fop.getResults().getPageCount());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.stream.StreamResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.render.intermediate.IFDocumentHandler;
+import org.apache.fop.render.intermediate.IFParser;
+import org.apache.fop.render.intermediate.IFUtil;
+import org.apache.fop.render.pdf.PDFRendererOption;
+
+/**
+ * Measures the output stages on their own, starting from intermediate format documents
+ * produced once from the corpus: parsing the IF with {@link IFParser} and serializing it
+ * again with {@code IFSerializer}, and parsing the IF into the PDF document handler
+ * ({@code PDFDocument} and {@code PDFPainter}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutputBenchmark {
+
+    /** The number of threads compressing PDF streams in {@link #pdfOutputWithCompressionThreads()} */
+    private static final int COMPRESSION_THREADS = 4;
+
+    private List<byte[]> ifDocuments;
+
+    private FopFactory fopFactory;
+
+    /**
+     * Renders the corpus to the intermediate format.
+     * @throws Exception if an error occurs
+     */
+    @Setup
+    public void setUp() throws Exception {
+        Corpus corpus = Corpus.getInstance();
+        fopFactory = corpus.newFopFactory();
+        ifDocuments = new ArrayList<byte[]>();
+        for (byte[] document : corpus.getDocuments()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_IF,
+                    Corpus.newUserAgent(fopFactory), out);
+            Corpus.process(fop, document);
+            ifDocuments.add(out.toByteArray());
+        }
+    }
+
+    /**
+     * Parses and re-serializes the intermediate format.
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void ifRoundTrip() throws Exception {
+        renderIF(MimeConstants.MIME_FOP_IF);
+    }
+
+    /**
+     * Produces PDF from the intermediate format.
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void pdfOutput() throws Exception {
+        renderIF(MimeConstants.MIME_PDF);
+    }
+
+    /**
+     * Produces PDF from the intermediate format, compressing the streams on worker threads.
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void pdfOutputWithCompressionThreads() throws Exception {
+        renderIF(MimeConstants.MIME_PDF, COMPRESSION_THREADS);
+    }
+
+    private void renderIF(String outputFormat) throws Exception {
+        renderIF(outputFormat, 0);
+    }
+
+    private void renderIF(String outputFormat, int compressionThreads) throws Exception {
+        for (byte[] ifDocument : ifDocuments) {
+            FOUserAgent userAgent = Corpus.newUserAgent(fopFactory);
+            userAgent.getRendererOptions().put(PDFRendererOption.COMPRESSION_THREADS.getName(),
+                    compressionThreads);
+            IFDocumentHandler documentHandler = userAgent.getRendererFactory()
+                    .createDocumentHandler(userAgent, outputFormat);
+            documentHandler.setResult(new StreamResult(new NullOutputStream()));
+            IFUtil.setupFonts(documentHandler);
+            new IFParser().parse(Corpus.toSource(ifDocument), documentHandler, userAgent);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.helpers.AttributesImpl;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FOEventHandler;
+import org.apache.fop.fo.FOPropertyMapping;
+import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.PropertyList;
+import org.apache.fop.fo.StaticPropertyList;
+import org.apache.fop.fo.expr.PropertyInfo;
+import org.apache.fop.fo.expr.PropertyParser;
+import org.apache.fop.fo.flow.Block;
+import org.apache.fop.util.XMLUtil;
+
+/**
+ * Measures property list creation and property expression parsing on their own. The
+ * properties are resolved in the context of an {@code fo:block} taken from the corpus.
+ * {@link #retainPropertyLists(Footprint)} measures the heap a resolved property list keeps,
+ * rather than what its creation allocates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertyListBenchmark {
+
+    private static final String[][] ATTRIBUTES = {
+        {"font-family", "sans-serif"},
+        {"font-size", "12pt"},
+        {"line-height", "1.2"},
+        {"space-before", "(2pt + 1mm) * 2"},
+        {"margin", "1cm 2cm"},
+        {"border", "0.5pt solid rgb(0, 0, 128)"},
+        {"padding-start", "2pt"},
+        {"color", "#336699"},
+        {"text-align", "justify"},
+        {"keep-with-next.within-page", "always"}
+    };
+
+    private static final int[] PROPERTY_IDS = {
+        Constants.PR_FONT_FAMILY,
+        Constants.PR_FONT_SIZE,
+        Constants.PR_LINE_HEIGHT,
+        Constants.PR_SPACE_BEFORE,
+        Constants.PR_MARGIN_LEFT,
+        Constants.PR_BORDER_TOP_COLOR,
+        Constants.PR_PADDING_START,
+        Constants.PR_COLOR,
+        Constants.PR_TEXT_ALIGN,
+        Constants.PR_KEEP_WITH_NEXT,
+        Constants.PR_FONT_WEIGHT,
+        Constants.PR_HYPHENATE
+    };
+
+    /** The number of property lists kept by {@link #retainPropertyLists(Footprint)}. */
+    private static final int RETAINED_LISTS = 10000;
+
+    /** The expression to parse in {@link #parseExpression(Blackhole)}. */
+    @Param({"12pt", "(2pt + 1mm) * 2", "rgb(0, 0, 128)", "from-parent(font-size) * 1.2"})
+    private String expression;
+
+    private Block block;
+
+    private AttributesImpl attributes;
+
+    /**
+     * Builds the FO tree of the first corpus document and keeps its first block.
+     * @throws Exception if an error occurs
+     */
+    @Setup
+    public void setUp() throws Exception {
+        Corpus corpus = Corpus.getInstance();
+        FopFactory fopFactory = corpus.newFopFactory();
+        FOUserAgent userAgent = Corpus.newUserAgent(fopFactory);
+        userAgent.setFOEventHandlerOverride(new FOEventHandler(userAgent) {
+            @Override
+            public void startBlock(Block bl) {
+                if (block == null) {
+                    block = bl;
+                }
+            }
+        });
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent,
+                new NullOutputStream());
+        Corpus.process(fop, corpus.getDocuments().get(0));
+        if (block == null) {
+            throw new IllegalStateException("No fo:block found in the corpus");
+        }
+        attributes = new AttributesImpl();
+        for (String[] attribute : ATTRIBUTES) {
+            attributes.addAttribute("", attribute[0], attribute[0], XMLUtil.CDATA, attribute[1]);
+        }
+    }
+
+    /**
+     * Creates a property list from a set of attributes and resolves a number of
+     * explicit, inherited and initial values from it.
+     * @param blackhole the JMH blackhole
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void resolvePropertyList(Blackhole blackhole) throws Exception {
+        PropertyList propertyList = new StaticPropertyList(block, null);
+        propertyList.addAttributesToList(attributes);
+        for (int propId : PROPERTY_IDS) {
+            blackhole.consume(propertyList.get(propId));
+        }
+    }
+
+    /**
+     * Creates and resolves property lists like {@link #resolvePropertyList(Blackhole)}, and
+     * keeps them all. The heap they retain after a full garbage collection is reported per
+     * list by the secondary result "bytesPerList". There is a single measurement iteration,
+     * since JMH sums that result over the iterations.
+     * @param footprint the counters reporting the retained heap
+     * @return the property lists, so they are reachable until the heap has been measured
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 1)
+    public PropertyList[] retainPropertyLists(Footprint footprint) throws Exception {
+        long before = usedHeap();
+        PropertyList[] lists = new PropertyList[RETAINED_LISTS];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new StaticPropertyList(block, null);
+            lists[i].addAttributesToList(attributes);
+            for (int propId : PROPERTY_IDS) {
+                lists[i].get(propId);
+            }
+        }
+        footprint.bytesPerList = (usedHeap() - before) / RETAINED_LISTS;
+        return lists;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The secondary results of {@link #retainPropertyLists(Footprint)}.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        /** The heap retained per property list, in bytes, including its slot in the array. */
+        public long bytesPerList;
+    }
+
+    /**
+     * Parses a single property expression.
+     * @param blackhole the JMH blackhole
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void parseExpression(Blackhole blackhole) throws Exception {
+        PropertyList propertyList = new StaticPropertyList(block, null);
+        PropertyInfo propInfo = new PropertyInfo(
+                FObj.getPropertyMakerFor(FOPropertyMapping.getPropertyId("space-before")),
+                propertyList);
+        blackhole.consume(PropertyParser.parse(expression, propInfo));
+    }
+}
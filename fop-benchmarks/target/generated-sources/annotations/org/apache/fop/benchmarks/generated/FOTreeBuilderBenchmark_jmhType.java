@@ -0,0 +1,4 @@
+package org.apache.fop.benchmarks.generated;
+public class FOTreeBuilderBenchmark_jmhType extends FOTreeBuilderBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.fop.benchmarks.generated;
+public class IFFormatBenchmark_jmhType extends IFFormatBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.fop.benchmarks.generated;
+public class LayoutBenchmark_jmhType extends LayoutBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.fop.benchmarks.generated;
+public class OutputBenchmark_jmhType extends OutputBenchmark_jmhType_B3 {
+}
+
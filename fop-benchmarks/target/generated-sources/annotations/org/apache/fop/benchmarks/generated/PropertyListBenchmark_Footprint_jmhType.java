@@ -0,0 +1,4 @@
+package org.apache.fop.benchmarks.generated;
+public class PropertyListBenchmark_Footprint_jmhType extends PropertyListBenchmark_Footprint_jmhType_B3 {
+}
+
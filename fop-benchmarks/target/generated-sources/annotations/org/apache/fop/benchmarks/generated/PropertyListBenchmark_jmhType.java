@@ -0,0 +1,4 @@
+package org.apache.fop.benchmarks.generated;
+public class PropertyListBenchmark_jmhType extends PropertyListBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.fop.layoutmgr.generated;
+public class BreakingAlgorithmBenchmark_jmhType extends BreakingAlgorithmBenchmark_jmhType_B3 {
+}
+
@@ -57,6 +57,7 @@ import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fo.FOEventHandler;
 import org.apache.fop.fonts.FontManager;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.pdf.StreamEncoderPool;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.Renderer;
 import org.apache.fop.render.RendererConfig;
@@ -104,6 +105,8 @@ public class FOUserAgent {
     private FOEventHandler foEventHandlerOverride;
     private boolean locatorEnabled = true; // true by default (for error messages).
     private boolean conserveMemoryPolicy;
+    private boolean concurrentRendering;
+    private boolean incrementalRelease;
     private EventBroadcaster eventBroadcaster = new FOPEventBroadcaster();
     private StructureTreeEventHandler structureTreeEventHandler
             = DummyStructureTreeEventHandler.INSTANCE;
@@ -148,6 +151,7 @@ public class FOUserAgent {
         this.resourceResolver = resourceResolver;
         setTargetResolution(factory.getTargetResolution());
         setAccessibility(factory.isAccessibilityEnabled());
+        setIncrementalRelease(factory.isIncrementalReleaseEnabled());
         imageSessionContext = new AbstractImageSessionContext(factory.getFallbackResolver()) {
 
             public ImageContext getParentContext() {
@@ -639,6 +643,47 @@ public class FOUserAgent {
         this.conserveMemoryPolicy = conserveMemoryPolicy;
     }
 
+    /**
+     * Check whether finished pages are rendered on a separate thread while layout continues.
+     *
+     * @return true if pages are rendered concurrently to layout
+     */
+    public boolean isConcurrentRenderingEnabled() {
+        return this.concurrentRendering;
+    }
+
+    /**
+     * Controls whether finished pages should be rendered on a separate thread while layout
+     * continues. Page sequences are still laid out one after the other. This setting has no
+     * effect if the memory-conservation policy is enabled.
+     *
+     * @param concurrentRendering true to render pages concurrently to layout
+     */
+    public void setConcurrentRendering(boolean concurrentRendering) {
+        this.concurrentRendering = concurrentRendering;
+    }
+
+    /**
+     * Check whether formatting objects and their layout managers are released as soon as all
+     * their areas have been added to pages.
+     *
+     * @return true if finished content is released incrementally
+     */
+    public boolean isIncrementalReleaseEnabled() {
+        return this.incrementalRelease;
+    }
+
+    /**
+     * Controls whether the block-level children of a flow, and their layout managers, should be
+     * released as soon as all their areas have been added to pages, rather than when the page
+     * sequence ends. Blocks carrying markers are kept.
+     *
+     * @param incrementalRelease true to release finished content incrementally
+     */
+    public void setIncrementalRelease(boolean incrementalRelease) {
+        this.incrementalRelease = incrementalRelease;
+    }
+
     /**
      * Check whether complex script features are enabled.
      *
@@ -801,6 +846,11 @@ public class FOUserAgent {
         return factory.getColorSpaceCache();
     }
 
+    /** @return the pool of threads encoding the streams of PDF documents */
+    public StreamEncoderPool getStreamEncoderPool() {
+        return factory.getStreamEncoderPool();
+    }
+
     /** @see FopFactory#getHyphenationPatternNames() */
     public Map<String, String> getHyphenationPatternNames() {
         return factory.getHyphenationPatternNames();
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps;
+
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Renders a batch of documents with one {@link FopFactory}, spreading them over a bounded
+ * number of threads.
+ * <p>
+ * All documents share the factory's caches: the parsed renderer configurations, the
+ * hyphenation trees and the image cache. The fonts resolved from the font configuration
+ * (including auto-detected fonts) are looked up again for every document unless font list
+ * caching is enabled on the factory's {@link org.apache.fop.fonts.FontManager}; since that
+ * setting applies to every user of the factory, it is left to the caller. Each document still
+ * gets its own {@link FOUserAgent} and font setup, since fonts track the characters used by a
+ * document for subsetting.
+ * <p>
+ * Jobs are pulled from the iterator only when a thread is about to become available, so
+ * sources and output streams can be opened lazily by the iterator, and each result is passed
+ * to a {@link JobListener} as soon as its document is finished: no more than one job per
+ * thread is held at any time, however long the batch. The output streams are not closed by
+ * this class.
+ */
+public class FopBatch {
+
+    private static final Log log = LogFactory.getLog(FopBatch.class);
+
+    private final FopFactory fopFactory;
+    private final String outputFormat;
+    private final Templates templates;
+    private final int threads;
+
+    private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+
+    /**
+     * Creates a new batch without stylesheet: the sources have to be XSL-FO documents.
+     * @param fopFactory the factory to create the {@link Fop} instances with
+     * @param outputFormat the MIME type of the output format (ex. "application/pdf")
+     * @param threads the number of documents rendered concurrently
+     */
+    public FopBatch(FopFactory fopFactory, String outputFormat, int threads) {
+        this(fopFactory, outputFormat, null, threads);
+    }
+
+    /**
+     * Creates a new batch.
+     * @param fopFactory the factory to create the {@link Fop} instances with
+     * @param outputFormat the MIME type of the output format (ex. "application/pdf")
+     * @param templates the compiled stylesheet transforming the sources to XSL-FO, or null
+     *          if the sources are XSL-FO documents
+     * @param threads the number of documents rendered concurrently
+     */
+    public FopBatch(FopFactory fopFactory, String outputFormat, Templates templates,
+            int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.fopFactory = fopFactory;
+        this.outputFormat = outputFormat;
+        this.templates = templates;
+        this.threads = threads;
+    }
+
+    /**
+     * Renders all jobs of the given iterator and waits until they are finished. A failing
+     * document doesn't stop the batch; its exception is reported in its result.
+     * @param jobs the jobs to render
+     * @param listener the listener receiving the result of each job as soon as it is
+     *          finished, in the order the jobs finish
+     * @throws FOPException if the batch is interrupted, or if the iterator or the listener
+     *          fails; the jobs already running are finished first
+     */
+    public void process(Iterator<Job> jobs, final JobListener listener) throws FOPException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "FOP batch " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final Semaphore slots = new Semaphore(threads);
+        // render() catches everything but errors, the listener may throw anything
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        try {
+            while (failure.get() == null && jobs.hasNext()) {
+                slots.acquire();
+                boolean submitted = false;
+                try {
+                    submit(executor, jobs.next(), listener, slots, failure);
+                    submitted = true;
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    if (!submitted) {
+                        slots.release();
+                    }
+                }
+            }
+            // wait for the jobs still running
+            slots.acquire(threads);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new FOPException("Batch interrupted", ie);
+        } finally {
+            executor.shutdownNow();
+        }
+        Throwable t = failure.get();
+        if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t instanceof Exception) {
+            throw new FOPException("Batch failed", (Exception) t);
+        } else if (t != null) {
+            throw new FOPException("Batch failed: " + t);
+        }
+    }
+
+    private void submit(ExecutorService executor, final Job job, final JobListener listener,
+            final Semaphore slots, final AtomicReference<Throwable> failure) {
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    JobResult result = render(job);
+                    synchronized (listener) {
+                        listener.jobFinished(result);
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    slots.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates the user agent for a job. Override to set up per-document settings like the
+     * document metadata.
+     * @param job the job
+     * @return the user agent
+     */
+    protected FOUserAgent createUserAgent(Job job) {
+        return fopFactory.newFOUserAgent();
+    }
+
+    private JobResult render(Job job) {
+        long start = System.nanoTime();
+        try {
+            Fop fop = fopFactory.newFop(outputFormat, createUserAgent(job), job.getOutputStream());
+            Result res = new SAXResult(fop.getDefaultHandler());
+            newTransformer().transform(job.getSource(), res);
+            int pageCount = fop.getResults() != null ? fop.getResults().getPageCount() : -1;
+            JobResult result = new JobResult(job, System.nanoTime() - start, pageCount, null);
+            if (log.isDebugEnabled()) {
+                log.debug("Rendered " + job.getId() + ": " + pageCount + " pages in "
+                        + result.getElapsedMillis() + "ms");
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to render " + job.getId() + ": " + e.getMessage(), e);
+            return new JobResult(job, System.nanoTime() - start, -1, e);
+        }
+    }
+
+    private Transformer newTransformer() throws TransformerConfigurationException {
+        // transformers are not thread-safe, templates are
+        if (templates != null) {
+            return templates.newTransformer();
+        }
+        synchronized (transformerFactory) {
+            return transformerFactory.newTransformer();
+        }
+    }
+
+    /**
+     * Receives the results of a batch. Results are delivered from the rendering threads, one
+     * at a time.
+     */
+    public interface JobListener {
+
+        /**
+         * Called when a job is finished, successfully or not.
+         * @param result the result of the job
+         */
+        void jobFinished(JobResult result);
+    }
+
+    /**
+     * A document to render: a source and the output stream to render it to.
+     */
+    public static class Job {
+
+        private final String id;
+        private final Source source;
+        private final OutputStream out;
+
+        /**
+         * Creates a new job.
+         * @param id an identifier for the job, used in the log and in the result
+         * @param source the source document
+         * @param out the output stream to render to
+         */
+        public Job(String id, Source source, OutputStream out) {
+            this.id = id;
+            this.source = source;
+            this.out = out;
+        }
+
+        /** @return the identifier of the job */
+        public String getId() {
+            return id;
+        }
+
+        /** @return the source document */
+        public Source getSource() {
+            return source;
+        }
+
+        /** @return the output stream to render to */
+        public OutputStream getOutputStream() {
+            return out;
+        }
+    }
+
+    /**
+     * The outcome of a job.
+     */
+    public static class JobResult {
+
+        private final Job job;
+        private final long elapsedNanos;
+        private final int pageCount;
+        private final Exception exception;
+
+        JobResult(Job job, long elapsedNanos, int pageCount, Exception exception) {
+            this.job = job;
+            this.elapsedNanos = elapsedNanos;
+            this.pageCount = pageCount;
+            this.exception = exception;
+        }
+
+        /** @return the job */
+        public Job getJob() {
+            return job;
+        }
+
+        /** @return true if the document has been rendered successfully */
+        public boolean isSuccessful() {
+            return exception == null;
+        }
+
+        /** @return the exception that stopped rendering the document, or null */
+        public Exception getException() {
+            return exception;
+        }
+
+        /** @return the number of pages rendered, -1 if not known */
+        public int getPageCount() {
+            return pageCount;
+        }
+
+        /** @return the time spent rendering the document, in nanoseconds */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /** @return the time spent rendering the document, in milliseconds */
+        public long getElapsedMillis() {
+            return elapsedNanos / 1000000L;
+        }
+    }
+}
@@ -25,7 +25,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -46,6 +48,7 @@ import org.apache.fop.configuration.DefaultConfigurationBuilder;
 import org.apache.fop.fonts.FontManagerConfigurator;
 import org.apache.fop.hyphenation.HyphenationTreeCache;
 import org.apache.fop.hyphenation.Hyphenator;
+import org.apache.fop.image.loader.ImageCachePolicy;
 import org.apache.fop.util.LogUtil;
 
 /**
@@ -190,6 +193,15 @@ public class FopConfParser {
             }
         }
 
+        if (cfg.getChild("incremental-release", false) != null) {
+            try {
+                fopFactoryBuilder.setIncrementalRelease(
+                        cfg.getChild("incremental-release").getValueAsBoolean());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, false);
+            }
+        }
+
         // base definitions for relative path resolution
         if (cfg.getChild("base", false) != null) {
             try {
@@ -390,6 +402,29 @@ public class FopConfParser {
         } catch (ConfigurationException e) {
             LogUtil.handleException(log, e, strict);
         }
+        configureImageCache(parent.getChild("cache", false), strict);
+    }
+
+    private void configureImageCache(Configuration cacheCfg, boolean strict) throws FOPException {
+        if (cacheCfg == null) {
+            return;
+        }
+        try {
+            long maxBytes = Long.parseLong(cacheCfg.getAttribute("max-bytes"));
+            String eviction = cacheCfg.getAttribute("eviction", ImageCachePolicy.Eviction.LRU.name());
+            List<String> pinnedURIs = new ArrayList<String>();
+            for (Configuration pinCfg : cacheCfg.getChildren("pin")) {
+                pinnedURIs.add(pinCfg.getValue());
+            }
+            fopFactoryBuilder.setImageCachePolicy(new ImageCachePolicy(maxBytes,
+                    ImageCachePolicy.Eviction.valueOf(eviction.toUpperCase(Locale.getDefault())),
+                    pinnedURIs));
+        } catch (ConfigurationException e) {
+            LogUtil.handleException(log, e, strict);
+        } catch (IllegalArgumentException e) {
+            //also covers NumberFormatException
+            LogUtil.handleException(log, e, strict);
+        }
     }
 
     /**
@@ -35,6 +35,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.apache.xmlgraphics.image.loader.ImageContext;
 import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.cache.ImageCache;
 import org.apache.xmlgraphics.image.loader.impl.AbstractImageSessionContext.FallbackResolver;
 import org.apache.xmlgraphics.util.UnitConv;
 
@@ -44,7 +45,10 @@ import org.apache.fop.configuration.Configuration;
 import org.apache.fop.fo.ElementMapping;
 import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fonts.FontManager;
+import org.apache.fop.image.loader.FOPImageCache;
+import org.apache.fop.image.loader.ImageCacheStatistics;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.pdf.StreamEncoderPool;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.RendererConfig;
 import org.apache.fop.render.RendererConfig.RendererConfigParser;
@@ -82,6 +86,8 @@ public final class FopFactory implements ImageContext {
 
     private final ColorSpaceCache colorSpaceCache;
 
+    private final StreamEncoderPool streamEncoderPool = new StreamEncoderPool();
+
     private final FopFactoryConfig config;
 
     private final InternalResourceResolver resolver;
@@ -325,11 +331,28 @@ public final class FopFactory implements ImageContext {
         return config.isAccessibilityEnabled();
     }
 
+    /**
+     * Returns whether finished content is released incrementally.
+     * @return true if finished content is released incrementally
+     */
+    boolean isIncrementalReleaseEnabled() {
+        return config.isIncrementalReleaseEnabled();
+    }
+
     /** @see FopFactoryConfig#getImageManager() */
     public ImageManager getImageManager() {
         return config.getImageManager();
     }
 
+    /**
+     * Returns the hit, miss and eviction counters of the image cache, for monitoring.
+     * @return the image cache statistics, or null if the image manager doesn't use FOP's cache
+     */
+    public ImageCacheStatistics getImageCacheStatistics() {
+        ImageCache cache = getImageManager().getCache();
+        return cache instanceof FOPImageCache ? ((FOPImageCache) cache).getStatistics() : null;
+    }
+
     /** @see FopFactoryConfig#getLayoutManagerMakerOverride() */
     public LayoutManagerMaker getLayoutManagerMakerOverride() {
         return config.getLayoutManagerMakerOverride();
@@ -436,4 +459,14 @@ public final class FopFactory implements ImageContext {
     public ColorSpaceCache getColorSpaceCache() {
         return this.colorSpaceCache;
     }
+
+    /**
+     * Returns the pool of threads encoding the streams of the PDF documents of this instance.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the stream encoder pool
+     */
+    public StreamEncoderPool getStreamEncoderPool() {
+        return this.streamEncoderPool;
+    }
 }
@@ -35,6 +35,8 @@ import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.apps.io.ResourceResolverFactory;
 import org.apache.fop.configuration.Configuration;
 import org.apache.fop.fonts.FontManager;
+import org.apache.fop.image.loader.FOPImageManager;
+import org.apache.fop.image.loader.ImageCachePolicy;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
 
 /**
@@ -160,6 +162,19 @@ public final class FopFactoryBuilder {
         return this;
     }
 
+    /**
+     * Sets whether the documents release their formatting objects and layout managers as soon
+     * as all their areas have been added to pages, see
+     * {@link FOUserAgent#setIncrementalRelease(boolean)}.
+     *
+     * @param incrementalRelease true to release finished content incrementally
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setIncrementalRelease(boolean incrementalRelease) {
+        fopFactoryConfigBuilder.setIncrementalRelease(incrementalRelease);
+        return this;
+    }
+
     /**
      * Sets the {@link LayoutManagerMaker} so that users can configure how FOP creates
      * {@link org.apache.fop.layoutmgr.LayoutManager}s.
@@ -322,14 +337,29 @@ public final class FopFactoryBuilder {
         return this;
     }
 
+    /**
+     * Sets the policy of the image cache shared by all documents of the factory. Without a
+     * policy, images are only softly referenced and the garbage collector may clear them at
+     * any time.
+     *
+     * @param policy the image cache policy, or null
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setImageCachePolicy(ImageCachePolicy policy) {
+        fopFactoryConfigBuilder.setImageCachePolicy(policy);
+        return this;
+    }
+
     public static class FopFactoryConfigImpl implements FopFactoryConfig {
 
         private final EnvironmentProfile enviro;
 
-        private final ImageManager imageManager;
+        private final FOPImageManager imageManager;
 
         private boolean accessibility;
 
+        private boolean incrementalRelease;
+
         private LayoutManagerMaker layoutManagerMaker;
 
         private URI baseURI;
@@ -377,7 +407,8 @@ public final class FopFactoryBuilder {
         FopFactoryConfigImpl(EnvironmentProfile enviro) {
             this.enviro = enviro;
             this.baseURI = enviro.getDefaultBaseURI();
-            this.imageManager = new ImageManager(new ImageContextImpl(this));
+            this.imageManager = new FOPImageManager(new ImageContextImpl(this));
+            imageManager.getCache().setBaseURI(baseURI);
         }
 
         /** {@inheritDoc} */
@@ -385,6 +416,11 @@ public final class FopFactoryBuilder {
             return accessibility;
         }
 
+        /** {@inheritDoc} */
+        public boolean isIncrementalReleaseEnabled() {
+            return incrementalRelease;
+        }
+
         /** {@inheritDoc} */
         public LayoutManagerMaker getLayoutManagerMakerOverride() {
             return layoutManagerMaker;
@@ -486,6 +522,8 @@ public final class FopFactoryBuilder {
 
         void setAccessibility(boolean enableAccessibility);
 
+        void setIncrementalRelease(boolean incrementalRelease);
+
         void setLayoutManagerMakerOverride(LayoutManagerMaker lmMaker);
 
         void setBaseURI(URI baseURI);
@@ -517,6 +555,8 @@ public final class FopFactoryBuilder {
         void setComplexScriptFeaturesEnabled(boolean csf);
 
         void setHyphPatNames(Map<String, String> hyphPatNames);
+
+        void setImageCachePolicy(ImageCachePolicy policy);
     }
 
     private static final class CompletedFopFactoryConfigBuilder implements FopFactoryConfigBuilder {
@@ -532,6 +572,10 @@ public final class FopFactoryBuilder {
             throwIllegalStateException();
         }
 
+        public void setIncrementalRelease(boolean incrementalRelease) {
+            throwIllegalStateException();
+        }
+
         public void setLayoutManagerMakerOverride(LayoutManagerMaker lmMaker) {
             throwIllegalStateException();
 
@@ -598,6 +642,10 @@ public final class FopFactoryBuilder {
             throwIllegalStateException();
         }
 
+        public void setImageCachePolicy(ImageCachePolicy policy) {
+            throwIllegalStateException();
+        }
+
     }
 
     private static final class ActiveFopFactoryConfigBuilder implements FopFactoryConfigBuilder {
@@ -612,12 +660,17 @@ public final class FopFactoryBuilder {
             config.accessibility = enableAccessibility;
         }
 
+        public void setIncrementalRelease(boolean incrementalRelease) {
+            config.incrementalRelease = incrementalRelease;
+        }
+
         public void setLayoutManagerMakerOverride(LayoutManagerMaker lmMaker) {
             config.layoutManagerMaker = lmMaker;
         }
 
         public void setBaseURI(URI baseURI) {
             config.baseURI = baseURI;
+            config.imageManager.getCache().setBaseURI(baseURI);
         }
 
         public void setHyphenationResourceResolver(InternalResourceResolver hyphenationResourceResolver) {
@@ -678,6 +731,10 @@ public final class FopFactoryBuilder {
         public void setHyphPatNames(Map<String, String> hyphPatNames) {
             config.hyphPatNames = hyphPatNames;
         }
+
+        public void setImageCachePolicy(ImageCachePolicy policy) {
+            config.imageManager.getCache().setPolicy(policy);
+        }
     }
 
 }
@@ -68,6 +68,14 @@ public interface FopFactoryConfig {
      */
     boolean isAccessibilityEnabled();
 
+    /**
+     * Whether formatting objects and their layout managers are released as soon as all their
+     * areas have been added to pages.
+     *
+     * @return true if finished content is released incrementally
+     */
+    boolean isIncrementalReleaseEnabled();
+
     /**
      * Returns the overriding LayoutManagerMaker instance, if any.
      * @return the overriding LayoutManagerMaker or null
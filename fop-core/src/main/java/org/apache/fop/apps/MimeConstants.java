@@ -33,6 +33,8 @@ public interface MimeConstants extends org.apache.xmlgraphics.util.MimeConstants
     String MIME_FOP_AREA_TREE   = "application/X-fop-areatree";
     /** Apache FOP's intermediate format XML */
     String MIME_FOP_IF          = "application/X-fop-intermediate-format";
+    /** Apache FOP's intermediate format in binary encoding */
+    String MIME_FOP_IF_BINARY   = "application/X-fop-intermediate-format-binary";
     /** Bitmap images */
     String MIME_BITMAP          = "image/x-bitmap";
 }
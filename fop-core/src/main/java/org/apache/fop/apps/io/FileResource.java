@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.nio.channels.FileChannel;
+
+import org.apache.xmlgraphics.io.Resource;
+
+/**
+ * A resource read from a local file. Besides being read as a stream, its file channel allows
+ * the file to be memory-mapped, as done for font files.
+ */
+public final class FileResource extends Resource {
+
+    private final File file;
+
+    private final FileInputStream fileStream;
+
+    /**
+     * Opens a file.
+     * @param file the file
+     * @throws FileNotFoundException if the file cannot be opened for reading
+     */
+    public FileResource(File file) throws FileNotFoundException {
+        this(file, new FileInputStream(file));
+    }
+
+    private FileResource(File file, FileInputStream fileStream) {
+        super(new BufferedInputStream(fileStream));
+        this.file = file;
+        this.fileStream = fileStream;
+    }
+
+    /**
+     * Returns the file this resource is read from.
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the channel of the file, which is closed with this resource.
+     * @return the file channel
+     */
+    public FileChannel getChannel() {
+        return fileStream.getChannel();
+    }
+}
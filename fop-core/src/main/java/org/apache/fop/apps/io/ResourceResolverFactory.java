@@ -46,7 +46,9 @@ public final class ResourceResolverFactory {
 
     /**
      * Returns the default resource resolver, this is most basic resolver which can be used when
-     * no there are no I/O or file access restrictions.
+     * no there are no I/O or file access restrictions. Resources identified by a <code>file:</code>
+     * URI denoting an existing file are returned as {@link FileResource}s, which FOP memory-maps
+     * instead of reading when loading fonts and compiled hyphenation patterns.
      *
      * @return the default resource resolver
      */
@@ -221,6 +223,15 @@ public final class ResourceResolverFactory {
 
     private static class NormalResourceResolver implements ResourceResolver {
         public Resource getResource(URI uri) throws IOException {
+            if ("file".equals(uri.getScheme()) && !uri.isOpaque() && uri.getAuthority() == null
+                    && uri.getQuery() == null && uri.getFragment() == null) {
+                File file = new File(uri);
+                if (file.isFile()) {
+                    // any local file is served as a FileResource, whose channel lets
+                    // font files and compiled hyphenation patterns be memory-mapped
+                    return new FileResource(file);
+                }
+            }
             return new Resource(uri.toURL().openStream());
         }
 
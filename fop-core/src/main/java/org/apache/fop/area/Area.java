@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
@@ -540,4 +541,47 @@ public class Area extends AreaTreeObject implements Serializable {
             ipd = effectiveIPD;
         }
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeInt(areaClass);
+        out.writeInt(ipd);
+        out.writeInt(bpd);
+        out.writeInt(effectiveIPD);
+        out.writeInt(bidiLevel);
+        if (traits == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(traits.size());
+            for (Map.Entry<Integer, Object> entry : traits.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeValue(entry.getValue());
+            }
+        }
+        out.writeValue(changeBarList);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        areaClass = in.readInt();
+        ipd = in.readInt();
+        bpd = in.readInt();
+        effectiveIPD = in.readInt();
+        bidiLevel = in.readInt();
+        int count = in.readInt();
+        if (count < 0) {
+            traits = null;
+        } else {
+            traits = new TreeMap<Integer, Object>();
+            for (int i = 0; i < count; i++) {
+                traits.put(in.readInt(), in.readValue());
+            }
+        }
+        changeBarList = (List<ChangeBar>) in.readValue();
+    }
 }
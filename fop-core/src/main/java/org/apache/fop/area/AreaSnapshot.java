@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+package org.apache.fop.area;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An encoded copy of a list of areas, from which independent copies of the areas can be
+ * created any number of times. The areas are encoded by {@link AreaTreeOutput}, so objects
+ * it keeps by reference (images, foreign objects and the like) are shared by the copies.
+ */
+public final class AreaSnapshot {
+
+    private final byte[] data;
+    private final Object[] references;
+
+    /**
+     * Encodes the given areas.
+     * @param areas the areas
+     * @throws IOException if an area cannot be encoded
+     */
+    public AreaSnapshot(List<? extends Area> areas) throws IOException {
+        AreaTreeOutput out = new AreaTreeOutput();
+        out.writeValue(new ArrayList<Area>(areas));
+        data = Arrays.copyOf(out.getBuffer(), out.size());
+        references = out.getReferences();
+    }
+
+    /**
+     * Creates a new copy of the areas.
+     * @return the copied areas
+     * @throws IOException if the encoded areas cannot be decoded
+     */
+    @SuppressWarnings("unchecked")
+    public List<Area> restore() throws IOException {
+        return (List<Area>) new AreaTreeInput(data, 0, data.length, references).readValue();
+    }
+}
@@ -131,6 +131,8 @@ public class AreaTreeHandler extends FOEventHandler {
             OutputStream stream) throws FOPException {
         if (userAgent.isConserveMemoryPolicyEnabled()) {
             this.model = new CachedRenderPagesModel(userAgent, outputFormat, fontInfo, stream);
+        } else if (userAgent.isConcurrentRenderingEnabled()) {
+            this.model = new ConcurrentRenderPagesModel(userAgent, outputFormat, fontInfo, stream);
         } else {
             this.model = new RenderPagesModel(userAgent, outputFormat, fontInfo, stream);
         }
@@ -0,0 +1,406 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.fop.area.inline.Anchor;
+import org.apache.fop.area.inline.BasicLinkArea;
+import org.apache.fop.area.inline.Container;
+import org.apache.fop.area.inline.FilledArea;
+import org.apache.fop.area.inline.ForeignObject;
+import org.apache.fop.area.inline.Image;
+import org.apache.fop.area.inline.InlineArea;
+import org.apache.fop.area.inline.InlineBlock;
+import org.apache.fop.area.inline.InlineBlockParent;
+import org.apache.fop.area.inline.InlineParent;
+import org.apache.fop.area.inline.InlineViewport;
+import org.apache.fop.area.inline.Leader;
+import org.apache.fop.area.inline.ResolvedPageNumber;
+import org.apache.fop.area.inline.Space;
+import org.apache.fop.area.inline.SpaceArea;
+import org.apache.fop.area.inline.TextArea;
+import org.apache.fop.area.inline.UnresolvedPageNumber;
+import org.apache.fop.area.inline.WordArea;
+
+/**
+ * Reads pages written by {@link AreaTreeOutput}.
+ * <p>
+ * Areas are created through their constructors and their state is then restored by
+ * {@link AreaTreeObject#readData(AreaTreeInput)}, in the order it was written.
+ */
+public final class AreaTreeInput {
+
+    /** Returned by {@link #readReference()} when the caller must read a new object. */
+    public static final Object NEW = new Object();
+
+    private final byte[] buf;
+    private int pos;
+    private final int end;
+
+    private final Object[] references;
+    private int referenceIndex;
+
+    /** Objects read so far, by their index. */
+    private final List<Object> objects = new ArrayList<Object>();
+    private int pendingSlot = -1;
+
+    /**
+     * Creates a reader for an encoded page.
+     * @param buf the buffer
+     * @param offset the offset of the encoded page
+     * @param length the length of the encoded page
+     * @param references the objects kept by reference, may be null
+     */
+    AreaTreeInput(byte[] buf, int offset, int length, Object[] references) {
+        this.buf = buf;
+        this.pos = offset;
+        this.end = offset + length;
+        this.references = references;
+    }
+
+    /**
+     * Decodes a page.
+     * @return the page
+     * @throws IOException if the data is corrupt
+     */
+    Page readPage() throws IOException {
+        Object page = readValue();
+        if (!(page instanceof Page)) {
+            throw new IOException("Encoded data does not start with a page");
+        }
+        return (Page) page;
+    }
+
+    /**
+     * Reads an int.
+     * @return the value
+     * @throws IOException if the data is corrupt
+     */
+    public int readInt() throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IOException("Malformed variable-length int");
+    }
+
+    /**
+     * Reads a boolean.
+     * @return the value
+     * @throws IOException if the data is corrupt
+     */
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    /**
+     * Reads a double.
+     * @return the value
+     * @throws IOException if the data is corrupt
+     */
+    public double readDouble() throws IOException {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | readByte();
+        }
+        return Double.longBitsToDouble(v);
+    }
+
+    /**
+     * Reads a float.
+     * @return the value
+     * @throws IOException if the data is corrupt
+     */
+    public float readFloat() throws IOException {
+        int v = 0;
+        for (int i = 0; i < 4; i++) {
+            v = (v << 8) | readByte();
+        }
+        return Float.intBitsToFloat(v);
+    }
+
+    /**
+     * Reads a string.
+     * @return the value, may be null
+     * @throws IOException if the data is corrupt
+     */
+    public String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            int b = readByte();
+            if (b < 0x80) {
+                chars[i] = (char) b;
+            } else if (b < 0xE0) {
+                chars[i] = (char) (((b & 0x1F) << 6) | (readByte() & 0x3F));
+            } else {
+                int b2 = readByte();
+                chars[i] = (char) (((b & 0x0F) << 12) | ((b2 & 0x3F) << 6) | (readByte() & 0x3F));
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Reads an int array.
+     * @return the values, may be null
+     * @throws IOException if the data is corrupt
+     */
+    public int[] readIntArray() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = readInt();
+        }
+        return values;
+    }
+
+    /**
+     * Reads an array of int arrays.
+     * @return the values, may be null
+     * @throws IOException if the data is corrupt
+     */
+    public int[][] readIntArrays() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        int[][] values = new int[length][];
+        for (int i = 0; i < length; i++) {
+            values[i] = readIntArray();
+        }
+        return values;
+    }
+
+    /**
+     * Reads an object written by {@link AreaTreeOutput#writeReference(Object)}. If {@link #NEW}
+     * is returned, the caller must create the object, pass it to {@link #register(Object)} and
+     * then read its contents.
+     * @return the object, null or {@link #NEW}
+     * @throws IOException if the data is corrupt
+     */
+    public Object readReference() throws IOException {
+        int tag = readByte();
+        switch (tag) {
+        case AreaTreeOutput.NULL:
+            return null;
+        case AreaTreeOutput.REFERENCE:
+            return getObject(readInt());
+        case AreaTreeOutput.DATA:
+            pendingSlot = reserve();
+            return NEW;
+        default:
+            throw new IOException("Unexpected tag " + tag);
+        }
+    }
+
+    /**
+     * Registers the object created after {@link #readReference()} returned {@link #NEW}.
+     * @param obj the object
+     */
+    public void register(Object obj) {
+        objects.set(pendingSlot, obj);
+        pendingSlot = -1;
+    }
+
+    /**
+     * Reads a value written by {@link AreaTreeOutput#writeValue(Object)}.
+     * @return the value
+     * @throws IOException if the data is corrupt
+     */
+    public Object readValue() throws IOException {
+        int tag = readByte();
+        switch (tag) {
+        case AreaTreeOutput.NULL:
+            return null;
+        case AreaTreeOutput.REFERENCE:
+            return getObject(readInt());
+        case AreaTreeOutput.TRUE:
+            return Boolean.TRUE;
+        case AreaTreeOutput.FALSE:
+            return Boolean.FALSE;
+        case AreaTreeOutput.INTEGER:
+            return readInt();
+        case AreaTreeOutput.STRING:
+            return readString();
+        default:
+            break;
+        }
+        int slot = reserve();
+        Object value;
+        switch (tag) {
+        case AreaTreeOutput.OBJECT:
+            if (references == null || referenceIndex >= references.length) {
+                throw new IOException("Missing object kept by reference");
+            }
+            value = references[referenceIndex++];
+            break;
+        case AreaTreeOutput.INTERNAL_LINK:
+            value = new Trait.InternalLink(readString(), readString());
+            break;
+        case AreaTreeOutput.EXTERNAL_LINK:
+            value = new Trait.ExternalLink(readString(), readBoolean());
+            break;
+        case AreaTreeOutput.CTM:
+            value = new CTM(readDouble(), readDouble(), readDouble(),
+                    readDouble(), readDouble(), readDouble());
+            break;
+        case AreaTreeOutput.RECTANGLE:
+            value = new Rectangle(readInt(), readInt(), readInt(), readInt());
+            break;
+        case AreaTreeOutput.RECTANGLE_FLOAT:
+            value = new Rectangle2D.Float(readFloat(), readFloat(), readFloat(), readFloat());
+            break;
+        case AreaTreeOutput.RECTANGLE_DOUBLE:
+            value = new Rectangle2D.Double(readDouble(), readDouble(), readDouble(), readDouble());
+            break;
+        case AreaTreeOutput.LIST:
+            int size = readInt();
+            List<Object> list = new ArrayList<Object>(size);
+            objects.set(slot, list);
+            for (int i = 0; i < size; i++) {
+                list.add(readValue());
+            }
+            return list;
+        case AreaTreeOutput.LINK_RESOLVER:
+            LinkResolver resolver = new LinkResolver();
+            objects.set(slot, resolver);
+            resolver.readData(this);
+            return resolver;
+        case AreaTreeOutput.PAGE:
+            Page page = new Page();
+            objects.set(slot, page);
+            page.readData(this);
+            return page;
+        case AreaTreeOutput.AREA:
+            Area area = createArea(readInt());
+            objects.set(slot, area);
+            area.readData(this);
+            return area;
+        default:
+            throw new IOException("Unexpected tag " + tag);
+        }
+        objects.set(slot, value);
+        return value;
+    }
+
+    private Area createArea(int type) throws IOException {
+        switch (type) {
+        case AreaTreeOutput.AREA_PLAIN:
+            return new Area();
+        case AreaTreeOutput.REGION_VIEWPORT:
+            return new RegionViewport(null);
+        case AreaTreeOutput.REGION_REFERENCE:
+            return new RegionReference(0, null, null);
+        case AreaTreeOutput.BODY_REGION:
+            return new BodyRegion(0, null, null, 1, 0);
+        case AreaTreeOutput.MAIN_REFERENCE:
+            return new MainReference(null);
+        case AreaTreeOutput.SPAN:
+            return new Span(1, 0, 0);
+        case AreaTreeOutput.NORMAL_FLOW:
+            return new NormalFlow(0);
+        case AreaTreeOutput.BEFORE_FLOAT:
+            return new BeforeFloat();
+        case AreaTreeOutput.FOOTNOTE:
+            return new Footnote();
+        case AreaTreeOutput.BLOCK:
+            return new Block();
+        case AreaTreeOutput.BLOCK_VIEWPORT:
+            return new BlockViewport();
+        case AreaTreeOutput.SIDE_FLOAT:
+            return new SideFloat();
+        case AreaTreeOutput.LINE_AREA:
+            return new LineArea();
+        case AreaTreeOutput.ANCHOR:
+            return new Anchor();
+        case AreaTreeOutput.BASIC_LINK_AREA:
+            return new BasicLinkArea();
+        case AreaTreeOutput.CONTAINER:
+            return new Container();
+        case AreaTreeOutput.FILLED_AREA:
+            return new FilledArea();
+        case AreaTreeOutput.FOREIGN_OBJECT:
+            return new ForeignObject((String) null);
+        case AreaTreeOutput.IMAGE:
+            return new Image(null);
+        case AreaTreeOutput.INLINE_AREA:
+            return new InlineArea();
+        case AreaTreeOutput.INLINE_BLOCK:
+            return new InlineBlock((Block) readValue());
+        case AreaTreeOutput.INLINE_BLOCK_PARENT:
+            return new InlineBlockParent();
+        case AreaTreeOutput.INLINE_PARENT:
+            return new InlineParent();
+        case AreaTreeOutput.INLINE_VIEWPORT:
+            return new InlineViewport(null);
+        case AreaTreeOutput.LEADER:
+            return new Leader();
+        case AreaTreeOutput.RESOLVED_PAGE_NUMBER:
+            return new ResolvedPageNumber();
+        case AreaTreeOutput.SPACE:
+            return new Space();
+        case AreaTreeOutput.SPACE_AREA:
+            return new SpaceArea(0, -1, ' ', false);
+        case AreaTreeOutput.TEXT_AREA:
+            return new TextArea();
+        case AreaTreeOutput.UNRESOLVED_PAGE_NUMBER:
+            return new UnresolvedPageNumber();
+        case AreaTreeOutput.WORD_AREA:
+            return new WordArea(0, -1, null, null, null, null, false);
+        default:
+            throw new IOException("Unknown area type " + type);
+        }
+    }
+
+    private int reserve() {
+        objects.add(null);
+        return objects.size() - 1;
+    }
+
+    private Object getObject(int handle) throws IOException {
+        if (handle < 0 || handle >= objects.size()) {
+            throw new IOException("Invalid object reference " + handle);
+        }
+        return objects.get(handle);
+    }
+
+    private int readByte() throws IOException {
+        if (pos >= end) {
+            throw new IOException("Unexpected end of encoded page");
+        }
+        return buf[pos++] & 0xFF;
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -146,4 +147,41 @@ public abstract class AreaTreeObject implements Cloneable {
         return this.extensionAttachments != null && !this.extensionAttachments.isEmpty();
     }
 
+    /**
+     * Writes the state of this object for {@link AreaTreeInput}. Subclasses with state of
+     * their own override this method and call it first.
+     * @param out the output
+     * @throws IOException if an I/O error occurs
+     */
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        if (foreignAttributes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(foreignAttributes.size());
+            for (Map.Entry<QName, String> entry : foreignAttributes.entrySet()) {
+                out.writeValue(entry.getKey());
+                out.writeString(entry.getValue());
+            }
+        }
+        out.writeValue(extensionAttachments);
+    }
+
+    /**
+     * Restores the state written by {@link #writeData(AreaTreeOutput)}.
+     * @param in the input
+     * @throws IOException if the data is corrupt
+     */
+    @SuppressWarnings("unchecked")
+    protected void readData(AreaTreeInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            foreignAttributes = null;
+        } else {
+            foreignAttributes = new HashMap<QName, String>();
+            for (int i = 0; i < count; i++) {
+                foreignAttributes.put((QName) in.readValue(), in.readString());
+            }
+        }
+        extensionAttachments = (List<ExtensionAttachment>) in.readValue();
+    }
 }
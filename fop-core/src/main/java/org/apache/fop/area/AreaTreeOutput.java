@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.fop.area.inline.Anchor;
+import org.apache.fop.area.inline.BasicLinkArea;
+import org.apache.fop.area.inline.Container;
+import org.apache.fop.area.inline.FilledArea;
+import org.apache.fop.area.inline.ForeignObject;
+import org.apache.fop.area.inline.Image;
+import org.apache.fop.area.inline.InlineArea;
+import org.apache.fop.area.inline.InlineBlock;
+import org.apache.fop.area.inline.InlineBlockParent;
+import org.apache.fop.area.inline.InlineParent;
+import org.apache.fop.area.inline.InlineViewport;
+import org.apache.fop.area.inline.Leader;
+import org.apache.fop.area.inline.ResolvedPageNumber;
+import org.apache.fop.area.inline.Space;
+import org.apache.fop.area.inline.SpaceArea;
+import org.apache.fop.area.inline.TextArea;
+import org.apache.fop.area.inline.UnresolvedPageNumber;
+import org.apache.fop.area.inline.WordArea;
+
+/**
+ * Writes the contents of pages in the compact binary form used by {@link PageSpillFile}.
+ * <p>
+ * Every area type writes its own state through
+ * {@link AreaTreeObject#writeData(AreaTreeOutput)}, and is read back by
+ * {@link AreaTreeInput} without reflection. Integers are written as variable-length values,
+ * and objects referenced more than once within a page, such as the parent of an inline area
+ * or an unresolved page number listed in the page's unresolved references, are written once
+ * and referenced by index afterwards. Values which are not area tree data, like change bars,
+ * foreign DOM documents, extension attachments, colors or fonts, are immutable or owned by
+ * other parts of FOP; they are kept by reference next to the encoded page rather than copied.
+ */
+public final class AreaTreeOutput {
+
+    static final int NULL = 0;
+    static final int REFERENCE = 1;
+    static final int OBJECT = 2;
+    static final int TRUE = 3;
+    static final int FALSE = 4;
+    static final int INTEGER = 5;
+    static final int STRING = 6;
+    static final int INTERNAL_LINK = 7;
+    static final int EXTERNAL_LINK = 8;
+    static final int CTM = 9;
+    static final int RECTANGLE = 10;
+    static final int RECTANGLE_FLOAT = 11;
+    static final int RECTANGLE_DOUBLE = 12;
+    static final int LIST = 13;
+    static final int LINK_RESOLVER = 14;
+    static final int PAGE = 15;
+    static final int DATA = 16;
+    /** Tag of an area; the area type follows. */
+    static final int AREA = 17;
+
+    static final int AREA_PLAIN = 0;
+    static final int REGION_VIEWPORT = 1;
+    static final int REGION_REFERENCE = 2;
+    static final int BODY_REGION = 3;
+    static final int MAIN_REFERENCE = 4;
+    static final int SPAN = 5;
+    static final int NORMAL_FLOW = 6;
+    static final int BEFORE_FLOAT = 7;
+    static final int FOOTNOTE = 8;
+    static final int BLOCK = 9;
+    static final int BLOCK_VIEWPORT = 10;
+    static final int SIDE_FLOAT = 11;
+    static final int LINE_AREA = 12;
+    static final int ANCHOR = 13;
+    static final int BASIC_LINK_AREA = 14;
+    static final int CONTAINER = 15;
+    static final int FILLED_AREA = 16;
+    static final int FOREIGN_OBJECT = 17;
+    static final int IMAGE = 18;
+    static final int INLINE_AREA = 19;
+    static final int INLINE_BLOCK = 20;
+    static final int INLINE_BLOCK_PARENT = 21;
+    static final int INLINE_PARENT = 22;
+    static final int INLINE_VIEWPORT = 23;
+    static final int LEADER = 24;
+    static final int RESOLVED_PAGE_NUMBER = 25;
+    static final int SPACE = 26;
+    static final int SPACE_AREA = 27;
+    static final int TEXT_AREA = 28;
+    static final int UNRESOLVED_PAGE_NUMBER = 29;
+    static final int WORD_AREA = 30;
+
+    private static final Map<Class<?>, Integer> AREA_TYPES = new HashMap<Class<?>, Integer>();
+
+    static {
+        AREA_TYPES.put(Area.class, AREA_PLAIN);
+        AREA_TYPES.put(RegionViewport.class, REGION_VIEWPORT);
+        AREA_TYPES.put(RegionReference.class, REGION_REFERENCE);
+        AREA_TYPES.put(BodyRegion.class, BODY_REGION);
+        AREA_TYPES.put(MainReference.class, MAIN_REFERENCE);
+        AREA_TYPES.put(Span.class, SPAN);
+        AREA_TYPES.put(NormalFlow.class, NORMAL_FLOW);
+        AREA_TYPES.put(BeforeFloat.class, BEFORE_FLOAT);
+        AREA_TYPES.put(Footnote.class, FOOTNOTE);
+        AREA_TYPES.put(Block.class, BLOCK);
+        AREA_TYPES.put(BlockViewport.class, BLOCK_VIEWPORT);
+        AREA_TYPES.put(SideFloat.class, SIDE_FLOAT);
+        AREA_TYPES.put(LineArea.class, LINE_AREA);
+        AREA_TYPES.put(Anchor.class, ANCHOR);
+        AREA_TYPES.put(BasicLinkArea.class, BASIC_LINK_AREA);
+        AREA_TYPES.put(Container.class, CONTAINER);
+        AREA_TYPES.put(FilledArea.class, FILLED_AREA);
+        AREA_TYPES.put(ForeignObject.class, FOREIGN_OBJECT);
+        AREA_TYPES.put(Image.class, IMAGE);
+        AREA_TYPES.put(InlineArea.class, INLINE_AREA);
+        AREA_TYPES.put(InlineBlock.class, INLINE_BLOCK);
+        AREA_TYPES.put(InlineBlockParent.class, INLINE_BLOCK_PARENT);
+        AREA_TYPES.put(InlineParent.class, INLINE_PARENT);
+        AREA_TYPES.put(InlineViewport.class, INLINE_VIEWPORT);
+        AREA_TYPES.put(Leader.class, LEADER);
+        AREA_TYPES.put(ResolvedPageNumber.class, RESOLVED_PAGE_NUMBER);
+        AREA_TYPES.put(Space.class, SPACE);
+        AREA_TYPES.put(SpaceArea.class, SPACE_AREA);
+        AREA_TYPES.put(TextArea.class, TEXT_AREA);
+        AREA_TYPES.put(UnresolvedPageNumber.class, UNRESOLVED_PAGE_NUMBER);
+        AREA_TYPES.put(WordArea.class, WORD_AREA);
+    }
+
+    private byte[] buf = new byte[64 * 1024];
+    private int count;
+
+    /** Objects written so far, mapped to their index. */
+    private final Map<Object, Integer> handles = new IdentityHashMap<Object, Integer>();
+
+    /** Objects kept by reference rather than encoded. */
+    private final List<Object> references = new ArrayList<Object>();
+
+    AreaTreeOutput() {
+    }
+
+    /**
+     * Discards the encoded page so this instance can be reused for the next one.
+     */
+    void reset() {
+        count = 0;
+        handles.clear();
+        references.clear();
+    }
+
+    /** @return the buffer holding the encoded page */
+    byte[] getBuffer() {
+        return buf;
+    }
+
+    /** @return the number of bytes of the encoded page */
+    int size() {
+        return count;
+    }
+
+    /** @return the objects the encoded page refers to, in the order they are read back */
+    Object[] getReferences() {
+        return references.isEmpty() ? null : references.toArray();
+    }
+
+    /**
+     * Encodes a page.
+     * @param page the page
+     * @throws IOException if an I/O error occurs
+     */
+    void writePage(Page page) throws IOException {
+        writeValue(page);
+    }
+
+    /**
+     * Writes an int as a variable-length value; small positive and negative values take
+     * a single byte.
+     * @param value the value
+     */
+    public void writeInt(int value) {
+        int v = (value << 1) ^ (value >> 31);
+        ensureCapacity(5);
+        while ((v & ~0x7F) != 0) {
+            buf[count++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[count++] = (byte) v;
+    }
+
+    /**
+     * Writes a boolean.
+     * @param value the value
+     */
+    public void writeBoolean(boolean value) {
+        ensureCapacity(1);
+        buf[count++] = (byte) (value ? 1 : 0);
+    }
+
+    /**
+     * Writes a double.
+     * @param value the value
+     */
+    public void writeDouble(double value) {
+        long v = Double.doubleToLongBits(value);
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buf[count++] = (byte) (v >>> shift);
+        }
+    }
+
+    /**
+     * Writes a float.
+     * @param value the value
+     */
+    public void writeFloat(float value) {
+        int v = Float.floatToIntBits(value);
+        ensureCapacity(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            buf[count++] = (byte) (v >>> shift);
+        }
+    }
+
+    /**
+     * Writes a string, which may be null.
+     * @param value the value
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        int length = value.length();
+        writeInt(length);
+        ensureCapacity(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buf[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[count++] = (byte) (0xC0 | (c >> 6));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                buf[count++] = (byte) (0xE0 | (c >> 12));
+                buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Writes an int array, which may be null.
+     * @param values the values
+     */
+    public void writeIntArray(int[] values) {
+        if (values == null) {
+            writeInt(-1);
+            return;
+        }
+        writeInt(values.length);
+        for (int value : values) {
+            writeInt(value);
+        }
+    }
+
+    /**
+     * Writes an array of int arrays, which may be null or contain null elements.
+     * @param values the values
+     */
+    public void writeIntArrays(int[][] values) {
+        if (values == null) {
+            writeInt(-1);
+            return;
+        }
+        writeInt(values.length);
+        for (int[] value : values) {
+            writeIntArray(value);
+        }
+    }
+
+    /**
+     * Writes an object whose contents are written by the caller. If the object is null or has
+     * already been written to this page, a reference to it is written instead and the caller
+     * must not write its contents.
+     * @param value the object
+     * @return true if the caller must write the contents of the object
+     */
+    public boolean writeReference(Object value) {
+        if (writeHandle(value)) {
+            return false;
+        }
+        writeTag(DATA);
+        return true;
+    }
+
+    /**
+     * Writes a value of the area tree: an area, a trait value, a list of values or any other
+     * object held by an area.
+     * @param value the value, may be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeValue(Object value) throws IOException {
+        if (value instanceof Integer) {
+            writeTag(INTEGER);
+            writeInt((Integer) value);
+        } else if (value instanceof Boolean) {
+            writeTag((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof String) {
+            writeTag(STRING);
+            writeString((String) value);
+        } else if (writeHandle(value)) {
+            return;
+        } else {
+            Class<?> type = value.getClass();
+            Integer areaType = AREA_TYPES.get(type);
+            if (areaType != null) {
+                writeTag(AREA);
+                writeInt(areaType);
+                if (areaType == INLINE_BLOCK) {
+                    writeValue(((InlineBlock) value).getBlock());
+                }
+                ((Area) value).writeData(this);
+            } else if (type == Page.class) {
+                writeTag(PAGE);
+                ((Page) value).writeData(this);
+            } else if (type == LinkResolver.class) {
+                writeTag(LINK_RESOLVER);
+                ((LinkResolver) value).writeData(this);
+            } else if (type == ArrayList.class) {
+                List<?> list = (List<?>) value;
+                writeTag(LIST);
+                writeInt(list.size());
+                for (Object element : list) {
+                    writeValue(element);
+                }
+            } else if (type == Trait.InternalLink.class) {
+                Trait.InternalLink link = (Trait.InternalLink) value;
+                writeTag(INTERNAL_LINK);
+                writeString(link.getPVKey());
+                writeString(link.getIDRef());
+            } else if (type == Trait.ExternalLink.class) {
+                Trait.ExternalLink link = (Trait.ExternalLink) value;
+                writeTag(EXTERNAL_LINK);
+                writeString(link.getDestination());
+                writeBoolean(link.newWindow());
+            } else if (type == org.apache.fop.area.CTM.class) {
+                writeTag(CTM);
+                for (double d : ((org.apache.fop.area.CTM) value).toArray()) {
+                    writeDouble(d);
+                }
+            } else if (type == Rectangle.class) {
+                Rectangle rect = (Rectangle) value;
+                writeTag(RECTANGLE);
+                writeInt(rect.x);
+                writeInt(rect.y);
+                writeInt(rect.width);
+                writeInt(rect.height);
+            } else if (type == Rectangle2D.Float.class) {
+                Rectangle2D.Float rect = (Rectangle2D.Float) value;
+                writeTag(RECTANGLE_FLOAT);
+                writeFloat(rect.x);
+                writeFloat(rect.y);
+                writeFloat(rect.width);
+                writeFloat(rect.height);
+            } else if (type == Rectangle2D.Double.class) {
+                Rectangle2D.Double rect = (Rectangle2D.Double) value;
+                writeTag(RECTANGLE_DOUBLE);
+                writeDouble(rect.x);
+                writeDouble(rect.y);
+                writeDouble(rect.width);
+                writeDouble(rect.height);
+            } else {
+                writeTag(OBJECT);
+                references.add(value);
+            }
+        }
+    }
+
+    /**
+     * Writes null or a reference to an object already written, or registers a new object.
+     * @return true if null or a reference has been written
+     */
+    private boolean writeHandle(Object value) {
+        if (value == null) {
+            writeTag(NULL);
+            return true;
+        }
+        Integer handle = handles.get(value);
+        if (handle != null) {
+            writeTag(REFERENCE);
+            writeInt(handle);
+            return true;
+        }
+        handles.put(value, handles.size());
+        return false;
+    }
+
+    private void writeTag(int tag) {
+        ensureCapacity(1);
+        buf[count++] = (byte) tag;
+    }
+
+    private void ensureCapacity(int n) {
+        if (count + n > buf.length) {
+            byte[] newBuf = new byte[Math.max(buf.length * 2, count + n)];
+            System.arraycopy(buf, 0, newBuf, 0, count);
+            buf = newBuf;
+        }
+    }
+}
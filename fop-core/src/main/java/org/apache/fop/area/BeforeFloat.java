@@ -19,6 +19,8 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
+
 /**
  * The before-float-reference-area optionally generated by an fo:region-body.
  * It has an optional separator and before float block children.
@@ -71,5 +73,19 @@ public class BeforeFloat extends BlockParent {
     public boolean isEmpty() {
         return true; // before floats are not yet implemented
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(separator);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        separator = (Block) in.readValue();
+    }
 }
 
@@ -200,5 +200,25 @@ public class Block extends BlockParent {
             ipd = effectiveIPD;
         }
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeInt(positioning);
+        out.writeBoolean(allowBPDUpdate);
+        out.writeValue(locale);
+        out.writeString(location);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        positioning = in.readInt();
+        allowBPDUpdate = in.readBoolean();
+        locale = (Locale) in.readValue();
+        location = in.readString();
+    }
 }
 
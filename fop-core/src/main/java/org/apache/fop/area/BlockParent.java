@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -144,4 +145,23 @@ public class BlockParent extends Area {
             }
         }
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeInt(xOffset);
+        out.writeInt(yOffset);
+        out.writeValue(children);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        xOffset = in.readInt();
+        yOffset = in.readInt();
+        children = (List<Area>) in.readValue();
+    }
 }
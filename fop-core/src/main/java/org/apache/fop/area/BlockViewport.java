@@ -20,6 +20,7 @@
 package org.apache.fop.area;
 
 import java.awt.Rectangle;
+import java.io.IOException;
 
 /**
  * A BlockViewport.
@@ -97,5 +98,21 @@ public class BlockViewport extends Block implements Viewport  {
     public int getEffectiveIPD() {
         return getIPD();
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeBoolean(clip);
+        out.writeValue(viewportCTM);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        clip = in.readBoolean();
+        viewportCTM = (CTM) in.readValue();
+    }
 }
 
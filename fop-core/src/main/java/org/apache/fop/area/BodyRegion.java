@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.apache.fop.fo.pagination.RegionBody;
@@ -168,4 +169,25 @@ public class BodyRegion extends RegionReference {
         return br;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(beforeFloat);
+        out.writeValue(mainReference);
+        out.writeValue(footnote);
+        out.writeInt(columnGap);
+        out.writeInt(columnCount);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        beforeFloat = (BeforeFloat) in.readValue();
+        mainReference = (MainReference) in.readValue();
+        footnote = (Footnote) in.readValue();
+        columnGap = in.readInt();
+        columnCount = in.readInt();
+    }
 }
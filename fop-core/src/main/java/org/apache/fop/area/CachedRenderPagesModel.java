@@ -19,24 +19,12 @@
 
 package org.apache.fop.area;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
-import java.net.URI;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 
 import org.xml.sax.SAXException;
 
-import org.apache.commons.io.IOUtils;
-
-import org.apache.xmlgraphics.io.TempResourceURIGenerator;
-
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.fonts.FontInfo;
@@ -46,15 +34,17 @@ import org.apache.fop.fonts.FontInfo;
  * If the page is prepared for later rendering then this saves
  * the page contents to a file and once the page is resolved
  * the contents are reloaded.
+ * <p>
+ * Saved pages are encoded in a compact binary form and appended to
+ * temporary resources obtained from the user agent's resource resolver
+ * (see {@link PageSpillFile}). The number of bytes spilled and
+ * the time spent restoring pages are logged at debug level at the
+ * end of the document.
  */
 public class CachedRenderPagesModel extends RenderPagesModel {
 
-    private Map<PageViewport, URI> pageMap = new HashMap<PageViewport, URI>();
-
-    /** Base directory to save temporary file in, typically points to the user's temp dir. */
-    private final URI tempBaseURI;
-    private static final TempResourceURIGenerator TEMP_URI_GENERATOR
-            = new TempResourceURIGenerator("cached-pages");
+    /** The spill file holding saved pages, created on first use. */
+    private PageSpillFile spillFile;
 
     /**
      * Main Constructor
@@ -67,7 +57,6 @@ public class CachedRenderPagesModel extends RenderPagesModel {
     public CachedRenderPagesModel(FOUserAgent userAgent, String outputFormat,
             FontInfo fontInfo, OutputStream stream) throws FOPException {
         super(userAgent, outputFormat, fontInfo, stream);
-        tempBaseURI = TEMP_URI_GENERATOR.generate();
     }
 
     /** {@inheritDoc} */
@@ -76,20 +65,15 @@ public class CachedRenderPagesModel extends RenderPagesModel {
         for (Iterator iter = prepared.iterator(); iter.hasNext();) {
             PageViewport pageViewport = (PageViewport)iter.next();
             if (pageViewport.isResolved() || renderUnresolved) {
-                if (pageViewport != newpage) {
+                if (pageViewport != newpage && spillFile != null
+                        && spillFile.contains(pageViewport)) {
                     try {
                         // load page from cache
-                        URI tempURI = pageMap.get(pageViewport);
-                        log.debug("Loading page from: " + tempURI);
-                        InputStream inStream = renderer.getUserAgent().getResourceResolver().getResource(tempURI);
-                        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(inStream));
-                        try {
-                            pageViewport.loadPage(in);
-                        } finally {
-                            IOUtils.closeQuietly(inStream);
-                            IOUtils.closeQuietly(in);
+                        if (log.isDebugEnabled()) {
+                            log.debug("Loading page " + pageViewport.getPageNumberString()
+                                    + " from cache");
                         }
-                        pageMap.remove(pageViewport);
+                        spillFile.load(pageViewport);
                     } catch (Exception e) {
                         AreaEventProducer eventProducer = AreaEventProducer.Provider.get(
                                 renderer.getUserAgent().getEventBroadcaster());
@@ -97,6 +81,10 @@ public class CachedRenderPagesModel extends RenderPagesModel {
                     }
                 }
 
+                if (!renderer.supportsOutOfOrder()
+                        && pageViewport.getPageSequence().isFirstPage(pageViewport)) {
+                    renderer.startPageSequence(pageViewport.getPageSequence());
+                }
                 renderPage(pageViewport);
                 pageViewport.clear();
                 iter.remove();
@@ -108,33 +96,24 @@ public class CachedRenderPagesModel extends RenderPagesModel {
         }
         if (newpage != null && newpage.getPage() != null) {
             savePage(newpage);
-            newpage.clear();
         }
         return renderer.supportsOutOfOrder() || prepared.isEmpty();
     }
 
     /**
      * Save a page.
-     * It saves the contents of the page to a file.
+     * It saves the contents of the page to the spill file.
      *
      * @param page the page to prepare
      */
     protected void savePage(PageViewport page) {
         try {
-            // save page to cache
-            ObjectOutputStream tempstream;
-            String fname = "fop-page-" + page.getPageIndex() + ".ser";
-            URI tempURI = tempBaseURI.resolve(fname);
-            OutputStream outStream = renderer.getUserAgent().getResourceResolver().getOutputStream(tempURI);
-            tempstream = new ObjectOutputStream(new BufferedOutputStream(outStream));
-            try {
-                page.savePage(tempstream);
-            } finally {
-                IOUtils.closeQuietly(tempstream);
+            if (spillFile == null) {
+                spillFile = new PageSpillFile(renderer.getUserAgent().getResourceResolver());
             }
-            pageMap.put(page, tempURI);
+            spillFile.save(page);
             if (log.isDebugEnabled()) {
-                log.debug("Page saved to temporary file: " + tempURI);
+                log.debug("Page " + page.getPageNumberString() + " saved to cache");
             }
         } catch (IOException ioe) {
             AreaEventProducer eventProducer
@@ -147,7 +126,23 @@ public class CachedRenderPagesModel extends RenderPagesModel {
     /** {@inheritDoc} */
     @Override
     public void endDocument() throws SAXException {
-        super.endDocument();
+        try {
+            super.endDocument();
+        } finally {
+            if (spillFile != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Page cache: " + spillFile.getPagesSpilled() + " pages, "
+                            + spillFile.getBytesSpilled() + " bytes spilled; "
+                            + spillFile.getPagesRestored() + " pages restored in "
+                            + (spillFile.getRestoreNanos() / 1000000L) + "ms");
+                }
+                try {
+                    spillFile.close();
+                } catch (IOException ioe) {
+                    log.warn("Could not release page cache: " + ioe.getMessage());
+                }
+                spillFile = null;
+            }
+        }
     }
 }
-
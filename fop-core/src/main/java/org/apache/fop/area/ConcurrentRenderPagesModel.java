@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.xml.sax.SAXException;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.render.Graphics2DAdapter;
+import org.apache.fop.render.ImageAdapter;
+import org.apache.fop.render.Renderer;
+
+/**
+ * A render pages model which hands finished pages over to a dedicated rendering thread
+ * so layout of the following pages and page sequences can continue on the calling thread.
+ * <p>
+ * All calls to the renderer are executed on a single worker thread in the order they were
+ * issued, so renderers don't need to be thread-safe and the output order is the same as with
+ * {@link RenderPagesModel}. ID references are still resolved on the layout thread before a page
+ * is handed over. The number of pages waiting to be rendered is bounded to keep the heap usage
+ * in line with the synchronous model.
+ * <p>
+ * Layout itself, including the layout of successive page sequences, stays on the calling thread:
+ * page numbering, markers and ID resolution make each page sequence depend on the previous one.
+ * The only state shared between the two threads is the fonts, whose glyph mapping
+ * ({@link org.apache.fop.fonts.CIDSubset}, {@link org.apache.fop.fonts.SingleByteFont}) is
+ * synchronized for this reason.
+ */
+public class ConcurrentRenderPagesModel extends RenderPagesModel {
+
+    /** The default maximum number of pages which may be waiting for the rendering thread. */
+    public static final int DEFAULT_MAX_PENDING_PAGES = 16;
+
+    private final ExecutorService executor;
+
+    private final Semaphore pendingPages;
+
+    /** The first failure that happened on the rendering thread. */
+    private volatile Throwable failure;
+
+    /**
+     * Create a new concurrent render pages model.
+     * @param userAgent FOUserAgent object for process
+     * @param outputFormat the MIME type of the output format to use (ex. "application/pdf").
+     * @param fontInfo FontInfo object
+     * @param stream OutputStream
+     * @throws FOPException if the renderer cannot be properly initialized
+     */
+    public ConcurrentRenderPagesModel(FOUserAgent userAgent, String outputFormat,
+            FontInfo fontInfo, OutputStream stream) throws FOPException {
+        this(userAgent, outputFormat, fontInfo, stream, DEFAULT_MAX_PENDING_PAGES);
+    }
+
+    /**
+     * Create a new concurrent render pages model.
+     * @param userAgent FOUserAgent object for process
+     * @param outputFormat the MIME type of the output format to use (ex. "application/pdf").
+     * @param fontInfo FontInfo object
+     * @param stream OutputStream
+     * @param maxPendingPages the maximum number of pages waiting for the rendering thread
+     * @throws FOPException if the renderer cannot be properly initialized
+     */
+    public ConcurrentRenderPagesModel(FOUserAgent userAgent, String outputFormat,
+            FontInfo fontInfo, OutputStream stream, int maxPendingPages) throws FOPException {
+        super(userAgent, outputFormat, fontInfo, stream);
+        if (maxPendingPages < 1) {
+            throw new IllegalArgumentException("maxPendingPages must be at least 1");
+        }
+        this.pendingPages = new Semaphore(maxPendingPages);
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "FOP page renderer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.renderer = new DeferredRenderer(this.renderer);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void releasePage(final PageViewport page) {
+        execute(new RenderTask() {
+            public void run() {
+                try {
+                    page.clear();
+                } finally {
+                    pendingPages.release();
+                }
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endDocument() throws SAXException {
+        try {
+            super.endDocument();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void execute(final RenderTask task) {
+        checkFailure();
+        executor.execute(new Runnable() {
+            public void run() {
+                if (failure != null) {
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    failure = t;
+                }
+            }
+        });
+    }
+
+    /**
+     * Rethrows a failure that happened on the rendering thread on the layout thread.
+     */
+    private void checkFailure() {
+        Throwable t = failure;
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new IllegalStateException("Fatal error occurred while rendering. Cannot continue. "
+                    + t.getClass().getName() + ": " + t.getMessage(), t);
+        }
+    }
+
+    private void awaitCompletion() throws IOException {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                log.debug("Waiting for the rendering thread to finish...");
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the rendering thread");
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        checkFailure();
+    }
+
+    private interface RenderTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * Forwards all state-changing calls to the wrapped renderer through the rendering thread.
+     */
+    private class DeferredRenderer implements Renderer {
+
+        private final Renderer delegate;
+
+        DeferredRenderer(Renderer delegate) {
+            this.delegate = delegate;
+        }
+
+        public String getMimeType() {
+            return delegate.getMimeType();
+        }
+
+        public void startRenderer(OutputStream outputStream) throws IOException {
+            throw new IllegalStateException("Renderer already started");
+        }
+
+        public void stopRenderer() throws IOException {
+            execute(new RenderTask() {
+                public void run() throws Exception {
+                    delegate.stopRenderer();
+                }
+            });
+            awaitCompletion();
+        }
+
+        public FOUserAgent getUserAgent() {
+            return delegate.getUserAgent();
+        }
+
+        public void setupFontInfo(FontInfo fontInfo) throws FOPException {
+            throw new IllegalStateException("Renderer already set up");
+        }
+
+        public boolean supportsOutOfOrder() {
+            return delegate.supportsOutOfOrder();
+        }
+
+        public void setDocumentLocale(final Locale locale) {
+            execute(new RenderTask() {
+                public void run() {
+                    delegate.setDocumentLocale(locale);
+                }
+            });
+        }
+
+        public void processOffDocumentItem(final OffDocumentItem odi) {
+            execute(new RenderTask() {
+                public void run() {
+                    delegate.processOffDocumentItem(odi);
+                }
+            });
+        }
+
+        public Graphics2DAdapter getGraphics2DAdapter() {
+            return delegate.getGraphics2DAdapter();
+        }
+
+        public ImageAdapter getImageAdapter() {
+            return delegate.getImageAdapter();
+        }
+
+        public void preparePage(final PageViewport page) {
+            execute(new RenderTask() {
+                public void run() {
+                    delegate.preparePage(page);
+                }
+            });
+        }
+
+        /** @deprecated Use {@link #startPageSequence(PageSequence)} instead */
+        @Deprecated
+        public void startPageSequence(final LineArea seqTitle) {
+            execute(new RenderTask() {
+                public void run() {
+                    delegate.startPageSequence(seqTitle);
+                }
+            });
+        }
+
+        public void startPageSequence(final PageSequence pageSequence) {
+            execute(new RenderTask() {
+                public void run() {
+                    delegate.startPageSequence(pageSequence);
+                }
+            });
+        }
+
+        public void renderPage(final PageViewport page) throws IOException, FOPException {
+            try {
+                while (!pendingPages.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    checkFailure();
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new FOPException("Interrupted while waiting for the rendering thread");
+            }
+            execute(new RenderTask() {
+                public void run() throws Exception {
+                    delegate.renderPage(page);
+                }
+            });
+        }
+    }
+}
@@ -19,6 +19,8 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
+
 // may combine with before float into a conditional area
 
 /**
@@ -86,5 +88,20 @@ public class Footnote extends BlockParent {
         setBPD(getBPD() + child.getAllocBPD());
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(separator);
+        out.writeInt(top);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        separator = (Block) in.readValue();
+        top = in.readInt();
+    }
 }
 
@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -295,5 +296,36 @@ public class LineArea extends Area {
         return maxIPD;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeBoolean(adjustingInfo != null);
+        if (adjustingInfo != null) {
+            out.writeInt(adjustingInfo.lineAlignment);
+            out.writeInt(adjustingInfo.difference);
+            out.writeInt(adjustingInfo.availableStretch);
+            out.writeInt(adjustingInfo.availableShrink);
+            out.writeDouble(adjustingInfo.variationFactor);
+            out.writeBoolean(adjustingInfo.bAddedToAreaTree);
+        }
+        out.writeValue(inlineAreas);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        if (in.readBoolean()) {
+            adjustingInfo = new LineAdjustingInfo(in.readInt(), in.readInt(),
+                    in.readInt(), in.readInt());
+            adjustingInfo.variationFactor = in.readDouble();
+            adjustingInfo.bAddedToAreaTree = in.readBoolean();
+        } else {
+            adjustingInfo = null;
+        }
+        inlineAreas = (List<InlineArea>) in.readValue();
+    }
 }
 
@@ -121,4 +121,28 @@ public class LinkResolver implements Resolvable, Serializable {
         }
     }
 
+    /**
+     * Writes the state of this resolver for {@link AreaTreeInput}.
+     * @param out the output
+     * @throws IOException if an I/O error occurs
+     */
+    void writeData(AreaTreeOutput out) throws IOException {
+        out.writeBoolean(resolved);
+        out.writeString(idRef);
+        out.writeValue(area);
+        out.writeValue(dependents);
+    }
+
+    /**
+     * Restores the state written by {@link #writeData(AreaTreeOutput)}.
+     * @param in the input
+     * @throws IOException if the data is corrupt
+     */
+    @SuppressWarnings("unchecked")
+    void readData(AreaTreeInput in) throws IOException {
+        resolved = in.readBoolean();
+        idRef = in.readString();
+        area = (Area) in.readValue();
+        dependents = (List<Resolvable>) in.readValue();
+    }
 }
@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -137,5 +138,25 @@ public class MainReference extends Area {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(parent);
+        out.writeValue(spanAreas);
+        out.writeBoolean(isEmpty);
+        out.writeValue(wmtg);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        parent = (BodyRegion) in.readValue();
+        spanAreas = (List<Span>) in.readValue();
+        isEmpty = in.readBoolean();
+        wmtg = (WritingModeTraitsGetter) in.readValue();
+    }
 }
 
@@ -21,7 +21,9 @@ package org.apache.fop.area;
 
 import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -321,6 +323,48 @@ public class Page extends AreaTreeObject implements Serializable {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(regionBefore);
+        out.writeValue(regionStart);
+        out.writeValue(regionBody);
+        out.writeValue(regionEnd);
+        out.writeValue(regionAfter);
+        if (unresolved == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(unresolved.size());
+            for (Map.Entry<String, List<Resolvable>> entry : unresolved.entrySet()) {
+                out.writeString(entry.getKey());
+                out.writeValue(entry.getValue());
+            }
+        }
+        out.writeBoolean(fakeNonEmpty);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        regionBefore = (RegionViewport) in.readValue();
+        regionStart = (RegionViewport) in.readValue();
+        regionBody = (RegionViewport) in.readValue();
+        regionEnd = (RegionViewport) in.readValue();
+        regionAfter = (RegionViewport) in.readValue();
+        int count = in.readInt();
+        if (count < 0) {
+            unresolved = null;
+        } else {
+            unresolved = new HashMap<String, List<Resolvable>>();
+            for (int i = 0; i < count; i++) {
+                unresolved.put(in.readString(), (List<Resolvable>) in.readValue());
+            }
+        }
+        fakeNonEmpty = in.readBoolean();
+    }
 }
 
 
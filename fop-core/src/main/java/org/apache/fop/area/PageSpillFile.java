@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.xmlgraphics.io.TempResourceURIGenerator;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * Append-only temporary storage for the contents of pages which cannot be rendered yet.
+ * <p>
+ * Pages are encoded by {@link AreaTreeOutput} and appended to a temporary resource obtained
+ * from the user agent's resource resolver. A resource is only read once, sequentially, when
+ * the first page it holds is needed: writing then continues in a new resource. Pages which
+ * precede the requested one and are still parked are copied to the resource being written, so
+ * each resource can be released as soon as it has been read. Since pages are usually restored
+ * in about the order they were parked, little is copied.
+ */
+final class PageSpillFile {
+
+    private static final TempResourceURIGenerator TEMP_URI_GENERATOR
+            = new TempResourceURIGenerator("cached-pages");
+
+    private final InternalResourceResolver resolver;
+
+    private final Map<PageViewport, Entry> index = new HashMap<PageViewport, Entry>();
+    private final List<Segment> segments = new ArrayList<Segment>();
+
+    /** The segment pages are appended to, null until the first page is parked. */
+    private Segment current;
+
+    private final AreaTreeOutput output = new AreaTreeOutput();
+    private byte[] readBuffer = new byte[64 * 1024];
+
+    private long bytesSpilled;
+    private int pagesSpilled;
+    private int pagesRestored;
+    private long restoreNanos;
+
+    /**
+     * Creates a new spill file.
+     * @param resolver the resolver providing the temporary resources
+     */
+    PageSpillFile(InternalResourceResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * Appends the contents of the given page and releases them from the page.
+     * @param page the page to park
+     * @throws IOException if an I/O error occurs
+     */
+    void save(PageViewport page) throws IOException {
+        output.reset();
+        page.savePage(output);
+        Entry entry = new Entry(output.getReferences());
+        append(entry, output.getBuffer(), output.size());
+        index.put(page, entry);
+        bytesSpilled += entry.length;
+        pagesSpilled++;
+    }
+
+    /**
+     * Indicates whether the contents of the given page are parked in this file.
+     * @param page the page
+     * @return true if the page has been saved and not been restored yet
+     */
+    boolean contains(PageViewport page) {
+        return index.containsKey(page);
+    }
+
+    /**
+     * Restores the contents of a previously saved page.
+     * @param page the page to restore
+     * @throws IOException if an I/O error occurs
+     */
+    void load(PageViewport page) throws IOException {
+        Entry entry = index.remove(page);
+        if (entry == null) {
+            throw new IllegalStateException("Page " + page.getPageNumberString() + " not saved");
+        }
+        long start = System.nanoTime();
+        Segment segment = entry.segment;
+        if (segment == current) {
+            current.closeOutput();
+            current = null;
+        }
+        segment.openInput();
+        Entry next;
+        do {
+            next = segment.entries.removeFirst();
+            readFully(segment.in, next.length);
+            if (next != entry) {
+                // parked before the requested page: move it to the segment being written
+                append(next, readBuffer, next.length);
+            }
+        } while (next != entry);
+        if (segment.entries.isEmpty()) {
+            release(segment);
+        }
+        page.loadPage(new AreaTreeInput(readBuffer, 0, entry.length, entry.references));
+        restoreNanos += System.nanoTime() - start;
+        pagesRestored++;
+    }
+
+    /**
+     * Releases all temporary resources.
+     * @throws IOException if an I/O error occurs
+     */
+    void close() throws IOException {
+        index.clear();
+        current = null;
+        IOException first = null;
+        while (!segments.isEmpty()) {
+            try {
+                release(segments.get(segments.size() - 1));
+            } catch (IOException ioe) {
+                if (first == null) {
+                    first = ioe;
+                }
+            }
+        }
+        if (first != null) {
+            throw first;
+        }
+    }
+
+    /** @return the number of bytes written to the file */
+    long getBytesSpilled() {
+        return bytesSpilled;
+    }
+
+    /** @return the number of pages written to the file */
+    int getPagesSpilled() {
+        return pagesSpilled;
+    }
+
+    /** @return the number of pages restored from the file */
+    int getPagesRestored() {
+        return pagesRestored;
+    }
+
+    /** @return the total time spent restoring pages, in nanoseconds */
+    long getRestoreNanos() {
+        return restoreNanos;
+    }
+
+    private void append(Entry entry, byte[] data, int length) throws IOException {
+        if (current == null) {
+            current = new Segment(TEMP_URI_GENERATOR.generate());
+            segments.add(current);
+            current.out = resolver.getOutputStream(current.uri);
+        }
+        current.out.write(data, 0, length);
+        entry.segment = current;
+        entry.length = length;
+        current.entries.add(entry);
+    }
+
+    private void readFully(InputStream in, int length) throws IOException {
+        if (readBuffer.length < length) {
+            readBuffer = new byte[Math.max(readBuffer.length * 2, length)];
+        }
+        int off = 0;
+        while (off < length) {
+            int n = in.read(readBuffer, off, length - off);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of parked page data");
+            }
+            off += n;
+        }
+    }
+
+    private void release(Segment segment) throws IOException {
+        segments.remove(segment);
+        try {
+            segment.closeOutput();
+            // reading the resource once allows the resolver to discard it
+            segment.openInput();
+        } finally {
+            IOUtils.closeQuietly(segment.in);
+        }
+    }
+
+    private final class Segment {
+        private final URI uri;
+        private final LinkedList<Entry> entries = new LinkedList<Entry>();
+        private OutputStream out;
+        private InputStream in;
+
+        Segment(URI uri) {
+            this.uri = uri;
+        }
+
+        void closeOutput() throws IOException {
+            if (out != null) {
+                OutputStream o = out;
+                out = null;
+                o.close();
+            }
+        }
+
+        void openInput() throws IOException {
+            if (in == null) {
+                in = resolver.getResource(uri);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Object[] references;
+        private Segment segment;
+        private int length;
+
+        Entry(Object[] references) {
+            this.references = references;
+        }
+    }
+}
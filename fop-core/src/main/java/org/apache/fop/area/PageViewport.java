@@ -418,7 +418,31 @@ public class PageViewport extends AreaTreeObject implements Resolvable {
      * @throws IOException if an I/O error occurred while loading the page
      */
     public void loadPage(ObjectInputStream in) throws IOException, ClassNotFoundException {
-        page = (Page) in.readObject();
+        pageLoaded((Page) in.readObject());
+    }
+
+    /**
+     * Save the page contents in the compact form of {@link AreaTreeOutput}.
+     * @param out the output to write the page to
+     * @throws IOException if an I/O error occurred while saving the page
+     */
+    void savePage(AreaTreeOutput out) throws IOException {
+        page.setUnresolvedReferences(unresolvedIDRefs);
+        out.writePage(page);
+        page = null;
+    }
+
+    /**
+     * Load the page contents saved by {@link #savePage(AreaTreeOutput)}.
+     * @param in the input to read the page from
+     * @throws IOException if an I/O error occurred while loading the page
+     */
+    void loadPage(AreaTreeInput in) throws IOException {
+        pageLoaded(in.readPage());
+    }
+
+    private void pageLoaded(Page page) {
+        this.page = page;
         unresolvedIDRefs = page.getUnresolvedReferences();
         if (unresolvedIDRefs != null && pendingResolved != null) {
             for (Map.Entry<String, List<PageViewport>> e : pendingResolved.entrySet()) {
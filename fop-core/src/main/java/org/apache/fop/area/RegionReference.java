@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -160,4 +161,27 @@ public class RegionReference extends Area {
         sb.append("}");
         return sb.toString();
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeInt(regionClass);
+        out.writeString(regionName);
+        out.writeValue(ctm);
+        out.writeValue(blocks);
+        out.writeValue(regionViewport);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        regionClass = in.readInt();
+        regionName = in.readString();
+        ctm = (CTM) in.readValue();
+        blocks = (ArrayList<Area>) in.readValue();
+        regionViewport = (RegionViewport) in.readValue();
+    }
 }
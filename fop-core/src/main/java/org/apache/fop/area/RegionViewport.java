@@ -140,5 +140,22 @@ public class RegionViewport extends Area implements Viewport {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(regionReference);
+        out.writeValue(viewArea);
+        out.writeBoolean(clip);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        regionReference = (RegionReference) in.readValue();
+        viewArea = (Rectangle2D) in.readValue();
+        clip = in.readBoolean();
+    }
 }
 
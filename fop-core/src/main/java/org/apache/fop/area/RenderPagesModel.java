@@ -136,7 +136,7 @@ public class RenderPagesModel extends AreaTreeModel {
                 throw new IllegalStateException("Fatal error occurred. Cannot continue. "
                         + e.getClass().getName() + ": " + err);
             }
-            page.clear();
+            releasePage(page);
         } else {
             preparePage(page);
         }
@@ -172,7 +172,7 @@ public class RenderPagesModel extends AreaTreeModel {
                     renderer.startPageSequence(pageViewport.getPageSequence());
                 }
                 renderPage(pageViewport);
-                pageViewport.clear();
+                releasePage(pageViewport);
                 iter.remove();
             } else {
                 // if keeping order then stop at first page not resolved
@@ -211,6 +211,14 @@ public class RenderPagesModel extends AreaTreeModel {
         }
     }
 
+    /**
+     * Releases the contents of a page once it has been handed to the renderer.
+     * @param page the page whose contents are no longer needed
+     */
+    protected void releasePage(PageViewport page) {
+        page.clear();
+    }
+
     /**
      * Prepare a page.
      * An unresolved page can be prepared if the renderer supports
@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.apache.fop.fo.Constants;
@@ -232,5 +233,27 @@ public class Span extends Area {
         return sb.toString();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(flowAreas);
+        out.writeInt(colCount);
+        out.writeInt(colGap);
+        out.writeInt(colWidth);
+        out.writeInt(curFlowIdx);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        flowAreas = (List<NormalFlow>) in.readValue();
+        colCount = in.readInt();
+        colGap = in.readInt();
+        colWidth = in.readInt();
+        curFlowIdx = in.readInt();
+    }
 }
 
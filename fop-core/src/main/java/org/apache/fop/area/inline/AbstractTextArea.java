@@ -19,6 +19,11 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
+
 /**
  * Abstract base class for both TextArea and Character.
  */
@@ -197,4 +202,35 @@ public abstract class AbstractTextArea extends InlineParent {
         /* Word and space areas don't have a properly set bpd; return this area's bpd instead. */
         return getBPD();
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeInt(textWordSpaceAdjust);
+        out.writeInt(textLetterSpaceAdjust);
+        out.writeBoolean(textAdjustingInfo != null);
+        if (textAdjustingInfo != null) {
+            out.writeInt(textAdjustingInfo.availableStretch);
+            out.writeInt(textAdjustingInfo.availableShrink);
+            out.writeInt(textAdjustingInfo.adjustment);
+            out.writeInt(textAdjustingInfo.spaceDifference);
+        }
+        out.writeInt(baselineOffset);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        textWordSpaceAdjust = in.readInt();
+        textLetterSpaceAdjust = in.readInt();
+        if (in.readBoolean()) {
+            textAdjustingInfo = new TextAdjustingInfo(in.readInt(), in.readInt(), in.readInt());
+            textAdjustingInfo.spaceDifference = in.readInt();
+        } else {
+            textAdjustingInfo = null;
+        }
+        baselineOffset = in.readInt();
+    }
 }
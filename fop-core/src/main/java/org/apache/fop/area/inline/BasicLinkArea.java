@@ -19,7 +19,11 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
 import org.apache.fop.area.LinkResolver;
 
 /**
@@ -69,4 +73,18 @@ public class BasicLinkArea extends InlineParent {
     public LinkResolver getResolver() {
         return this.resolver;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(resolver);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        resolver = (LinkResolver) in.readValue();
+    }
 }
@@ -19,10 +19,13 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
 import org.apache.fop.area.Block;
 
 /**
@@ -76,5 +79,22 @@ public class Container extends Area {
     public int getWidth() {
         return width;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(blocks);
+        out.writeInt(width);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        blocks = (List<Block>) in.readValue();
+        width = in.readInt();
+    }
 }
 
@@ -19,9 +19,13 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
+
 /**
  * Filled area.
  * This inline area contains some inline areas.
@@ -128,5 +132,18 @@ public class FilledArea extends InlineParent {
         return false;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeInt(unitWidth);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        unitWidth = in.readInt();
+    }
 }
 
@@ -19,9 +19,13 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
 import org.w3c.dom.Document;
 
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
 
 // cacheable object
 /**
@@ -81,5 +85,21 @@ public class ForeignObject extends Area {
     public String getNameSpace() {
         return namespace;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(doc);
+        out.writeString(namespace);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        doc = (Document) in.readValue();
+        namespace = in.readString();
+    }
 }
 
@@ -19,7 +19,11 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
 
 /**
  * Image area for external-graphic.
@@ -50,5 +54,19 @@ public class Image extends Area {
     public String getURL() {
         return this.url;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeString(url);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        url = in.readString();
+    }
 }
 
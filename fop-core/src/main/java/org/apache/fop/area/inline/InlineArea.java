@@ -19,10 +19,13 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.List;
 
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
 import org.apache.fop.area.LineArea;
 import org.apache.fop.area.Trait;
 import org.apache.fop.complexscripts.bidi.InlineRun;
@@ -348,4 +351,36 @@ public class InlineArea extends Area {
         return false;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeInt(blockProgressionOffset);
+        out.writeValue(parentArea);
+        out.writeInt(storedIPDVariation);
+        if (out.writeReference(adjustingInfo)) {
+            out.writeInt(adjustingInfo.availableStretch);
+            out.writeInt(adjustingInfo.availableShrink);
+            out.writeInt(adjustingInfo.adjustment);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        blockProgressionOffset = in.readInt();
+        parentArea = (Area) in.readValue();
+        storedIPDVariation = in.readInt();
+        Object info = in.readReference();
+        if (info == AreaTreeInput.NEW) {
+            adjustingInfo = new InlineAdjustingInfo(0, 0, 0);
+            in.register(adjustingInfo);
+            adjustingInfo.availableStretch = in.readInt();
+            adjustingInfo.availableShrink = in.readInt();
+            adjustingInfo.adjustment = in.readInt();
+        } else {
+            adjustingInfo = (InlineAdjustingInfo) info;
+        }
+    }
 }
@@ -19,7 +19,11 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
 import org.apache.fop.area.Block;
 
 
@@ -73,4 +77,17 @@ public class InlineBlockParent extends InlineArea {
         return child;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(child);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        child = (Block) in.readValue();
+    }
 }
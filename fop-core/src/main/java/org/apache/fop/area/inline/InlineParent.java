@@ -25,6 +25,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
 
 /**
  * Inline parent area.
@@ -148,5 +150,24 @@ public class InlineParent extends InlineArea {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(inlines);
+        out.writeBoolean(autoSize);
+        out.writeInt(minChildOffset);
+        out.writeInt(maxAfterEdge);
+    }
 
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        inlines = (List<InlineArea>) in.readValue();
+        autoSize = in.readBoolean();
+        minChildOffset = in.readInt();
+        maxAfterEdge = in.readInt();
+    }
 }
@@ -25,6 +25,8 @@ import java.io.IOException;
 import java.util.TreeMap;
 
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
 import org.apache.fop.area.Viewport;
 
 /**
@@ -152,4 +154,22 @@ public class InlineViewport extends InlineArea implements Viewport {
     public int getEffectiveIPD() {
         return getIPD();
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeValue(content);
+        out.writeBoolean(clip);
+        out.writeValue(contentPosition);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        content = (Area) in.readValue();
+        clip = in.readBoolean();
+        contentPosition = (Rectangle2D) in.readValue();
+    }
 }
@@ -19,6 +19,10 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
 import org.apache.fop.fo.Constants;
 
 /**
@@ -117,5 +121,20 @@ public class Leader extends InlineArea {
         return ruleThickness;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeInt(ruleStyle);
+        out.writeInt(ruleThickness);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        ruleStyle = in.readInt();
+        ruleThickness = in.readInt();
+    }
 }
 
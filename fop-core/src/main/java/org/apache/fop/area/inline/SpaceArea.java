@@ -19,6 +19,11 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
+
 /**
  * A space
  */
@@ -59,4 +64,19 @@ public class SpaceArea extends InlineArea {
         return this.isAdjustable;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeInt(space);
+        out.writeBoolean(isAdjustable);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        space = (char) in.readInt();
+        isAdjustable = in.readBoolean();
+    }
 }
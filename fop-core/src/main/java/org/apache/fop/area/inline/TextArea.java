@@ -19,8 +19,11 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
 import java.util.Arrays;
 
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
 import org.apache.fop.util.CharUtilities;
 
 /**
@@ -214,5 +217,19 @@ public class TextArea extends AbstractTextArea {
     public int getEffectiveIPD() {
         return getIPD();
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeBoolean(isHyphenated);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        isHyphenated = in.readBoolean();
+    }
 }
 
@@ -23,6 +23,8 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.util.List;
 
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
 import org.apache.fop.area.PageViewport;
 import org.apache.fop.area.Resolvable;
 import org.apache.fop.complexscripts.bidi.InlineRun;
@@ -177,4 +179,26 @@ public class UnresolvedPageNumber extends TextArea implements Resolvable {
         runs.add(new InlineRun(this, new int[] {getBidiLevel()}));
         return runs;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeBoolean(resolved);
+        out.writeString(pageIDRef);
+        out.writeString(text);
+        out.writeBoolean(pageType);
+        out.writeValue(font);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        resolved = in.readBoolean();
+        pageIDRef = in.readString();
+        text = in.readString();
+        pageType = in.readBoolean();
+        font = (Font) in.readValue();
+    }
 }
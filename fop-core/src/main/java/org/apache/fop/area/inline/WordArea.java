@@ -19,9 +19,12 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
 import org.apache.fop.complexscripts.bidi.InlineRun;
 import org.apache.fop.complexscripts.util.CharMirror;
 
@@ -305,4 +308,25 @@ public class WordArea extends InlineArea {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeData(AreaTreeOutput out) throws IOException {
+        super.writeData(out);
+        out.writeString(word);
+        out.writeIntArray(letterAdjust);
+        out.writeIntArray(levels);
+        out.writeIntArrays(gposAdjustments);
+        out.writeBoolean(reversed);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readData(AreaTreeInput in) throws IOException {
+        super.readData(in);
+        word = in.readString();
+        letterAdjust = in.readIntArray();
+        levels = in.readIntArray();
+        gposAdjustments = in.readIntArrays();
+        reversed = in.readBoolean();
+    }
 }
@@ -122,6 +122,8 @@ public class CommandLineOptions {
     private boolean strictValidation = true;
     /* control memory-conservation policy */
     private boolean conserveMemoryPolicy;
+    /* true if finished content is to be released incrementally */
+    private boolean incrementalRelease;
     /* true if a complex script features are enabled */
     private boolean useComplexScriptFeatures = true;
     /* set to true if -dpi used in command line */
@@ -180,6 +182,9 @@ public class CommandLineOptions {
                 addXSLTParameter("fop-output-format", getOutputFormat());
                 addXSLTParameter("fop-version", Version.getVersion());
                 foUserAgent.setConserveMemoryPolicy(conserveMemoryPolicy);
+                if (incrementalRelease) {
+                    foUserAgent.setIncrementalRelease(true);
+                }
                 // TODO: Handle this!!
                 //if (!useComplexScriptFeatures) {
                 //    foUserAgent.setComplexScriptFeaturesEnabled(false);
@@ -287,6 +292,8 @@ public class CommandLineOptions {
                 strictValidation = false;
             } else if (args[i].equals("-conserve")) {
                 conserveMemoryPolicy = true;
+            } else if (args[i].equals("-incremental")) {
+                incrementalRelease = true;
             } else if (args[i].equals("-flush")) {
                 flushCache = true;
             } else if (args[i].equals("-cache")) {
@@ -1215,7 +1222,10 @@ public class CommandLineOptions {
             + "  -conserve         enable memory-conservation policy (trades memory-consumption"
             + " for disk I/O)\n"
             + "                    (Note: currently only influences whether the area tree is"
-            + " serialized.)\n\n"
+            + " serialized.)\n"
+            + "  -incremental      release formatting objects and layout managers as soon as"
+            + " their areas are on pages\n"
+            + "                    (reduces the memory used by long page sequences)\n\n"
 
             + "  -cache            specifies a file/directory path location"
             + " for the font cache file\n"
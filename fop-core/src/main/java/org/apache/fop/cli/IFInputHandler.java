@@ -20,6 +20,9 @@
 package org.apache.fop.cli;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Vector;
 
@@ -29,13 +32,15 @@ import javax.xml.transform.stream.StreamResult;
 
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.render.intermediate.BinaryIFParser;
 import org.apache.fop.render.intermediate.IFDocumentHandler;
 import org.apache.fop.render.intermediate.IFException;
 import org.apache.fop.render.intermediate.IFParser;
 import org.apache.fop.render.intermediate.IFUtil;
 
 /**
- * InputHandler for the intermediate format XML as input.
+ * InputHandler for the intermediate format XML as input. Files in the binary intermediate format
+ * are recognized and read directly.
  */
 public class IFInputHandler extends InputHandler {
 
@@ -68,6 +73,16 @@ public class IFInputHandler extends InputHandler {
             documentHandler.setResult(new StreamResult(out));
             IFUtil.setupFonts(documentHandler);
 
+            if (isBinaryIF()) {
+                InputStream in = new FileInputStream(sourcefile);
+                try {
+                    new BinaryIFParser().parse(in, documentHandler, userAgent);
+                } finally {
+                    in.close();
+                }
+                return;
+            }
+
             //Create IF parser
             IFParser parser = new IFParser();
 
@@ -77,6 +92,27 @@ public class IFInputHandler extends InputHandler {
             transformTo(res);
         } catch (IFException ife) {
             throw new FOPException(ife);
+        } catch (IOException ioe) {
+            throw new FOPException(ioe);
+        }
+    }
+
+    private boolean isBinaryIF() throws IOException {
+        if (sourcefile == null) {
+            return false;
+        }
+        InputStream in = new FileInputStream(sourcefile);
+        try {
+            byte[] header = new byte[4];
+            int length = 0;
+            int n;
+            while (length < header.length
+                    && (n = in.read(header, length, header.length - length)) > 0) {
+                length += n;
+            }
+            return BinaryIFParser.isBinaryIF(header, length);
+        } finally {
+            in.close();
         }
     }
 
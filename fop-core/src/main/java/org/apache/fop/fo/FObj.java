@@ -312,7 +312,7 @@ public abstract class FObj extends FONode implements Constants {
         }
         if (child == lastChild) {
             if (child.siblings != null) {
-                lastChild = siblings[0];
+                lastChild = child.siblings[0];
             } else {
                 lastChild = null;
             }
@@ -603,6 +603,7 @@ public abstract class FObj extends FONode implements Constants {
      */
     public void clearChildNodes() {
         this.firstChild = null;
+        this.lastChild = null;
     }
 
     /** @return the "id" property. */
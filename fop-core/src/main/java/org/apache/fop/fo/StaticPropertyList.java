@@ -25,10 +25,33 @@ import org.apache.fop.fo.properties.Property;
 /**
  * A very fast implementation of PropertyList that uses arrays to store
  * the explicit set properties and another array to store cached values.
+ * <p>
+ * Both arrays are compact, since a property list only holds the few properties specified
+ * on its FO and the values looked up while binding the FO and its children, out of the
+ * several hundred properties known: the explicit properties are kept in a small array
+ * searched linearly, and the cached values in an array in lookup order, found through an
+ * index of one byte per property ID. The values themselves are mostly shared through the
+ * {@link org.apache.fop.fo.properties.PropertyCache}s of the property classes.
  */
 public class StaticPropertyList extends PropertyList {
-    private final Property[] explicit;
-    private final Property[] values;
+
+    /** The initial capacity of the array of cached values */
+    private static final int INITIAL_CAPACITY = 32;
+
+    /** The maximum number of cached values, which is limited by the byte index */
+    private static final int MAX_VALUES = 255;
+
+    private static final int[] NO_IDS = new int[0];
+    private static final Property[] NO_PROPERTIES = new Property[0];
+
+    private int[] explicitIds = NO_IDS;
+    private Property[] explicit = NO_PROPERTIES;
+    private int explicitCount;
+
+    /** positions plus 1 of the cached values by property ID, 0 for properties not cached */
+    private byte[] valueIndex;
+    private Property[] values;
+    private int valueCount;
 
     /**
      * Construct a StaticPropertyList.
@@ -37,8 +60,6 @@ public class StaticPropertyList extends PropertyList {
      */
     public StaticPropertyList(FObj fObjToAttach, PropertyList parentPropertyList) {
         super(fObjToAttach, parentPropertyList);
-        explicit = new Property[Constants.PROPERTY_COUNT + 1];
-        values = new Property[Constants.PROPERTY_COUNT + 1];
     }
 
     /**
@@ -47,7 +68,12 @@ public class StaticPropertyList extends PropertyList {
      * @return The value if the property is explicitly set, otherwise null.
      */
     public Property getExplicit(int propId) {
-        return explicit[propId];
+        for (int i = 0; i < explicitCount; i++) {
+            if (explicitIds[i] == propId) {
+                return explicit[i];
+            }
+        }
+        return null;
     }
 
     /**
@@ -56,9 +82,27 @@ public class StaticPropertyList extends PropertyList {
      * @param value The value of the property to set.
      */
     public void putExplicit(int propId, Property value) {
-        explicit[propId] = value;
-        if (values[propId] != null) { // if the cached value is set overwrite it
-            values[propId] = value;
+        int i = 0;
+        while (i < explicitCount && explicitIds[i] != propId) {
+            i++;
+        }
+        if (i == explicitCount) {
+            if (explicitCount == explicitIds.length) {
+                int capacity = Math.max(8, explicitCount * 2);
+                int[] ids = new int[capacity];
+                Property[] properties = new Property[capacity];
+                System.arraycopy(explicitIds, 0, ids, 0, explicitCount);
+                System.arraycopy(explicit, 0, properties, 0, explicitCount);
+                explicitIds = ids;
+                explicit = properties;
+            }
+            explicitIds[i] = propId;
+            explicitCount++;
+        }
+        explicit[i] = value;
+        if (valueIndex != null && valueIndex[propId] != 0) {
+            // if the cached value is set overwrite it
+            values[(valueIndex[propId] & 0xFF) - 1] = value;
         }
     }
 
@@ -69,11 +113,33 @@ public class StaticPropertyList extends PropertyList {
      */
     public Property get(int propId, boolean bTryInherit, boolean bTryDefault)
         throws PropertyException {
-        Property p = values[propId];
-        if (p == null) {
-            p = super.get(propId, bTryInherit, bTryDefault);
-            values[propId] = p;
+        if (valueIndex != null && valueIndex[propId] != 0) {
+            return values[(valueIndex[propId] & 0xFF) - 1];
+        }
+        Property p = super.get(propId, bTryInherit, bTryDefault);
+        if (p != null) {
+            cache(propId, p);
         }
         return p;
     }
+
+    private void cache(int propId, Property p) {
+        if (valueIndex == null) {
+            valueIndex = new byte[Constants.PROPERTY_COUNT + 1];
+            values = new Property[INITIAL_CAPACITY];
+        } else if (valueIndex[propId] != 0) {
+            // cached while computing the value, by a reentrant lookup
+            values[(valueIndex[propId] & 0xFF) - 1] = p;
+            return;
+        } else if (valueCount == MAX_VALUES) {
+            // not cached, computed again on the next lookup
+            return;
+        } else if (valueCount == values.length) {
+            Property[] newValues = new Property[Math.min(valueCount * 2, MAX_VALUES)];
+            System.arraycopy(values, 0, newValues, 0, valueCount);
+            values = newValues;
+        }
+        values[valueCount++] = p;
+        valueIndex[propId] = (byte) valueCount;
+    }
 }
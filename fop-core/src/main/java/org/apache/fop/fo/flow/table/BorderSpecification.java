@@ -22,6 +22,7 @@ package org.apache.fop.fo.flow.table;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.properties.CommonBorderPaddingBackground;
 import org.apache.fop.fo.properties.CommonBorderPaddingBackground.BorderInfo;
+import org.apache.fop.fo.properties.PropertyCache;
 
 /**
  * A border's informations, along with the FO element which declared it. Used for border
@@ -29,6 +30,10 @@ import org.apache.fop.fo.properties.CommonBorderPaddingBackground.BorderInfo;
  */
 public/*TODO*/ class BorderSpecification {
 
+    /** cache holding all canonical instances */
+    private static final PropertyCache<BorderSpecification> CACHE
+            = new PropertyCache<BorderSpecification>();
+
     private static BorderSpecification defaultBorder;
 
     private BorderInfo borderInfo;
@@ -46,6 +51,19 @@ public/*TODO*/ class BorderSpecification {
         this.holder = holder;
     }
 
+    /**
+     * Returns a border specification corresponding to the given values. Border
+     * specifications are immutable, so the grid units of all the cells declaring the same
+     * border share one instance.
+     *
+     * @param borderInfo the border's informations
+     * @param holder the FO element declaring this border
+     * @return a cached border specification
+     */
+    static BorderSpecification getInstance(BorderInfo borderInfo, int holder) {
+        return CACHE.fetch(new BorderSpecification(borderInfo, holder));
+    }
+
     static synchronized BorderSpecification getDefaultBorder() {
         if (defaultBorder == null) {
             defaultBorder = new BorderSpecification(CommonBorderPaddingBackground
@@ -90,4 +108,21 @@ public/*TODO*/ class BorderSpecification {
         }
         return "{" + borderInfo + ", " + holderName + "}";
     }
+
+    /** {@inheritDoc} */
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BorderSpecification)) {
+            return false;
+        }
+        BorderSpecification other = (BorderSpecification) obj;
+        return this.holder == other.holder && this.borderInfo.equals(other.borderInfo);
+    }
+
+    /** {@inheritDoc} */
+    public int hashCode() {
+        return 37 * borderInfo.hashCode() + holder;
+    }
 }
@@ -20,7 +20,6 @@
 package org.apache.fop.fo.flow.table;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 import org.apache.fop.fo.properties.CommonBorderPaddingBackground;
@@ -48,6 +47,14 @@ class CollapsingBorderResolver implements BorderResolver {
     /** The last currently registered footer row. */
     private List<GridUnit> footerLastRow;
 
+    /**
+     * The border-start and border-end of the columns, in column order, which are integrated
+     * into every row.
+     */
+    private BorderSpecification[] columnBordersStart;
+
+    private BorderSpecification[] columnBordersEnd;
+
     private Resolver delegate;
 
     // Re-use the same ResolverInBody for every table-body
@@ -226,24 +233,22 @@ class CollapsingBorderResolver implements BorderResolver {
                 firstInPart = false;
             }
             // Resolve start/end borders in the row
-            Iterator guIter = row.iterator();
-            GridUnit gu = (GridUnit) guIter.next();
-            Iterator colIter = table.getColumns().iterator();
-            TableColumn col = (TableColumn) colIter.next();
-            gu.integrateBorderSegment(CommonBorderPaddingBackground.START, col);
+            GridUnit gu = row.get(0);
+            gu.integrateBorderSegment(CommonBorderPaddingBackground.START, columnBordersStart[0]);
             gu.integrateBorderSegment(CommonBorderPaddingBackground.START, borderStart);
-            while (guIter.hasNext()) {
-                GridUnit nextGU = (GridUnit) guIter.next();
-                TableColumn nextCol = (TableColumn) colIter.next();
+            int last = row.size() - 1;
+            for (int i = 0; i < last; i++) {
+                GridUnit nextGU = row.get(i + 1);
                 if (gu.isLastGridUnitColSpan()) {
-                    gu.integrateBorderSegment(CommonBorderPaddingBackground.END, col);
-                    nextGU.integrateBorderSegment(CommonBorderPaddingBackground.START, nextCol);
+                    gu.integrateBorderSegment(CommonBorderPaddingBackground.END,
+                            columnBordersEnd[i]);
+                    nextGU.integrateBorderSegment(CommonBorderPaddingBackground.START,
+                            columnBordersStart[i + 1]);
                     gu.resolveBorder(nextGU, CommonBorderPaddingBackground.END);
                 }
                 gu = nextGU;
-                col = nextCol;
             }
-            gu.integrateBorderSegment(CommonBorderPaddingBackground.END, col);
+            gu.integrateBorderSegment(CommonBorderPaddingBackground.END, columnBordersEnd[last]);
             gu.integrateBorderSegment(CommonBorderPaddingBackground.END, borderEnd);
         }
 
@@ -407,6 +412,14 @@ class CollapsingBorderResolver implements BorderResolver {
              */
             index += col.getNumberColumnsRepeated();
         } while (index < table.getNumberOfColumns());
+        List columns = table.getColumns();
+        columnBordersStart = new BorderSpecification[columns.size()];
+        columnBordersEnd = new BorderSpecification[columns.size()];
+        for (int i = 0; i < columnBordersStart.length; i++) {
+            TableColumn col = (TableColumn) columns.get(i);
+            columnBordersStart[i] = col.borderStart;
+            columnBordersEnd[i] = col.borderEnd;
+        }
     }
 
     /** {@inheritDoc} */
@@ -339,6 +339,16 @@ public class PrimaryGridUnit extends GridUnit {
         cellLM = new TableCellLayoutManager(cell, this);
     }
 
+    /**
+     * Releases the cellLM and the Knuth elements of the corresponding table-cell, once all
+     * its areas have been added. {@link #createCellLM()} must be called again before the
+     * cell is laid out anew.
+     */
+    public void releaseCellLM() {
+        cellLM = null;
+        elements = null;
+    }
+
     /**
      * Returns the strength of the keep constraint if the first child block (or its descendants)
      * of this cell has keep-with-previous.
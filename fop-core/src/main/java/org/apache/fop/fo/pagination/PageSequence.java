@@ -461,6 +461,10 @@ public class PageSequence extends AbstractPageSequence implements WritingModeTra
     public void releasePageSequence() {
         this.mainFlow = null;
         this.flowMap.clear();
+        if (getUserAgent().isIncrementalReleaseEnabled()) {
+            // the root keeps a reference to every page-sequence
+            clearChildNodes();
+        }
     }
 
     public SimplePageMaster getLastSimplePageMaster(int page, boolean isFirstPage, boolean isBlank) {
@@ -35,6 +35,11 @@ public final class ColorProperty extends Property  {
     /** cache holding canonical ColorProperty instances */
     private static final PropertyCache<ColorProperty> CACHE = new PropertyCache<ColorProperty>();
 
+    static {
+        CACHE.pin(new ColorProperty(Color.black));
+        CACHE.pin(new ColorProperty(Color.white));
+    }
+
     /**
      * The color represented by this property.
      */
@@ -50,6 +50,14 @@ public final class FixedLength extends LengthProperty {
     /** canonical zero-length instance */
     public static final FixedLength ZERO_FIXED_LENGTH = new FixedLength(0, FixedLength.MPT, 1.0f);
 
+    static {
+        //the thin, medium and thick border widths, and the medium font size
+        CACHE.pin(new FixedLength(0.5, FixedLength.POINT, 1.0f));
+        CACHE.pin(new FixedLength(1, FixedLength.POINT, 1.0f));
+        CACHE.pin(new FixedLength(2, FixedLength.POINT, 1.0f));
+        CACHE.pin(new FixedLength(12, FixedLength.POINT, 1.0f));
+    }
+
     private int millipoints;
 
     /**
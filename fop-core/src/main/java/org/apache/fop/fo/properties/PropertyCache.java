@@ -19,54 +19,44 @@
 
 package org.apache.fop.fo.properties;
 
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
- * Thread-safe cache that minimizes the memory requirements by fetching an instance from the cache
+ * <p>Thread-safe cache that minimizes the memory requirements by fetching an instance from the cache
  * that is equal to the given one. Internally the instances are stored in WeakReferences in order to
- * be reclaimed when they are no longer referenced.
+ * be reclaimed when they are no longer referenced, unless they are pinned.</p>
+ *
+ * <p>The cache is split into shards by hash code. Each shard is an open addressing table whose
+ * entries are checked for equality, so instances with the same hash code don't replace each other.
+ * Lookups don't take any lock nor write to shared state; adding an instance only locks its
+ * shard. The number of instances a cache holds is bounded: once a shard is full, instances that
+ * are not found are returned without being cached.</p>
  * @param <T> The type of values that are cached
  */
 public final class PropertyCache<T> {
 
     private static final Log LOG = LogFactory.getLog(PropertyCache.class);
 
-    /**
-     * Determines if the cache is used based on the value of the system property
-     * org.apache.fop.fo.properties.use-cache
-     */
-    private final boolean useCache;
+    /** The default maximum number of instances held by a cache */
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 16;
 
-    /**
-     * The underlying map that stores WeakReferences to the cached entries. The map keys are the
-     * hashCode of the cached entries. The map values are a WeakRefence to the cached entries. When
-     * two cached entries have the same hash code, the last one is kept but this should be an
-     * exception case (otherwise the hashCode() method of T needs to be fixed).
-     */
-    private final ConcurrentMap<Integer, WeakReference<T>> map;
+    private static final int SHARD_BITS = 4;
 
-    /**
-     * Counts the number of entries put in the map in order to periodically check and remove the
-     * entries whose referents have been reclaimed.
-     */
-    private final AtomicInteger putCounter;
+    private static final int INITIAL_TABLE_LENGTH = 16;
 
     /**
-     * Lock to prevent concurrent cleanup of the map.
+     * Determines if the cache is used based on the value of the system property
+     * org.apache.fop.fo.properties.use-cache
      */
-    private final Lock cleanupLock;
+    private final boolean useCache;
 
-    private final AtomicInteger hashCodeCollisionCounter;
+    private final Shard<T>[] shards;
 
     /**
      * Creates a new cache. The "org.apache.fop.fo.properties.use-cache" system
@@ -76,6 +66,19 @@ public final class PropertyCache<T> {
      * (case insensitive).
      */
     public PropertyCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a new cache holding a bounded number of instances.
+     * @param maxEntries the maximum number of instances held by the cache
+     * @see #PropertyCache()
+     */
+    @SuppressWarnings("unchecked")
+    public PropertyCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
         boolean useCache;
         try {
             useCache = Boolean.valueOf(
@@ -86,15 +89,14 @@ public final class PropertyCache<T> {
                    + " due to security restriction; defaulting to 'true'.");
         }
         if (useCache) {
-            this.map = new ConcurrentHashMap<Integer, WeakReference<T>>();
-            this.putCounter = new AtomicInteger();
-            this.cleanupLock = new ReentrantLock();
-            this.hashCodeCollisionCounter = new AtomicInteger();
+            int shardCount = 1 << SHARD_BITS;
+            int maxShardEntries = Math.max(1, (maxEntries + shardCount - 1) / shardCount);
+            this.shards = new Shard[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = new Shard<T>(maxShardEntries);
+            }
         } else {
-            this.map = null;
-            this.putCounter = null;
-            this.cleanupLock = null;
-            this.hashCodeCollisionCounter = null;
+            this.shards = null;
         }
         this.useCache = useCache;
     }
@@ -107,6 +109,22 @@ public final class PropertyCache<T> {
      * @return a cached version of the object
      */
     public T fetch(T obj) {
+        return fetch(obj, false);
+    }
+
+    /**
+     * Returns a cached version of the given object, which is kept in the cache for as long as
+     * the cache exists. This is meant for values that are used by most documents, so they
+     * don't have to be created again once the documents that used them are done.
+     *
+     * @param obj an object
+     * @return a cached version of the object
+     */
+    public T pin(T obj) {
+        return fetch(obj, true);
+    }
+
+    private T fetch(T obj, boolean pin) {
         if (!this.useCache) {
             return obj;
         }
@@ -115,80 +133,246 @@ public final class PropertyCache<T> {
             return null;
         }
 
-        Integer hashCode = obj.hashCode();
-
-        WeakReference<T> weakRef = map.get(hashCode);
-        if (weakRef == null) {
-            weakRef = map.putIfAbsent(hashCode, new WeakReference<T>(obj));
-            attemptCleanup();
+        int hash = spread(obj.hashCode());
+        Shard<T> shard = shards[hash >>> (32 - SHARD_BITS)];
+        if (!pin) {
+            T cached = shard.get(obj, hash);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return shard.put(obj, hash, pin);
+    }
 
-            if (weakRef == null) {
-                return obj;
+    /**
+     * Returns the number of instances that were added to the cache while it held an instance
+     * with the same hash code that was not equal to them.
+     * @return the number of hash code collisions
+     */
+    public long getCollisions() {
+        long collisions = 0;
+        if (useCache) {
+            for (Shard<T> shard : shards) {
+                collisions += shard.collisions.get();
             }
-            // else another thread added a value, continue.
         }
+        return collisions;
+    }
 
-        T cached = weakRef.get();
-        if (cached != null) {
-            if (eq(cached, obj)) {
-                return cached;
-            } else {
-                /*
-                 * Log a message when obj.getClass() does not implement correctly the equals() or
-                 * hashCode() method. It is expected that only very few objects will have the
-                 * same hashCode but will not be equal.
-                 */
-                if ((hashCodeCollisionCounter.incrementAndGet() % 10) == 0) {
-                    LOG.info(hashCodeCollisionCounter.get() + " hashCode() collisions for "
-                            + obj.getClass().getName());
+    /**
+     * Returns the number of cached instances that were reclaimed by the garbage collector
+     * and removed from the cache.
+     * @return the number of reclaimed entries
+     */
+    public long getReclaimed() {
+        long reclaimed = 0;
+        if (useCache) {
+            for (Shard<T> shard : shards) {
+                synchronized (shard) {
+                    shard.expungeReclaimed();
                 }
+                reclaimed += shard.reclaimed.get();
             }
+        }
+        return reclaimed;
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "PropertyCache(collisions=" + getCollisions()
+                + ", reclaimed=" + getReclaimed() + ")";
+    }
 
+    /** Mixes the bits of a hash code, so both the shard and the slot depend on all of them */
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        return h * 0x9E3779B9;
+    }
+
+    /**
+     * A cached instance, weakly referenced unless it is pinned.
+     */
+    private static final class Entry<T> extends WeakReference<T> {
+
+        private final int hash;
+
+        /** a strong reference to the instance if it is pinned, null otherwise */
+        private final T pinned;
+
+        Entry(T value, int hash, ReferenceQueue<T> queue, boolean pin) {
+            super(value, queue);
+            this.hash = hash;
+            this.pinned = pin ? value : null;
         }
+    }
+
+    /**
+     * An open addressing table with linear probing. It can be read without locking, since its
+     * array is only replaced as a whole and an entry is never changed once it is in the array.
+     * All changes are made while holding the lock on the shard. Slots whose instances have been
+     * reclaimed keep their entries, so probing goes on past them, until they are reused or the
+     * table is rebuilt.
+     */
+    private static final class Shard<T> {
+
+        private final int maxEntries;
 
-        // Adds a new or replaces an existing entry with obj that has the same hash code
-        map.put(hashCode, new WeakReference<T>(obj));
-        attemptCleanup();
-        return obj;
+        private final int maxTableLength;
 
-        /*
-         * Another thread might add first. We could check this using map.replace() instead of
-         * map.put() and then recursively call fetch(obj). But if in the meantime, garbage
-         * collection kicks in, we might end up with a StackOverflowException. Not caching an entry
-         * is tolerable, after all it's configurable.
+        private final ReferenceQueue<T> queue = new ReferenceQueue<T>();
+
+        private volatile AtomicReferenceArray<Entry<T>> table
+                = new AtomicReferenceArray<Entry<T>>(INITIAL_TABLE_LENGTH);
+
+        /** the number of slots that are not empty */
+        private int used;
+
+        /**
+         * the number of reclaimed instances since the table was last rebuilt, which is at least
+         * the number of slots whose instances have been reclaimed
          */
-    }
+        private int dead;
+
+        private final AtomicLong collisions = new AtomicLong();
 
+        private final AtomicLong reclaimed = new AtomicLong();
 
-    private void attemptCleanup() {
-        if ((putCounter.incrementAndGet() % 10000) != 0) {
-            return;
+        Shard(int maxEntries) {
+            this.maxEntries = maxEntries;
+            //keeps the table at most half full
+            int length = INITIAL_TABLE_LENGTH;
+            while (length < 2 * maxEntries) {
+                length <<= 1;
+            }
+            this.maxTableLength = length;
         }
 
-        // Lock as there is no need for concurrent cleanup and protect us, on JDK5, from
-        // http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6312056
-        if (cleanupLock.tryLock()) {
-            try {
-                cleanReclaimedMapEntries();
-            } finally {
-                cleanupLock.unlock();
+        T get(T obj, int hash) {
+            AtomicReferenceArray<Entry<T>> tab = table;
+            int mask = tab.length() - 1;
+            for (int i = hash & mask, n = 0; n <= mask; i = (i + 1) & mask, n++) {
+                Entry<T> e = tab.get(i);
+                if (e == null) {
+                    break;
+                }
+                if (e.hash == hash) {
+                    T cached = e.get();
+                    if (cached != null && (cached == obj || cached.equals(obj))) {
+                        return cached;
+                    }
+                }
             }
+            return null;
+        }
+
+        synchronized T put(T obj, int hash, boolean pin) {
+            expungeReclaimed();
+            AtomicReferenceArray<Entry<T>> tab = table;
+            int mask = tab.length() - 1;
+            int free = -1;
+            boolean sameHash = false;
+            for (int i = hash & mask, n = 0; n <= mask; i = (i + 1) & mask, n++) {
+                Entry<T> e = tab.get(i);
+                if (e == null) {
+                    if (free < 0) {
+                        free = i;
+                    }
+                    break;
+                }
+                T cached = e.get();
+                if (cached == null) {
+                    if (free < 0) {
+                        free = i;
+                    }
+                } else if (e.hash == hash) {
+                    if (cached == obj || cached.equals(obj)) {
+                        if (pin && e.pinned == null) {
+                            tab.set(i, new Entry<T>(cached, hash, queue, true));
+                        }
+                        return cached;
+                    }
+                    sameHash = true;
+                }
+            }
+            if (sameHash) {
+                /*
+                 * Log a message when obj.getClass() does not implement correctly the hashCode()
+                 * method. It is expected that only very few objects will have the same hashCode
+                 * but will not be equal.
+                 */
+                long count = collisions.incrementAndGet();
+                if ((count % 10) == 0) {
+                    LOG.info(count + " hashCode() collisions for " + obj.getClass().getName());
+                }
+            }
+            Entry<T> entry = new Entry<T>(obj, hash, queue, pin);
+            if (free >= 0 && tab.get(free) != null) {
+                //reuses the slot of a reclaimed instance
+                tab.set(free, entry);
+                return obj;
+            }
+            if (used >= maxEntries || used + 1 > (tab.length() >> 1) + (tab.length() >> 2)) {
+                if (!rebuild()) {
+                    //full, the instance is not cached
+                    return obj;
+                }
+                tab = table;
+                free = indexOfEmptySlot(tab, hash);
+            }
+            tab.set(free, entry);
+            used++;
+            return obj;
         }
-    }
 
-    private void cleanReclaimedMapEntries() {
-        Iterator<Map.Entry<Integer, WeakReference<T>>> iterator = map.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<Integer, WeakReference<T>> entry = iterator.next();
-            WeakReference<T> weakRef = entry.getValue();
-            T r = weakRef.get();
-            if (r == null) {
-                iterator.remove();
+        /**
+         * Rebuilds the table without the slots whose instances have been reclaimed, growing it
+         * if needed.
+         * @return false if the table has no room for another instance
+         */
+        private boolean rebuild() {
+            if (used >= maxEntries && dead == 0) {
+                return false;
+            }
+            AtomicReferenceArray<Entry<T>> old = table;
+            int live = 0;
+            for (int i = 0, n = old.length(); i < n; i++) {
+                Entry<T> e = old.get(i);
+                if (e != null && e.get() != null) {
+                    live++;
+                }
+            }
+            int length = INITIAL_TABLE_LENGTH;
+            while (length < maxTableLength && live + 1 > length >> 1) {
+                length <<= 1;
+            }
+            AtomicReferenceArray<Entry<T>> tab = new AtomicReferenceArray<Entry<T>>(length);
+            for (int i = 0, n = old.length(); i < n; i++) {
+                Entry<T> e = old.get(i);
+                if (e != null && e.get() != null) {
+                    tab.set(indexOfEmptySlot(tab, e.hash), e);
+                }
             }
+            table = tab;
+            used = live;
+            dead = 0;
+            return live < maxEntries;
+        }
+
+        private static <T> int indexOfEmptySlot(AtomicReferenceArray<Entry<T>> tab, int hash) {
+            int mask = tab.length() - 1;
+            int i = hash & mask;
+            while (tab.get(i) != null) {
+                i = (i + 1) & mask;
+            }
+            return i;
         }
-    }
 
-    private boolean eq(Object p, Object q) {
-        return (p == q || p.equals(q));
+        /** Counts the instances reclaimed by the garbage collector, must hold the lock */
+        void expungeReclaimed() {
+            while (queue.poll() != null) {
+                reclaimed.incrementAndGet();
+                dead++;
+            }
+        }
     }
 }
@@ -35,13 +35,18 @@ import org.apache.fop.util.CharUtilities;
  * fonts, this is the same as the glyph index.
  * Unicode index: The Unicode codepoint of a character.
  * Glyph name: the Adobe glyph name (as found in Glyphs.java)
+ * <p>
+ * Instances are thread-safe: with concurrent rendering, glyphs are mapped on the layout thread
+ * while pages are painted on the rendering thread. The map returned by {@link #getGlyphs()} is
+ * a synchronized view; it is only iterated when the font is embedded, after layout is done.
  */
 public class CIDSubset implements CIDSet {
 
     /**
      * usedGlyphs contains orginal, new glyph index (glyph index -> char selector)
      */
-    private Map<Integer, Integer> usedGlyphs = new LinkedHashMap<Integer, Integer>();
+    private final Map<Integer, Integer> usedGlyphs
+            = Collections.synchronizedMap(new LinkedHashMap<Integer, Integer>());
 
     /**
      * usedGlyphsIndex contains new glyph, original index (char selector -> glyph index)
@@ -71,7 +76,7 @@ public class CIDSubset implements CIDSet {
     }
 
     /** {@inheritDoc} */
-    public int getOriginalGlyphIndex(int index) {
+    public synchronized int getOriginalGlyphIndex(int index) {
         Integer glyphIndex = usedGlyphsIndex.get(index);
         if (glyphIndex != null) {
             return glyphIndex;
@@ -81,7 +86,7 @@ public class CIDSubset implements CIDSet {
     }
 
     /** {@inheritDoc} */
-    public int getUnicode(int index) {
+    public synchronized int getUnicode(int index) {
         Integer mapValue = usedCharsIndex.get(index);
         if (mapValue != null) {
             return mapValue;
@@ -91,12 +96,12 @@ public class CIDSubset implements CIDSet {
     }
 
     /** {@inheritDoc} */
-    public int mapChar(int glyphIndex, char unicode) {
+    public synchronized int mapChar(int glyphIndex, char unicode) {
         return mapCodePoint(glyphIndex, unicode);
     }
 
     /** {@inheritDoc} */
-    public int mapCodePoint(int glyphIndex, int codePoint) {
+    public synchronized int mapCodePoint(int glyphIndex, int codePoint) {
         // Reencode to a new subset font or get the reencoded value
         // IOW, accumulate the accessed characters and build a character map for them
         Integer subsetCharSelector = usedGlyphs.get(glyphIndex);
@@ -119,7 +124,7 @@ public class CIDSubset implements CIDSet {
     }
 
     /** {@inheritDoc} */
-    public char getUnicodeFromGID(int glyphIndex) {
+    public synchronized char getUnicodeFromGID(int glyphIndex) {
         // TODO this method is never called in the MultiByte font path.
         // This is why we can safely cast the value of usedCharsIndex.get(selector)
         // to int . BTW is a question if it should be changed to int as getUnicode
@@ -129,12 +134,12 @@ public class CIDSubset implements CIDSet {
     }
 
     /** {@inheritDoc} */
-    public int getGIDFromChar(char ch) {
+    public synchronized int getGIDFromChar(char ch) {
         return charToGIDs.get((int) ch);
     }
 
     /** {@inheritDoc} */
-    public char[] getChars() {
+    public synchronized char[] getChars() {
         StringBuilder buf = new StringBuilder();
 
         for (int i = 0; i < usedGlyphsCount; i++) {
@@ -145,12 +150,12 @@ public class CIDSubset implements CIDSet {
     }
 
     /** {@inheritDoc} */
-    public int getNumberOfGlyphs() {
+    public synchronized int getNumberOfGlyphs() {
         return this.usedGlyphsCount;
     }
 
     /** {@inheritDoc} */
-    public BitSet getGlyphIndices() {
+    public synchronized BitSet getGlyphIndices() {
         BitSet bitset = new BitSet();
         for (Integer cid : usedGlyphs.keySet()) {
             bitset.set(cid);
@@ -159,7 +164,7 @@ public class CIDSubset implements CIDSet {
     }
 
     /** {@inheritDoc} */
-    public int[] getWidths() {
+    public synchronized int[] getWidths() {
         int[] widths = font.getWidths();
         int[] tmpWidth = new int[getNumberOfGlyphs()];
         for (int i = 0, c = getNumberOfGlyphs(); i < c; i++) {
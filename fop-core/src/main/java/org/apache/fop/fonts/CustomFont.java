@@ -32,6 +32,8 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.fonts.truetype.FontFileReader;
+import org.apache.fop.fonts.truetype.MappedFontFiles;
 
 
 /**
@@ -166,6 +168,17 @@ public abstract class CustomFont extends Typeface
         return resourceResolver.getResource(embedFileURI);
     }
 
+    /**
+     * Returns a {@link FontFileReader} on the embeddable font file. A local font file is not
+     * read but memory mapped, the mapping being shared with the other readers of that file.
+     *
+     * @return a reader on the embeddable font file
+     * @throws IOException if embedFileName is not null but Source is not found
+     */
+    public FontFileReader getFontFileReader() throws IOException {
+        return MappedFontFiles.createReader(resourceResolver, embedFileURI);
+    }
+
     /**
      * Returns the lookup name to an embeddable font file available as a
      * resource.
@@ -581,6 +594,22 @@ public abstract class CustomFont extends Typeface
         this.strikeoutThickness = strikeoutThickness;
     }
 
+    /**
+     * Returns the underline position as set, without falling back to a default.
+     * @return the underline position, 0 if unknown
+     */
+    int getUnderlinePosition() {
+        return underlinePosition;
+    }
+
+    /**
+     * Returns the strikeout position as set, without falling back to a default.
+     * @return the strikeout position, 0 if unknown
+     */
+    int getStrikeoutPosition() {
+        return strikeoutPosition;
+    }
+
     /**
      * Returns a Map of used Glyphs.
      * @return Map Map of used Glyphs
@@ -68,6 +68,12 @@ public class DefaultFontConfigurator implements FontConfigurator<EmbedFontInfo>
      * @throws FOPException if an exception occurs while processing the configuration
      */
     public List<EmbedFontInfo> configure(FontConfig fontInfoConfig) throws FOPException {
+        if (fontInfoConfig != null) {
+            List<EmbedFontInfo> cachedFontInfoList = fontManager.getCachedFontList(fontInfoConfig);
+            if (cachedFontInfoList != null) {
+                return cachedFontInfoList;
+            }
+        }
         List<EmbedFontInfo> fontInfoList = new ArrayList<EmbedFontInfo>();
         if (fontInfoConfig != null) {
             assert fontInfoConfig instanceof DefaultFontConfig;
@@ -105,6 +111,9 @@ public class DefaultFontConfigurator implements FontConfigurator<EmbedFontInfo>
                 log.debug("Finished font configuration in "
                         + (System.currentTimeMillis() - start) + "ms");
             }
+            fontInfoList = Collections.unmodifiableList(fontInfoList);
+            fontManager.cacheFontList(fontInfoConfig, fontInfoList);
+            return fontInfoList;
         }
         return Collections.unmodifiableList(fontInfoList);
     }
@@ -170,6 +179,10 @@ public class DefaultFontConfigurator implements FontConfigurator<EmbedFontInfo>
                 font.isAdvanced(), tripletList, subFont, encodingMode, embeddingMode,
                 font.getSimulateStyle(), font.getEmbedAsType1());
         if (fontCache != null) {
+            if (embedUri != null && metricsUri == null) {
+                embedFontInfo.setCachedMetrics(fontCache.getCachedMetrics(
+                        resourceResolver.resolveFromBase(embedUri), subFont));
+            }
             if (!fontCache.containsFont(embedFontInfo)) {
                 fontCache.addFont(embedFontInfo, resourceResolver);
             }
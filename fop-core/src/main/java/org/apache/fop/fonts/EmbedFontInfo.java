@@ -22,6 +22,7 @@ package org.apache.fop.fonts;
 import java.io.IOException;
 import java.io.Serializable;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -58,6 +59,9 @@ public class EmbedFontInfo implements Serializable {
 
     private FontUris fontUris;
 
+    /** the metrics of the font in the font cache format, if the font file has been parsed */
+    private transient ByteBuffer cachedMetrics;
+
     /**
      * Main constructor
      * @param fontUris the URI of the XML resource containing font metrics
@@ -209,6 +213,32 @@ public class EmbedFontInfo implements Serializable {
         return embedAsType1;
     }
 
+    /**
+     * Keeps the metrics of the font parsed from the font file, so they can be stored in the
+     * font cache. Only plain TrueType fonts loaded in CID mode are supported, the metrics of
+     * other fonts are ignored.
+     * @param font the font parsed from the font file
+     */
+    public void setParsedFont(CustomFont font) {
+        this.cachedMetrics = FontCacheFormat.encodeMetrics(font);
+    }
+
+    /**
+     * Returns the metrics of the font in the font cache format.
+     * @return the metrics, or null if the font file has not been parsed
+     */
+    ByteBuffer getCachedMetrics() {
+        return cachedMetrics;
+    }
+
+    /**
+     * Sets the metrics of the font in the font cache format.
+     * @param cachedMetrics the metrics, may be null
+     */
+    void setCachedMetrics(ByteBuffer cachedMetrics) {
+        this.cachedMetrics = cachedMetrics;
+    }
+
     private void readObject(java.io.ObjectInputStream in)
                 throws IOException, ClassNotFoundException {
         in.defaultReadObject();
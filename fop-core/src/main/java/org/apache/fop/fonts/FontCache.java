@@ -20,6 +20,8 @@
 package org.apache.fop.fonts;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -27,11 +29,15 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -46,6 +52,16 @@ import org.apache.fop.util.LogUtil;
 
 /**
  * Fop cache (currently only used for font info caching)
+ * <p>
+ * The cache is stored in the binary format described in {@link FontCacheFormat}. When a
+ * cache file is loaded, it is memory-mapped and only its index is read; the font infos of a
+ * font file are decoded the first time they are looked up. Cache files written by older
+ * versions using Java serialization are still read and are rewritten in the binary format
+ * on the next save.
+ * <p>
+ * Besides the font infos, the cache keeps the metrics of the TrueType fonts parsed during
+ * auto-detection, so that {@link LazyFont} can set up these fonts without reading the font
+ * file again until it is embedded.
  */
 public final class FontCache implements Serializable {
 
@@ -159,13 +175,20 @@ public final class FontCache implements Serializable {
                     log.trace("Loading font cache from "
                             + cacheFile.getCanonicalPath());
                 }
+                FontCache cache = loadBinary(cacheFile);
+                if (cache != null) {
+                    return cache;
+                }
                 InputStream in = new BufferedInputStream(new FileInputStream(cacheFile));
                 ObjectInputStream oin = new ObjectInputStream(in);
                 try {
-                    return (FontCache) oin.readObject();
+                    cache = (FontCache) oin.readObject();
                 } finally {
                     IOUtils.closeQuietly(oin);
                 }
+                // legacy serialized cache, convert it on the next save
+                cache.changed = true;
+                return cache;
             } catch (ClassNotFoundException e) {
                 // We don't really care about the exception since it's just a
                 // cache file
@@ -187,6 +210,63 @@ public final class FontCache implements Serializable {
         return null;
     }
 
+    /**
+     * Memory-maps a cache file in the binary format and reads its index.
+     *
+     * @param cacheFile the cache file
+     * @return the font cache, or null if the file is not in the binary format
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    private static FontCache loadBinary(File cacheFile) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(cacheFile, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < 8) {
+                return null;
+            }
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != FontCacheFormat.MAGIC) {
+                return null;
+            }
+            int version = in.getInt();
+            if (version != FontCacheFormat.VERSION) {
+                throw new IOException("Unsupported font cache version " + version);
+            }
+            FontCache cache = new FontCache();
+            int fileCount = in.getInt();
+            String[] keys = new String[fileCount];
+            long[] lastModified = new long[fileCount];
+            int[] offsets = new int[fileCount];
+            int[] lengths = new int[fileCount];
+            for (int i = 0; i < fileCount; i++) {
+                keys[i] = FontCacheFormat.readString(in);
+                lastModified[i] = in.getLong();
+                offsets[i] = in.getInt();
+                lengths[i] = in.getInt();
+            }
+            int failedCount = in.getInt();
+            for (int i = 0; i < failedCount; i++) {
+                String key = FontCacheFormat.readString(in);
+                cache.getFailedFontMap().put(key, in.getLong());
+            }
+            int recordsStart = in.position();
+            for (int i = 0; i < fileCount; i++) {
+                ByteBuffer record = in.duplicate();
+                record.position(recordsStart + offsets[i]);
+                record.limit(recordsStart + offsets[i] + lengths[i]);
+                cache.getFontFileMap().put(keys[i],
+                        new CachedFontFile(lastModified[i], record.slice()));
+            }
+            return cache;
+        } catch (BufferUnderflowException bue) {
+            throw new IOException("Truncated font cache file");
+        } catch (IllegalArgumentException iae) {
+            throw new IOException("Corrupt font cache file: " + iae.getMessage());
+        } finally {
+            raf.close();
+        }
+    }
+
     /**
      * Writes the font cache to disk.
      *
@@ -210,14 +290,8 @@ public final class FontCache implements Serializable {
             if (changed) {
                 try {
                     log.trace("Writing font cache to " + cacheFile.getCanonicalPath());
-                    OutputStream out = new java.io.FileOutputStream(cacheFile);
-                    out = new java.io.BufferedOutputStream(out);
-                    ObjectOutputStream oout = new ObjectOutputStream(out);
-                    try {
-                        oout.writeObject(this);
-                    } finally {
-                        IOUtils.closeQuietly(oout);
-                    }
+                    writeBinary(cacheFile);
+                    releaseParsedMetrics();
                 } catch (IOException ioe) {
                     LogUtil.handleException(log, ioe, true);
                 }
@@ -227,6 +301,74 @@ public final class FontCache implements Serializable {
         }
     }
 
+    /**
+     * Writes the cache to a temporary file next to the cache file and renames it over the
+     * cache file. The cache file is never truncated: other caches, in this or another
+     * process, may still have it memory-mapped.
+     */
+    private void writeBinary(File cacheFile) throws IOException {
+        File dir = cacheFile.getAbsoluteFile().getParentFile();
+        File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", dir);
+        try {
+            OutputStream out = new java.io.FileOutputStream(tempFile);
+            try {
+                out.write(toBinary());
+            } finally {
+                IOUtils.closeQuietly(out);
+            }
+            if (!tempFile.renameTo(cacheFile)) {
+                // some platforms don't rename over an existing file
+                cacheFile.delete();
+                if (!tempFile.renameTo(cacheFile)) {
+                    throw new IOException("Could not rename " + tempFile + " to " + cacheFile);
+                }
+            }
+        } finally {
+            if (tempFile.exists()) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Drops the metrics of freshly parsed fonts once they have been written: they are only
+     * kept to be saved, later runs map them from the cache file.
+     */
+    private void releaseParsedMetrics() {
+        for (CachedFontFile cachedFontFile : getFontFileMap().values()) {
+            cachedFontFile.releaseParsedMetrics();
+        }
+    }
+
+    private byte[] toBinary() throws IOException {
+        Map<String, CachedFontFile> fontFiles = getFontFileMap();
+        Map<String, Long> failedFonts = getFailedFontMap();
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream recordsOut = new DataOutputStream(records);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(FontCacheFormat.MAGIC);
+        dout.writeInt(FontCacheFormat.VERSION);
+        dout.writeInt(fontFiles.size());
+        for (Map.Entry<String, CachedFontFile> entry : fontFiles.entrySet()) {
+            int offset = recordsOut.size();
+            FontCacheFormat.writeFontInfos(recordsOut, entry.getValue().getEmbedFontInfos());
+            FontCacheFormat.writeString(dout, entry.getKey());
+            dout.writeLong(entry.getValue().lastModified());
+            dout.writeInt(offset);
+            dout.writeInt(recordsOut.size() - offset);
+        }
+        dout.writeInt(failedFonts.size());
+        for (Map.Entry<String, Long> entry : failedFonts.entrySet()) {
+            FontCacheFormat.writeString(dout, entry.getKey());
+            dout.writeLong(entry.getValue());
+        }
+        recordsOut.flush();
+        records.writeTo(dout);
+        dout.flush();
+        return out.toByteArray();
+    }
+
     /**
      * creates a key given a font info for the font mapping
      *
@@ -368,7 +510,7 @@ public final class FontCache implements Serializable {
      */
     public EmbedFontInfo[] getFontInfos(String embedUrl, long lastModified) {
         CachedFontFile cff = getFontFile(embedUrl);
-        if (cff.lastModified() == lastModified) {
+        if (cff.lastModified() == lastModified && !cff.isCorrupt()) {
             return cff.getEmbedFontInfos();
         } else {
             removeFont(embedUrl);
@@ -376,6 +518,32 @@ public final class FontCache implements Serializable {
         }
     }
 
+    /**
+     * Returns the cached metrics of a font, if a font file with the given sub-font was
+     * parsed when it was added to the cache and hasn't been modified since.
+     *
+     * @param fontUri the resolved URI of the font file
+     * @param subFontName the sub-font name, null unless the font file is a collection
+     * @return the metrics, or null
+     */
+    ByteBuffer getCachedMetrics(URI fontUri, String subFontName) {
+        String embedUrl = fontUri.toASCIIString();
+        if (!containsFont(embedUrl)) {
+            return null;
+        }
+        EmbedFontInfo[] fontInfos = getFontInfos(embedUrl, getLastModified(fontUri));
+        if (fontInfos != null) {
+            for (EmbedFontInfo fontInfo : fontInfos) {
+                String name = fontInfo.getSubFontName();
+                if (fontInfo.getCachedMetrics() != null
+                        && (name == null ? subFontName == null : name.equals(subFontName))) {
+                    return fontInfo.getCachedMetrics();
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * removes font from cache
      *
@@ -466,6 +634,14 @@ public final class FontCache implements Serializable {
      * @return the last modified date/time
      */
     public static long getLastModified(URI uri) {
+        if ("file".equals(uri.getScheme())) {
+            // avoid opening a connection (and a stream) for every font on the local file system
+            try {
+                return new File(uri).lastModified();
+            } catch (IllegalArgumentException iae) {
+                // not a hierarchical file URI, let URLConnection deal with it
+            }
+        }
         try {
             URL url = uri.toURL();
             URLConnection conn = url.openConnection();
@@ -491,17 +667,46 @@ public final class FontCache implements Serializable {
 
         private Map<String, EmbedFontInfo> filefontsMap;
 
+        /** the not yet decoded record of this font file in a memory-mapped cache file */
+        private transient ByteBuffer record;
+
+        /** true if the record could not be decoded */
+        private transient boolean corrupt;
+
         public CachedFontFile(long lastModified) {
             setLastModified(lastModified);
         }
 
-        private Map<String, EmbedFontInfo> getFileFontsMap() {
+        CachedFontFile(long lastModified, ByteBuffer record) {
+            this(lastModified);
+            this.record = record;
+        }
+
+        private synchronized Map<String, EmbedFontInfo> getFileFontsMap() {
             if (filefontsMap == null) {
                 filefontsMap = new HashMap<String, EmbedFontInfo>();
+                if (record != null) {
+                    try {
+                        for (EmbedFontInfo efi : FontCacheFormat.readFontInfos(record)) {
+                            filefontsMap.put(efi.getPostScriptName(), efi);
+                        }
+                    } catch (RuntimeException re) {
+                        // leave the entry empty so the font file is parsed again
+                        log.warn("Discarding corrupt font cache entry: " + re.getMessage());
+                        filefontsMap.clear();
+                        corrupt = true;
+                    }
+                    record = null;
+                }
             }
             return filefontsMap;
         }
 
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            getFileFontsMap();
+            out.defaultWriteObject();
+        }
+
         void put(EmbedFontInfo efi) {
             getFileFontsMap().put(efi.getPostScriptName(), efi);
         }
@@ -511,6 +716,22 @@ public final class FontCache implements Serializable {
                     && getFileFontsMap().containsKey(efi.getPostScriptName());
         }
 
+        synchronized boolean isCorrupt() {
+            getFileFontsMap();
+            return corrupt;
+        }
+
+        synchronized void releaseParsedMetrics() {
+            if (filefontsMap != null) {
+                for (EmbedFontInfo efi : filefontsMap.values()) {
+                    ByteBuffer metrics = efi.getCachedMetrics();
+                    if (metrics != null && !metrics.isDirect()) {
+                        efi.setCachedMetrics(null);
+                    }
+                }
+            }
+        }
+
         public EmbedFontInfo[] getEmbedFontInfos() {
             return getFileFontsMap().values().toArray(
                     new EmbedFontInfo[getFileFontsMap().size()]);
@@ -0,0 +1,369 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * Binary encoding of the font cache file.
+ * <p>
+ * The file starts with a header (magic number and format version) followed by an index of
+ * all cached font files (URI, last modified date, offset and length of its record) and the
+ * list of failed fonts. The records holding the {@link EmbedFontInfo}s of each font file
+ * follow the index, so a cache can be opened by reading the index only and each record is
+ * decoded when its font file is looked up.
+ * <p>
+ * A font info may be followed by the metrics of the font (names, global metrics, glyph widths
+ * and bounding boxes, cmap and kerning) if the font file was parsed when it was added to the
+ * cache. They are kept as an undecoded slice of the record until a {@link LazyFont} needs them.
+ */
+final class FontCacheFormat {
+
+    /** Magic number identifying a font cache file ("FOPF"). */
+    static final int MAGIC = 0x464F5046;
+
+    /**
+     * The version of the format. Change this value whenever the layout of the file changes so
+     * existing cache files are discarded.
+     */
+    static final int VERSION = 2;
+
+    private static final int HAS_GDEF = 1;
+    private static final int HAS_GSUB = 2;
+    private static final int HAS_GPOS = 4;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private FontCacheFormat() {
+    }
+
+    /**
+     * Writes a string, which may be null, as length-prefixed UTF-8.
+     * @param out the output
+     * @param s the string
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     * @param in the buffer to read from
+     * @return the string, may be null
+     */
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeURI(DataOutputStream out, URI uri) throws IOException {
+        writeString(out, uri != null ? uri.toString() : null);
+    }
+
+    private static URI readURI(ByteBuffer in) {
+        String s = readString(in);
+        return s != null ? URI.create(s) : null;
+    }
+
+    /**
+     * Writes the record holding the fonts of a font file.
+     * @param out the output
+     * @param fontInfos the fonts contained in the font file
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeFontInfos(DataOutputStream out, EmbedFontInfo[] fontInfos)
+            throws IOException {
+        out.writeInt(fontInfos.length);
+        for (EmbedFontInfo fontInfo : fontInfos) {
+            FontUris fontUris = fontInfo.getFontUris();
+            writeURI(out, fontUris.getEmbed());
+            writeURI(out, fontUris.getMetrics());
+            writeURI(out, fontUris.getAfm());
+            writeURI(out, fontUris.getPfm());
+            out.writeBoolean(fontInfo.getKerning());
+            out.writeBoolean(fontInfo.getAdvanced());
+            writeString(out, fontInfo.getEncodingMode().name());
+            writeString(out, fontInfo.getEmbeddingMode().name());
+            out.writeBoolean(fontInfo.getSimulateStyle());
+            out.writeBoolean(fontInfo.getEmbedAsType1());
+            writeString(out, fontInfo.getPostScriptName());
+            writeString(out, fontInfo.getSubFontName());
+            List<FontTriplet> triplets = fontInfo.getFontTriplets();
+            if (triplets == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(triplets.size());
+                for (FontTriplet triplet : triplets) {
+                    writeString(out, triplet.getName());
+                    writeString(out, triplet.getStyle());
+                    out.writeInt(triplet.getWeight());
+                    out.writeInt(triplet.getPriority());
+                }
+            }
+            ByteBuffer metrics = fontInfo.getCachedMetrics();
+            if (metrics == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] bytes = new byte[metrics.remaining()];
+                metrics.duplicate().get(bytes);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Reads a record written by {@link #writeFontInfos(DataOutputStream, EmbedFontInfo[])}.
+     * @param in the buffer to read from
+     * @return the fonts contained in the font file
+     */
+    static EmbedFontInfo[] readFontInfos(ByteBuffer in) {
+        EmbedFontInfo[] fontInfos = new EmbedFontInfo[in.getInt()];
+        for (int i = 0; i < fontInfos.length; i++) {
+            FontUris fontUris = new FontUris(readURI(in), readURI(in), readURI(in), readURI(in));
+            boolean kerning = in.get() != 0;
+            boolean advanced = in.get() != 0;
+            EncodingMode encodingMode = EncodingMode.valueOf(readString(in));
+            EmbeddingMode embeddingMode = EmbeddingMode.valueOf(readString(in));
+            boolean simulateStyle = in.get() != 0;
+            boolean embedAsType1 = in.get() != 0;
+            String postScriptName = readString(in);
+            String subFontName = readString(in);
+            int tripletCount = in.getInt();
+            List<FontTriplet> triplets = null;
+            if (tripletCount >= 0) {
+                triplets = new ArrayList<FontTriplet>(tripletCount);
+            }
+            for (int j = 0; j < tripletCount; j++) {
+                String name = readString(in);
+                String style = readString(in);
+                int weight = in.getInt();
+                int priority = in.getInt();
+                triplets.add(new FontTriplet(name, style, weight, priority));
+            }
+            fontInfos[i] = new EmbedFontInfo(fontUris, kerning, advanced, triplets, subFontName,
+                    encodingMode, embeddingMode, simulateStyle, embedAsType1);
+            fontInfos[i].setPostScriptName(postScriptName);
+            int metricsLength = in.getInt();
+            if (metricsLength >= 0) {
+                ByteBuffer metrics = in.slice();
+                metrics.limit(metricsLength);
+                in.position(in.position() + metricsLength);
+                fontInfos[i].setCachedMetrics(metrics);
+            }
+        }
+        return fontInfos;
+    }
+
+    /**
+     * Encodes the metrics of a font parsed from a font file. Only TrueType fonts loaded in CID
+     * mode are supported: the other kinds of fonts are either cheap to load or need data which
+     * is only available while parsing the font file.
+     * @param font the font
+     * @return the encoded metrics, or null if the font is not supported
+     */
+    static ByteBuffer encodeMetrics(CustomFont font) {
+        if (font.getClass() != MultiByteFont.class) {
+            return null;
+        }
+        MultiByteFont mbf = (MultiByteFont) font;
+        if (mbf.getFontType() != FontType.TYPE0 || mbf.getCIDType() != CIDFontType.CIDTYPE2
+                || mbf.isOTFFile() || mbf.boundingBoxes == null) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte((mbf.getGDEF() != null ? HAS_GDEF : 0)
+                    | (mbf.getGSUB() != null ? HAS_GSUB : 0)
+                    | (mbf.getGPOS() != null ? HAS_GPOS : 0));
+            writeString(out, mbf.getFontName());
+            writeString(out, mbf.getFullName());
+            writeString(out, mbf.getFontSubName());
+            writeString(out, mbf.getTTCName());
+            Set<String> familyNames = mbf.getFamilyNames();
+            out.writeInt(familyNames.size());
+            for (String familyName : familyNames) {
+                writeString(out, familyName);
+            }
+            out.writeInt(mbf.getCapHeight());
+            out.writeInt(mbf.getXHeight(1));
+            out.writeInt(mbf.getAscender());
+            out.writeInt(mbf.getDescender());
+            for (int value : mbf.getFontBBox()) {
+                out.writeInt(value);
+            }
+            out.writeInt(mbf.getUnderlinePosition());
+            out.writeInt(mbf.getUnderlineThickness(1));
+            out.writeInt(mbf.getStrikeoutPosition());
+            out.writeInt(mbf.getStrikeoutThickness(1));
+            out.writeInt(mbf.getFlags());
+            out.writeInt(mbf.getStemV());
+            out.writeInt(mbf.getItalicAngle());
+            out.writeInt(mbf.getMissingWidth());
+            out.writeInt(mbf.getWeight());
+            int[] widths = mbf.getWidths();
+            out.writeInt(widths.length);
+            for (int width : widths) {
+                out.writeInt(width);
+            }
+            out.writeInt(mbf.boundingBoxes.length);
+            for (Rectangle bbox : mbf.boundingBoxes) {
+                out.writeInt(bbox.x);
+                out.writeInt(bbox.y);
+                out.writeInt(bbox.width);
+                out.writeInt(bbox.height);
+            }
+            CMapSegment[] cmap = mbf.getCMap();
+            out.writeInt(cmap.length);
+            for (CMapSegment segment : cmap) {
+                out.writeInt(segment.getUnicodeStart());
+                out.writeInt(segment.getUnicodeEnd());
+                out.writeInt(segment.getGlyphStartIndex());
+            }
+            Map<Integer, Map<Integer, Integer>> kerning = mbf.getKerningInfo();
+            out.writeInt(kerning.size());
+            for (Map.Entry<Integer, Map<Integer, Integer>> entry : kerning.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (Map.Entry<Integer, Integer> pair : entry.getValue().entrySet()) {
+                    out.writeInt(pair.getKey());
+                    out.writeInt(pair.getValue());
+                }
+            }
+            out.flush();
+            return ByteBuffer.wrap(bytes.toByteArray());
+        } catch (IOException ioe) {
+            // cannot happen when writing to memory
+            throw new IllegalStateException(ioe);
+        }
+    }
+
+    /**
+     * Indicates whether the font has advanced typographic tables, which are not part of the
+     * encoded metrics and have to be read from the font file.
+     * @param metrics the metrics encoded by {@link #encodeMetrics(CustomFont)}
+     * @return true if the font has a GDEF, GSUB or GPOS table
+     */
+    static boolean hasAdvancedTables(ByteBuffer metrics) {
+        return metrics.get(metrics.position()) != 0;
+    }
+
+    /**
+     * Creates a font from metrics encoded by {@link #encodeMetrics(CustomFont)}, the same way
+     * {@link org.apache.fop.fonts.truetype.OFFontLoader} creates an embedded font from the font
+     * file, without the advanced typographic tables.
+     * @param metrics the encoded metrics
+     * @param fontURI the URI of the font file
+     * @param embeddingMode the embedding mode
+     * @param useKerning true to set up kerning
+     * @param simulateStyle true to simulate bold or italic
+     * @param resourceResolver the resolver to read the font file with when it is embedded
+     * @return the font
+     */
+    static MultiByteFont decodeMetrics(ByteBuffer metrics, URI fontURI,
+            EmbeddingMode embeddingMode, boolean useKerning, boolean simulateStyle,
+            InternalResourceResolver resourceResolver) {
+        ByteBuffer in = metrics.duplicate();
+        in.get();
+        MultiByteFont font = new MultiByteFont(resourceResolver, embeddingMode);
+        font.setIsOTFFile(false);
+        font.setSimulateStyle(simulateStyle);
+        font.setFontURI(fontURI);
+        font.setFontName(readString(in));
+        font.setFullName(readString(in));
+        font.setFontSubFamilyName(readString(in));
+        font.setTTCName(readString(in));
+        Set<String> familyNames = new HashSet<String>();
+        for (int i = in.getInt(); i > 0; i--) {
+            familyNames.add(readString(in));
+        }
+        font.setFamilyNames(familyNames);
+        font.setCapHeight(in.getInt());
+        font.setXHeight(in.getInt());
+        font.setAscender(in.getInt());
+        font.setDescender(in.getInt());
+        font.setFontBBox(new int[] {in.getInt(), in.getInt(), in.getInt(), in.getInt()});
+        font.setUnderlinePosition(in.getInt());
+        font.setUnderlineThickness(in.getInt());
+        font.setStrikeoutPosition(in.getInt());
+        font.setStrikeoutThickness(in.getInt());
+        font.setFlags(in.getInt());
+        font.setStemV(in.getInt());
+        font.setItalicAngle(in.getInt());
+        font.setMissingWidth(in.getInt());
+        font.setWeight(in.getInt());
+        font.setCIDType(CIDFontType.CIDTYPE2);
+        int[] widths = new int[in.getInt()];
+        in.asIntBuffer().get(widths);
+        in.position(in.position() + widths.length * 4);
+        font.setWidthArray(widths);
+        Rectangle[] bboxes = new Rectangle[in.getInt()];
+        for (int i = 0; i < bboxes.length; i++) {
+            bboxes[i] = new Rectangle(in.getInt(), in.getInt(), in.getInt(), in.getInt());
+        }
+        font.setBBoxArray(bboxes);
+        CMapSegment[] cmap = new CMapSegment[in.getInt()];
+        for (int i = 0; i < cmap.length; i++) {
+            cmap[i] = new CMapSegment(in.getInt(), in.getInt(), in.getInt());
+        }
+        font.setCMap(cmap);
+        int kerningCount = in.getInt();
+        for (int i = 0; i < kerningCount; i++) {
+            Integer first = in.getInt();
+            int pairCount = in.getInt();
+            Map<Integer, Integer> pairs = new HashMap<Integer, Integer>(pairCount * 2);
+            for (int j = 0; j < pairCount; j++) {
+                pairs.put(in.getInt(), in.getInt());
+            }
+            if (useKerning) {
+                font.putKerningEntry(first, pairs);
+            }
+        }
+        font.setEmbedURI(fontURI);
+        return font;
+    }
+}
@@ -26,6 +26,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -45,7 +47,10 @@ public class FontInfo {
     /** logging instance */
     protected static final Log log = LogFactory.getLog(FontInfo.class);
 
-    /** Map containing fonts that have been used */
+    /**
+     * Map containing fonts that have been used. Synchronized, since with concurrent rendering
+     * the rendering thread marks fonts as used while the layout thread does.
+     */
     private Map<String, Typeface> usedFonts; //(String = font key)
 
     /** look up a font-triplet to find a font-name */
@@ -58,8 +63,9 @@ public class FontInfo {
     /** look up a font-name to get a font (that implements FontMetrics at least) */
     private Map<String, Typeface> fonts; //(String = font key)
 
-    /** Cache for Font instances. */
-    private Map<FontTriplet, Map<Integer, Font>> fontInstanceCache;
+    /** Cache for Font instances, shared by the layout and the rendering threads. */
+    private final ConcurrentMap<FontTriplet, ConcurrentMap<Integer, Font>> fontInstanceCache
+            = new ConcurrentHashMap<FontTriplet, ConcurrentMap<Integer, Font>>();
 
     /** Event listener for font events */
     private FontEventListener eventListener;
@@ -71,7 +77,7 @@ public class FontInfo {
         this.triplets = new HashMap<FontTriplet, String>();
         this.tripletPriorities = new HashMap<FontTriplet, Integer>();
         this.fonts = new HashMap<String, Typeface>();
-        this.usedFonts = new HashMap<String, Typeface>();
+        this.usedFonts = Collections.synchronizedMap(new HashMap<String, Typeface>());
     }
 
     /**
@@ -284,13 +290,6 @@ public class FontInfo {
         usedFonts.put(internalName, fonts.get(internalName));
     }
 
-    private Map<FontTriplet, Map<Integer, Font>> getFontInstanceCache() {
-        if (fontInstanceCache == null) {
-            fontInstanceCache = new HashMap<FontTriplet, Map<Integer, Font>>();
-        }
-        return fontInstanceCache;
-    }
-
     /**
      * Retrieves a (possibly cached) Font instance based on a FontTriplet and a font size.
      *
@@ -299,10 +298,13 @@ public class FontInfo {
      * @return the requested Font instance
      */
     public Font getFontInstance(FontTriplet triplet, int fontSize) {
-        Map<Integer, Font> sizes = getFontInstanceCache().get(triplet);
+        ConcurrentMap<Integer, Font> sizes = fontInstanceCache.get(triplet);
         if (sizes == null) {
-            sizes = new HashMap<Integer, Font>();
-            getFontInstanceCache().put(triplet, sizes);
+            sizes = new ConcurrentHashMap<Integer, Font>();
+            ConcurrentMap<Integer, Font> existing = fontInstanceCache.putIfAbsent(triplet, sizes);
+            if (existing != null) {
+                sizes = existing;
+            }
         }
         Integer size = fontSize;
         Font font = sizes.get(size);
@@ -311,7 +313,10 @@ public class FontInfo {
             useFont(fontKey);
             FontMetrics metrics = getMetricsFor(fontKey);
             font = new Font(fontKey, triplet, metrics, fontSize);
-            sizes.put(size, font);
+            Font existing = sizes.putIfAbsent(size, font);
+            if (existing != null) {
+                font = existing;
+            }
         }
         return font;
     }
@@ -540,7 +545,8 @@ public class FontInfo {
 
     /**
      * Gets a Map of all registered fonts.
-     * @return a read-only Map with font key/FontMetrics pairs
+     * @return a read-only Map with font key/FontMetrics pairs, which is synchronized: callers
+     * iterating over it while fonts may still be used must synchronize on it
      */
     public Map<String, Typeface> getFonts() {
         return Collections.unmodifiableMap(this.fonts);
@@ -558,7 +564,8 @@ public class FontInfo {
      * This is used by the renderers to retrieve all the
      * fonts used in the document.
      * This is for embedded font or creating a list of used fonts.
-     * @return a read-only Map with font key/FontMetrics pairs
+     * @return a read-only Map with font key/FontMetrics pairs, which is synchronized: callers
+     * iterating over it while fonts may still be used must synchronize on it
      */
     public Map<String, Typeface> getUsedFonts() {
         return this.usedFonts;
@@ -20,7 +20,9 @@
 package org.apache.fop.fonts;
 
 import java.net.URI;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.io.InternalResourceResolver;
@@ -52,6 +54,9 @@ public class FontManager {
     /** FontTriplet matcher for fonts that shall be referenced rather than embedded. */
     private FontTriplet.Matcher referencedFontsMatcher;
 
+    /** Font lists built per font configuration, null if font list caching is disabled. */
+    private Map<FontConfig, List<EmbedFontInfo>> fontListCache;
+
     /**
      * Main constructor
      *
@@ -125,6 +130,51 @@ public class FontManager {
         fontCacheManager = FontCacheManagerFactory.createDisabled();
     }
 
+    /**
+     * Enables or disables caching of the font lists built from a font configuration. When
+     * enabled, the configured fonts, font directories and auto-detected fonts are only
+     * resolved the first time a renderer configuration is used; later documents rendered with
+     * the same configuration reuse the list. Fonts added to the configured directories after
+     * that are not picked up. Disabled by default.
+     * @param enabled true to enable font list caching
+     */
+    public synchronized void setFontListCachingEnabled(boolean enabled) {
+        if (!enabled) {
+            fontListCache = null;
+        } else if (fontListCache == null) {
+            fontListCache = new IdentityHashMap<FontConfig, List<EmbedFontInfo>>();
+        }
+    }
+
+    /**
+     * Indicates whether font lists are cached, see {@link #setFontListCachingEnabled(boolean)}.
+     * @return true if font list caching is enabled
+     */
+    public synchronized boolean isFontListCachingEnabled() {
+        return fontListCache != null;
+    }
+
+    /**
+     * Returns the font list previously built from the given font configuration.
+     * @param fontConfig the font configuration
+     * @return the font list, or null if there's none or font list caching is disabled
+     */
+    synchronized List<EmbedFontInfo> getCachedFontList(FontConfig fontConfig) {
+        return fontListCache != null ? fontListCache.get(fontConfig) : null;
+    }
+
+    /**
+     * Remembers the font list built from the given font configuration, if font list caching is
+     * enabled.
+     * @param fontConfig the font configuration
+     * @param fontList the font list
+     */
+    synchronized void cacheFontList(FontConfig fontConfig, List<EmbedFontInfo> fontList) {
+        if (fontListCache != null) {
+            fontListCache.put(fontConfig, fontList);
+        }
+    }
+
     /**
      * Returns the font cache instance used by this font manager.
      * @return the font cache
@@ -21,6 +21,7 @@ package org.apache.fop.fonts;
 import java.awt.Rectangle;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -52,8 +53,12 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     private final String subFontName;
     private final boolean embedded;
     private final InternalResourceResolver resourceResolver;
+    /** the metrics kept by the font cache, null if the font file has to be parsed */
+    private final ByteBuffer cachedMetrics;
 
     private boolean isMetricsLoaded;
+    /** true if the advanced typographic tables still have to be read from the font file */
+    private boolean advancedPending;
     private Typeface realFont;
     private FontDescriptor realFontDescriptor;
 
@@ -81,6 +86,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         this.subFontName = fontInfo.getSubFontName();
         this.embedded = fontInfo.isEmbedded();
         this.resourceResolver = resourceResolver;
+        this.cachedMetrics = fontInfo.getCachedMetrics();
     }
 
     /** {@inheritDoc} */
@@ -116,8 +122,17 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
                     if (fontUris.getEmbed() == null) {
                         throw new RuntimeException("Cannot load font. No font URIs available.");
                     }
-                    realFont = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode,
-                                encodingMode, useKerning, useAdvanced, resourceResolver, simulateStyle, embedAsType1);
+                    if (canUseCachedMetrics()) {
+                        realFont = FontCacheFormat.decodeMetrics(cachedMetrics, fontUris.getEmbed(),
+                                embeddingMode == EmbeddingMode.AUTO ? EmbeddingMode.SUBSET : embeddingMode,
+                                useKerning, simulateStyle, resourceResolver);
+                        advancedPending = useAdvanced
+                                && FontCacheFormat.hasAdvancedTables(cachedMetrics);
+                    } else {
+                        realFont = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode,
+                                encodingMode, useKerning, useAdvanced, resourceResolver, simulateStyle,
+                                embedAsType1);
+                    }
                 }
                 if (realFont instanceof FontDescriptor) {
                     realFontDescriptor = (FontDescriptor) realFont;
@@ -137,6 +152,41 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         }
     }
 
+    /**
+     * The cached metrics describe the font as it is loaded for embedding in CID mode, which
+     * is also how it is loaded by default.
+     */
+    private boolean canUseCachedMetrics() {
+        return cachedMetrics != null && embedded && !embedAsType1
+                && encodingMode != EncodingMode.SINGLE_BYTE;
+    }
+
+    /**
+     * Reads the advanced typographic tables of a font set up from cached metrics. This is
+     * deferred until they are used, since they are only needed for complex scripts and
+     * reading them means parsing the font file.
+     */
+    private void loadAdvanced() {
+        load(true);
+        if (advancedPending) {
+            advancedPending = false;
+            try {
+                CustomFont parsed = FontLoader.loadFont(fontUris, subFontName, embedded,
+                        embeddingMode, encodingMode, false, true, resourceResolver, simulateStyle,
+                        embedAsType1);
+                if (parsed instanceof MultiByteFont) {
+                    MultiByteFont font = (MultiByteFont) realFont;
+                    font.setGDEF(((MultiByteFont) parsed).getGDEF());
+                    font.setGSUB(((MultiByteFont) parsed).getGSUB());
+                    font.setGPOS(((MultiByteFont) parsed).getGPOS());
+                }
+            } catch (Exception e) {
+                log.error("Failed to read the advanced typographic tables of font file "
+                        + fontUris.getEmbed(), e);
+            }
+        }
+    }
+
     /**
      * Gets the real font.
      * @return the real font
@@ -321,7 +371,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
 
     /** {@inheritDoc} */
     public boolean hasFeature(int tableType, String script, String language, String feature) {
-        load(true);
+        loadAdvanced();
         return realFont.hasFeature(tableType, script, language, feature);
     }
 
@@ -406,7 +456,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
      * {@inheritDoc}
      */
     public boolean performsSubstitution() {
-        load(true);
+        loadAdvanced();
         if (realFontDescriptor instanceof Substitutable) {
             return ((Substitutable)realFontDescriptor).performsSubstitution();
         } else {
@@ -419,7 +469,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
      */
     public CharSequence performSubstitution(CharSequence cs, String script, String language, List associations,
                                             boolean retainControls) {
-        load(true);
+        loadAdvanced();
         if (realFontDescriptor instanceof Substitutable) {
             return ((Substitutable)realFontDescriptor).performSubstitution(cs,
                 script, language, associations, retainControls);
@@ -433,9 +483,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
      */
     public CharSequence reorderCombiningMarks(
         CharSequence cs, int[][] gpa, String script, String language, List associations) {
-        if (!isMetricsLoaded) {
-            load(true);
-        }
+        loadAdvanced();
         if (realFontDescriptor instanceof Substitutable) {
             return ((Substitutable)realFontDescriptor)
                 .reorderCombiningMarks(cs, gpa, script, language, associations);
@@ -448,9 +496,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
      * {@inheritDoc}
      */
     public boolean performsPositioning() {
-        if (!isMetricsLoaded) {
-            load(true);
-        }
+        loadAdvanced();
         if (realFontDescriptor instanceof Positionable) {
             return ((Positionable)realFontDescriptor).performsPositioning();
         } else {
@@ -463,9 +509,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
      */
     public int[][]
         performPositioning(CharSequence cs, String script, String language, int fontSize) {
-        if (!isMetricsLoaded) {
-            load(true);
-        }
+        loadAdvanced();
         if (realFontDescriptor instanceof Positionable) {
             return ((Positionable)realFontDescriptor)
                 .performPositioning(cs, script, language, fontSize);
@@ -479,9 +523,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
      */
     public int[][]
         performPositioning(CharSequence cs, String script, String language) {
-        if (!isMetricsLoaded) {
-            load(true);
-        }
+        loadAdvanced();
         if (realFontDescriptor instanceof Positionable) {
             return ((Positionable)realFontDescriptor)
                 .performPositioning(cs, script, language);
@@ -360,7 +360,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
 
     /** {@inheritDoc} */
     @Override
-    public char mapChar(char c) {
+    public synchronized char mapChar(char c) {
         notifyMapOperation();
         int glyphIndex = findGlyphIndex(c);
         if (glyphIndex == SingleByteEncoding.NOT_FOUND_CODE_POINT) {
@@ -380,7 +380,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
 
     /** {@inheritDoc} */
     @Override
-    public int mapCodePoint(int cp) {
+    public synchronized int mapCodePoint(int cp) {
         notifyMapOperation();
         int glyphIndex = findGlyphIndex(cp);
         if (glyphIndex == SingleByteEncoding.NOT_FOUND_CODE_POINT) {
@@ -127,7 +127,7 @@ public abstract class Typeface implements FontMetrics {
      * @param c
      *            the character which is missing.
      */
-    protected void warnMissingGlyph(char c) {
+    protected synchronized void warnMissingGlyph(char c) {
         // Give up, character is not available
         Character ch = c;
         if (warnedChars == null) {
@@ -153,6 +153,8 @@ public class FontInfoFinder {
                 customFont.isAdvancedEnabled(), fontTripletList, subFontName);
         fontInfo.setPostScriptName(customFont.getFontName());
         if (fontCache != null) {
+            // keep the metrics, so the font needn't be parsed again when it is used
+            fontInfo.setParsedFont(customFont);
             fontCache.addFont(fontInfo, resourceResolver);
         }
         return fontInfo;
@@ -21,18 +21,28 @@ package org.apache.fop.fonts.truetype;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.commons.io.IOUtils;
 
 /**
  * Reads a TrueType font file into a byte array and
  * provides file like functions for array access.
+ * <p>
+ * The font data can also be a {@link ByteBuffer}, typically a read-only memory mapping of the
+ * font file (see {@link MappedFontFiles}). Bytes written to such a reader are kept in an
+ * overlay private to the reader, so the mapped data is never modified and only the parts of
+ * the font actually read are paged in.
  */
 public class FontFileReader {
 
     private final int fsize; // file size
     private int current;    // current position in file
-    private final byte[] file;
+    private ByteBuffer data; // only accessed with absolute gets and puts
+    private byte[] file;    // the array backing data, if any
+    private TreeMap<Integer, Byte> patches; // bytes written to read-only data
 
     /**
      * Constructor
@@ -42,10 +52,29 @@ public class FontFileReader {
      */
     public FontFileReader(InputStream in) throws IOException {
         this.file = IOUtils.toByteArray(in);
+        this.data = ByteBuffer.wrap(file);
         this.fsize = this.file.length;
         this.current = 0;
     }
 
+    /**
+     * Creates a reader on the given font data. The data, from position 0 to the buffer's limit,
+     * must hold the whole font file. The buffer's position and limit are left untouched and,
+     * if the buffer is read-only, so is its content, so it can be shared by several readers.
+     *
+     * @param buffer the font data
+     */
+    public FontFileReader(ByteBuffer buffer) {
+        this.data = buffer.duplicate();
+        this.data.position(0);
+        this.fsize = this.data.limit();
+        this.current = 0;
+        if (!data.isReadOnly() && data.hasArray() && data.arrayOffset() == 0
+                && data.array().length == fsize) {
+            this.file = data.array();
+        }
+    }
+
 
     /**
      * Set current file position to offset
@@ -100,8 +129,17 @@ public class FontFileReader {
             throw new java.io.EOFException("Reached EOF, file size=" + fsize);
         }
 
-        final byte ret = file[current++];
-        return ret;
+        return get(current++);
+    }
+
+    private byte get(int pos) {
+        if (patches != null) {
+            Byte patched = patches.get(pos);
+            if (patched != null) {
+                return patched;
+            }
+        }
+        return data.get(pos);
     }
 
     /**
@@ -167,8 +205,16 @@ public class FontFileReader {
         final byte b1 = (byte)((val >> 8) & 0xff);
         final byte b2 = (byte)(val & 0xff);
         final int fileIndex = (int) pos;
-        file[fileIndex] = b1;
-        file[fileIndex + 1] = b2;
+        if (data.isReadOnly()) {
+            if (patches == null) {
+                patches = new TreeMap<Integer, Byte>();
+            }
+            patches.put(fileIndex, b1);
+            patches.put(fileIndex + 1, b2);
+        } else {
+            data.put(fileIndex, b1);
+            data.put(fileIndex + 1, b2);
+        }
     }
 
     /**
@@ -239,15 +285,14 @@ public class FontFileReader {
      */
     public final String readTTFString() throws IOException {
         int i = current;
-        while (file[i++] != 0) {
+        while (get(i++) != 0) {
             if (i >= fsize) {
                 throw new java.io.EOFException("Reached EOF, file size="
                                                + fsize);
             }
         }
 
-        byte[] tmp = new byte[i - current - 1];
-        System.arraycopy(file, current, tmp, 0, i - current - 1);
+        byte[] tmp = copy(current, i - current - 1);
         return new String(tmp, "ISO-8859-1");
     }
 
@@ -264,8 +309,7 @@ public class FontFileReader {
             throw new java.io.EOFException("Reached EOF, file size=" + fsize);
         }
 
-        byte[] tmp = new byte[len];
-        System.arraycopy(file, current, tmp, 0, len);
+        byte[] tmp = copy(current, len);
         current += len;
         final String encoding;
         if ((tmp.length > 0) && (tmp[0] == 0)) {
@@ -289,8 +333,7 @@ public class FontFileReader {
             throw new java.io.EOFException("Reached EOF, file size=" + fsize);
         }
 
-        byte[] tmp = new byte[len];
-        System.arraycopy(file, current, tmp, 0, len);
+        byte[] tmp = copy(current, len);
         current += len;
         final String encoding;
         encoding = "UTF-16BE"; //Use this for all known encoding IDs for now
@@ -311,15 +354,38 @@ public class FontFileReader {
             throw new java.io.IOException("Reached EOF");
         }
 
+        return copy(offset, length);
+    }
+
+    private byte[] copy(int offset, int length) {
         byte[] ret = new byte[length];
-        System.arraycopy(file, offset, ret, 0, length);
+        if (file != null) {
+            System.arraycopy(file, offset, ret, 0, length);
+        } else {
+            ByteBuffer src = data.duplicate();
+            src.position(offset);
+            src.get(ret);
+        }
+        if (patches != null) {
+            for (Map.Entry<Integer, Byte> patch
+                    : patches.subMap(offset, offset + length).entrySet()) {
+                ret[patch.getKey() - offset] = patch.getValue();
+            }
+        }
         return ret;
     }
+
     /**
-     * Returns the full byte array representation of the file.
+     * Returns the full byte array representation of the file. If the font data isn't held in
+     * an array (ex. a memory mapped file), it is copied into one on the first call.
      * @return byte array.
      */
     public byte[] getAllBytes() {
+        if (file == null) {
+            file = copy(0, fsize);
+            data = ByteBuffer.wrap(file);
+            patches = null;
+        }
         return file;
     }
 }
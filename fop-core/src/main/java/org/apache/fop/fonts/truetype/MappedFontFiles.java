@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts.truetype;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.fop.apps.io.FileResource;
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * Creates {@link FontFileReader}s which memory-map local font files instead of reading them.
+ * Loading a font's metrics and subsetting it for every document then no longer copies the
+ * whole font file onto the heap: only the tables actually read are paged in, and the pages are
+ * shared with the operating system's file cache.
+ * <p>
+ * Font files are always opened through the resource resolver. They are mapped when the
+ * resolver serves them from a local file (see {@link FileResource}) and read otherwise. All the
+ * readers of a file share a single mapping, so the number of mappings of the process doesn't grow
+ * with the number of documents. A mapping is only weakly referenced: it is released when the
+ * readers using it are garbage collected, and replaced when the file's length or modification
+ * time changes.
+ */
+public final class MappedFontFiles {
+
+    /** The mappings, keyed by canonical file */
+    private static final Map<File, Mapping> MAPPINGS = new HashMap<File, Mapping>();
+
+    private static final ReferenceQueue<ByteBuffer> RELEASED = new ReferenceQueue<ByteBuffer>();
+
+    private MappedFontFiles() {
+    }
+
+    /**
+     * Creates a reader on a font file, mapping the file if it is a local file.
+     * @param resourceResolver the resolver to open the font file with
+     * @param uri the URI of the font file
+     * @return the reader
+     * @throws IOException if the font file can't be read
+     */
+    public static FontFileReader createReader(InternalResourceResolver resourceResolver, URI uri)
+            throws IOException {
+        InputStream in = resourceResolver.getResource(uri);
+        if (in == null) {
+            throw new FileNotFoundException("Font file not found: " + uri);
+        }
+        try {
+            if (in instanceof FileResource) {
+                ByteBuffer mapping = getMapping((FileResource) in);
+                if (mapping != null) {
+                    return new FontFileReader(mapping);
+                }
+            }
+            return new FontFileReader(in);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Returns the mapping of the file a resource is read from, mapping the file if none of its
+     * readers is still alive.
+     * @param resource the resource
+     * @return the mapping, or null if the file is too large to be mapped
+     * @throws IOException if the file can't be mapped
+     */
+    static ByteBuffer getMapping(FileResource resource) throws IOException {
+        FileChannel channel = resource.getChannel();
+        long length = channel.size();
+        if (length > Integer.MAX_VALUE) {
+            return null;
+        }
+        File file = resource.getFile().getCanonicalFile();
+        long lastModified = file.lastModified();
+        synchronized (MAPPINGS) {
+            expungeReleasedMappings();
+            Mapping mapping = MAPPINGS.get(file);
+            ByteBuffer buffer = mapping != null ? mapping.get() : null;
+            if (buffer == null || mapping.length != length || mapping.lastModified != lastModified) {
+                // the mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                MAPPINGS.put(file, new Mapping(file, buffer, length, lastModified));
+            }
+            // readers keep the mapping reachable through their duplicates of it
+            return buffer;
+        }
+    }
+
+    private static void expungeReleasedMappings() {
+        Mapping released;
+        while ((released = (Mapping) RELEASED.poll()) != null) {
+            if (MAPPINGS.get(released.file) == released) {
+                MAPPINGS.remove(released.file);
+            }
+        }
+    }
+
+    private static final class Mapping extends WeakReference<ByteBuffer> {
+
+        private final File file;
+
+        private final long length;
+
+        private final long lastModified;
+
+        Mapping(File file, ByteBuffer buffer, long length, long lastModified) {
+            super(buffer, RELEASED);
+            this.file = file;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts.truetype;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * A JVM-wide registry of parsed TrueType and OpenType fonts, shared by all
+ * {@link org.apache.fop.apps.FopFactory} instances. Parsing a font (metrics, cmap, kerning
+ * and the GDEF, GSUB and GPOS tables) is by far the most expensive part of loading it; the
+ * {@link OpenFont} instances kept here are only read once parsed, so every
+ * {@link OFFontLoader} builds its own {@link org.apache.fop.fonts.CustomFont}, holding the
+ * per-document state like the used glyphs, from the shared parse result.
+ * <p>
+ * Only fonts whose URI resolves to a local <code>file:</code> URI are registered, since their
+ * modification time and length tell when a parse result is outdated. Parse results are softly
+ * referenced: they stay registered as long as fonts built from them are in use, and
+ * afterwards until memory runs short.
+ */
+final class OpenFontRegistry {
+
+    private static final Map<String, Entry> FONTS = new HashMap<String, Entry>();
+
+    private OpenFontRegistry() {
+    }
+
+    /**
+     * Returns a parsed font, parsing it only if it isn't registered yet.
+     * @param resourceResolver the resolver to read the font with
+     * @param uri the URI of the font file
+     * @param ttcFontName the name of the font in a TrueType Collection, or null
+     * @param useKerning true to read the kerning information
+     * @param useAdvanced true to read the advanced typographic tables
+     * @return the parsed font
+     * @throws IOException if the font can't be read or has no Unicode cmap
+     */
+    static OpenFont getFont(InternalResourceResolver resourceResolver, URI uri,
+            String ttcFontName, boolean useKerning, boolean useAdvanced) throws IOException {
+        URI resolved = resourceResolver.resolveFromBase(uri);
+        File file = toFile(resolved);
+        if (file == null) {
+            return parse(resourceResolver, uri, ttcFontName, useKerning, useAdvanced);
+        }
+        String key = resolved + "|" + ttcFontName + "|" + useKerning + "|" + useAdvanced;
+        long lastModified = file.lastModified();
+        long length = file.length();
+        synchronized (FONTS) {
+            Entry entry = FONTS.get(key);
+            if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+                OpenFont font = entry.font.get();
+                if (font != null) {
+                    return font;
+                }
+            }
+        }
+        // parsed outside the lock, so other fonts can be loaded in the meantime
+        OpenFont font = parse(resourceResolver, uri, ttcFontName, useKerning, useAdvanced);
+        synchronized (FONTS) {
+            FONTS.put(key, new Entry(font, lastModified, length));
+        }
+        return font;
+    }
+
+    /** Drops all registered fonts. */
+    static void clear() {
+        synchronized (FONTS) {
+            FONTS.clear();
+        }
+    }
+
+    private static File toFile(URI uri) {
+        if (!"file".equals(uri.getScheme()) || uri.getAuthority() != null
+                || uri.getQuery() != null || uri.getFragment() != null) {
+            return null;
+        }
+        File file = new File(uri);
+        return file.isFile() ? file : null;
+    }
+
+    private static OpenFont parse(InternalResourceResolver resourceResolver, URI uri,
+            String ttcFontName, boolean useKerning, boolean useAdvanced) throws IOException {
+        FontFileReader reader = MappedFontFiles.createReader(resourceResolver, uri);
+        String header = OFFontLoader.readHeader(reader);
+        boolean isCFF = header.equals("OTTO");
+        OpenFont otf = (isCFF) ? new OTFFile(useKerning, useAdvanced) : new TTFFile(useKerning, useAdvanced);
+        boolean supported = otf.readFont(reader, header, ttcFontName);
+        if (!supported) {
+            throw new IOException("The font does not have a Unicode cmap table: " + uri);
+        }
+        return otf;
+    }
+
+    private static final class Entry {
+        private final SoftReference<OpenFont> font;
+        private final long lastModified;
+        private final long length;
+
+        Entry(OpenFont font, long lastModified, long length) {
+            this.font = new SoftReference<OpenFont>(font);
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
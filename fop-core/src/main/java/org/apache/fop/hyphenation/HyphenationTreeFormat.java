@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The compiled format of hyphenation pattern files. Unlike Java serialization, it stores
+ * the arrays of the ternary trees as plain blocks of big-endian values, so a tree is
+ * restored with a few bulk copies, without reflection and without creating an object per
+ * array element. Pattern files in this format can be read from a memory mapping of the
+ * file.</p>
+ *
+ * <p>A file starts with a magic number and a format version, followed by the hyphenation
+ * tree's pattern tree, its packed values, its character class tree and its exceptions.</p>
+ */
+final class HyphenationTreeFormat {
+
+    /** The magic number of the format: "FOPH" */
+    static final int MAGIC = 0x464F5048;
+
+    /** The version of the format */
+    static final int VERSION = 1;
+
+    private static final int STRING = 0;
+    private static final int HYPHEN = 1;
+
+    private HyphenationTreeFormat() {
+    }
+
+    /**
+     * Indicates whether data starts with the magic number of this format.
+     * @param header the first bytes of the data
+     * @param length the number of bytes in the header
+     * @return true if the data is in this format
+     */
+    static boolean isCompiled(byte[] header, int length) {
+        return length >= 4 && ByteBuffer.wrap(header).getInt() == MAGIC;
+    }
+
+    /**
+     * Writes a hyphenation tree.
+     * @param hTree the hyphenation tree
+     * @param out the stream to write to, not closed
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(HyphenationTree hTree, OutputStream out) throws IOException {
+        DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out));
+        dout.writeInt(MAGIC);
+        dout.writeInt(VERSION);
+        writeTree(hTree, dout);
+        writeBytes(hTree.vspace.getArray(), hTree.vspace.length(), dout);
+        writeTree(hTree.classmap, dout);
+        dout.writeInt(hTree.stoplist.size());
+        for (Iterator it = hTree.stoplist.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            writeString((String) entry.getKey(), dout);
+            List hyphenatedWord = (List) entry.getValue();
+            dout.writeInt(hyphenatedWord.size());
+            for (Object item : hyphenatedWord) {
+                if (item instanceof Hyphen) {
+                    Hyphen hyphen = (Hyphen) item;
+                    dout.writeByte(HYPHEN);
+                    writeString(hyphen.preBreak, dout);
+                    writeString(hyphen.noBreak, dout);
+                    writeString(hyphen.postBreak, dout);
+                } else {
+                    dout.writeByte(STRING);
+                    writeString((String) item, dout);
+                }
+            }
+        }
+        dout.flush();
+    }
+
+    /**
+     * Reads a hyphenation tree.
+     * @param in the compiled pattern data, starting at the buffer's position
+     * @return the hyphenation tree
+     * @throws IOException if the data isn't in this format or is corrupt
+     */
+    static HyphenationTree read(ByteBuffer in) throws IOException {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a compiled hyphenation pattern file");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported compiled hyphenation pattern version: "
+                        + version);
+            }
+            HyphenationTree hTree = new HyphenationTree();
+            readTree(hTree, in);
+            byte[] values = readBytes(in);
+            hTree.vspace = new ByteVector(values.length);
+            hTree.vspace.alloc(values.length);
+            System.arraycopy(values, 0, hTree.vspace.getArray(), 0, values.length);
+            readTree(hTree.classmap, in);
+            int exceptions = in.getInt();
+            hTree.stoplist = new HashMap(Math.max(23, exceptions * 4 / 3 + 1));
+            for (int i = 0; i < exceptions; i++) {
+                String word = readString(in);
+                int size = in.getInt();
+                ArrayList hyphenatedWord = new ArrayList(size);
+                for (int j = 0; j < size; j++) {
+                    if (in.get() == HYPHEN) {
+                        hyphenatedWord.add(new Hyphen(readString(in), readString(in),
+                                readString(in)));
+                    } else {
+                        hyphenatedWord.add(readString(in));
+                    }
+                }
+                hTree.stoplist.put(word, hyphenatedWord);
+            }
+            return hTree;
+        } catch (BufferUnderflowException bue) {
+            throw new IOException("Truncated compiled hyphenation pattern file");
+        }
+    }
+
+    /**
+     * Reads a hyphenation tree from a memory mapping of a file, if the file is in this format.
+     * The position of the channel is left unchanged.
+     * @param channel the channel of the file
+     * @return the hyphenation tree, or null if the file isn't in this format
+     * @throws IOException if the file can't be read or is corrupt
+     */
+    static HyphenationTree readMapped(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(4);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            //read the rest of the header
+        }
+        if (!isCompiled(header.array(), header.position()) || size > Integer.MAX_VALUE) {
+            return null;
+        }
+        return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+
+    private static void writeTree(TernaryTree tree, DataOutputStream out) throws IOException {
+        out.writeChar(tree.root);
+        out.writeChar(tree.freenode);
+        out.writeInt(tree.length);
+        writeChars(tree.lo, tree.lo.length, out);
+        writeChars(tree.hi, tree.hi.length, out);
+        writeChars(tree.eq, tree.eq.length, out);
+        writeChars(tree.sc, tree.sc.length, out);
+        writeChars(tree.kv.getArray(), tree.kv.length(), out);
+    }
+
+    private static void readTree(TernaryTree tree, ByteBuffer in) {
+        tree.root = in.getChar();
+        tree.freenode = in.getChar();
+        tree.length = in.getInt();
+        tree.lo = readChars(in);
+        tree.hi = readChars(in);
+        tree.eq = readChars(in);
+        tree.sc = readChars(in);
+        tree.kv = new CharVector(readChars(in));
+    }
+
+    private static void writeChars(char[] chars, int length, DataOutputStream out)
+            throws IOException {
+        out.writeInt(length);
+        for (int i = 0; i < length; i++) {
+            out.writeChar(chars[i]);
+        }
+    }
+
+    private static char[] readChars(ByteBuffer in) {
+        char[] chars = new char[in.getInt()];
+        in.asCharBuffer().get(chars);
+        in.position(in.position() + chars.length * 2);
+        return chars;
+    }
+
+    private static void writeBytes(byte[] bytes, int length, DataOutputStream out)
+            throws IOException {
+        out.writeInt(length);
+        out.write(bytes, 0, length);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static void writeString(String s, DataOutputStream out) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(s.length());
+            out.writeChars(s);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        char[] chars = new char[length];
+        in.asCharBuffer().get(chars);
+        in.position(in.position() + length * 2);
+        return new String(chars);
+    }
+}
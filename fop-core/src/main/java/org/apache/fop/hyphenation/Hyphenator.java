@@ -24,6 +24,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Map;
 
 import org.xml.sax.InputSource;
@@ -33,6 +35,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.apache.fop.ResourceEventProducer;
+import org.apache.fop.apps.io.FileResource;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.events.EventBroadcaster;
 
@@ -47,7 +50,7 @@ public final class Hyphenator {
     /** logging instance */
     private static final Log log = LogFactory.getLog(Hyphenator.class);
 
-    private static HyphenationTreeCache hTreeCache;
+    private static volatile HyphenationTreeCache hTreeCache;
 
     /** Enables a dump of statistics. Note: If activated content is sent to System.out! */
     private static boolean statisticsDump;
@@ -61,11 +64,17 @@ public final class Hyphenator {
     private Hyphenator() { }
 
     /** @return the default (static) hyphenation tree cache */
-    public static synchronized HyphenationTreeCache getHyphenationTreeCache() {
-        if (hTreeCache == null) {
-            hTreeCache = new HyphenationTreeCache();
+    public static HyphenationTreeCache getHyphenationTreeCache() {
+        HyphenationTreeCache cache = hTreeCache;
+        if (cache == null) {
+            synchronized (Hyphenator.class) {
+                if (hTreeCache == null) {
+                    hTreeCache = new HyphenationTreeCache();
+                }
+                cache = hTreeCache;
+            }
         }
-        return hTreeCache;
+        return cache;
     }
 
     /**
@@ -171,8 +180,23 @@ public final class Hyphenator {
     private static HyphenationTree readHyphenationTree(InputStream in) {
         HyphenationTree hTree = null;
         try {
-            ObjectInputStream ois = new ObjectInputStream(in);
-            hTree = (HyphenationTree)ois.readObject();
+            // compiled pattern files are told from serialized ones by their first bytes
+            InputStream bin = in.markSupported() ? in : new BufferedInputStream(in);
+            byte[] header = new byte[4];
+            bin.mark(header.length);
+            int length = 0;
+            int count;
+            while (length < header.length
+                    && (count = bin.read(header, length, header.length - length)) >= 0) {
+                length += count;
+            }
+            bin.reset();
+            if (HyphenationTreeFormat.isCompiled(header, length)) {
+                hTree = HyphenationTreeFormat.read(ByteBuffer.wrap(IOUtils.toByteArray(bin)));
+            } else {
+                ObjectInputStream ois = new ObjectInputStream(bin);
+                hTree = (HyphenationTree)ois.readObject();
+            }
         } catch (IOException ioe) {
             log.error("I/O error while loading precompiled hyphenation pattern file", ioe);
         } catch (ClassNotFoundException cnfe) {
@@ -231,6 +255,20 @@ public final class Hyphenator {
             try {
                 InputStream in = getHyphenationTreeStream(name, resourceResolver);
                 try {
+                    if (in instanceof FileResource) {
+                        // compiled pattern files served from a local file are mapped
+                        try {
+                            FileChannel channel = ((FileResource) in).getChannel();
+                            hTree = HyphenationTreeFormat.readMapped(channel);
+                        } catch (IOException ioe) {
+                            log.error("I/O error while loading compiled hyphenation pattern file "
+                                    + name, ioe);
+                            return null;
+                        }
+                        if (hTree != null) {
+                            return hTree;
+                        }
+                    }
                     hTree = readHyphenationTree(in);
                 } finally {
                     IOUtils.closeQuietly(in);
@@ -277,7 +315,7 @@ public final class Hyphenator {
     private static InputStream getHyphenationTreeStream(String name,
             InternalResourceResolver resourceResolver) throws IOException {
         try {
-            return new BufferedInputStream(resourceResolver.getResource(name));
+            return resourceResolver.getResource(name);
         } catch (URISyntaxException use) {
             log.debug("An exception was thrown while attempting to load " + name, use);
         }
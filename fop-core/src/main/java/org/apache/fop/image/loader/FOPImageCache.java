@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader;
+
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.w3c.dom.Node;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageSize;
+import org.apache.xmlgraphics.image.loader.cache.ImageCache;
+import org.apache.xmlgraphics.image.loader.cache.ImageKey;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
+import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
+import org.apache.xmlgraphics.image.loader.impl.ImageXMLDOM;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.datatypes.URISpecification;
+
+/**
+ * <p>The image cache of a {@link FOPImageManager}, shared by all the documents of a
+ * {@link org.apache.fop.apps.FopFactory}. It counts cache hits and misses.</p>
+ *
+ * <p>Without an {@link ImageCachePolicy}, it behaves like the XML Graphics Commons cache it
+ * extends, which only keeps soft references, so the garbage collector may clear images at any
+ * time. With a policy, it keeps strong references to the images (and to the image infos, which
+ * hold the parsed document of an SVG image) until their estimated size exceeds the policy's
+ * byte budget, and then evicts them in the policy's order, except for pinned images. Pinned
+ * URIs and image URIs are compared once they are resolved against the base URI of the
+ * {@link org.apache.fop.apps.FopFactory}.</p>
+ */
+public class FOPImageCache extends ImageCache {
+
+    private static Log log = LogFactory.getLog(FOPImageCache.class);
+
+    /** The estimated size of an image info without an original image */
+    private static final long IMAGE_INFO_SIZE = 256;
+
+    /** The estimated size of a DOM node */
+    private static final long DOM_NODE_SIZE = 128;
+
+    private ImageCachePolicy policy;
+
+    private URI baseURI;
+
+    /** The resolved URIs of the pinned images */
+    private final Set<URI> pinnedURIs = new HashSet<URI>();
+
+    /** The cached images and image infos, keyed by ImageKey and URI, in access order */
+    private final Map<Object, Entry> entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true);
+
+    private long bytes;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    /**
+     * Sets the policy of this cache. Setting a policy clears the cache.
+     * @param policy the policy, or null to only keep soft references to images
+     */
+    public synchronized void setPolicy(ImageCachePolicy policy) {
+        this.policy = policy;
+        resolvePinnedURIs();
+        clearCache();
+    }
+
+    /**
+     * Sets the base URI against which the URIs of the images and the pinned URIs of the policy
+     * are resolved.
+     * @param baseURI the base URI, or null to compare the URIs as they are
+     */
+    public synchronized void setBaseURI(URI baseURI) {
+        this.baseURI = baseURI;
+        resolvePinnedURIs();
+    }
+
+    /**
+     * Returns the policy of this cache.
+     * @return the policy, or null if the images are only softly referenced
+     */
+    public synchronized ImageCachePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns a snapshot of the counters of this cache.
+     * @return the statistics
+     */
+    public synchronized ImageCacheStatistics getStatistics() {
+        return new ImageCacheStatistics(hits, misses, evictions, entries.size(), bytes);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected synchronized ImageInfo getImageInfo(String uri) {
+        if (policy == null) {
+            return super.getImageInfo(uri);
+        }
+        Entry entry = entries.get(uri);
+        if (entry == null) {
+            return null;
+        }
+        entry.uses++;
+        return (ImageInfo) entry.value;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected synchronized void putImageInfo(ImageInfo info) {
+        if (policy == null) {
+            super.putImageInfo(info);
+            return;
+        }
+        Image original = info.getOriginalImage();
+        long size = IMAGE_INFO_SIZE + (original != null ? estimateSize(original) : 0);
+        put(info.getOriginalURI(), info.getOriginalURI(), info, size);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized Image getImage(String uri, ImageFlavor flavor) {
+        if (uri == null || "".equals(uri)) {
+            return null;
+        }
+        Image image;
+        if (policy == null) {
+            image = super.getImage(uri, flavor);
+        } else {
+            Entry entry = entries.get(new ImageKey(uri, flavor));
+            if (entry != null) {
+                entry.uses++;
+            }
+            image = entry != null ? (Image) entry.value : null;
+        }
+        if (image != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return image;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void putImage(Image img) {
+        if (policy == null) {
+            super.putImage(img);
+            return;
+        }
+        String uri = img.getInfo().getOriginalURI();
+        if (uri == null || "".equals(uri)) {
+            return;
+        }
+        if (!img.isCacheable()) {
+            throw new IllegalArgumentException(
+                    "Image is not cacheable! (Flavor: " + img.getFlavor() + ")");
+        }
+        put(new ImageKey(uri, img.getFlavor()), uri, img, estimateSize(img));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void clearCache() {
+        super.clearCache();
+        entries.clear();
+        bytes = 0;
+    }
+
+    private void resolvePinnedURIs() {
+        pinnedURIs.clear();
+        if (policy != null) {
+            for (String uri : policy.getPinnedURIs()) {
+                URI resolved = resolve(uri);
+                if (resolved != null) {
+                    pinnedURIs.add(resolved);
+                }
+            }
+        }
+    }
+
+    private URI resolve(String uri) {
+        try {
+            URI u = InternalResourceResolver.cleanURI(URISpecification.getURL(uri));
+            return baseURI != null ? baseURI.resolve(u) : u;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private boolean isPinned(String uri) {
+        if (pinnedURIs.isEmpty()) {
+            return false;
+        }
+        URI resolved = resolve(uri);
+        return resolved != null && pinnedURIs.contains(resolved);
+    }
+
+    private void put(Object key, String uri, Object value, long size) {
+        Entry entry = new Entry(value, size, isPinned(uri));
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= previous.size;
+        }
+        bytes += size;
+        while (bytes > policy.getMaxBytes()) {
+            //the new entry only goes if nothing else can
+            Object victim = selectVictim(key);
+            if (victim == null) {
+                if (entry.pinned) {
+                    //only pinned images left
+                    return;
+                }
+                victim = key;
+            }
+            Entry victimEntry = entries.remove(victim);
+            bytes -= victimEntry.size;
+            evictions++;
+            if (log.isDebugEnabled()) {
+                log.debug("Evicted " + victim + " (" + victimEntry.size + " bytes) from the image cache");
+            }
+            if (victimEntry == entry) {
+                //the pinned images take up the budget on their own
+                return;
+            }
+        }
+    }
+
+    private Object selectVictim(Object newKey) {
+        Object victim = null;
+        Entry victimEntry = null;
+        //entries are iterated from the least recently used one
+        for (Map.Entry<Object, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.pinned || e.getKey().equals(newKey)) {
+                continue;
+            }
+            if (policy.getEviction() == ImageCachePolicy.Eviction.LRU) {
+                return e.getKey();
+            }
+            if (victimEntry == null || entry.uses < victimEntry.uses) {
+                victim = e.getKey();
+                victimEntry = entry;
+            }
+        }
+        return victim;
+    }
+
+    /**
+     * Estimates the number of bytes an image takes up in memory.
+     * @param img the image
+     * @return the estimated size
+     */
+    static long estimateSize(Image img) {
+        if (img instanceof ImageRendered) {
+            RenderedImage ri = ((ImageRendered) img).getRenderedImage();
+            SampleModel sm = ri.getSampleModel();
+            long bitsPerPixel = 0;
+            for (int sampleSize : sm.getSampleSize()) {
+                bitsPerPixel += sampleSize;
+            }
+            return (long) ri.getWidth() * ri.getHeight() * bitsPerPixel / 8;
+        } else if (img instanceof ImageRawStream) {
+            //a cacheable raw stream is usually backed by a byte array
+            InputStream in = ((ImageRawStream) img).createInputStream();
+            try {
+                int available = in.available();
+                if (available > 0) {
+                    return available;
+                }
+            } catch (IOException ioe) {
+                //fall back to the pixel size
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+        } else if (img instanceof ImageXMLDOM) {
+            return countNodes(((ImageXMLDOM) img).getDocument()) * DOM_NODE_SIZE;
+        }
+        //anything else, like painters for rendered SVG, is estimated as if it was a bitmap
+        ImageSize size = img.getSize();
+        return size != null ? 4L * size.getWidthPx() * size.getHeightPx() : IMAGE_INFO_SIZE;
+    }
+
+    private static long countNodes(Node node) {
+        long count = 1;
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+
+        private final long size;
+
+        private final boolean pinned;
+
+        private int uses;
+
+        Entry(Object value, long size, boolean pinned) {
+            this.value = value;
+            this.size = size;
+            this.pinned = pinned;
+        }
+    }
+}
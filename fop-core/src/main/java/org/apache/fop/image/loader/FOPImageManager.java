@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader;
+
+import org.apache.xmlgraphics.image.loader.ImageContext;
+import org.apache.xmlgraphics.image.loader.ImageManager;
+
+/**
+ * The image manager of a {@link org.apache.fop.apps.FopFactory}, which caches images in a
+ * {@link FOPImageCache}.
+ */
+public class FOPImageManager extends ImageManager {
+
+    private final FOPImageCache cache = new FOPImageCache();
+
+    /**
+     * Creates an image manager.
+     * @param context the image context
+     */
+    public FOPImageManager(ImageContext context) {
+        super(context);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public FOPImageCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Describes how the {@link FOPImageCache} keeps images: how many bytes the images it holds may
+ * take up, which images it evicts first once they take up more, and which images it never
+ * evicts.
+ */
+public final class ImageCachePolicy {
+
+    /** The order in which images are evicted from the cache. */
+    public enum Eviction {
+        /** Evicts the least recently used image first. */
+        LRU,
+        /** Evicts the least frequently used image first. */
+        LFU
+    }
+
+    private final long maxBytes;
+
+    private final Eviction eviction;
+
+    private final Set<String> pinnedURIs;
+
+    /**
+     * Creates a policy.
+     * @param maxBytes the (estimated) number of bytes the cached images may take up
+     * @param eviction the order in which images are evicted
+     * @param pinnedURIs the URIs of the images that are never evicted, which are resolved
+     * against the base URI like the URIs referenced in the documents
+     */
+    public ImageCachePolicy(long maxBytes, Eviction eviction, Collection<String> pinnedURIs) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative: " + maxBytes);
+        }
+        if (eviction == null) {
+            throw new NullPointerException("eviction must not be null");
+        }
+        this.maxBytes = maxBytes;
+        this.eviction = eviction;
+        this.pinnedURIs = Collections.unmodifiableSet(new HashSet<String>(pinnedURIs));
+    }
+
+    /**
+     * Returns the (estimated) number of bytes the cached images may take up.
+     * @return the number of bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the order in which images are evicted.
+     * @return the eviction order
+     */
+    public Eviction getEviction() {
+        return eviction;
+    }
+
+    /**
+     * Returns the URIs of the images that are never evicted.
+     * @return the pinned URIs
+     */
+    public Set<String> getPinnedURIs() {
+        return pinnedURIs;
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "ImageCachePolicy(maxBytes=" + maxBytes + ", eviction=" + eviction
+                + ", pinned=" + pinnedURIs + ")";
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader;
+
+/**
+ * A snapshot of the counters of a {@link FOPImageCache}, for monitoring.
+ */
+public final class ImageCacheStatistics {
+
+    private final long hits;
+
+    private final long misses;
+
+    private final long evictions;
+
+    private final int entries;
+
+    private final long bytes;
+
+    ImageCacheStatistics(long hits, long misses, long evictions, int entries, long bytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Returns the number of times an image was found in the cache.
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of times an image had to be loaded or converted because it was not
+     * found in the cache.
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of images evicted to keep the cache within its byte budget. Always 0
+     * if the cache has no {@link ImageCachePolicy}.
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of images and image infos held by the cache. Always 0 if the cache has
+     * no {@link ImageCachePolicy}, since the images are then only softly referenced.
+     * @return the number of entries
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the estimated number of bytes taken up by the images held by the cache. Always 0
+     * if the cache has no {@link ImageCachePolicy}.
+     * @return the number of bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the share of image lookups that were cache hits.
+     * @return the hit ratio between 0 and 1, or 0 if no images were looked up
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "ImageCacheStatistics(hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", entries=" + entries + ", bytes=" + bytes + ")";
+    }
+}
@@ -834,6 +834,7 @@ public class BlockContainerLayoutManager extends SpacedBorderedPaddedBlockLayout
 
         viewportBlockArea = null;
         referenceArea = null;
+        setCurrentArea(null);
         resetSpaces();
 
         notifyEndOfLayout();
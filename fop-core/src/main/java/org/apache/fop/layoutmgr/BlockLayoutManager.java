@@ -335,12 +335,23 @@ public class BlockLayoutManager extends SpacedBorderedPaddedBlockLayoutManager
         flush();
 
         curBlockArea = null;
+        setCurrentArea(null);
         resetSpaces();
 
         //Notify end of block layout manager to the PSLM
         checkEndOfLayout(lastPos);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void checkEndOfLayout(Position pos) {
+        super.checkEndOfLayout(pos);
+        if (childLMs == null) {
+            // the child LMs have been released; so must the proxy iterator's references to them
+            proxyLMiter = new ProxyLMiter();
+        }
+    }
+
     /**
      * Return an Area which can contain the passed childArea. The childArea
      * may not yet have any content, but it has essential traits set.
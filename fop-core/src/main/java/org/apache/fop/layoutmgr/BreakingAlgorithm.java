@@ -115,6 +115,11 @@ public abstract class BreakingAlgorithm {
      */
     protected KnuthSequence par;
 
+    /**
+     * Packed view of {@link #par} used by the inner loops of the algorithm.
+     */
+    private PackedKnuthSequence packedPar;
+
     /**
      * The width of a line (or height of a column in page-breaking mode).
      * -1 indicates that the line widths are different for each line.
@@ -523,6 +528,7 @@ public abstract class BreakingAlgorithm {
                                   double threshold, boolean force,
                                   int allowedBreaks) {
         this.par = par;
+        this.packedPar = new PackedKnuthSequence(par);
         this.threshold = threshold;
         this.force = force;
 
@@ -605,6 +611,7 @@ public abstract class BreakingAlgorithm {
         }
 
         activeLines = null;
+        packedPar = null;
         return line;
     }
 
@@ -645,6 +652,7 @@ public abstract class BreakingAlgorithm {
             ListElement el = (ListElement)this.par.get(0);
             if (!el.isPenalty()) {
                 this.par.add(0, KnuthPenalty.DUMMY_ZERO_PENALTY);
+                packedPar = null;
             }
         }
 
@@ -751,12 +759,13 @@ public abstract class BreakingAlgorithm {
     protected final KnuthElement handleElementAt(int position,
                                                  boolean previousIsBox,
                                                  int allowedBreaks) {
-        KnuthElement element = getElement(position);
-        if (element.isBox()) {
+        PackedKnuthSequence packed = getPackedPar();
+        KnuthElement element = packed.getElement(position);
+        if (packed.isBox(position)) {
             handleBox((KnuthBox) element);
-        } else if (element.isGlue()) {
+        } else if (packed.isGlue(position)) {
             handleGlueAt((KnuthGlue) element, position, previousIsBox, allowedBreaks);
-        } else if (element.isPenalty()) {
+        } else if (packed.isPenalty(position)) {
             handlePenaltyAt((KnuthPenalty) element, position, allowedBreaks);
         } else {
             throw new IllegalArgumentException(
@@ -904,8 +913,9 @@ public abstract class BreakingAlgorithm {
         // advance in the sequence in order to avoid taking into account
         // these elements twice
         int restartingIndex = restartingNode.position;
-        while (restartingIndex + 1 < par.size()
-               && !(getElement(restartingIndex + 1).isBox())) {
+        PackedKnuthSequence packed = getPackedPar();
+        while (restartingIndex + 1 < packed.size()
+               && !packed.isBox(restartingIndex + 1)) {
             restartingIndex++;
         }
         return restartingIndex;
@@ -1011,28 +1021,16 @@ public abstract class BreakingAlgorithm {
                              int availableShrink,
                              int availableStretch) {
 
-        int newWidth = totalWidth;
-        int newStretch = totalStretch;
-        int newShrink = totalShrink;
-
         // add the width, stretch and shrink of glue elements after
         // the break
         // this does not affect the dimension of the line / page, only
         // the values stored in the node; these would be as if the break
         // was just before the next box element, thus ignoring glues and
         // penalties between the "real" break and the following box
-        for (int i = elementIdx; i < par.size(); i++) {
-            KnuthElement tempElement = getElement(i);
-            if (tempElement.isBox()) {
-                break;
-            } else if (tempElement.isGlue()) {
-                newWidth += tempElement.getWidth();
-                newStretch += tempElement.getStretch();
-                newShrink += tempElement.getShrink();
-            } else if (tempElement.isForcedBreak() && i != elementIdx) {
-                break;
-            }
-        }
+        int[] suppressedGlue = getPackedPar().getSuppressedGlue(elementIdx);
+        int newWidth = totalWidth + suppressedGlue[0];
+        int newStretch = totalStretch + suppressedGlue[1];
+        int newShrink = totalShrink + suppressedGlue[2];
 
         createForcedNodes(node, line, elementIdx, difference, r, demerits, fitnessClass, availableShrink,
                 availableStretch, newWidth, newStretch, newShrink);
@@ -1130,28 +1128,16 @@ public abstract class BreakingAlgorithm {
             return;
         }
 
-        int newWidth = totalWidth;
-        int newStretch = totalStretch;
-        int newShrink = totalShrink;
-
         // add the width, stretch and shrink of glue elements after
         // the break
         // this does not affect the dimension of the line / page, only
         // the values stored in the node; these would be as if the break
         // was just before the next box element, thus ignoring glues and
         // penalties between the "real" break and the following box
-        for (int i = elementIdx; i < par.size(); i++) {
-            KnuthElement tempElement = getElement(i);
-            if (tempElement.isBox()) {
-                break;
-            } else if (tempElement.isGlue()) {
-                newWidth += tempElement.getWidth();
-                newStretch += tempElement.getStretch();
-                newShrink += tempElement.getShrink();
-            } else if (tempElement.isForcedBreak() && i != elementIdx) {
-                break;
-            }
-        }
+        int[] suppressedGlue = getPackedPar().getSuppressedGlue(elementIdx);
+        int newWidth = totalWidth + suppressedGlue[0];
+        int newStretch = totalStretch + suppressedGlue[1];
+        int newShrink = totalShrink + suppressedGlue[2];
 
         // add nodes to the active nodes list
         double minimumDemerits = best.getMinDemerits() + incompatibleFitnessDemerit;
@@ -1257,9 +1243,9 @@ public abstract class BreakingAlgorithm {
             demerits = f * f;
         }
 
+        PackedKnuthSequence packed = getPackedPar();
         if (element.isPenalty() && ((KnuthPenalty) element).isPenaltyFlagged()
-            && getElement(activeNode.position).isPenalty()
-            && ((KnuthPenalty) getElement(activeNode.position)).isPenaltyFlagged()) {
+            && packed.isFlaggedPenalty(activeNode.position)) {
             // add demerit for consecutive breaks at flagged penalties
             demerits += repeatedFlaggedDemerit;
             // there are at least two consecutive lines ending with a flagged penalty;
@@ -1269,9 +1255,7 @@ public abstract class BreakingAlgorithm {
             for (KnuthNode prevNode = activeNode.previous;
                  prevNode != null && flaggedPenaltiesCount <= maxFlaggedPenaltiesCount;
                  prevNode = prevNode.previous) {
-                KnuthElement prevElement = getElement(prevNode.position);
-                if (prevElement.isPenalty()
-                    && ((KnuthPenalty) prevElement).isPenaltyFlagged()) {
+                if (packed.isFlaggedPenalty(prevNode.position)) {
                     // the previous line ends with a flagged penalty too
                     flaggedPenaltiesCount++;
                 } else {
@@ -1316,6 +1300,18 @@ public abstract class BreakingAlgorithm {
         return (KnuthElement) par.get(idx);
     }
 
+    /**
+     * Returns the packed view of the paragraph, creating it if the paragraph has changed
+     * since the view was created.
+     * @return the packed view of {@link #par}
+     */
+    PackedKnuthSequence getPackedPar() {
+        if (packedPar == null || !packedPar.isViewOf(par)) {
+            packedPar = new PackedKnuthSequence(par);
+        }
+        return packedPar;
+    }
+
     /**
      * Compare two KnuthNodes and return the node with the least demerit.
      * @param node1 The first knuth node.
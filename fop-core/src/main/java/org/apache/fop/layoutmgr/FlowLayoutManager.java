@@ -19,6 +19,7 @@
 
 package org.apache.fop.layoutmgr;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
@@ -29,6 +30,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.apache.fop.area.Area;
 import org.apache.fop.area.BlockParent;
+import org.apache.fop.fo.FObj;
 import org.apache.fop.fo.pagination.Flow;
 import org.apache.fop.util.ListUtil;
 
@@ -51,6 +53,9 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
 
     private boolean handlingFloat;
 
+    /** Whether children are released as soon as all their areas have been added */
+    private final boolean releaseFinishedChildren;
+
     /**
      * This is the top level layout manager.
      * It is created by the PageSequence FO.
@@ -61,6 +66,7 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
         super(node);
         setGeneratesBlockArea(true);
         setParent(pslm);
+        releaseFinishedChildren = node.getUserAgent().isIncrementalReleaseEnabled();
     }
 
     /** {@inheritDoc} */
@@ -364,8 +370,43 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
     /** {@inheritDoc} */
     @Override
     public void addAreas(PositionIterator parentIter, LayoutContext layoutContext) {
-        AreaAdditionUtil.addAreas(this, parentIter, layoutContext);
+        LayoutManager lastLM = AreaAdditionUtil.addAreas(this, parentIter, layoutContext);
         flush();
+        if (releaseFinishedChildren && lastLM != null) {
+            releaseChildLMsBefore(lastLM);
+        }
+    }
+
+    /**
+     * Detaches the child LMs preceding the given one, together with their FOs, from this LM
+     * and from the flow. Areas are added in the order of the child LMs, so all the areas of
+     * these children are on finished pages, and what they hold can be garbage collected while
+     * the rest of the flow is laid out. Children whose FO carries markers are kept.
+     * @param lastLM the last child LM that areas were added for, which may have more to add
+     */
+    private void releaseChildLMsBefore(LayoutManager lastLM) {
+        int lastIndex = childLMs.indexOf(lastLM);
+        if (lastIndex <= 0) {
+            return;
+        }
+        List<LayoutManager> finishedLMs = childLMs.subList(0, lastIndex);
+        List<LayoutManager> keptLMs = new ArrayList<LayoutManager>();
+        for (LayoutManager lm : finishedLMs) {
+            FObj fo = lm.getFObj();
+            if (fo != null && fo.hasMarkers()) {
+                keptLMs.add(lm);
+            } else if (fo != null && fo.getParent() == fobj) {
+                fobj.removeChild(fo);
+            }
+        }
+        finishedLMs.clear();
+        childLMs.addAll(0, keptLMs);
+        // the child LM iterator works on indices
+        if (curChildLM != null) {
+            setCurrentChildLM(curChildLM);
+        } else {
+            childLMiter = new LMiter(this);
+        }
     }
 
     /**
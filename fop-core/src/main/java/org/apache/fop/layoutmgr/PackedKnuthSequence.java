@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+/**
+ * A packed, read-only view of a {@link KnuthSequence} for use by the breaking algorithms.
+ * The type, width, stretch, shrink and penalty of every element are copied into parallel
+ * primitive arrays, so the inner loops of the algorithms don't have to go through the list,
+ * casts and virtual calls for every element they look at. The elements themselves are kept
+ * in a side table for the positions and for the element-based hooks of the algorithms.
+ * <p>
+ * The view is a snapshot: it has to be recreated when elements are added to or removed from
+ * the underlying sequence.
+ */
+final class PackedKnuthSequence {
+
+    private static final byte BOX = 1;
+    private static final byte GLUE = 2;
+    private static final byte PENALTY = 4;
+    private static final byte FLAGGED = 8;
+
+    private final KnuthSequence sequence;
+
+    private final KnuthElement[] elements;
+    private final byte[] flags;
+    private final int[] widths;
+    private final int[] stretches;
+    private final int[] shrinks;
+    private final int[] penalties;
+
+    /** Break index for which the suppressed glue has been computed last, or -1. */
+    private int suppressedIndex = -1;
+    private final int[] suppressed = new int[3];
+
+    /**
+     * Creates a packed view of the given sequence.
+     * @param sequence the sequence
+     */
+    PackedKnuthSequence(KnuthSequence sequence) {
+        this.sequence = sequence;
+        int size = sequence.size();
+        elements = new KnuthElement[size];
+        flags = new byte[size];
+        widths = new int[size];
+        stretches = new int[size];
+        shrinks = new int[size];
+        penalties = new int[size];
+        for (int i = 0; i < size; i++) {
+            Object o = sequence.get(i);
+            if (!(o instanceof KnuthElement)) {
+                // not a Knuth element (yet); flags stay 0 so it is neither box, glue nor penalty
+                continue;
+            }
+            KnuthElement element = (KnuthElement) o;
+            elements[i] = element;
+            widths[i] = element.getWidth();
+            if (element.isBox()) {
+                flags[i] = BOX;
+            } else if (element.isGlue()) {
+                flags[i] = GLUE;
+                stretches[i] = element.getStretch();
+                shrinks[i] = element.getShrink();
+            } else if (element.isPenalty()) {
+                flags[i] = ((KnuthPenalty) element).isPenaltyFlagged()
+                        ? PENALTY | FLAGGED : PENALTY;
+                penalties[i] = element.getPenalty();
+            }
+        }
+    }
+
+    /**
+     * Indicates whether this view is still up to date for the given sequence.
+     * @param sequence the sequence
+     * @return true if this is a view of the given sequence and the sequence hasn't grown or
+     * shrunk since
+     */
+    boolean isViewOf(KnuthSequence sequence) {
+        return this.sequence == sequence && elements.length == sequence.size();
+    }
+
+    /** @return the number of elements */
+    int size() {
+        return elements.length;
+    }
+
+    /**
+     * @param index the element index
+     * @return the element at the given index, or null if it is not a {@link KnuthElement}
+     */
+    KnuthElement getElement(int index) {
+        return elements[index];
+    }
+
+    /**
+     * @param index the element index
+     * @return true if the element is a box
+     */
+    boolean isBox(int index) {
+        return (flags[index] & BOX) != 0;
+    }
+
+    /**
+     * @param index the element index
+     * @return true if the element is a glue
+     */
+    boolean isGlue(int index) {
+        return (flags[index] & GLUE) != 0;
+    }
+
+    /**
+     * @param index the element index
+     * @return true if the element is a penalty
+     */
+    boolean isPenalty(int index) {
+        return (flags[index] & PENALTY) != 0;
+    }
+
+    /**
+     * @param index the element index
+     * @return true if the element is a flagged penalty
+     */
+    boolean isFlaggedPenalty(int index) {
+        return (flags[index] & FLAGGED) != 0;
+    }
+
+    /**
+     * @param index the element index
+     * @return true if the element is a penalty forcing a break
+     */
+    boolean isForcedBreak(int index) {
+        return (flags[index] & PENALTY) != 0 && penalties[index] == -KnuthElement.INFINITE;
+    }
+
+    /**
+     * @param index the element index
+     * @return true if the element is a legal break which isn't prohibited by an infinite penalty
+     */
+    boolean isAllowedPenalty(int index) {
+        return (flags[index] & PENALTY) != 0 && penalties[index] < KnuthElement.INFINITE;
+    }
+
+    /**
+     * @param index the element index
+     * @return the width of the element
+     */
+    int getWidth(int index) {
+        return widths[index];
+    }
+
+    /**
+     * @param index the element index
+     * @return the stretch of the element, 0 if it is not a glue
+     */
+    int getStretch(int index) {
+        return stretches[index];
+    }
+
+    /**
+     * @param index the element index
+     * @return the shrink of the element, 0 if it is not a glue
+     */
+    int getShrink(int index) {
+        return shrinks[index];
+    }
+
+    /**
+     * @param index the element index
+     * @return the penalty value of the element, 0 if it is not a penalty
+     */
+    int getPenalty(int index) {
+        return penalties[index];
+    }
+
+    /**
+     * Returns the total width, stretch and shrink of the glues which are suppressed by a break
+     * at the given index, that is, the glues between the break and the next box or forced
+     * break. The result of the last call is cached, since the algorithms ask for the same break
+     * once per active line.
+     * @param breakIndex the index of the break
+     * @return an array holding the width, stretch and shrink; it must not be modified and is
+     * only valid until the next call
+     */
+    int[] getSuppressedGlue(int breakIndex) {
+        if (breakIndex != suppressedIndex) {
+            int width = 0;
+            int stretch = 0;
+            int shrink = 0;
+            for (int i = breakIndex; i < elements.length; i++) {
+                byte f = flags[i];
+                if ((f & BOX) != 0) {
+                    break;
+                } else if ((f & GLUE) != 0) {
+                    width += widths[i];
+                    stretch += stretches[i];
+                    shrink += shrinks[i];
+                } else if (i != breakIndex && isForcedBreak(i)) {
+                    break;
+                }
+            }
+            suppressed[0] = width;
+            suppressed[1] = stretch;
+            suppressed[2] = shrink;
+            suppressedIndex = breakIndex;
+        }
+        return suppressed;
+    }
+}
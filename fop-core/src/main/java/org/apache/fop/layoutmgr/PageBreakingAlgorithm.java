@@ -674,9 +674,10 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         } else {
             // compute the new value
             int index;
+            PackedKnuthSequence packed = getPackedPar();
             // ignore suppressed elements
             for (index = prevBreakIndex + 1;
-                    !par.getElement(index).isBox();
+                    !packed.isBox(index);
                     index++) {
                 //nop
             }
@@ -684,10 +685,8 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
             for (;
                  index < breakIndex;
                  index++) {
-                if (par.getElement(index).isGlue() && par.getElement(index - 1).isBox()
-                    || par.getElement(index).isPenalty()
-                       && ((KnuthElement) par
-                           .getElement(index)).getPenalty() < KnuthElement.INFINITE) {
+                if (packed.isGlue(index) && packed.isBox(index - 1)
+                    || packed.isAllowedPenalty(index)) {
                     // break found
                     break;
                 }
@@ -907,8 +906,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         }
 
         if (element.isPenalty() && ((KnuthPenalty) element).isPenaltyFlagged()
-            && getElement(activeNode.position).isPenalty()
-            && ((KnuthPenalty) getElement(activeNode.position)).isPenaltyFlagged()) {
+            && getPackedPar().isFlaggedPenalty(activeNode.position)) {
             // add demerit for consecutive breaks at flagged penalties
             demerits += repeatedFlaggedDemerit;
         }
@@ -63,6 +63,9 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
     private int startIntrusionAdjustment;
     private int endIntrusionAdjustment;
 
+    /** The layouts of static contents that can be reused on other pages. */
+    private final StaticContentCache staticContentCache = new StaticContentCache();
+
     /**
      * Constructor
      *
@@ -86,6 +89,11 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
         return (PageSequence)pageSeq;
     }
 
+    /** @return the cache for the layouts of this page-sequence's static contents */
+    StaticContentCache getStaticContentCache() {
+        return staticContentCache;
+    }
+
     /**
      * Provides access to this object
      * @return this PageSequenceLayoutManager instance
@@ -145,6 +153,9 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
         }
 
         finishPage();
+        // the flow's layout managers are not needed any more, even if this LM is kept
+        // until the next page-sequence is started
+        pageBreaker = null;
     }
 
     public void initialize() {
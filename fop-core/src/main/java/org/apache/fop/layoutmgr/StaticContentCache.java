@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaSnapshot;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.flow.AbstractPageNumberCitation;
+import org.apache.fop.fo.flow.AbstractRetrieveMarker;
+import org.apache.fop.fo.flow.BasicLink;
+import org.apache.fop.fo.flow.ChangeBar;
+import org.apache.fop.fo.flow.PageNumber;
+import org.apache.fop.fo.pagination.SideRegion;
+import org.apache.fop.fo.pagination.StaticContent;
+
+/**
+ * Remembers the areas generated for the static contents of a page sequence, so a
+ * static-content whose layout doesn't depend on the page it is placed on (a fixed letterhead,
+ * for example) is laid out only once per region and region size, and its areas are reused on
+ * the following pages.
+ * <p>
+ * A static-content depends on its page if it contains page numbers, page number citations,
+ * retrieved markers, change bars, internal links or formatting objects with an id, since the
+ * areas of those are either page-specific or registered with the page they are placed on.
+ * <p>
+ * Every page gets its own copy of the areas, since renderers may alter them (change bars, for
+ * example). The element lists observed during the layout are recorded when element list
+ * observation is active, so the observers are notified of them for every page.
+ */
+class StaticContentCache {
+
+    private final Map<StaticContent, Boolean> pageIndependent
+            = new HashMap<StaticContent, Boolean>();
+
+    private final Map<SideRegion, Layout> layouts = new HashMap<SideRegion, Layout>();
+
+    /**
+     * Indicates whether the layout of a static-content can be reused on other pages.
+     * @param staticContent the static-content
+     * @return true if its layout doesn't depend on the page
+     */
+    boolean isCacheable(StaticContent staticContent) {
+        Boolean cacheable = pageIndependent.get(staticContent);
+        if (cacheable == null) {
+            cacheable = isPageIndependent(staticContent);
+            pageIndependent.put(staticContent, cacheable);
+        }
+        return cacheable;
+    }
+
+    /**
+     * Returns the layout of a region's static-content, if it has been laid out for a region of
+     * the same size.
+     * @param region the region
+     * @param ipd the inline-progression-dimension of the region
+     * @param bpd the block-progression-dimension of the region
+     * @return the layout, or null
+     */
+    Layout get(SideRegion region, int ipd, int bpd) {
+        Layout layout = layouts.get(region);
+        if (layout != null && layout.ipd == ipd && layout.bpd == bpd) {
+            return layout;
+        }
+        return null;
+    }
+
+    /**
+     * Remembers the layout of a region's static-content.
+     * @param region the region
+     * @param layout the layout
+     */
+    void put(SideRegion region, Layout layout) {
+        layouts.put(region, layout);
+    }
+
+    private static boolean isPageIndependent(FONode node) {
+        if (node instanceof PageNumber
+                || node instanceof AbstractPageNumberCitation
+                || node instanceof AbstractRetrieveMarker
+                || node instanceof ChangeBar) {
+            return false;
+        }
+        if (node instanceof BasicLink && ((BasicLink) node).hasInternalDestination()) {
+            return false;
+        }
+        if (node instanceof FObj && ((FObj) node).hasId()) {
+            return false;
+        }
+        List<ChangeBar> changeBars = node.getChangeBarList();
+        if (changeBars != null && !changeBars.isEmpty()) {
+            return false;
+        }
+        FONode.FONodeIterator children = node.getChildNodes();
+        if (children != null) {
+            while (children.hasNext()) {
+                if (!isPageIndependent(children.next())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records the element lists observed while a static-content is laid out, so the observers
+     * can be notified again when the layout is reused.
+     */
+    static final class ElementListRecorder implements ElementListObserver.Observer {
+
+        private final List<Object[]> elementLists = new ArrayList<Object[]>();
+
+        /** {@inheritDoc} */
+        public void observe(List elementList, String category, String id) {
+            elementLists.add(new Object[] {elementList, category, id});
+        }
+    }
+
+    /**
+     * The areas generated for a static-content in a region of a given size.
+     */
+    static final class Layout {
+
+        private final int ipd;
+        private final int bpd;
+        private final AreaSnapshot areas;
+        private final List<Object[]> elementLists;
+        private final boolean overflow;
+        private final int overflowAmount;
+
+        Layout(int ipd, int bpd, List<Area> areas, ElementListRecorder recorder,
+                boolean overflow, int overflowAmount) throws IOException {
+            this.ipd = ipd;
+            this.bpd = bpd;
+            this.areas = new AreaSnapshot(areas);
+            this.elementLists = recorder != null ? recorder.elementLists : null;
+            this.overflow = overflow;
+            this.overflowAmount = overflowAmount;
+        }
+
+        /**
+         * Returns a new copy of the areas added to the region.
+         * @return the areas
+         * @throws IOException if the areas cannot be copied
+         */
+        List<Area> getAreas() throws IOException {
+            return areas.restore();
+        }
+
+        /**
+         * Notifies the element list observers about the element lists observed when the
+         * static-content was laid out.
+         */
+        void notifyObservers() {
+            if (elementLists != null) {
+                for (Object[] elementList : elementLists) {
+                    ElementListObserver.observe((List) elementList[0], (String) elementList[1],
+                            (String) elementList[2]);
+                }
+            }
+        }
+
+        /** @return true if the content overflowed the region */
+        boolean isOverflow() {
+            return overflow;
+        }
+
+        /** @return the amount by which the content overflowed the region */
+        int getOverflowAmount() {
+            return overflowAmount;
+        }
+    }
+}
@@ -19,8 +19,12 @@
 
 package org.apache.fop.layoutmgr;
 
+import java.io.IOException;
 import java.util.List;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import org.apache.fop.area.Area;
 import org.apache.fop.area.Block;
 import org.apache.fop.area.RegionReference;
@@ -37,6 +41,8 @@ import org.apache.fop.fo.pagination.StaticContent;
  */
 public class StaticContentLayoutManager extends BlockStackingLayoutManager {
 
+    private static Log log = LogFactory.getLog(StaticContentLayoutManager.class);
+
     private RegionReference targetRegion;
     private Block targetBlock;
     private SideRegion regionFO;
@@ -136,25 +142,86 @@ public class StaticContentLayoutManager extends BlockStackingLayoutManager {
         }
         setContentAreaIPD(targetIPD);
         setContentAreaBPD(targetBPD);
-        breaker = new StaticContentBreaker(this, targetIPD, targetAlign);
-        breaker.doLayout(targetBPD, autoHeight);
+        StaticContentCache cache = getStaticContentCache();
+        if (cache != null) {
+            StaticContentCache.Layout layout = cache.get(regionFO, targetIPD, targetBPD);
+            if (layout != null) {
+                try {
+                    // each page gets its own copy since renderers may alter the areas
+                    for (Area area : layout.getAreas()) {
+                        targetRegion.addChildArea(area);
+                    }
+                    layout.notifyObservers();
+                    if (layout.isOverflow()) {
+                        notifyOverflow(layout.getOverflowAmount());
+                    }
+                    return;
+                } catch (IOException ioe) {
+                    log.warn("Could not reuse the layout of " + regionFO.getName()
+                            + ": " + ioe.getMessage());
+                    cache = null;
+                }
+            }
+        }
+        RegionReference region = targetRegion;
+        StaticContentCache.ElementListRecorder recorder = null;
+        if (cache != null && ElementListObserver.isObservationActive()) {
+            recorder = new StaticContentCache.ElementListRecorder();
+            ElementListObserver.addObserver(recorder);
+        }
+        try {
+            breaker = new StaticContentBreaker(this, targetIPD, targetAlign);
+            breaker.doLayout(targetBPD, autoHeight);
+        } finally {
+            if (recorder != null) {
+                ElementListObserver.removeObserver(recorder);
+            }
+        }
         if (breaker.isOverflow()) {
             if (!autoHeight) {
-                String page = getPSLM().getCurrentPage().getPageViewport().getPageNumberString();
-
-                BlockLevelEventProducer eventProducer = BlockLevelEventProducer.Provider.get(
-                        getStaticContentFO().getUserAgent().getEventBroadcaster());
-                boolean canRecover = (regionFO.getOverflow() != EN_ERROR_IF_OVERFLOW);
-                boolean needClip = (regionFO.getOverflow() == Constants.EN_HIDDEN
-                        || regionFO.getOverflow() == Constants.EN_ERROR_IF_OVERFLOW);
-                eventProducer.staticRegionOverflow(this, regionFO.getName(),
-                        page,
-                        breaker.getOverflowAmount(), needClip, canRecover,
-                        getStaticContentFO().getLocator());
+                notifyOverflow(breaker.getOverflowAmount());
+            }
+        }
+        if (cache != null) {
+            try {
+                cache.put(regionFO, new StaticContentCache.Layout(targetIPD, targetBPD,
+                        region.getBlocks(), recorder, breaker.isOverflow(),
+                        breaker.getOverflowAmount()));
+            } catch (IOException ioe) {
+                log.warn("Could not cache the layout of " + regionFO.getName()
+                        + ": " + ioe.getMessage());
             }
         }
     }
 
+    /**
+     * Returns the cache for the layout of this static-content, if its areas can be reused on
+     * other pages of the page sequence.
+     */
+    private StaticContentCache getStaticContentCache() {
+        if (targetRegion == null
+                || getStaticContentFO().getUserAgent().isAccessibilityEnabled()) {
+            // with accessibility enabled the areas are tied to the structure tree of the page
+            // they are on
+            return null;
+        }
+        StaticContentCache cache = getPSLM().getStaticContentCache();
+        return cache.isCacheable(getStaticContentFO()) ? cache : null;
+    }
+
+    private void notifyOverflow(int overflowAmount) {
+        String page = getPSLM().getCurrentPage().getPageViewport().getPageNumberString();
+
+        BlockLevelEventProducer eventProducer = BlockLevelEventProducer.Provider.get(
+                getStaticContentFO().getUserAgent().getEventBroadcaster());
+        boolean canRecover = (regionFO.getOverflow() != EN_ERROR_IF_OVERFLOW);
+        boolean needClip = (regionFO.getOverflow() == Constants.EN_HIDDEN
+                || regionFO.getOverflow() == Constants.EN_ERROR_IF_OVERFLOW);
+        eventProducer.staticRegionOverflow(this, regionFO.getName(),
+                page, overflowAmount, needClip, canRecover,
+                getStaticContentFO().getLocator());
+    }
+
     /**
      * Convenience method that returns the Static Content node.
      * @return the static content node
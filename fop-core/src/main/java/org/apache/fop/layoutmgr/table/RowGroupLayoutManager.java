@@ -47,20 +47,22 @@ class RowGroupLayoutManager {
 
     private EffRow[] rowGroup;
 
+    private TableContentLayoutManager tclm;
+
     private TableLayoutManager tableLM;
 
     private TableStepper tableStepper;
 
-    RowGroupLayoutManager(TableLayoutManager tableLM, EffRow[] rowGroup,
+    RowGroupLayoutManager(TableContentLayoutManager tclm, EffRow[] rowGroup,
             TableStepper tableStepper) {
-        this.tableLM = tableLM;
+        this.tclm = tclm;
+        this.tableLM = tclm.getTableLM();
         this.rowGroup = rowGroup;
         this.tableStepper = tableStepper;
     }
 
     public LinkedList getNextKnuthElements(LayoutContext context, int alignment, int bodyType) {
-        LinkedList returnList = new LinkedList();
-        createElementsForRowGroup(context, alignment, bodyType, returnList);
+        LinkedList returnList = createElementsForRowGroup(context, alignment, bodyType);
 
         context.updateKeepWithPreviousPending(rowGroup[0].getKeepWithPrevious());
         context.updateKeepWithNextPending(rowGroup[rowGroup.length - 1].getKeepWithNext());
@@ -89,11 +91,14 @@ class RowGroupLayoutManager {
      * @param context Active LayoutContext
      * @param alignment alignment indicator
      * @param bodyType Indicates what kind of body is being processed (BODY, HEADER or FOOTER)
-     * @param returnList List to received the generated elements
+     * @return the generated elements
      */
-    private void createElementsForRowGroup(LayoutContext context, int alignment,
-            int bodyType, LinkedList returnList) {
+    private LinkedList createElementsForRowGroup(LayoutContext context, int alignment,
+            int bodyType) {
         log.debug("Handling row group with " + rowGroup.length + " rows...");
+        if (rowGroup.length == 1 && !tableLM.getTable().isAutoLayout()) {
+            return createElementsForRow(context, alignment, bodyType);
+        }
         EffRow row;
         for (EffRow aRowGroup : rowGroup) {
             row = aRowGroup;
@@ -125,9 +130,90 @@ class RowGroupLayoutManager {
             }
         }
         computeRowHeights();
-        List elements = tableStepper.getCombinedKnuthElementsForRowGroup(context,
-                rowGroup, bodyType);
-        returnList.addAll(elements);
+        return tableStepper.getCombinedKnuthElementsForRowGroup(context, rowGroup, bodyType);
+    }
+
+    /**
+     * Creates Knuth elements for a row group made of a single row, in a table with a fixed
+     * layout. Since no cell spans over other rows, the element lists of the cells and the
+     * height of the row are computed in a single pass over the row, using the column widths
+     * computed once for the table.
+     * @param context Active LayoutContext
+     * @param alignment alignment indicator
+     * @param bodyType Indicates what kind of body is being processed (BODY, HEADER or FOOTER)
+     * @return the generated elements
+     */
+    private LinkedList createElementsForRow(LayoutContext context, int alignment, int bodyType) {
+        EffRow row = rowGroup[0];
+        int[] columnWidths = tclm.getColumnWidths();
+        MinOptMax explicitRowHeight = getExplicitRowHeight(row);
+        MinOptMax rowHeight = explicitRowHeight;
+        for (Object o : row.getGridUnits()) {
+            GridUnit gu = (GridUnit) o;
+            if (gu.isPrimary()) {
+                PrimaryGridUnit primary = gu.getPrimary();
+                primary.createCellLM();
+                primary.getCellLM().setParent(tableLM);
+                int spanWidth = 0;
+                for (int i = primary.getColIndex(),
+                        end = i + primary.getCell().getNumberColumnsSpanned(); i < end; i++) {
+                    spanWidth += columnWidths[i];
+                }
+                LayoutContext childLC = LayoutContext.newInstance();
+                childLC.setStackLimitBP(context.getStackLimitBP());
+                childLC.setRefIPD(spanWidth);
+                List elems = primary.getCellLM().getNextKnuthElements(childLC, alignment);
+                ElementListObserver.observe(elems, "table-cell", primary.getCell().getId());
+                primary.setElements(elems);
+                int cellHeight = getCellHeight(primary, explicitRowHeight);
+                if (cellHeight > rowHeight.getMin()) {
+                    rowHeight = rowHeight.extendMinimum(cellHeight);
+                }
+            }
+        }
+        row.setHeight(rowHeight);
+        row.setExplicitHeight(explicitRowHeight);
+        return tableStepper.getCombinedKnuthElementsForRowGroup(context, rowGroup, bodyType);
+    }
+
+    private MinOptMax getExplicitRowHeight(EffRow row) {
+        TableRow tableRowFO = row.getTableRow();
+        if (tableRowFO == null) {
+            return MAX_STRETCH;
+        } else {
+            return tableRowFO.getBlockProgressionDimension().toMinOptMax(tableLM);
+        }
+    }
+
+    /**
+     * Returns the height a cell needs on its last row, including its borders and padding.
+     * @param primary the cell
+     * @param explicitRowHeight the explicit height of the cell's first row, which only
+     * applies if the cell spans no further row
+     * @return the height of the cell
+     */
+    private int getCellHeight(PrimaryGridUnit primary, MinOptMax explicitRowHeight) {
+        int effectiveCellBPD = 0;
+        LengthRangeProperty cellBPD = primary.getCell().getBlockProgressionDimension();
+        if (!cellBPD.getMinimum(tableLM).isAuto()) {
+            effectiveCellBPD = cellBPD.getMinimum(tableLM).getLength()
+                    .getValue(tableLM);
+        }
+        if (!cellBPD.getOptimum(tableLM).isAuto()) {
+            effectiveCellBPD = cellBPD.getOptimum(tableLM).getLength()
+                    .getValue(tableLM);
+        }
+        if (explicitRowHeight != null) {
+            effectiveCellBPD = Math.max(effectiveCellBPD, explicitRowHeight.getOpt());
+        }
+        effectiveCellBPD = Math.max(effectiveCellBPD, primary.getContentLength());
+        int borderWidths = primary.getBeforeAfterBorderWidth();
+        int padding = 0;
+        CommonBorderPaddingBackground cbpb = primary.getCell()
+                .getCommonBorderPaddingBackground();
+        padding += cbpb.getPaddingBefore(false, primary.getCellLM());
+        padding += cbpb.getPaddingAfter(false, primary.getCellLM());
+        return effectiveCellBPD + padding + borderWidths;
     }
 
     /**
@@ -145,41 +231,14 @@ class RowGroupLayoutManager {
             row = rowGroup[rgi];
             // The BPD of the biggest cell in the row
 //            int maxCellBPD = 0;
-            MinOptMax explicitRowHeight;
-            TableRow tableRowFO = rowGroup[rgi].getTableRow();
-            if (tableRowFO == null) {
-                rowHeights[rgi] = MAX_STRETCH;
-                explicitRowHeight = MAX_STRETCH;
-            } else {
-                LengthRangeProperty rowBPD = tableRowFO.getBlockProgressionDimension();
-                rowHeights[rgi] = rowBPD.toMinOptMax(tableLM);
-                explicitRowHeight = rowBPD.toMinOptMax(tableLM);
-            }
+            MinOptMax explicitRowHeight = getExplicitRowHeight(row);
+            rowHeights[rgi] = explicitRowHeight;
             for (Object o : row.getGridUnits()) {
                 GridUnit gu = (GridUnit) o;
                 if (!gu.isEmpty() && gu.getColSpanIndex() == 0 && gu.isLastGridUnitRowSpan()) {
                     PrimaryGridUnit primary = gu.getPrimary();
-                    int effectiveCellBPD = 0;
-                    LengthRangeProperty cellBPD = primary.getCell().getBlockProgressionDimension();
-                    if (!cellBPD.getMinimum(tableLM).isAuto()) {
-                        effectiveCellBPD = cellBPD.getMinimum(tableLM).getLength()
-                                .getValue(tableLM);
-                    }
-                    if (!cellBPD.getOptimum(tableLM).isAuto()) {
-                        effectiveCellBPD = cellBPD.getOptimum(tableLM).getLength()
-                                .getValue(tableLM);
-                    }
-                    if (gu.getRowSpanIndex() == 0) {
-                        effectiveCellBPD = Math.max(effectiveCellBPD, explicitRowHeight.getOpt());
-                    }
-                    effectiveCellBPD = Math.max(effectiveCellBPD, primary.getContentLength());
-                    int borderWidths = primary.getBeforeAfterBorderWidth();
-                    int padding = 0;
-                    CommonBorderPaddingBackground cbpb = primary.getCell()
-                            .getCommonBorderPaddingBackground();
-                    padding += cbpb.getPaddingBefore(false, primary.getCellLM());
-                    padding += cbpb.getPaddingAfter(false, primary.getCellLM());
-                    int effRowHeight = effectiveCellBPD + padding + borderWidths;
+                    int effRowHeight = getCellHeight(primary,
+                            gu.getRowSpanIndex() == 0 ? explicitRowHeight : null);
                     for (int prev = rgi - 1; prev >= rgi - gu.getRowSpanIndex(); prev--) {
                         effRowHeight -= rowHeights[prev].getOpt();
                     }
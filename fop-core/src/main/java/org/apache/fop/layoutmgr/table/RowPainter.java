@@ -316,6 +316,9 @@ class RowPainter {
                         false);
             }
         }
+        if (currentRow.getBodyType() == TableRowIterator.BODY) {
+            releaseFinishedRow();
+        }
         currentRowOffset += actualRowHeight;
         if (lastInPart) {
             /*
@@ -341,6 +344,33 @@ class RowPainter {
         }
     }
 
+    /**
+     * Releases the layout of the cells of the current row once all of them are completely
+     * painted, so that long tables don't keep the element lists and layout managers of
+     * their finished rows in memory. Rows containing cells spanning several rows are left
+     * alone, as well as headers and footers which may be repeated on every page.
+     */
+    private void releaseFinishedRow() {
+        for (int i = 0; i < colCount; i++) {
+            GridUnit gu = currentRow.getGridUnit(i);
+            if (gu.isPrimary()) {
+                CellPart lastPart = lastCellParts[i];
+                if (gu.getCell().getNumberRowsSpanned() > 1 || lastPart == null
+                        || lastPart.pgu != gu || !lastPart.isLastPart()) {
+                    return;
+                }
+            } else if (!gu.isEmpty() && gu.getRowSpanIndex() > 0) {
+                return;
+            }
+        }
+        for (int i = 0; i < colCount; i++) {
+            GridUnit gu = currentRow.getGridUnit(i);
+            if (gu.isPrimary()) {
+                ((PrimaryGridUnit) gu).releaseCellLM();
+            }
+        }
+    }
+
     // TODO this is not very efficient and should probably be done another way
     // this method is only necessary when display-align = center or after, in which case
     // the exact content length is needed to compute the size of the empty block that will
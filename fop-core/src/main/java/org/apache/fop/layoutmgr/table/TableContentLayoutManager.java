@@ -36,6 +36,7 @@ import org.apache.fop.fo.flow.table.EffRow;
 import org.apache.fop.fo.flow.table.PrimaryGridUnit;
 import org.apache.fop.fo.flow.table.Table;
 import org.apache.fop.fo.flow.table.TableBody;
+import org.apache.fop.fo.flow.table.TableColumn;
 import org.apache.fop.fo.flow.table.TablePart;
 import org.apache.fop.layoutmgr.BreakElement;
 import org.apache.fop.layoutmgr.ElementListUtils;
@@ -77,6 +78,9 @@ public class TableContentLayoutManager implements PercentBaseContext {
 
     private TableStepper stepper;
 
+    /** The widths of the table's columns, computed on first use. */
+    private int[] columnWidths;
+
     private boolean headerIsBeingRepeated;
     private boolean  atLeastOnce;
 
@@ -116,6 +120,23 @@ public class TableContentLayoutManager implements PercentBaseContext {
         return getTableLM().getColumns();
     }
 
+    /**
+     * Returns the widths of the table's columns. They are computed once, as they no longer
+     * change once the layout of the table's content has started.
+     * @return the widths of the columns, in millipoints
+     */
+    int[] getColumnWidths() {
+        if (columnWidths == null) {
+            List columns = getTableLM().getTable().getColumns();
+            columnWidths = new int[columns.size()];
+            for (int i = 0; i < columnWidths.length; i++) {
+                columnWidths[i] = ((TableColumn) columns.get(i)).getColumnWidth().getValue(
+                        getTableLM());
+            }
+        }
+        return columnWidths;
+    }
+
     /** @return the net header height */
     protected int getHeaderNetHeight() {
         return this.headerNetHeight;
@@ -265,7 +286,7 @@ public class TableContentLayoutManager implements PercentBaseContext {
         Keep keepWithPrevious = Keep.KEEP_AUTO;
         int breakBefore = Constants.EN_AUTO;
         if (rowGroup != null) {
-            RowGroupLayoutManager rowGroupLM = new RowGroupLayoutManager(getTableLM(), rowGroup,
+            RowGroupLayoutManager rowGroupLM = new RowGroupLayoutManager(this, rowGroup,
                     stepper);
             List nextRowGroupElems = rowGroupLM.getNextKnuthElements(context, alignment, bodyType);
             keepWithPrevious = keepWithPrevious.compare(context.getKeepWithPreviousPending());
@@ -273,7 +294,7 @@ public class TableContentLayoutManager implements PercentBaseContext {
             int breakBetween = context.getBreakAfter();
             returnList.addAll(nextRowGroupElems);
             while ((rowGroup = iter.getNextRowGroup()) != null) {
-                rowGroupLM = new RowGroupLayoutManager(getTableLM(), rowGroup, stepper);
+                rowGroupLM = new RowGroupLayoutManager(this, rowGroup, stepper);
 
                 //Note previous pending keep-with-next and clear the strength
                 //(as the layout context is reused)
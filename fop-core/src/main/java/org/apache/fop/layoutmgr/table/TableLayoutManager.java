@@ -418,6 +418,7 @@ public class TableLayoutManager extends SpacedBorderedPaddedBlockLayoutManager
 
         resetSpaces();
         curBlockArea = null;
+        setCurrentArea(null);
 
         notifyEndOfLayout();
     }
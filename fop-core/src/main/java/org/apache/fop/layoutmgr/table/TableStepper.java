@@ -19,6 +19,7 @@
 
 package org.apache.fop.layoutmgr.table;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -60,10 +61,10 @@ public class TableStepper {
     private boolean rowFinished;
 
     /** Cells spanning the current row. */
-    private List activeCells = new LinkedList();
+    private List activeCells = new ArrayList();
 
     /** Cells that will start the next row. */
-    private List nextActiveCells = new LinkedList();
+    private List nextActiveCells = new ArrayList();
 
     /**
      * True if the next row is being delayed, that is, if cells spanning the current and
@@ -131,6 +132,13 @@ public class TableStepper {
 
     private int getMaxRemainingHeight() {
         int maxW = 0;
+        if (rowGroup.length == 1) {
+            // No cell spans over further rows
+            for (Object activeCell1 : activeCells) {
+                maxW = Math.max(maxW, ((ActiveCell) activeCell1).getRemainingLength());
+            }
+            return maxW;
+        }
         for (Object activeCell1 : activeCells) {
             ActiveCell activeCell = (ActiveCell) activeCell1;
             int remain = activeCell.getRemainingLength();
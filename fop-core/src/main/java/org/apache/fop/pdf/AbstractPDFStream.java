@@ -20,10 +20,16 @@
 package org.apache.fop.pdf;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
 
 import org.apache.fop.util.CloseBlockerOutputStream;
 
@@ -41,6 +47,9 @@ public abstract class AbstractPDFStream extends PDFObject {
 
     private PDFNumber refLength = new PDFNumber();
 
+    /** The encoding of the stream data started by {@link #encodeInBackground(Executor)} */
+    private FutureTask<StreamCache> backgroundEncoding;
+
     protected AbstractPDFStream() {
         this(true);
     }
@@ -82,12 +91,17 @@ public abstract class AbstractPDFStream extends PDFObject {
      * from outside.
      */
     protected void setupFilterList() {
-        if (multipleFiltersAllowed() && !getFilterList().isInitialized()) {
+        boolean addDefaultFilters = multipleFiltersAllowed() && !getFilterList().isInitialized();
+        if (addDefaultFilters) {
             getFilterList().addDefaultFilters(
                 getDocumentSafely().getFilterMap(),
                 getDefaultFilterName());
         }
         prepareImplicitFilters();
+        if (addDefaultFilters) {
+            getFilterList().setCompressionLevel(
+                getDocumentSafely().getCompressionLevel(getDefaultFilterName()));
+        }
         getDocument().applyEncryption(this);
     }
 
@@ -210,6 +224,74 @@ public abstract class AbstractPDFStream extends PDFObject {
         return bytesWritten;
     }
 
+    /**
+     * Indicates whether the stream data may be encoded on another thread, see
+     * {@link #encodeInBackground(Executor)}. This requires the stream data to be complete
+     * once the stream has been registered with the document, and the raw stream data to be
+     * produced without touching the document.
+     * @return true if the stream data may be encoded in the background
+     */
+    protected boolean isBackgroundEncodingSupported() {
+        return false;
+    }
+
+    /**
+     * Starts encoding the stream data on the given executor, so it is ready when the stream
+     * is output. The filters are set up and the objects the stream refers to are numbered
+     * right away, so the object numbers are the same as when the stream is output directly.
+     * @param executor the executor to encode the stream data on
+     * @return the indirect object that receives the length of the stream once the stream is
+     *          output, or null if the length is written directly
+     * @throws IOException if an I/O error occurs
+     */
+    PDFNumber encodeInBackground(Executor executor) throws IOException {
+        setupFilterList();
+        if (encodeOnTheFly && !refLength.hasObjectNumber()) {
+            registerChildren();
+        }
+        //Object numbers are handed out when they are first written, so write the object
+        //number and the dictionary as output() would, with a preliminary length
+        getObjectNumber().getNumber();
+        populateStreamDict(encodeOnTheFly ? refLength : (Object) 0);
+        dictionary.writeDictionary(new NullOutputStream(), new StringBuilder());
+        backgroundEncoding = new FutureTask<StreamCache>(new Callable<StreamCache>() {
+            public StreamCache call() throws IOException {
+                return encodeStream();
+            }
+        });
+        executor.execute(backgroundEncoding);
+        return encodeOnTheFly ? refLength : null;
+    }
+
+    /**
+     * Indicates whether the encoding started by {@link #encodeInBackground(Executor)} is done.
+     * @return true unless the stream data is still being encoded
+     */
+    boolean isBackgroundEncodingDone() {
+        return backgroundEncoding == null || backgroundEncoding.isDone();
+    }
+
+    private StreamCache finishBackgroundEncoding() throws IOException {
+        try {
+            return backgroundEncoding.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encoding a stream");
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            backgroundEncoding = null;
+        }
+    }
+
     /**
      * Overload the base object method so we don't have to copy
      * byte arrays around so much
@@ -217,23 +299,32 @@ public abstract class AbstractPDFStream extends PDFObject {
      */
     @Override
     public int output(OutputStream stream) throws IOException {
-        setupFilterList();
-
-        CountingOutputStream cout = new CountingOutputStream(stream);
-        StringBuilder textBuffer = new StringBuilder(64);
-
         StreamCache encodedStream = null;
         final Object lengthEntry;
-        if (encodeOnTheFly) {
-            if (!refLength.hasObjectNumber()) {
-                registerChildren();
+        if (backgroundEncoding != null) {
+            encodedStream = finishBackgroundEncoding();
+            if (encodeOnTheFly) {
+                refLength.setNumber(encodedStream.getSize());
+                lengthEntry = refLength;
+            } else {
+                lengthEntry = encodedStream.getSize();
             }
-            lengthEntry = refLength;
         } else {
-            encodedStream = encodeStream();
-            lengthEntry = encodedStream.getSize();
+            setupFilterList();
+            if (encodeOnTheFly) {
+                if (!refLength.hasObjectNumber()) {
+                    registerChildren();
+                }
+                lengthEntry = refLength;
+            } else {
+                encodedStream = encodeStream();
+                lengthEntry = encodedStream.getSize();
+            }
         }
 
+        CountingOutputStream cout = new CountingOutputStream(stream);
+        StringBuilder textBuffer = new StringBuilder(64);
+
         populateStreamDict(lengthEntry);
         dictionary.writeDictionary(cout, textBuffer);
 
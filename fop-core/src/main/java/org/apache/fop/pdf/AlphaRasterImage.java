@@ -216,6 +216,9 @@ public class AlphaRasterImage implements PDFImage {
     public boolean multipleFiltersAllowed() {
         return true;
     }
-}
-
 
+    /** {@inheritDoc} */
+    public boolean isContentRepeatable() {
+        return true;
+    }
+}
@@ -229,4 +229,8 @@ public class BitmapImage implements PDFImage {
         multipleFiltersAllowed = false;
     }
 
+    /** {@inheritDoc} */
+    public boolean isContentRepeatable() {
+        return true;
+    }
 }
@@ -21,6 +21,8 @@ package org.apache.fop.pdf;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 import org.apache.xmlgraphics.util.io.FlateEncodeOutputStream;
 
@@ -79,6 +81,7 @@ public class FlateFilter extends PDFFilter {
     private int colors;
     private int bitsPerComponent;
     private int columns;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
 
     /**
      * Get the name of this filter.
@@ -208,12 +211,55 @@ public class FlateFilter extends PDFFilter {
     }
 
 
+    /**
+     * Set the compression level used when this filter compresses the data.
+     *
+     * @param compressionLevel the compression level (0-9), or
+     * {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION
+                && (compressionLevel < Deflater.NO_COMPRESSION
+                        || compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Get the compression level used when this filter compresses the data.
+     *
+     * @return the compression level
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
     /** {@inheritDoc} */
     public OutputStream applyFilter(OutputStream out) throws IOException {
         if (isApplied()) {
             return out;
-        } else {
+        } else if (compressionLevel == Deflater.DEFAULT_COMPRESSION) {
             return new FlateEncodeOutputStream(out);
+        } else {
+            return new LeveledFlateEncodeOutputStream(out, new Deflater(compressionLevel));
+        }
+    }
+
+    /** Deflates with a given compression level, and releases the deflater when closed. */
+    private static class LeveledFlateEncodeOutputStream extends DeflaterOutputStream {
+
+        LeveledFlateEncodeOutputStream(OutputStream out, Deflater deflater) {
+            super(out, deflater);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
         }
     }
 
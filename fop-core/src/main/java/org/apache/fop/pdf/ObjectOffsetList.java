@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * The byte offsets of the indirect objects of a PDF document, indexed by object number minus
+ * one. The offsets are kept in a growing primitive array rather than as boxed values, so the
+ * memory needed for the cross-reference information is 8 bytes per object. Unknown offsets
+ * are represented as null.
+ */
+final class ObjectOffsetList extends AbstractList<Long> implements RandomAccess {
+
+    private static final long UNKNOWN = -1L;
+
+    private long[] offsets = new long[256];
+
+    private int size;
+
+    /** {@inheritDoc} */
+    @Override
+    public Long get(int index) {
+        checkIndex(index);
+        long offset = offsets[index];
+        return offset == UNKNOWN ? null : Long.valueOf(offset);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Long set(int index, Long offset) {
+        Long old = get(index);
+        offsets[index] = toPrimitive(offset);
+        return old;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void add(int index, Long offset) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(offsets, index, offsets, index + 1, size - index);
+        offsets[index] = toPrimitive(offset);
+        size++;
+        modCount++;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Long remove(int index) {
+        Long old = get(index);
+        System.arraycopy(offsets, index + 1, offsets, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Records the offset of an object, growing the list as necessary.
+     * @param index the index of the object (object number minus one)
+     * @param offset the byte offset of the object
+     */
+    void record(int index, long offset) {
+        if (index >= size) {
+            ensureCapacity(index + 1);
+            Arrays.fill(offsets, size, index, UNKNOWN);
+            size = index + 1;
+            modCount++;
+        }
+        offsets[index] = offset;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(capacity, offsets.length * 2));
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static long toPrimitive(Long offset) {
+        return offset == null ? UNKNOWN : offset.longValue();
+    }
+}
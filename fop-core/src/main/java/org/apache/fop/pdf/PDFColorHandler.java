@@ -128,9 +128,8 @@ public class PDFColorHandler {
         if (pdfcs == null) {
             //color space is not in the PDF, yet
             PDFFactory factory = getDocument().getFactory();
-            PDFICCStream pdfICCStream = factory.makePDFICCStream();
             PDFDeviceColorSpace altSpace = PDFDeviceColorSpace.toPDFColorSpace(cs);
-            pdfICCStream.setColorSpace(profile, altSpace);
+            PDFICCStream pdfICCStream = factory.makePDFICCStream(profile, altSpace);
             pdfcs = factory.makeICCBasedColorSpace(null, desc, pdfICCStream);
         }
         return pdfcs;
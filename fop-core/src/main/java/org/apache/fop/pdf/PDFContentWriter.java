@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.apache.xmlgraphics.util.DoubleFormatUtil;
+
+/**
+ * <p>Writes the operators and operands of a PDF content stream as ISO-8859-1 bytes into a
+ * reusable buffer. Numbers are formatted straight into the buffer, so painting an operator
+ * doesn't create any strings.</p>
+ *
+ * <p>A writer created with an output stream passes its content on to the stream whenever the
+ * buffer fills up and when it is flushed. A writer created without one keeps all its content,
+ * and can be reused as a scratch buffer after {@link #reset()}.</p>
+ */
+public class PDFContentWriter {
+
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    private static final byte[] DIGITS = {
+        '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+        1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17};
+
+    private final OutputStream out;
+
+    private byte[] buf = new byte[256];
+
+    private int count;
+
+    /** the digits of an integer, in reverse order */
+    private final byte[] digits = new byte[20];
+
+    private StringBuffer fallback;
+
+    /**
+     * Creates a writer that keeps all its content.
+     */
+    public PDFContentWriter() {
+        this(null);
+    }
+
+    /**
+     * Creates a writer that passes its content on to an output stream.
+     * @param out the output stream, or null to keep all the content
+     */
+    public PDFContentWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Adds a character. Characters outside of ISO-8859-1 are written as '?'.
+     * @param c the character
+     * @return this writer
+     */
+    public PDFContentWriter add(char c) {
+        ensureCapacity(1);
+        buf[count++] = (byte) (c < 256 ? c : '?');
+        return this;
+    }
+
+    /**
+     * Adds a sequence of characters. Characters outside of ISO-8859-1 are written as '?'.
+     * @param s the characters
+     * @return this writer
+     */
+    public PDFContentWriter add(CharSequence s) {
+        int length = s.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            buf[count++] = (byte) (c < 256 ? c : '?');
+        }
+        return this;
+    }
+
+    /**
+     * Adds the content of another writer that keeps all its content.
+     * @param writer the other writer
+     * @return this writer
+     */
+    public PDFContentWriter add(PDFContentWriter writer) {
+        ensureCapacity(writer.count);
+        System.arraycopy(writer.buf, 0, buf, count, writer.count);
+        count += writer.count;
+        return this;
+    }
+
+    /**
+     * Adds an integer.
+     * @param value the value
+     * @return this writer
+     */
+    public PDFContentWriter addInt(long value) {
+        if (value == Long.MIN_VALUE) {
+            return add(Long.toString(value));
+        }
+        if (value < 0) {
+            add('-');
+            value = -value;
+        }
+        int n = 0;
+        do {
+            digits[n++] = DIGITS[(int) (value % 10)];
+            value /= 10;
+        } while (value != 0);
+        ensureCapacity(n);
+        while (n > 0) {
+            buf[count++] = digits[--n];
+        }
+        return this;
+    }
+
+    /**
+     * Adds a number with up to 6 decimal places, like {@link PDFNumber#doubleOut(double)}.
+     * @param value the value
+     * @return this writer
+     */
+    public PDFContentWriter addNumber(double value) {
+        return addNumber(value, 6);
+    }
+
+    /**
+     * Adds a number with up to the given number of decimal places, exactly like
+     * {@link PDFNumber#doubleOut(double, int)} formats it.
+     * @param value the value
+     * @param dec the maximum number of decimal places
+     * @return this writer
+     */
+    public PDFContentWriter addNumber(double value, int dec) {
+        if (dec < 0 || dec > 16) {
+            throw new IllegalArgumentException("Parameter dec must be between 1 and 16");
+        }
+        double abs = Math.abs(value);
+        if (value == 0 || abs < 4.999999999999999 / POWERS_OF_TEN[dec + 1]) {
+            return add('0');
+        }
+        //DoubleFormatUtil switches to a slower, precise algorithm for values with too many digits
+        //and for values close to a tie or to a multiple of 10^-dec. Only the first two can round
+        //differently, so values close to a multiple of 10^-dec, like integers, stay on this path.
+        double log = Math.log10(abs);
+        long intPart = (long) Math.floor(abs);
+        double tenScale = POWERS_OF_TEN[dec];
+        double fracUnrounded = (abs - intPart) * tenScale;
+        double threshold = log + dec >= 12.0 ? 0.1 : 0.001;
+        if (Double.isNaN(value) || Double.isInfinite(value)
+                || log + dec >= 14.5
+                || Math.abs(fracUnrounded - Math.floor(fracUnrounded) - 0.5) <= threshold) {
+            return addNumberPrecise(value, dec);
+        }
+        long fracPart = Math.round(fracUnrounded);
+        if (fracPart >= tenScale) {
+            intPart++;
+            fracPart = Math.round(fracPart - tenScale);
+        }
+        int scale = dec;
+        if (fracPart != 0) {
+            while (fracPart % 10 == 0) {
+                fracPart /= 10;
+                scale--;
+            }
+        }
+        if (intPart == 0 && fracPart == 0) {
+            return add('0');
+        }
+        if (value < 0) {
+            add('-');
+        }
+        addInt(intPart);
+        if (fracPart != 0) {
+            add('.');
+            while (scale > 0 && fracPart < POWERS_OF_TEN[--scale]) {
+                add('0');
+            }
+            addInt(fracPart);
+        }
+        return this;
+    }
+
+    private PDFContentWriter addNumberPrecise(double value, int dec) {
+        if (fallback == null) {
+            fallback = new StringBuffer();
+        }
+        fallback.setLength(0);
+        DoubleFormatUtil.formatDouble(value, dec, dec, fallback);
+        return add(fallback);
+    }
+
+    /**
+     * Adds an integer as octal digits, without leading zeros.
+     * @param value the value, which must not be negative
+     * @return this writer
+     */
+    public PDFContentWriter addOctal(int value) {
+        int n = 0;
+        do {
+            digits[n++] = DIGITS[value & 7];
+            value >>>= 3;
+        } while (value != 0);
+        ensureCapacity(n);
+        while (n > 0) {
+            buf[count++] = digits[--n];
+        }
+        return this;
+    }
+
+    /**
+     * Adds an integer as a fixed number of upper case hexadecimal digits.
+     * @param value the value
+     * @param length the number of digits
+     * @return this writer
+     */
+    public PDFContentWriter addHex(int value, int length) {
+        ensureCapacity(length);
+        for (int shift = (length - 1) * 4; shift >= 0; shift -= 4) {
+            buf[count++] = DIGITS[(value >>> shift) & 0xF];
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of bytes in the buffer.
+     * @return the number of bytes
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Discards the content of the buffer.
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    /**
+     * Passes the content of the buffer on to the output stream, if there is one.
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        if (out != null && count > 0) {
+            out.write(buf, 0, count);
+            count = 0;
+        }
+    }
+
+    /**
+     * Writes the content of the buffer to an output stream.
+     * @param stream the output stream
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(OutputStream stream) throws IOException {
+        stream.write(buf, 0, count);
+    }
+
+    /**
+     * Appends the content of the buffer to a string buffer, for code that builds up content
+     * as characters.
+     * @param target the string buffer
+     */
+    public void writeTo(StringBuffer target) {
+        target.ensureCapacity(target.length() + count);
+        for (int i = 0; i < count; i++) {
+            target.append((char) (buf[i] & 0xFF));
+        }
+    }
+
+    /**
+     * Returns the content of the buffer as a string.
+     * @return the content
+     */
+    public String toString() {
+        char[] chars = new char[count];
+        for (int i = 0; i < count; i++) {
+            chars[i] = (char) (buf[i] & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    private void ensureCapacity(int n) {
+        if (count + n <= buf.length) {
+            return;
+        }
+        if (out != null && count + n > FLUSH_THRESHOLD) {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            if (n <= buf.length) {
+                return;
+            }
+        }
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + n));
+    }
+}
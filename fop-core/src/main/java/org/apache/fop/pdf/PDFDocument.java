@@ -20,6 +20,9 @@
 package org.apache.fop.pdf;
 
 // Java
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
@@ -29,9 +32,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.Deflater;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -73,6 +78,9 @@ public class PDFDocument {
     /** the counter for object numbering */
     protected int objectcount;
 
+    /** the size up to which the data of an image, read for its content digest, is kept */
+    private static final int MAX_BUFFERED_IMAGE_SIZE = 64 * 1024;
+
     /** the logger instance */
     private Log log = LogFactory.getLog("org.apache.fop.pdf");
 
@@ -80,7 +88,7 @@ public class PDFDocument {
     protected long position;
 
     /** the character position of each object */
-    protected List<Long> indirectObjectOffsets = new ArrayList<Long>();
+    protected List<Long> indirectObjectOffsets = new ObjectOffsetList();
 
     protected List<PDFStructElem> structureTreeElements;
 
@@ -132,6 +140,11 @@ public class PDFDocument {
     /* TODO: Should be modified (works only for image subtype) */
     private Map<String, PDFXObject> xObjectsMap = new HashMap<String, PDFXObject>();
 
+    /** Streams shared by content (key: content digest, see {@link StreamContentDigest}) */
+    private Map<String, AbstractPDFStream> streamsByDigest = new HashMap<String, AbstractPDFStream>();
+
+    private Map<PDFObject, String> streamDigests = new IdentityHashMap<PDFObject, String>();
+
     private Map<String, PDFFont> fontMap = new HashMap<String, PDFFont>();
 
     private Map<String, List<String>> filterMap = new HashMap<String, List<String>>();
@@ -174,6 +187,16 @@ public class PDFDocument {
 
     private boolean linearizationEnabled;
 
+    private boolean streamingEnabled;
+
+    private int compressionThreads;
+
+    private Map<String, Integer> compressionLevels = new HashMap<String, Integer>();
+
+    private StreamEncodingQueue streamEncodingQueue;
+
+    private StreamEncoderPool streamEncoderPool;
+
     protected boolean outputStarted;
 
     /**
@@ -336,6 +359,68 @@ public class PDFDocument {
         return this.filterMap;
     }
 
+    /**
+     * Sets the compression level of the flate filter for a stream type.
+     *
+     * @param type the stream type, one of the filter list keys of {@link PDFFilterList}
+     * ({@link PDFFilterList#DEFAULT_FILTER} for all types without a level of their own)
+     * @param level the compression level (0-9)
+     */
+    public void setCompressionLevel(String type, int level) {
+        this.compressionLevels.put(type, level);
+    }
+
+    /**
+     * Returns the compression level of the flate filter for a stream type.
+     *
+     * @param type the stream type
+     * @return the compression level, or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public int getCompressionLevel(String type) {
+        Integer level = compressionLevels.get(type);
+        if (level == null) {
+            level = compressionLevels.get(PDFFilterList.DEFAULT_FILTER);
+        }
+        return level == null ? Deflater.DEFAULT_COMPRESSION : level;
+    }
+
+    /**
+     * Sets the number of threads that encode (compress) the data of page content streams,
+     * images and fonts while the document is being built. With 0, the default, streams are
+     * encoded when they are written. The objects are written in the same order, and with the
+     * same object numbers, either way. Streams are always encoded when they are written if
+     * the document is encrypted or linearized.
+     *
+     * @param compressionThreads the number of threads
+     */
+    public void setCompressionThreads(int compressionThreads) {
+        if (compressionThreads < 0) {
+            throw new IllegalArgumentException("compressionThreads must not be negative");
+        }
+        this.compressionThreads = compressionThreads;
+    }
+
+    /**
+     * Sets the pool of threads that encode stream data, see
+     * {@link #setCompressionThreads(int)}. Without a pool, the document starts its own threads
+     * and ends them once it has been written.
+     *
+     * @param streamEncoderPool the pool, usually shared with other documents, or null
+     */
+    public void setStreamEncoderPool(StreamEncoderPool streamEncoderPool) {
+        this.streamEncoderPool = streamEncoderPool;
+    }
+
+    /**
+     * Returns the number of threads that encode stream data, see
+     * {@link #setCompressionThreads(int)}.
+     *
+     * @return the number of threads
+     */
+    public int getCompressionThreads() {
+        return compressionThreads;
+    }
+
     /**
      * Returns the {@link PDFPages} object associated with the root object.
      *
@@ -506,12 +591,14 @@ public class PDFDocument {
         }
         if (obj instanceof PDFPage) {
             this.pages.notifyKidRegistered((PDFPage)obj);
-            pageObjs.add((PDFPage) obj);
+            if (!isStreaming()) {
+                pageObjs.add((PDFPage) obj);
+            }
         }
         if (obj instanceof PDFLaunch) {
             this.launches.add((PDFLaunch) obj);
         }
-        if (obj instanceof PDFLink) {
+        if (obj instanceof PDFLink && !isStreaming()) {
             this.links.add((PDFLink) obj);
         }
         if (obj instanceof PDFFileSpec) {
@@ -867,10 +954,34 @@ public class PDFDocument {
 
         // setup image
         img.setup(this);
-        // create a new XObject
-        xObject = new PDFImageXObject(++this.xObjectCount, img);
-        registerObject(xObject);
-        this.resources.addXObject(xObject);
+        // check if the same image was added under a different key
+        ImageDataBuffer buffer = new ImageDataBuffer(MAX_BUFFERED_IMAGE_SIZE);
+        String digest = null;
+        if (img.isContentRepeatable()) {
+            try {
+                digest = StreamContentDigest.digest(img, this, buffer);
+            } catch (IOException ioe) {
+                //the error surfaces again when the image is written
+                log.debug("Could not read the data of image " + img.getKey(), ioe);
+                buffer = null;
+            }
+        }
+        byte[] data = digest != null ? buffer.getData() : null;
+        if (digest != null) {
+            xObject = (PDFImageXObject)streamsByDigest.get(digest);
+        }
+        if (xObject == null) {
+            // create a new XObject
+            xObject = new PDFImageXObject(++this.xObjectCount, img);
+            if (data != null) {
+                xObject.setImageData(data);
+            }
+            registerObject(xObject);
+            this.resources.addXObject(xObject);
+            if (digest != null) {
+                registerStreamDigest(xObject, digest);
+            }
+        }
         if (res != null) {
             res.addXObject(xObject);
         }
@@ -878,11 +989,42 @@ public class PDFDocument {
         return xObject;
     }
 
+    /**
+     * Returns the stream that was registered with a content digest.
+     * @param digest the content digest
+     * @return the stream, or null
+     */
+    AbstractPDFStream getStreamByDigest(String digest) {
+        return streamsByDigest.get(digest);
+    }
+
+    /**
+     * Returns the content digest of a stream that is shared by content.
+     * @param stream the stream
+     * @return the content digest, or null
+     */
+    String getStreamDigest(PDFObject stream) {
+        return streamDigests.get(stream);
+    }
+
+    /**
+     * Registers a stream so it is reused for all content with the same digest.
+     * @param stream the stream
+     * @param digest the content digest
+     */
+    void registerStreamDigest(AbstractPDFStream stream, String digest) {
+        streamsByDigest.put(digest, stream);
+        streamDigests.put(stream, digest);
+    }
+
     /**
      * Add a form XObject to the PDF document.
      * This adds a Form XObject to the PDF objects.
      * If a Form XObject with the same key already exists it will return the
-     * old {@link PDFFormXObject}.
+     * old {@link PDFFormXObject}. Since the contents of the Form XObject may still change, it
+     * isn't shared with identical Form XObjects added under other keys, unlike those added with
+     * {@link #addFormXObject(PDFResourceContext, PDFStream, PDFReference, Rectangle2D,
+     * AffineTransform, String)}.
      *
      * @param res the PDF resource context to add to, may be null
      * @param cont the PDF Stream contents of the Form XObject
@@ -918,6 +1060,51 @@ public class PDFDocument {
         return xObject;
     }
 
+    /**
+     * Add a Form XObject whose contents are finished to the PDF document.
+     * If a Form XObject with the same key already exists it will return the
+     * old {@link PDFFormXObject}. Otherwise, if an identical Form XObject was added under a
+     * different key, that one is returned, so the same content is only embedded once. The
+     * returned Form XObject must not be changed anymore.
+     *
+     * @param res the PDF resource context to add to, may be null
+     * @param cont the PDF Stream contents of the Form XObject, with all its data written
+     * @param formres a reference to the PDF Resources for the Form XObject data
+     * @param bbox the bounding box of the Form XObject
+     * @param matrix the matrix of the Form XObject, may be null for the identity matrix
+     * @param key the key for the object
+     * @return the PDF Form XObject that references the PDF data
+     */
+    public PDFFormXObject addFormXObject(PDFResourceContext res, PDFStream cont,
+            PDFReference formres, Rectangle2D bbox, AffineTransform matrix, String key) {
+        PDFFormXObject xObject = (PDFFormXObject)xObjectsMap.get(key);
+        if (xObject == null) {
+            PDFFormXObject form = new PDFFormXObject(++this.xObjectCount, cont, formres);
+            form.setBBox(bbox);
+            if (matrix != null) {
+                form.setMatrix(matrix);
+            }
+            // check if the same form was added under a different key
+            String digest = StreamContentDigest.digest(form, this);
+            if (digest != null) {
+                xObject = (PDFFormXObject)streamsByDigest.get(digest);
+            }
+            if (xObject == null) {
+                xObject = form;
+                registerObject(xObject);
+                this.resources.addXObject(xObject);
+                if (digest != null) {
+                    registerStreamDigest(xObject, digest);
+                }
+            }
+            this.xObjectsMap.put(key, xObject);
+        }
+        if (res != null) {
+            res.addXObject(xObject);
+        }
+        return xObject;
+    }
+
     /**
      * Get the root Outlines object. This method does not write
      * the outline to the PDF document, it simply creates a
@@ -986,12 +1173,39 @@ public class PDFDocument {
      */
     public void output(OutputStream stream) throws IOException {
         outputStarted = true;
+        StreamEncodingQueue queue = getStreamEncodingQueue();
         //Write out objects until the list is empty. This approach (used with a
         //LinkedList) allows for output() methods to create and register objects
         //on the fly even during serialization.
         while (this.objects.size() > 0) {
             PDFObject object = this.objects.remove(0);
-            streamIndirectObject(object, stream);
+            if (queue != null) {
+                queue.add(object);
+            } else {
+                streamIndirectObject(object, stream);
+            }
+        }
+        if (queue != null) {
+            queue.writeFinished(stream);
+        }
+    }
+
+    private StreamEncodingQueue getStreamEncodingQueue() {
+        if (streamEncodingQueue == null && compressionThreads > 0
+                && !isEncryptionActive() && !isLinearizationEnabled()) {
+            streamEncodingQueue = new StreamEncodingQueue(this, streamEncoderPool,
+                    compressionThreads);
+        }
+        return streamEncodingQueue;
+    }
+
+    /**
+     * Writes the objects still waiting for their streams to be encoded.
+     */
+    private void finishStreamEncoding(OutputStream stream) throws IOException {
+        if (streamEncodingQueue != null) {
+            streamEncodingQueue.finish(stream);
+            streamEncodingQueue = null;
         }
     }
 
@@ -1020,6 +1234,24 @@ public class PDFDocument {
         return len;
     }
 
+    /**
+     * Writes an object that may have been serialized beforehand.
+     * @param o the object
+     * @param serialized the object as serialized by {@link #outputIndirectObject}, or null
+     * @param stream the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void streamIndirectObject(PDFObject o, byte[] serialized, OutputStream stream)
+            throws IOException {
+        if (serialized == null) {
+            streamIndirectObject(o, stream);
+        } else {
+            recordObjectOffset(o);
+            stream.write(serialized);
+            this.position += serialized.length;
+        }
+    }
+
     private void streamIndirectObjects(Collection<? extends PDFObject> objects, OutputStream stream)
             throws IOException {
         for (PDFObject o : objects) {
@@ -1029,10 +1261,14 @@ public class PDFDocument {
 
     private void recordObjectOffset(PDFObject object) {
         int index = object.getObjectNumber().getNumber() - 1;
-        while (indirectObjectOffsets.size() <= index) {
-            indirectObjectOffsets.add(null);
+        if (indirectObjectOffsets instanceof ObjectOffsetList) {
+            ((ObjectOffsetList) indirectObjectOffsets).record(index, position);
+        } else {
+            while (indirectObjectOffsets.size() <= index) {
+                indirectObjectOffsets.add(null);
+            }
+            indirectObjectOffsets.set(index, position);
         }
-        indirectObjectOffsets.set(index, position);
     }
 
     /**
@@ -1095,6 +1331,7 @@ public class PDFDocument {
     public void outputTrailer(OutputStream stream) throws IOException {
         createDestinations();
         output(stream);
+        finishStreamEncoding(stream);
         outputTrailerObjectsAndXref(stream);
     }
 
@@ -1229,4 +1466,72 @@ public class PDFDocument {
         linearizationEnabled = b;
     }
 
+    /**
+     * Indicates whether strict streaming is enabled, see {@link #setStreamingEnabled(boolean)}.
+     * @return true if strict streaming is enabled
+     */
+    public boolean isStreamingEnabled() {
+        return streamingEnabled;
+    }
+
+    /**
+     * Enables strict streaming. In this mode the document doesn't keep references to page
+     * objects and link annotations once they have been written, so they can be garbage collected
+     * as soon as the page is finished. Links are then not shared between pages. Strict
+     * streaming has no effect if linearization is enabled since that needs all pages at the end.
+     * @param streamingEnabled true to enable strict streaming
+     */
+    public void setStreamingEnabled(boolean streamingEnabled) {
+        this.streamingEnabled = streamingEnabled;
+    }
+
+    /**
+     * Indicates whether objects are released after they have been written.
+     * @return true if strict streaming is enabled and not overridden by linearization
+     */
+    boolean isStreaming() {
+        return streamingEnabled && !linearizationEnabled;
+    }
+
+    /**
+     * Keeps a copy of the data of an image while its content digest is computed, so a small
+     * image is only read once. The data of a larger image is dropped and read again on output.
+     */
+    private static final class ImageDataBuffer extends ByteArrayOutputStream {
+
+        private final int limit;
+
+        private boolean overflow;
+
+        ImageDataBuffer(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) {
+            if (fits(1)) {
+                super.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (fits(len)) {
+                super.write(b, off, len);
+            }
+        }
+
+        private boolean fits(int len) {
+            if (!overflow && count + len > limit) {
+                overflow = true;
+                buf = new byte[0];
+                count = 0;
+            }
+            return !overflow;
+        }
+
+        byte[] getData() {
+            return overflow ? null : toByteArray();
+        }
+    }
 }
@@ -20,6 +20,7 @@
 package org.apache.fop.pdf;
 
 // Java
+import java.awt.color.ICC_Profile;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.ByteArrayInputStream;
@@ -1361,14 +1362,10 @@ public class PDFFactory {
 
         InputStream in = null;
         try {
-            in = font.getInputStream();
-            if (in == null) {
-                return null;
-            }
             AbstractPDFStream embeddedFont = null;
             if (desc.getFontType() == FontType.TYPE0) {
                 MultiByteFont mbfont = (MultiByteFont) font;
-                FontFileReader reader = new FontFileReader(in);
+                FontFileReader reader = font.getFontFileReader();
                 byte[] fontBytes;
                 String header = OFFontLoader.readHeader(reader);
                 boolean isCFF = mbfont.isOTFFile();
@@ -1384,6 +1381,10 @@ public class PDFFactory {
                 }
                 embeddedFont = getFontStream(font, fontBytes, isCFF);
             } else if (desc.getFontType() == FontType.TYPE1) {
+                in = font.getInputStream();
+                if (in == null) {
+                    return null;
+                }
                 if (font.getEmbeddingMode() != EmbeddingMode.SUBSET) {
                     embeddedFont = fullyEmbedType1Font(in);
                 } else {
@@ -1399,22 +1400,34 @@ public class PDFFactory {
                 }
             } else if (desc.getFontType() == FontType.TYPE1C) {
                 if (font.getEmbeddingMode() == EmbeddingMode.SUBSET) {
-                    FontFileReader reader = new FontFileReader(in);
+                    FontFileReader reader = font.getFontFileReader();
                     String header = OFFontLoader.readHeader(reader);
                     byte[] fontBytes = getFontSubsetBytes(reader, (MultiByteFont) font, header, fontPrefix, desc, true);
                     embeddedFont = getFontStream(font, fontBytes, true);
                 } else {
+                    in = font.getInputStream();
+                    if (in == null) {
+                        return null;
+                    }
                     byte[] file = IOUtils.toByteArray(in);
                     PDFCFFStream embeddedFont2 = new PDFCFFStream("Type1C");
                     embeddedFont2.setData(file);
                     return embeddedFont2;
                 }
             } else if (desc.getFontType() == FontType.CIDTYPE0) {
+                in = font.getInputStream();
+                if (in == null) {
+                    return null;
+                }
                 byte[] file = IOUtils.toByteArray(in);
                 PDFCFFStream embeddedFont2 = new PDFCFFStream("CIDFontType0C");
                 embeddedFont2.setData(file);
                 return embeddedFont2;
             } else {
+                in = font.getInputStream();
+                if (in == null) {
+                    return null;
+                }
                 byte[] file = IOUtils.toByteArray(in);
                 embeddedFont = new PDFTTFStream(file.length);
                 ((PDFTTFStream) embeddedFont).setData(file, file.length);
@@ -1507,6 +1520,7 @@ public class PDFFactory {
         obj.getFilterList().addDefaultFilters(
                 getDocument().getFilterMap(),
                 type);
+        obj.getFilterList().setCompressionLevel(getDocument().getCompressionLevel(type));
 
         if (add) {
             getDocument().registerObject(obj);
@@ -1529,6 +1543,24 @@ public class PDFFactory {
         return iccStream;
     }
 
+    /**
+     * Returns the PDFICCStream for an ICC profile, creating it unless the same profile
+     * has been embedded already.
+     * @param profile the ICC profile
+     * @param alt the alternate color space, may be null
+     * @return the PDF ICC stream object
+     */
+    public PDFICCStream makePDFICCStream(ICC_Profile profile, PDFDeviceColorSpace alt) {
+        String digest = StreamContentDigest.digest(profile, alt);
+        PDFICCStream iccStream = (PDFICCStream)getDocument().getStreamByDigest(digest);
+        if (iccStream == null) {
+            iccStream = makePDFICCStream();
+            iccStream.setColorSpace(profile, alt);
+            getDocument().registerStreamDigest(iccStream, digest);
+        }
+        return iccStream;
+    }
+
     /* ========================= misc. objects ============================= */
 
     /**
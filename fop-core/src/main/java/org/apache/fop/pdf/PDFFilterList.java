@@ -143,6 +143,20 @@ public class PDFFilterList {
         }
     }
 
+    /**
+     * Sets the compression level of the flate filters in this list that haven't been
+     * applied to the data yet.
+     * @param compressionLevel the compression level (0-9), or
+     * {@link java.util.zip.Deflater#DEFAULT_COMPRESSION}
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        for (PDFFilter filter : filters) {
+            if (filter instanceof FlateFilter && !filter.isApplied()) {
+                ((FlateFilter) filter).setCompressionLevel(compressionLevel);
+            }
+        }
+    }
+
     /**
      * Checks the filter list for the filter and adds it in the correct
      * place if necessary.
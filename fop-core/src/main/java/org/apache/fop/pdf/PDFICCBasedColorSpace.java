@@ -46,7 +46,7 @@ public class PDFICCBasedColorSpace extends PDFObject implements PDFColorSpace {
     public PDFICCBasedColorSpace(String explicitName, PDFICCStream iccStream) {
         this.explicitName = explicitName;
         this.iccStream = iccStream;
-        this.numComponents = iccStream.getICCProfile().getNumComponents();
+        this.numComponents = iccStream.getNumComponents();
     }
 
     /**
@@ -137,7 +137,6 @@ public class PDFICCBasedColorSpace extends PDFObject implements PDFColorSpace {
      */
     public static PDFICCStream setupsRGBColorProfile(PDFDocument pdfDoc) {
         ICC_Profile profile;
-        PDFICCStream sRGBProfile = pdfDoc.getFactory().makePDFICCStream();
         InputStream in = PDFDocument.class.getResourceAsStream("sRGB.icc");
         if (in != null) {
             try {
@@ -152,8 +151,7 @@ public class PDFICCBasedColorSpace extends PDFObject implements PDFColorSpace {
             // Fallback: Use the sRGB profile from the JRE (about 140KB)
             profile = ColorProfileUtil.getICC_Profile(ColorSpace.CS_sRGB);
         }
-        sRGBProfile.setColorSpace(profile, null);
-        return sRGBProfile;
+        return pdfDoc.getFactory().makePDFICCStream(profile, null);
     }
 
     @Override
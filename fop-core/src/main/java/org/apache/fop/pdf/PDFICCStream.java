@@ -23,6 +23,8 @@ import java.awt.color.ICC_Profile;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import org.apache.xmlgraphics.java2d.color.profile.ColorProfileUtil;
+
 /**
  * Special PDFStream for ICC profiles (color profiles).
  */
@@ -30,6 +32,8 @@ public class PDFICCStream extends PDFStream {
 
     private ICC_Profile cp;
     private PDFDeviceColorSpace pdfColorSpace;
+    private int numComponents;
+    private String description;
 
     /**
      * @see org.apache.fop.pdf.PDFObject#PDFObject()
@@ -47,6 +51,8 @@ public class PDFICCStream extends PDFStream {
     public void setColorSpace(ICC_Profile icc, PDFDeviceColorSpace alt) {
         this.cp = icc;
         pdfColorSpace = alt;
+        numComponents = icc.getNumComponents();
+        description = ColorProfileUtil.getICCProfileDescription(icc);
     }
 
     /**
@@ -58,6 +64,25 @@ public class PDFICCStream extends PDFStream {
         return this.cp;
     }
 
+    /**
+     * Returns the number of color components of the ICC profile. Unlike the profile itself,
+     * it is still available once the stream has been written, for color spaces sharing the
+     * stream that are created later on.
+     * @return the number of color components
+     */
+    public int getNumComponents() {
+        return this.numComponents;
+    }
+
+    /**
+     * Returns the description of the ICC profile, which is still available once the stream
+     * has been written.
+     * @return the profile description
+     */
+    public String getProfileDescription() {
+        return this.description;
+    }
+
     /**
      * overload the base object method so we don't have to copy
      * byte arrays around so much
@@ -80,7 +105,7 @@ public class PDFICCStream extends PDFStream {
     /** {@inheritDoc} */
     @Override
     protected void populateStreamDict(Object lengthEntry) {
-        put("N", cp.getNumComponents());
+        put("N", numComponents);
         if (pdfColorSpace != null) {
             put("Alternate", new PDFName(pdfColorSpace.getName()));
         }
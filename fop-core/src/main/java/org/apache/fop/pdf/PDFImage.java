@@ -159,5 +159,13 @@ public interface PDFImage {
      */
     boolean multipleFiltersAllowed();
 
+    /**
+     * Indicates whether {@link #outputContents(OutputStream)} can be called more than once.
+     * Only then the document identifies the image by its content, so the same image added
+     * under different keys is embedded once.
+     * @return true if the image data can be output repeatedly
+     */
+    boolean isContentRepeatable();
+
 }
 
@@ -43,6 +43,9 @@ public class PDFImageXObject extends PDFXObject {
 
     private PDFImage pdfimage;
 
+    /** The image data read in advance, or null if it is read from the image on output */
+    private byte[] imageData;
+
     /**
      * create an XObject with the given number and name and load the
      * image in the object
@@ -66,9 +69,13 @@ public class PDFImageXObject extends PDFXObject {
      */
     public int output(OutputStream stream) throws IOException {
         if (getDocument().getProfile().isPDFVTActive()) {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            pdfimage.outputContents(baos);
-            put("GTS_XID", "uuid:" + UUID.nameUUIDFromBytes(baos.toByteArray()));
+            byte[] data = imageData;
+            if (data == null) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                pdfimage.outputContents(baos);
+                data = baos.toByteArray();
+            }
+            put("GTS_XID", "uuid:" + UUID.nameUUIDFromBytes(data));
         }
         int length = super.output(stream);
 
@@ -76,9 +83,18 @@ public class PDFImageXObject extends PDFXObject {
         // this object is retained as a reference to inserting
         // the same image but the image data is no longer needed
         pdfimage = null;
+        imageData = null;
         return length;
     }
 
+    /**
+     * Sets the image data, if it has been read already, so the image isn't asked for it again.
+     * @param data the data as written by {@link PDFImage#outputContents(OutputStream)}
+     */
+    void setImageData(byte[] data) {
+        this.imageData = data;
+    }
+
     /** {@inheritDoc} */
     protected void populateStreamDict(Object lengthEntry) {
         super.populateStreamDict(lengthEntry);
@@ -150,12 +166,16 @@ public class PDFImageXObject extends PDFXObject {
 
     /** {@inheritDoc} */
     protected void outputRawStreamData(OutputStream out) throws IOException {
-        pdfimage.outputContents(out);
+        if (imageData != null) {
+            out.write(imageData);
+        } else {
+            pdfimage.outputContents(out);
+        }
     }
 
     /** {@inheritDoc} */
     protected int getSizeHint() throws IOException {
-        return 0;
+        return imageData != null ? imageData.length : 0;
     }
 
     /** {@inheritDoc} */
@@ -179,6 +199,12 @@ public class PDFImageXObject extends PDFXObject {
         return pdfimage.multipleFiltersAllowed();
     }
 
+    /** {@inheritDoc} */
+    protected boolean isBackgroundEncodingSupported() {
+        //PDF/VT reads the image data again on output to identify the image
+        return imageData != null || !getDocumentSafely().getProfile().isPDFVTActive();
+    }
+
     @Override
     public void getChildren(Set<PDFObject> children) {
         super.getChildren(children);
@@ -83,6 +83,12 @@ public class PDFMetadata extends PDFStream {
         return this.xmpMetadata;
     }
 
+    /** {@inheritDoc} */
+    protected boolean isBackgroundEncodingSupported() {
+        //the metadata may still change until the stream is output
+        return false;
+    }
+
     /**
      * overload the base object method so we don't have to copy
      * byte arrays around so much
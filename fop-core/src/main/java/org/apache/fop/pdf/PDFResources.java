@@ -26,8 +26,6 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.xmlgraphics.java2d.color.profile.ColorProfileUtil;
-
 import org.apache.fop.fonts.FontDescriptor;
 import org.apache.fop.fonts.FontInfo;
 import org.apache.fop.fonts.Typeface;
@@ -157,8 +155,7 @@ public class PDFResources extends PDFDictionary {
         this.colorSpaces.put(new LazyName(colorSpace), colorSpace);
         if (colorSpace instanceof PDFICCBasedColorSpace) {
             PDFICCBasedColorSpace icc = (PDFICCBasedColorSpace)colorSpace;
-            String desc = ColorProfileUtil.getICCProfileDescription(
-                    icc.getICCStream().getICCProfile());
+            String desc = icc.getICCStream().getProfileDescription();
             this.iccColorSpaces.put(desc, icc);
         }
     }
@@ -22,7 +22,6 @@ package org.apache.fop.pdf;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -42,8 +41,8 @@ public class PDFStream extends AbstractPDFStream {
      */
     protected StreamCache data;
 
+    private transient PDFContentWriter contentWriter;
     private transient Writer streamWriter;
-    private transient char[] charBuffer;
 
     /**
      * Create an empty stream object
@@ -70,13 +69,35 @@ public class PDFStream extends AbstractPDFStream {
     private void setUp() {
         try {
             data = StreamCacheFactory.getInstance().createStreamCache();
-            this.streamWriter = new OutputStreamWriter(
-                    getBufferOutputStream(), PDFDocument.ENCODING);
-            //Buffer to minimize calls to the converter
-            this.streamWriter = new java.io.BufferedWriter(this.streamWriter);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        //the stream cache creates a new output stream after it has been cleared
+        this.contentWriter = new PDFContentWriter(new OutputStream() {
+            public void write(int b) throws IOException {
+                data.getOutputStream().write(b);
+            }
+            public void write(byte[] b, int off, int len) throws IOException {
+                data.getOutputStream().write(b, off, len);
+            }
+        });
+        this.streamWriter = new Writer() {
+            public void write(char[] cbuf, int off, int len) {
+                contentWriter.add(java.nio.CharBuffer.wrap(cbuf, off, len));
+            }
+            public void write(String str, int off, int len) {
+                contentWriter.add(str.subSequence(off, off + len));
+            }
+            public void write(int c) {
+                contentWriter.add((char) c);
+            }
+            public void flush() throws IOException {
+                contentWriter.flush();
+            }
+            public void close() throws IOException {
+                flush();
+            }
+        };
     }
 
     /**
@@ -85,12 +106,7 @@ public class PDFStream extends AbstractPDFStream {
      * @param s the string of PDF to add
      */
     public void add(String s) {
-        try {
-            this.streamWriter.write(s);
-        } catch (IOException ex) {
-            //TODO throw the exception and catch it elsewhere
-            ex.printStackTrace();
-        }
+        this.contentWriter.add(s);
     }
 
     /**
@@ -99,30 +115,21 @@ public class PDFStream extends AbstractPDFStream {
      * @param sb the string buffer of PDF to add
      */
     public void add(StringBuffer sb) {
-        try {
-            int nHave = sb.length();
-            if (charBuffer == null) {
-                charBuffer = new char [ nHave * 2 ];
-            } else {
-                int nAvail = charBuffer.length;
-                if (nAvail < nHave) {
-                    int nAlloc = nAvail;
-                    while (nAlloc < nHave) {
-                        nAlloc *= 2;
-                    }
-                    charBuffer = new char [ nAlloc ];
-                }
-            }
-            sb.getChars(0, nHave, charBuffer, 0);
-            this.streamWriter.write(charBuffer, 0, nHave);
-        } catch (IOException ex) {
-            //TODO throw the exception and catch it elsewhere
-            ex.printStackTrace();
-        }
+        this.contentWriter.add(sb);
+    }
+
+    /**
+     * Returns the writer that adds operators and operands to the content of this stream as
+     * bytes. Content written through it, through {@link #add(String)} and through
+     * {@link #getBufferWriter()} ends up in the order it was written.
+     * @return the content writer
+     */
+    public PDFContentWriter getContentWriter() {
+        return this.contentWriter;
     }
 
     private void flush() throws IOException {
-        this.streamWriter.flush();
+        this.contentWriter.flush();
     }
 
     /**
@@ -171,6 +178,11 @@ public class PDFStream extends AbstractPDFStream {
         }
     }
 
+    /** {@inheritDoc} */
+    protected boolean isBackgroundEncodingSupported() {
+        return true;
+    }
+
     /** {@inheritDoc} */
     protected int getSizeHint() throws IOException {
         flush();
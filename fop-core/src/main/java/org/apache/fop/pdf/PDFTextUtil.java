@@ -21,6 +21,8 @@ package org.apache.fop.pdf;
 
 import java.awt.geom.AffineTransform;
 
+import org.apache.fop.util.CharUtilities;
+
 /**
  * Utility class for generating PDF text objects. It needs to be subclassed to add writing
  * functionality (see {@link #write(String)}).
@@ -52,7 +54,9 @@ public abstract class PDFTextUtil {
     private String endText;
     private boolean useMultiByte;
     private boolean useCid;
-    private StringBuffer bufTJ;
+    private PDFContentWriter bufTJ;
+    private final PDFContentWriter buf = new PDFContentWriter();
+    private final double[] matrix = new double[6];
     private int textRenderingMode = TR_FILL;
 
     private String currentFontName;
@@ -77,44 +81,57 @@ public abstract class PDFTextUtil {
      */
     protected abstract void write(StringBuffer code);
 
-    private void writeAffineTransform(AffineTransform at, StringBuffer sb) {
-        double[] lt = new double[6];
-        at.getMatrix(lt);
-        PDFNumber.doubleOut(lt[0], DEC, sb);
-        sb.append(' ');
-        PDFNumber.doubleOut(lt[1], DEC, sb);
-        sb.append(' ');
-        PDFNumber.doubleOut(lt[2], DEC, sb);
-        sb.append(' ');
-        PDFNumber.doubleOut(lt[3], DEC, sb);
-        sb.append(' ');
-        PDFNumber.doubleOut(lt[4], DEC, sb);
-        sb.append(' ');
-        PDFNumber.doubleOut(lt[5], DEC, sb);
+    /**
+     * Writes PDF code. The default implementation passes the code on to
+     * {@link #write(String)}; subclasses writing to a {@link PDFStream} can copy the bytes
+     * instead.
+     * @param code the PDF code to write
+     */
+    protected void write(PDFContentWriter code) {
+        write(code.toString());
+    }
+
+    private void writeBuffer() {
+        write(buf);
+        buf.reset();
+    }
+
+    private void writeAffineTransform(AffineTransform at, PDFContentWriter w) {
+        at.getMatrix(matrix);
+        w.addNumber(matrix[0], DEC).add(' ');
+        w.addNumber(matrix[1], DEC).add(' ');
+        w.addNumber(matrix[2], DEC).add(' ');
+        w.addNumber(matrix[3], DEC).add(' ');
+        w.addNumber(matrix[4], DEC).add(' ');
+        w.addNumber(matrix[5], DEC);
     }
 
-    private static void writeChar(int codePoint, StringBuffer sb, boolean multibyte, boolean cid) {
+    private static void writeChar(int codePoint, PDFContentWriter w, boolean multibyte,
+            boolean cid) {
         if (!multibyte) {
             if (cid || codePoint < 32 || codePoint > 127) {
-                sb.append("\\").append(Integer.toOctalString(codePoint));
+                w.add('\\').addOctal(codePoint);
             } else {
                 switch (codePoint) {
                 case '(':
                 case ')':
                 case '\\':
-                    sb.append('\\');
+                    w.add('\\');
                     break;
                 default:
                 }
-                sb.appendCodePoint(codePoint);
+                w.add((char) codePoint);
             }
+        } else if (CharUtilities.isBmpCodePoint(codePoint)) {
+            //same as PDFText.toUnicodeHex()
+            w.addHex(codePoint, 4);
         } else {
-            PDFText.toUnicodeHex(codePoint, sb);
+            w.addHex(codePoint, 6);
         }
     }
 
-    private void writeChar(int codePoint, StringBuffer sb) {
-        writeChar(codePoint, sb, useMultiByte, useCid);
+    private void writeChar(int codePoint, PDFContentWriter w) {
+        writeChar(codePoint, w, useMultiByte, useCid);
     }
 
     private void checkInTextObject() {
@@ -169,10 +186,9 @@ public abstract class PDFTextUtil {
     public void concatMatrix(AffineTransform at) {
         if (!at.isIdentity()) {
             writeTJ();
-            StringBuffer sb = new StringBuffer();
-            writeAffineTransform(at, sb);
-            sb.append(" cm\n");
-            write(sb);
+            writeAffineTransform(at, buf);
+            buf.add(" cm\n");
+            writeBuffer();
         }
     }
 
@@ -183,13 +199,9 @@ public abstract class PDFTextUtil {
      */
     public void writeTf(String fontName, double fontSize) {
         checkInTextObject();
-        StringBuffer sb = new StringBuffer();
-        sb.append('/');
-        sb.append(fontName);
-        sb.append(' ');
-        PDFNumber.doubleOut(fontSize, 6, sb);
-        sb.append(" Tf\n");
-        write(sb);
+        buf.add('/').add(fontName).add(' ');
+        buf.addNumber(fontSize, 6).add(" Tf\n");
+        writeBuffer();
         this.startText = useMultiByte ? "<" : "(";
         this.endText = useMultiByte ? ">" : ")";
     }
@@ -252,10 +264,9 @@ public abstract class PDFTextUtil {
      * @param localTransform the new text transformation matrix
      */
     public void writeTextMatrix(AffineTransform localTransform) {
-        StringBuffer sb = new StringBuffer();
-        writeAffineTransform(localTransform, sb);
-        sb.append(" Tm ");
-        write(sb);
+        writeAffineTransform(localTransform, buf);
+        buf.add(" Tm ");
+        writeBuffer();
     }
 
     /**
@@ -272,11 +283,11 @@ public abstract class PDFTextUtil {
      */
     public void writeTJMappedCodePoint(int codePoint) {
         if (bufTJ == null) {
-            bufTJ = new StringBuffer();
+            bufTJ = new PDFContentWriter();
         }
-        if (bufTJ.length() == 0) {
-            bufTJ.append('[');
-            bufTJ.append(startText);
+        if (bufTJ.size() == 0) {
+            bufTJ.add('[');
+            bufTJ.add(startText);
         }
         writeChar(codePoint, bufTJ);
     }
@@ -300,17 +311,17 @@ public abstract class PDFTextUtil {
      */
     public void adjustGlyphTJ(double adjust) {
         if (bufTJ == null) {
-            bufTJ = new StringBuffer();
+            bufTJ = new PDFContentWriter();
         }
-        if (bufTJ.length() == 0) {
-            bufTJ.append('[');
+        if (bufTJ.size() == 0) {
+            bufTJ.add('[');
         } else {
-            bufTJ.append(endText);
-            bufTJ.append(' ');
+            bufTJ.add(endText);
+            bufTJ.add(' ');
         }
-        PDFNumber.doubleOut(adjust, DEC - 4, bufTJ);
-        bufTJ.append(' ');
-        bufTJ.append(startText);
+        bufTJ.addNumber(adjust, DEC - 4);
+        bufTJ.add(' ');
+        bufTJ.add(startText);
     }
 
     /**
@@ -319,15 +330,15 @@ public abstract class PDFTextUtil {
      */
     public void writeTJ() {
         if (isInString()) {
-            bufTJ.append(endText);
-            bufTJ.append("] TJ\n");
+            bufTJ.add(endText);
+            bufTJ.add("] TJ\n");
             write(bufTJ);
-            bufTJ.setLength(0);
+            bufTJ.reset();
         }
     }
 
     private boolean isInString() {
-        return bufTJ != null && bufTJ.length() > 0;
+        return bufTJ != null && bufTJ.size() > 0;
     }
 
     /**
@@ -336,12 +347,9 @@ public abstract class PDFTextUtil {
      * @param y coordinate
      */
     public void writeTd(double x, double y) {
-        StringBuffer sb = new StringBuffer();
-        PDFNumber.doubleOut(x, DEC, sb);
-        sb.append(' ');
-        PDFNumber.doubleOut(y, DEC, sb);
-        sb.append(" Td\n");
-        write(sb);
+        buf.addNumber(x, DEC).add(' ');
+        buf.addNumber(y, DEC).add(" Td\n");
+        writeBuffer();
     }
 
     /**
@@ -349,12 +357,11 @@ public abstract class PDFTextUtil {
      * @param ch character code to write
      */
     public void writeTj(char ch, boolean multibyte, boolean cid) {
-        StringBuffer sb = new StringBuffer();
-        sb.append(startText);
-        writeChar(ch, sb, multibyte, cid);
-        sb.append(endText);
-        sb.append(" Tj\n");
-        write(sb);
+        buf.add(startText);
+        writeChar(ch, buf, multibyte, cid);
+        buf.add(endText);
+        buf.add(" Tj\n");
+        writeBuffer();
     }
 
 }
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.awt.color.ICC_Profile;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.io.output.TeeOutputStream;
+
+/**
+ * Computes the digests that identify streams by their content, so a {@link PDFDocument} can
+ * embed an image or an ICC profile once, however many times and under whatever keys it is
+ * added. A digest covers the raw stream data and everything else that ends up in the stream
+ * dictionary. The streams an image refers to (its ICC profile and soft mask) are covered by
+ * their own digests if they are shared by content as well, and by their object numbers
+ * otherwise.
+ */
+final class StreamContentDigest {
+
+    private final MessageDigest digest;
+
+    private final DataOutputStream out;
+
+    private StreamContentDigest(String type) throws IOException {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        out = new DataOutputStream(new DigestOutputStream(new NullOutputStream(), digest));
+        out.writeUTF(type);
+    }
+
+    /**
+     * Computes the digest of an image that has been set up, reading its data.
+     * @param img the image
+     * @param doc the document the image is added to
+     * @param copy the stream to copy the image data to while it is digested
+     * @return the digest, or null if the image cannot be identified by its content, in which
+     *         case its data isn't read
+     * @throws IOException if an I/O error occurs while reading the image data
+     */
+    static String digest(PDFImage img, PDFDocument doc, OutputStream copy) throws IOException {
+        StreamContentDigest d = new StreamContentDigest("image");
+        d.out.writeUTF(img.getClass().getName());
+        d.out.writeInt(img.getWidth());
+        d.out.writeInt(img.getHeight());
+        d.out.writeInt(img.getBitsPerComponent());
+        PDFDeviceColorSpace colorSpace = img.getColorSpace();
+        d.writeString(colorSpace != null ? colorSpace.getName() : null);
+        d.out.writeBoolean(img.isPS());
+        d.out.writeBoolean(img.isInverted());
+        d.out.writeBoolean(img.isTransparent());
+        if (img.isTransparent()) {
+            PDFColor transparentColor = img.getTransparentColor();
+            d.out.writeInt(transparentColor.red255());
+            d.out.writeInt(transparentColor.green255());
+            d.out.writeInt(transparentColor.blue255());
+        }
+        d.writeString(img.getMask());
+        d.writeString(img.getFilterHint());
+        d.out.writeBoolean(img.multipleFiltersAllowed());
+        PDFFilter filter = img.getPDFFilter();
+        d.writeString(filter != null ? filter.getName() : null);
+        PDFDictionary dict = new PDFDictionary();
+        img.populateXObjectDictionary(dict);
+        if (!d.writeValue(filter != null ? filter.getDecodeParms() : null, doc)
+                || !d.writeValue(img.getICCStream(), doc)
+                || !d.writeValue(img.getSoftMaskReference(), doc)
+                || !d.writeValue(dict, doc)) {
+            return null;
+        }
+        d.out.flush();
+        img.outputContents(new TeeOutputStream(d.out, copy));
+        return d.finish();
+    }
+
+    /**
+     * Computes the digest of a Form XObject whose content is complete.
+     * @param form the Form XObject
+     * @param doc the document the Form XObject is added to
+     * @return the digest, or null if the Form XObject cannot be identified by its content
+     */
+    static String digest(PDFFormXObject form, PDFDocument doc) {
+        try {
+            StreamContentDigest d = new StreamContentDigest("form");
+            //the name only tells the forms apart
+            if (!d.writeDictionary(form.getDictionary(), "Name", doc)) {
+                return null;
+            }
+            form.outputRawStreamData(d.out);
+            return d.finish();
+        } catch (IOException e) {
+            //not possible when writing to a digest
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Computes the digest of an ICC profile stream.
+     * @param profile the ICC profile
+     * @param alt the alternate color space, may be null
+     * @return the digest
+     */
+    static String digest(ICC_Profile profile, PDFDeviceColorSpace alt) {
+        try {
+            StreamContentDigest d = new StreamContentDigest("icc");
+            d.writeString(alt != null ? alt.getName() : null);
+            d.out.write(profile.getData());
+            return d.finish();
+        } catch (IOException e) {
+            //not possible when writing to a digest
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    /**
+     * Writes a direct object, or an indirect object by its content digest.
+     * @return false if the value cannot be identified by its content
+     */
+    private boolean writeValue(Object value, PDFDocument doc) throws IOException {
+        if (value instanceof PDFObject && ((PDFObject) value).hasObjectNumber()) {
+            value = ((PDFObject) value).makeReference();
+        }
+        if (value instanceof PDFReference) {
+            //objects shared by content are identified by their digest, others by their number
+            PDFObject object = ((PDFReference) value).getObject();
+            String objectDigest = object != null ? doc.getStreamDigest(object) : null;
+            if (objectDigest != null) {
+                out.writeByte('R');
+                out.writeUTF(objectDigest);
+            } else {
+                out.writeByte('I');
+                out.writeUTF(value.toString());
+            }
+        } else if (value instanceof PDFDictionary) {
+            return writeDictionary((PDFDictionary) value, null, doc);
+        } else if (value instanceof PDFArray) {
+            PDFArray array = (PDFArray) value;
+            out.writeByte('A');
+            out.writeInt(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                if (!writeValue(array.get(i), doc)) {
+                    return false;
+                }
+            }
+        } else if (value instanceof byte[]) {
+            byte[] data = (byte[]) value;
+            out.writeByte('B');
+            out.writeInt(data.length);
+            out.write(data);
+        } else if (value instanceof PDFName) {
+            out.writeByte('N');
+            out.writeUTF(((PDFName) value).getName());
+        } else if (value instanceof PDFText) {
+            out.writeByte('T');
+            writeString(((PDFText) value).getText());
+        } else if (value instanceof String || value instanceof Number
+                || value instanceof Boolean) {
+            out.writeByte('V');
+            out.writeUTF(value.getClass().getName());
+            out.writeUTF(value.toString());
+        } else if (value == null) {
+            out.writeByte('0');
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private boolean writeDictionary(PDFDictionary dict, String skippedKey, PDFDocument doc)
+            throws IOException {
+        out.writeByte('D');
+        out.writeInt(dict.keySet().size() - (dict.keySet().contains(skippedKey) ? 1 : 0));
+        for (String key : dict.keySet()) {
+            if (!key.equals(skippedKey)) {
+                out.writeUTF(key);
+                if (!writeValue(dict.get(key), doc)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private String finish() throws IOException {
+        out.flush();
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
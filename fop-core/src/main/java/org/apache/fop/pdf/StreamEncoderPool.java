@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The worker threads encoding the streams of PDF documents in the background (see
+ * {@link PDFDocument#setCompressionThreads(int)}). A {@link org.apache.fop.apps.FopFactory}
+ * shares one pool between all its documents, so rendering many documents at once doesn't start
+ * threads for each of them. The pool has as many threads as the largest number of compression
+ * threads a document asked for. Idle threads end after a few seconds.
+ */
+public final class StreamEncoderPool {
+
+    /** The time after which idle worker threads end */
+    private static final long KEEP_ALIVE_SECONDS = 5;
+
+    private final ThreadPoolExecutor executor;
+
+    /** Creates a pool. No thread is started until a stream is encoded. */
+    public StreamEncoderPool() {
+        executor = new ThreadPoolExecutor(1, 1,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "FOP PDF stream encoder");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        //so an abandoned pool doesn't leave threads behind
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the executor of this pool, growing the pool to the given number of threads.
+     * @param threads the number of threads the caller wants to encode streams with
+     * @return the executor
+     */
+    synchronized Executor getExecutor(int threads) {
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        }
+        return executor;
+    }
+
+    /**
+     * Returns the number of threads of this pool.
+     * @return the number of threads
+     */
+    synchronized int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /** Ends the worker threads once the streams already submitted are encoded. */
+    void shutdown() {
+        executor.shutdown();
+    }
+}
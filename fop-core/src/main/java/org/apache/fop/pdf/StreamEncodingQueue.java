@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Queues the objects output by a {@link PDFDocument} so the data of streams (page contents,
+ * images, fonts) is encoded, which mostly means compressed, on a pool of worker threads
+ * while the document is still being built. Objects are written in the order they were
+ * queued, and everything that may assign object numbers or depend on the state of the
+ * document still happens when an object is queued, so the output is the same as if the
+ * objects were written right away.
+ */
+final class StreamEncodingQueue {
+
+    private final PDFDocument document;
+
+    private final StreamEncoderPool pool;
+
+    /** Whether the pool belongs to this queue, which then shuts it down when finished */
+    private final boolean privatePool;
+
+    private final Executor executor;
+
+    /** The number of streams that may be encoding before the queue waits for the oldest */
+    private final int maxPendingStreams;
+
+    private final LinkedList<Entry> entries = new LinkedList<Entry>();
+
+    /** The length objects of the streams being encoded, which can only be written after them */
+    private final Set<PDFObject> pendingLengths
+            = Collections.newSetFromMap(new IdentityHashMap<PDFObject, Boolean>());
+
+    private int pendingStreams;
+
+    /**
+     * Creates a queue.
+     * @param document the document whose objects are queued
+     * @param pool the worker threads, or null to start threads for this queue only
+     * @param threads the number of worker threads
+     */
+    StreamEncodingQueue(PDFDocument document, StreamEncoderPool pool, int threads) {
+        this.document = document;
+        this.privatePool = pool == null;
+        this.pool = privatePool ? new StreamEncoderPool() : pool;
+        this.maxPendingStreams = threads * 4;
+        this.executor = this.pool.getExecutor(threads);
+    }
+
+    /**
+     * Adds an object to the queue. Streams start encoding; other objects are serialized
+     * right away.
+     * @param object the object to output
+     * @throws IOException if an I/O error occurs
+     */
+    void add(PDFObject object) throws IOException {
+        if (object instanceof AbstractPDFStream
+                && ((AbstractPDFStream) object).isBackgroundEncodingSupported()) {
+            PDFNumber length = ((AbstractPDFStream) object).encodeInBackground(executor);
+            if (length != null) {
+                pendingLengths.add(length);
+            }
+            entries.add(new Entry(object, null, true));
+            pendingStreams++;
+        } else if (pendingLengths.remove(object)) {
+            //the length is known once the stream has been written
+            entries.add(new Entry(object, null, false));
+        } else {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            PDFDocument.outputIndirectObject(object, out);
+            entries.add(new Entry(object, out.toByteArray(), false));
+        }
+    }
+
+    /**
+     * Writes the queued objects up to the first stream that is still being encoded. If too
+     * many streams are being encoded, this waits for the oldest ones.
+     * @param stream the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void writeFinished(OutputStream stream) throws IOException {
+        while (!entries.isEmpty()) {
+            Entry entry = entries.getFirst();
+            if (entry.stream && pendingStreams <= maxPendingStreams
+                    && !((AbstractPDFStream) entry.object).isBackgroundEncodingDone()) {
+                break;
+            }
+            write(entries.removeFirst(), stream);
+        }
+    }
+
+    /**
+     * Writes all queued objects, waiting for the streams being encoded, and ends the
+     * worker threads if they aren't shared.
+     * @param stream the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void finish(OutputStream stream) throws IOException {
+        try {
+            while (!entries.isEmpty()) {
+                write(entries.removeFirst(), stream);
+            }
+        } finally {
+            if (privatePool) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private void write(Entry entry, OutputStream stream) throws IOException {
+        if (entry.stream) {
+            pendingStreams--;
+        }
+        document.streamIndirectObject(entry.object, entry.data, stream);
+    }
+
+    private static final class Entry {
+
+        private final PDFObject object;
+
+        /** the serialized object, or null if it is serialized when it is written */
+        private final byte[] data;
+
+        private final boolean stream;
+
+        Entry(PDFObject object, byte[] data, boolean stream) {
+            this.object = object;
+            this.data = data;
+            this.stream = stream;
+        }
+    }
+}
@@ -76,10 +76,11 @@ import org.apache.fop.render.ImageHandlerUtil;
 import org.apache.fop.render.RenderingContext;
 import org.apache.fop.render.intermediate.AbstractIFPainter;
 import org.apache.fop.render.intermediate.BorderPainter;
+import org.apache.fop.render.intermediate.GlyphRun;
 import org.apache.fop.render.intermediate.GraphicsPainter;
 import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFGlyphRunPainter;
 import org.apache.fop.render.intermediate.IFState;
-import org.apache.fop.render.intermediate.IFUtil;
 import org.apache.fop.traits.BorderProps;
 import org.apache.fop.traits.RuleStyle;
 import org.apache.fop.util.CharUtilities;
@@ -87,7 +88,7 @@ import org.apache.fop.util.CharUtilities;
 /**
  * IFPainter implementation that produces AFP (MO:DCA).
  */
-public class AFPPainter extends AbstractIFPainter<AFPDocumentHandler> {
+public class AFPPainter extends AbstractIFPainter<AFPDocumentHandler> implements IFGlyphRunPainter {
 
     private static final int X = 0;
 
@@ -902,14 +903,20 @@ public class AFPPainter extends AbstractIFPainter<AFPDocumentHandler> {
     public void drawText(int x, int y,
             final int letterSpacing, final int wordSpacing, final int[][] dp,
             final String text) throws IFException {
-        new DefaultPtocaProducer(x, y, letterSpacing, wordSpacing, dp, text);
+        drawText(x, y, letterSpacing, wordSpacing, GlyphRun.fromDP(text, dp));
+    }
+
+    /** {@inheritDoc} */
+    public void drawText(int x, int y, int letterSpacing, int wordSpacing, GlyphRun run)
+            throws IFException {
+        new DefaultPtocaProducer(x, y, letterSpacing, wordSpacing, run);
     }
 
     private final class DefaultPtocaProducer implements PtocaProducer {
         final int[] coords;
         final int fontReference;
         final String text;
-        final int[][] dp;
+        final GlyphRun run;
         final int letterSpacing;
         final int wordSpacing;
         final Font font;
@@ -918,12 +925,12 @@ public class AFPPainter extends AbstractIFPainter<AFPDocumentHandler> {
         final PresentationTextObject pto;
 
         private DefaultPtocaProducer(int x, int y,
-                                      final int letterSpacing, final int wordSpacing, final int[][] dp,
-                                      final String text) throws IFException {
+                                      final int letterSpacing, final int wordSpacing,
+                                      final GlyphRun run) throws IFException {
             this.letterSpacing = letterSpacing;
             this.wordSpacing = wordSpacing;
-            this.text = text;
-            this.dp = dp;
+            this.text = run.getText();
+            this.run = run;
             final int fontSize = state.getFontSize();
             getPaintingState().setFontSize(fontSize);
 
@@ -987,12 +994,10 @@ public class AFPPainter extends AbstractIFPainter<AFPDocumentHandler> {
             builder.setCodedFont((byte) fontReference);
 
             int l = text.length();
-            int[] dx = IFUtil.convertDPToDX(dp);
-            int dxl = (dx != null ? dx.length : 0);
             StringBuffer sb = new StringBuffer();
 
-            if (dxl > 0 && dx[0] != 0) {
-                int dxu = Math.round(unitConv.mpt2units(dx[0]));
+            if (run.getXPlacement(0) != 0) {
+                int dxu = Math.round(unitConv.mpt2units(run.getXPlacement(0)));
                 builder.relativeMoveInline(-dxu);
             }
 
@@ -1055,9 +1060,7 @@ public class AFPPainter extends AbstractIFPainter<AFPDocumentHandler> {
                         sb.append(ch);
                     }
 
-                    if (i < dxl - 1) {
-                        glyphAdjust += dx[i + 1];
-                    }
+                    glyphAdjust += run.getXPlacement(i + 1);
 
                     if (afpFont.getFontType() == FontType.TRUETYPE) {
                         flushText(builder, sb, charSet);
@@ -1086,9 +1089,7 @@ public class AFPPainter extends AbstractIFPainter<AFPDocumentHandler> {
                         glyphAdjust += wordSpacing;
                     }
                     glyphAdjust += letterSpacing;
-                    if (i < dxl - 1) {
-                        glyphAdjust += dx[i + 1];
-                    }
+                    glyphAdjust += run.getXPlacement(i + 1);
 
                     if (glyphAdjust != 0) {
                         flushText(builder, sb, charSet);
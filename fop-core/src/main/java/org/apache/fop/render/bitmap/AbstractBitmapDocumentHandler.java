@@ -19,6 +19,7 @@
 
 package org.apache.fop.render.bitmap;
 
+import java.awt.AlphaComposite;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
@@ -27,6 +28,7 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
@@ -68,6 +70,9 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
     /** Helper class for generating multiple files */
     private MultiFileRenderingUtil multiFileUtil;
 
+    /** Encodes the page images in the background, or null to encode them in endPageContent() */
+    private BitmapEncodingQueue encodingQueue;
+
     private int pageCount;
     private Dimension currentPageDimensions;
     private BufferedImage currentImage;
@@ -146,18 +151,36 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
                             getUserAgent().getEventBroadcaster());
                 eventProducer.noImageWriterFound(this, getMimeType());
             }
-            if (this.imageWriter.supportsMultiImageWriter()) {
-                this.multiImageWriter = this.imageWriter.createMultiImageWriter(outputStream);
-            } else {
+            this.multiImageWriter = createMultiImageWriter(this.imageWriter, outputStream);
+            if (this.multiImageWriter == null) {
                 this.multiFileUtil = new MultiFileRenderingUtil(getDefaultExtension(),
                         getUserAgent().getOutputFile());
             }
             this.pageCount = 0;
+            int encodingThreads = getSettings().getEncodingThreads();
+            if (encodingThreads > 0) {
+                //the pages of a multi-image file have to be written one after the other
+                this.encodingQueue = new BitmapEncodingQueue(
+                        this.multiImageWriter != null ? 1 : encodingThreads,
+                        Math.max(2, encodingThreads * 2));
+            }
         } catch (IOException e) {
             throw new IFException("I/O error in startDocument()", e);
         }
     }
 
+    /**
+     * Creates the writer that adds all page images to a single file.
+     * @param writer the image writer for the output format
+     * @param out the output stream
+     * @return the multi-image writer, or null to write each page image to a file of its own
+     * @throws IOException if an I/O error occurs
+     */
+    protected MultiImageWriter createMultiImageWriter(ImageWriter writer, OutputStream out)
+            throws IOException {
+        return writer.supportsMultiImageWriter() ? writer.createMultiImageWriter(out) : null;
+    }
+
     /** {@inheritDoc} */
     public void endDocumentHeader() throws IFException {
     }
@@ -165,11 +188,20 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
     /** {@inheritDoc} */
     public void endDocument() throws IFException {
         try {
-            if (this.multiImageWriter != null) {
-                this.multiImageWriter.close();
+            try {
+                if (this.encodingQueue != null) {
+                    BitmapEncodingQueue queue = this.encodingQueue;
+                    this.encodingQueue = null;
+                    queue.finish();
+                }
+            } finally {
+                MultiImageWriter writer = this.multiImageWriter;
+                this.multiImageWriter = null;
+                this.imageWriter = null;
+                if (writer != null) {
+                    writer.close();
+                }
             }
-            this.multiImageWriter = null;
-            this.imageWriter = null;
         } catch (IOException ioe) {
             throw new IFException("I/O error in endDocument()", ioe);
         }
@@ -229,6 +261,12 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
         }
 
         //Set up bitmap to paint on
+        if (currentImage == null && encodingQueue != null) {
+            currentImage = encodingQueue.takeImage(bitmapWidth, bitmapHeight);
+            if (currentImage != null && getSettings().hasTransparentPageBackground()) {
+                clearImage(currentImage);
+            }
+        }
         if (currentImage == null || currentImage.getWidth() != bitmapWidth
                 || currentImage.getHeight() != bitmapHeight) {
             currentImage = createBufferedImage(bitmapWidth, bitmapHeight);
@@ -286,44 +324,90 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
         return new BufferedImage(bitmapWidth, bitmapHeight, getSettings().getBufferedImageType());
     }
 
+    private static void clearImage(BufferedImage image) {
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+        } finally {
+            g2d.dispose();
+        }
+    }
+
     /** {@inheritDoc} */
     public void endPageContent() throws IFException {
         try {
+            //the output streams are set up here, so events are produced on this thread
+            final OutputStream out;
             if (this.multiImageWriter == null) {
                 switch (this.pageCount) {
                 case 1:
-                    this.imageWriter.writeImage(
-                            this.currentImage, this.outputStream,
-                            getSettings().getWriterParams());
-                    IOUtils.closeQuietly(this.outputStream);
+                    out = this.outputStream;
                     this.outputStream = null;
                     break;
                 default:
-                    OutputStream out = this.multiFileUtil.createOutputStream(this.pageCount - 1);
+                    out = this.multiFileUtil.createOutputStream(this.pageCount - 1);
                     if (out == null) {
                         BitmapRendererEventProducer eventProducer
                             = BitmapRendererEventProducer.Provider.get(
                                     getUserAgent().getEventBroadcaster());
                         eventProducer.stoppingAfterFirstPageNoFilename(this);
-                    } else {
-                        try {
-                            this.imageWriter.writeImage(
-                                    this.currentImage, out,
-                                    getSettings().getWriterParams());
-                        } finally {
-                            IOUtils.closeQuietly(out);
-                        }
+                        return;
                     }
                 }
             } else {
-                this.multiImageWriter.writeImage(this.currentImage,
-                        getSettings().getWriterParams());
+                out = null;
+            }
+            final MultiImageWriter writer = this.multiImageWriter;
+            if (this.encodingQueue == null) {
+                writeImage(this.currentImage, writer, out);
+            } else {
+                //the image is painted on again once it has been written
+                final BufferedImage image = this.currentImage;
+                this.currentImage = null;
+                boolean added = false;
+                try {
+                    this.encodingQueue.add(image, new Callable<Void>() {
+                        public Void call() throws IOException {
+                            writeImage(image, writer, out);
+                            return null;
+                        }
+                    });
+                    added = true;
+                } finally {
+                    if (!added) {
+                        //an earlier page failed: the pages not yet encoded are abandoned
+                        this.encodingQueue.abort();
+                        this.encodingQueue = null;
+                    }
+                }
             }
         } catch (IOException ioe) {
             throw new IFException("I/O error while encoding BufferedImage", ioe);
         }
     }
 
+    /**
+     * Encodes a page image.
+     * @param image the page image
+     * @param writer the multi-image writer, or null if each page is written to a file of its own
+     * @param out the stream to write the image to, which is closed afterwards, or null to
+     *          add the image to the multi-image file
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeImage(BufferedImage image, MultiImageWriter writer, OutputStream out)
+            throws IOException {
+        if (out == null) {
+            writer.writeImage(image, getSettings().getWriterParams());
+        } else {
+            try {
+                this.imageWriter.writeImage(image, out, getSettings().getWriterParams());
+            } finally {
+                IOUtils.closeQuietly(out);
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     public void endPage() throws IFException {
         this.currentPageDimensions = null;
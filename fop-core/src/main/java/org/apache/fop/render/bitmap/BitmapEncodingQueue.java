@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and writes the page images of an {@link AbstractBitmapDocumentHandler} on a pool of
+ * worker threads, so the rendering thread can paint the next pages in the meantime. Images
+ * whose encoding is done are handed back for painting further pages, so only as many images
+ * are allocated as there are pages in flight.
+ */
+final class BitmapEncodingQueue {
+
+    /** The time after which idle worker threads end */
+    private static final long KEEP_ALIVE_SECONDS = 5;
+
+    private final ThreadPoolExecutor executor;
+
+    /** The number of pages that may be encoding before the queue waits for the oldest */
+    private final int maxPendingPages;
+
+    private final LinkedList<FutureTask<Void>> pending = new LinkedList<FutureTask<Void>>();
+
+    private final Queue<BufferedImage> freeImages = new ConcurrentLinkedQueue<BufferedImage>();
+
+    /**
+     * Creates a queue.
+     * @param threads the number of worker threads; with a single thread, the pages are
+     *          encoded and written in the order they were added
+     * @param maxPendingPages the number of pages that may be encoding at the same time
+     */
+    BitmapEncodingQueue(int threads, int maxPendingPages) {
+        this.maxPendingPages = maxPendingPages;
+        this.executor = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "FOP bitmap encoder");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        //so an abandoned document doesn't leave threads behind
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns an image whose encoding is done, so it can be painted on again.
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @return an image of the given size, or null if there is none
+     */
+    BufferedImage takeImage(int width, int height) {
+        BufferedImage image;
+        while ((image = freeImages.poll()) != null) {
+            if (image.getWidth() == width && image.getHeight() == height) {
+                return image;
+            }
+            //images of another size are left to the garbage collector
+        }
+        return null;
+    }
+
+    /**
+     * Adds a page image to the queue. If too many pages are being encoded, this waits for
+     * the oldest ones.
+     * @param image the page image, which must not be painted on until it is handed back by
+     *          {@link #takeImage(int, int)}
+     * @param encoding encodes and writes the page image
+     * @throws IOException if encoding one of the earlier pages failed
+     */
+    void add(final BufferedImage image, final Callable<Void> encoding) throws IOException {
+        FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+            public Void call() throws Exception {
+                encoding.call();
+                freeImages.add(image);
+                return null;
+            }
+        });
+        pending.add(task);
+        executor.execute(task);
+        //report errors early, and keep the number of images in flight bounded
+        while (!pending.isEmpty()
+                && (pending.size() > maxPendingPages || pending.getFirst().isDone())) {
+            waitFor(pending.removeFirst());
+        }
+    }
+
+    /**
+     * Waits for all pages to be encoded and written, and ends the worker threads. If encoding
+     * a page failed, the pages still being encoded are abandoned.
+     * @throws IOException if encoding a page failed
+     */
+    void finish() throws IOException {
+        boolean finished = false;
+        try {
+            while (!pending.isEmpty()) {
+                waitFor(pending.removeFirst());
+            }
+            finished = true;
+        } finally {
+            if (finished) {
+                executor.shutdown();
+                freeImages.clear();
+            } else {
+                abort();
+            }
+        }
+    }
+
+    /**
+     * Abandons the pages not yet encoded after an error, and waits for the pages whose encoding
+     * has already started. Image writers don't react to interruption, so this has to be done
+     * before the output they write to is closed.
+     */
+    void abort() {
+        executor.shutdownNow();
+        for (FutureTask<Void> task : pending) {
+            task.cancel(true);
+        }
+        pending.clear();
+        boolean interrupted = false;
+        while (!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        freeImages.clear();
+    }
+
+    private void waitFor(FutureTask<Void> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encoding a page image");
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
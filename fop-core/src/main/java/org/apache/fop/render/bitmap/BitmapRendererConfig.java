@@ -37,6 +37,7 @@ import org.apache.fop.util.ColorUtil;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.ANTI_ALIASING;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.BACKGROUND_COLOR;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.ENCODING_THREADS;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.JAVA2D_TRANSPARENT_PAGE_BACKGROUND;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY_ELEMENT;
@@ -76,6 +77,10 @@ public class BitmapRendererConfig implements RendererConfig {
         return (Integer) get(COLOR_MODE);
     }
 
+    public Integer getEncodingThreads() {
+        return (Integer) get(ENCODING_THREADS);
+    }
+
     public boolean hasTransparentBackround() {
         Object result = get(JAVA2D_TRANSPARENT_PAGE_BACKGROUND);
         return (Boolean) (result != null ? result
@@ -133,6 +138,13 @@ public class BitmapRendererConfig implements RendererConfig {
                 String color = getValue(cfg, COLOR_MODE);
                 setParam(config, COLOR_MODE,
                         getBufferedImageIntegerFromColor(BitmapRendererOption.getValue(color)));
+
+                int encodingThreads = getChild(cfg, ENCODING_THREADS).getValueAsInteger(
+                        (Integer) ENCODING_THREADS.getDefaultValue());
+                if (encodingThreads < 0) {
+                    throw new FOPException("Invalid number of encoding threads: " + encodingThreads);
+                }
+                setParam(config, ENCODING_THREADS, encodingThreads);
             }
         }
 
@@ -40,7 +40,9 @@ public enum BitmapRendererOption implements RendererConfigOption {
     COLOR_MODE_RGB("rgb"),
     COLOR_MODE_GRAY("gray"),
     COLOR_MODE_BINARY("binary"),
-    COLOR_MODE_BILEVEL("bi-level");
+    COLOR_MODE_BILEVEL("bi-level"),
+    /** the number of threads encoding the page images while the next pages are painted */
+    ENCODING_THREADS("encoding-threads", 0);
 
     private final String name;
     private final Object defaultValue;
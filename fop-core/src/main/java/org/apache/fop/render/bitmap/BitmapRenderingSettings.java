@@ -25,6 +25,7 @@ import org.apache.fop.render.java2d.Java2DRenderingSettings;
 
 import static org.apache.fop.render.bitmap.BitmapRendererOption.ANTI_ALIASING;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.ENCODING_THREADS;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY;
 
 /**
@@ -44,6 +45,9 @@ public class BitmapRenderingSettings extends Java2DRenderingSettings {
     /** true if qualityRendering is set */
     private boolean qualityRendering = (Boolean) RENDERING_QUALITY.getDefaultValue();
 
+    /** the number of threads encoding page images, 0 to encode them on the rendering thread */
+    private int encodingThreads = (Integer) ENCODING_THREADS.getDefaultValue();
+
     /**
      * Default constructor. Initializes the settings to their default values.
      */
@@ -107,6 +111,27 @@ public class BitmapRenderingSettings extends Java2DRenderingSettings {
         return this.qualityRendering;
     }
 
+    /**
+     * Sets the number of threads that encode and write the page images while the next pages
+     * are painted. With 0, each page image is encoded on the rendering thread before the next
+     * page is painted.
+     * @param threads the number of threads
+     */
+    public void setEncodingThreads(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("threads must not be negative: " + threads);
+        }
+        this.encodingThreads = threads;
+    }
+
+    /**
+     * Returns the number of threads that encode and write the page images.
+     * @return the number of threads, 0 if the page images are encoded on the rendering thread
+     */
+    public int getEncodingThreads() {
+        return this.encodingThreads;
+    }
+
     /**
      * Sets the compression method for the image writer.
      * @param compressionMethod the compression method name
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * <p>Encodes bilevel rows with CCITT Group 4 (T.6) two-dimensional coding, as used by the
+ * TIFF compression type 4. Each row is coded relative to the row above it; the row above
+ * the first one is white.</p>
+ *
+ * <p>Rows are packed 8 pixels per byte, most significant bit first, with 1 meaning black.
+ * The bits after the last pixel of a row must be 0.</p>
+ */
+final class CCITTFaxEncoder {
+
+    /** The codes of white runs of 0 to 63 pixels */
+    private static final String[] WHITE_TERMINATING = {
+        "00110101", "000111", "0111", "1000", "1011", "1100", "1110", "1111",
+        "10011", "10100", "00111", "01000", "001000", "000011", "110100", "110101",
+        "101010", "101011", "0100111", "0001100", "0001000", "0010111", "0000011", "0000100",
+        "0101000", "0101011", "0010011", "0100100", "0011000", "00000010", "00000011", "00011010",
+        "00011011", "00010010", "00010011", "00010100", "00010101", "00010110", "00010111",
+        "00101000", "00101001", "00101010", "00101011", "00101100", "00101101", "00000100",
+        "00000101", "00001010", "00001011", "01010010", "01010011", "01010100", "01010101",
+        "00100100", "00100101", "01011000", "01011001", "01011010", "01011011", "01001010",
+        "01001011", "00110010", "00110011", "00110100"};
+
+    /** The codes of white runs of 64 to 1728 pixels, in steps of 64 */
+    private static final String[] WHITE_MAKEUP = {
+        "11011", "10010", "010111", "0110111", "00110110", "00110111", "01100100", "01100101",
+        "01101000", "01100111", "011001100", "011001101", "011010010", "011010011", "011010100",
+        "011010101", "011010110", "011010111", "011011000", "011011001", "011011010",
+        "011011011", "010011000", "010011001", "010011010", "011000", "010011011"};
+
+    /** The codes of black runs of 0 to 63 pixels */
+    private static final String[] BLACK_TERMINATING = {
+        "0000110111", "010", "11", "10", "011", "0011", "0010", "00011",
+        "000101", "000100", "0000100", "0000101", "0000111", "00000100", "00000111", "000011000",
+        "0000010111", "0000011000", "0000001000", "00001100111", "00001101000", "00001101100",
+        "00000110111", "00000101000", "00000010111", "00000011000", "000011001010",
+        "000011001011", "000011001100", "000011001101", "000001101000", "000001101001",
+        "000001101010", "000001101011", "000011010010", "000011010011", "000011010100",
+        "000011010101", "000011010110", "000011010111", "000001101100", "000001101101",
+        "000011011010", "000011011011", "000001010100", "000001010101", "000001010110",
+        "000001010111", "000001100100", "000001100101", "000001010010", "000001010011",
+        "000000100100", "000000110111", "000000111000", "000000100111", "000000101000",
+        "000001011000", "000001011001", "000000101011", "000000101100", "000001011010",
+        "000001100110", "000001100111"};
+
+    /** The codes of black runs of 64 to 1728 pixels, in steps of 64 */
+    private static final String[] BLACK_MAKEUP = {
+        "0000001111", "000011001000", "000011001001", "000001011011", "000000110011",
+        "000000110100", "000000110101", "0000001101100", "0000001101101", "0000001001010",
+        "0000001001011", "0000001001100", "0000001001101", "0000001110010", "0000001110011",
+        "0000001110100", "0000001110101", "0000001110110", "0000001110111", "0000001010010",
+        "0000001010011", "0000001010100", "0000001010101", "0000001011010", "0000001011011",
+        "0000001100100", "0000001100101"};
+
+    /** The codes of runs of either color of 1792 to 2560 pixels, in steps of 64 */
+    private static final String[] EXTENDED_MAKEUP = {
+        "00000001000", "00000001100", "00000001101", "000000010010", "000000010011",
+        "000000010100", "000000010101", "000000010110", "000000010111", "000000011100",
+        "000000011101", "000000011110", "000000011111"};
+
+    /** The codes of the vertical modes V<sub>L3</sub> to V<sub>R3</sub> */
+    private static final String[] VERTICAL = {
+        "0000010", "000010", "010", "1", "011", "000011", "0000011"};
+
+    private static final int MAX_MAKEUP_RUN = 2560;
+
+    private static final int[][] WHITE_TERMINATING_CODES = parse(WHITE_TERMINATING);
+    private static final int[][] WHITE_MAKEUP_CODES = parse(WHITE_MAKEUP);
+    private static final int[][] BLACK_TERMINATING_CODES = parse(BLACK_TERMINATING);
+    private static final int[][] BLACK_MAKEUP_CODES = parse(BLACK_MAKEUP);
+    private static final int[][] EXTENDED_MAKEUP_CODES = parse(EXTENDED_MAKEUP);
+    private static final int[][] VERTICAL_CODES = parse(VERTICAL);
+
+    private final int width;
+
+    private final ByteArrayOutputStream out;
+
+    /** The row above the current one */
+    private final byte[] reference;
+
+    private int bitBuffer;
+
+    private int bitCount;
+
+    /**
+     * Creates an encoder.
+     * @param width the number of pixels in a row
+     * @param out the stream receiving the encoded data
+     */
+    CCITTFaxEncoder(int width, ByteArrayOutputStream out) {
+        this.width = width;
+        this.out = out;
+        this.reference = new byte[(width + 7) / 8];
+    }
+
+    private static int[][] parse(String[] codes) {
+        int[][] parsed = new int[codes.length][];
+        for (int i = 0; i < codes.length; i++) {
+            parsed[i] = new int[] {Integer.parseInt(codes[i], 2), codes[i].length()};
+        }
+        return parsed;
+    }
+
+    /**
+     * Encodes a row.
+     * @param row the packed pixels of the row
+     */
+    void encodeRow(byte[] row) {
+        int a0 = -1;
+        int color = 0;
+        while (a0 < width) {
+            int a1 = nextChange(row, a0);
+            int b1 = nextChange(reference, a0);
+            if (b1 < width && pixel(reference, b1) == color) {
+                //b1 is the next change to the opposite color of a0
+                b1 = nextChange(reference, b1);
+            }
+            int b2 = nextChange(reference, b1);
+            if (b2 < a1) {
+                //pass mode
+                writeBits(1, 4);
+                a0 = b2;
+            } else if (Math.abs(a1 - b1) <= 3) {
+                int[] code = VERTICAL_CODES[a1 - b1 + 3];
+                writeBits(code[0], code[1]);
+                a0 = a1;
+                color = 1 - color;
+            } else {
+                int a2 = nextChange(row, a1);
+                writeBits(1, 3);
+                writeRun(a1 - Math.max(a0, 0), color);
+                writeRun(a2 - a1, 1 - color);
+                a0 = a2;
+            }
+        }
+        System.arraycopy(row, 0, reference, 0, reference.length);
+    }
+
+    /**
+     * Ends the encoded data with an end-of-facsimile-block code and pads it to a full byte.
+     * The next row is coded as the first one of a new block.
+     */
+    void finish() {
+        writeBits(1, 12);
+        writeBits(1, 12);
+        if (bitCount > 0) {
+            out.write(bitBuffer << (8 - bitCount));
+        }
+        bitBuffer = 0;
+        bitCount = 0;
+        Arrays.fill(reference, (byte) 0);
+    }
+
+    private void writeRun(int run, int color) {
+        int[][] makeup = color == 0 ? WHITE_MAKEUP_CODES : BLACK_MAKEUP_CODES;
+        while (run >= 64) {
+            int step = Math.min(run, MAX_MAKEUP_RUN) / 64;
+            int[] code = step <= makeup.length ? makeup[step - 1]
+                    : EXTENDED_MAKEUP_CODES[step - makeup.length - 1];
+            writeBits(code[0], code[1]);
+            run -= step * 64;
+        }
+        int[] code = color == 0 ? WHITE_TERMINATING_CODES[run] : BLACK_TERMINATING_CODES[run];
+        writeBits(code[0], code[1]);
+    }
+
+    private void writeBits(int code, int length) {
+        bitBuffer = (bitBuffer << length) | code;
+        bitCount += length;
+        while (bitCount >= 8) {
+            bitCount -= 8;
+            out.write(bitBuffer >>> bitCount);
+        }
+        bitBuffer &= (1 << bitCount) - 1;
+    }
+
+    private static int pixel(byte[] row, int x) {
+        return (row[x >> 3] >> (7 - (x & 7))) & 1;
+    }
+
+    /**
+     * Returns the next changing element after a position: the first pixel whose color differs
+     * from the color of the pixel at the position. The pixel before the row is white.
+     */
+    private int nextChange(byte[] row, int x) {
+        if (x >= width) {
+            return width;
+        }
+        int color = x < 0 ? 0 : pixel(row, x);
+        int uniform = color == 0 ? 0 : 0xFF;
+        int p = x + 1;
+        while (p < width) {
+            if ((p & 7) == 0 && (row[p >> 3] & 0xFF) == uniform) {
+                p += 8;
+            } else if (pixel(row, p) != color) {
+                return p;
+            } else {
+                p++;
+            }
+        }
+        return width;
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.apache.xmlgraphics.image.writer.Endianness;
+import org.apache.xmlgraphics.image.writer.ImageWriterParams;
+import org.apache.xmlgraphics.image.writer.MultiImageWriter;
+
+/**
+ * <p>Writes bilevel multi-page TIFF files strip by strip. Each strip of a page image is
+ * binarized and compressed on its own, so apart from the page image, only the compressed page
+ * is held in memory. Supports no compression, PackBits and CCITT T.6 compression.</p>
+ *
+ * <p>The output stream doesn't need to be seekable: the data of a page is written before its
+ * image file directory, and the offset of the next directory, which only becomes known with
+ * the next page, is held back until then.</p>
+ */
+final class StreamingTIFFWriter implements MultiImageWriter {
+
+    /** The number of rows per strip used unless configured otherwise */
+    static final int DEFAULT_ROWS_PER_STRIP = 64;
+
+    private static final int TAG_IMAGE_WIDTH = 256;
+    private static final int TAG_IMAGE_LENGTH = 257;
+    private static final int TAG_BITS_PER_SAMPLE = 258;
+    private static final int TAG_COMPRESSION = 259;
+    private static final int TAG_PHOTOMETRIC_INTERPRETATION = 262;
+    private static final int TAG_STRIP_OFFSETS = 273;
+    private static final int TAG_SAMPLES_PER_PIXEL = 277;
+    private static final int TAG_ROWS_PER_STRIP = 278;
+    private static final int TAG_STRIP_BYTE_COUNTS = 279;
+    private static final int TAG_X_RESOLUTION = 282;
+    private static final int TAG_Y_RESOLUTION = 283;
+    private static final int TAG_T6_OPTIONS = 293;
+    private static final int TAG_RESOLUTION_UNIT = 296;
+
+    private static final short TYPE_SHORT = 3;
+    private static final short TYPE_LONG = 4;
+    private static final short TYPE_RATIONAL = 5;
+
+    private static final int COMPRESSION_NONE = 1;
+    private static final int COMPRESSION_CCITT_T6 = 4;
+    private static final int COMPRESSION_PACKBITS = 32773;
+
+    private static final int PHOTOMETRIC_WHITE_IS_ZERO = 0;
+
+    private static final long MAX_OFFSET = 0xFFFFFFFFL;
+
+    private final OutputStream out;
+
+    private ByteOrder byteOrder;
+
+    /** The number of bytes written so far */
+    private long position;
+
+    /** true if the offset of the next image file directory still has to be written */
+    private boolean linkPending;
+
+    /** The compressed strips of the current page */
+    private final ByteArrayOutputStream pageData = new ByteArrayOutputStream();
+
+    /**
+     * Creates a writer.
+     * @param out the output stream
+     */
+    StreamingTIFFWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Indicates whether this writer supports a compression method.
+     * @param compressionMethod the name of the compression method, null for no compression
+     * @return true if the compression method is supported
+     */
+    static boolean isSupported(String compressionMethod) {
+        return getCompression(compressionMethod) != 0;
+    }
+
+    private static int getCompression(String compressionMethod) {
+        TIFFCompressionValue compression = compressionMethod == null
+                ? TIFFCompressionValue.NONE : TIFFCompressionValue.getType(compressionMethod);
+        if (compression == null) {
+            return 0;
+        }
+        switch (compression) {
+        case NONE:
+            return COMPRESSION_NONE;
+        case PACKBITS:
+            return COMPRESSION_PACKBITS;
+        case CCITT_T6:
+            return COMPRESSION_CCITT_T6;
+        default:
+            return 0;
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void writeImage(RenderedImage image, ImageWriterParams params) throws IOException {
+        int compression = getCompression(params.getCompressionMethod());
+        if (compression == 0) {
+            throw new IOException("Unsupported TIFF compression: " + params.getCompressionMethod());
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int rowsPerStrip = params.isSingleStrip() ? height
+                : Math.min(Math.max(1, params.getRowsPerStrip()), height);
+        int strips = (height + rowsPerStrip - 1) / rowsPerStrip;
+        long[] stripOffsets = new long[strips];
+        long[] stripByteCounts = new long[strips];
+
+        if (byteOrder == null) {
+            writeHeader(params.getEndianness());
+        }
+        //the data of the page starts after the offset of its directory
+        long dataStart = position + 4;
+        pageData.reset();
+        byte[] row = new byte[(width + 7) / 8];
+        CCITTFaxEncoder faxEncoder = compression == COMPRESSION_CCITT_T6
+                ? new CCITTFaxEncoder(width, pageData) : null;
+        for (int s = 0; s < strips; s++) {
+            int y = s * rowsPerStrip;
+            int rows = Math.min(rowsPerStrip, height - y);
+            Raster band = image.getData(new Rectangle(image.getMinX(), image.getMinY() + y,
+                    width, rows));
+            Binarizer binarizer = new Binarizer(band, image.getColorModel());
+            stripOffsets[s] = dataStart + pageData.size();
+            for (int r = 0; r < rows; r++) {
+                binarizer.getRow(r, row);
+                switch (compression) {
+                case COMPRESSION_CCITT_T6:
+                    faxEncoder.encodeRow(row);
+                    break;
+                case COMPRESSION_PACKBITS:
+                    packBits(row, pageData);
+                    break;
+                default:
+                    pageData.write(row, 0, row.length);
+                }
+            }
+            if (faxEncoder != null) {
+                faxEncoder.finish();
+            }
+            stripByteCounts[s] = dataStart + pageData.size() - stripOffsets[s];
+        }
+
+        //the directory is word-aligned and preceded by the values that don't fit into it
+        long dataEnd = dataStart + pageData.size() + (pageData.size() & 1);
+        Integer xResolution = params.getXResolution() != null
+                ? params.getXResolution() : params.getResolution();
+        Integer yResolution = params.getYResolution() != null
+                ? params.getYResolution() : params.getResolution();
+        boolean hasResolution = xResolution != null && yResolution != null;
+        int extraSize = (strips > 1 ? strips * 8 : 0) + (hasResolution ? 16 : 0);
+        int entries = 9 + (hasResolution ? 3 : 0)
+                + (compression == COMPRESSION_CCITT_T6 ? 1 : 0);
+        long directory = dataEnd + extraSize;
+        checkOffset(directory + 2 + entries * 12 + 4);
+
+        ByteBuffer buffer = ByteBuffer.allocate(extraSize + 2 + entries * 12).order(byteOrder);
+        long extra = dataEnd;
+        if (strips > 1) {
+            for (long offset : stripOffsets) {
+                buffer.putInt((int) offset);
+            }
+            for (long count : stripByteCounts) {
+                buffer.putInt((int) count);
+            }
+        }
+        if (hasResolution) {
+            buffer.putInt(xResolution).putInt(1);
+            buffer.putInt(yResolution).putInt(1);
+        }
+        buffer.putShort((short) entries);
+        putEntry(buffer, TAG_IMAGE_WIDTH, TYPE_LONG, 1, width);
+        putEntry(buffer, TAG_IMAGE_LENGTH, TYPE_LONG, 1, height);
+        putShortEntry(buffer, TAG_BITS_PER_SAMPLE, 1);
+        putShortEntry(buffer, TAG_COMPRESSION, compression);
+        putShortEntry(buffer, TAG_PHOTOMETRIC_INTERPRETATION, PHOTOMETRIC_WHITE_IS_ZERO);
+        if (strips > 1) {
+            putEntry(buffer, TAG_STRIP_OFFSETS, TYPE_LONG, strips, extra);
+            extra += strips * 4;
+        } else {
+            putEntry(buffer, TAG_STRIP_OFFSETS, TYPE_LONG, 1, stripOffsets[0]);
+        }
+        putShortEntry(buffer, TAG_SAMPLES_PER_PIXEL, 1);
+        putEntry(buffer, TAG_ROWS_PER_STRIP, TYPE_LONG, 1, rowsPerStrip);
+        if (strips > 1) {
+            putEntry(buffer, TAG_STRIP_BYTE_COUNTS, TYPE_LONG, strips, extra);
+            extra += strips * 4;
+        } else {
+            putEntry(buffer, TAG_STRIP_BYTE_COUNTS, TYPE_LONG, 1, stripByteCounts[0]);
+        }
+        if (hasResolution) {
+            putEntry(buffer, TAG_X_RESOLUTION, TYPE_RATIONAL, 1, extra);
+            putEntry(buffer, TAG_Y_RESOLUTION, TYPE_RATIONAL, 1, extra + 8);
+        }
+        if (compression == COMPRESSION_CCITT_T6) {
+            putEntry(buffer, TAG_T6_OPTIONS, TYPE_LONG, 1, 0);
+        }
+        if (hasResolution) {
+            putShortEntry(buffer, TAG_RESOLUTION_UNIT, params.getResolutionUnit().getValue());
+        }
+
+        writeLink(directory);
+        pageData.writeTo(out);
+        if ((pageData.size() & 1) != 0) {
+            out.write(0);
+        }
+        out.write(buffer.array());
+        position = directory + 2 + entries * 12;
+        //the offset of the next directory is written with the next page
+        linkPending = true;
+    }
+
+    private void writeHeader(Endianness endianness) throws IOException {
+        if (endianness == Endianness.LITTLE_ENDIAN) {
+            byteOrder = ByteOrder.LITTLE_ENDIAN;
+            out.write(new byte[] {'I', 'I', 42, 0});
+        } else {
+            byteOrder = ByteOrder.BIG_ENDIAN;
+            out.write(new byte[] {'M', 'M', 0, 42});
+        }
+        position = 4;
+        linkPending = true;
+    }
+
+    private void writeLink(long offset) throws IOException {
+        if (linkPending) {
+            out.write(ByteBuffer.allocate(4).order(byteOrder).putInt((int) offset).array());
+            position += 4;
+            linkPending = false;
+        }
+    }
+
+    private static void checkOffset(long offset) throws IOException {
+        if (offset > MAX_OFFSET) {
+            throw new IOException("TIFF file exceeds 4 GB");
+        }
+    }
+
+    private static void putEntry(ByteBuffer buffer, int tag, short type, int count, long value) {
+        buffer.putShort((short) tag).putShort(type).putInt(count).putInt((int) value);
+    }
+
+    private static void putShortEntry(ByteBuffer buffer, int tag, int value) {
+        //a short value is left-justified in the value field
+        buffer.putShort((short) tag).putShort(TYPE_SHORT).putInt(1)
+                .putShort((short) value).putShort((short) 0);
+    }
+
+    /** {@inheritDoc} */
+    public void close() throws IOException {
+        if (byteOrder != null) {
+            //there is no next directory
+            writeLink(0);
+        }
+        out.flush();
+    }
+
+    /**
+     * Compresses a row with PackBits, which repeats runs of equal bytes and copies the others.
+     */
+    static void packBits(byte[] row, ByteArrayOutputStream out) {
+        int n = row.length;
+        int i = 0;
+        while (i < n) {
+            int run = 1;
+            while (i + run < n && run < 128 && row[i + run] == row[i]) {
+                run++;
+            }
+            if (run > 1) {
+                out.write(1 - run);
+                out.write(row[i]);
+                i += run;
+            } else {
+                int start = i;
+                //copy bytes up to the next run of three
+                while (i < n && i - start < 128
+                        && !(i + 2 < n && row[i] == row[i + 1] && row[i] == row[i + 2])) {
+                    i++;
+                }
+                out.write(i - start - 1);
+                out.write(row, start, i - start);
+            }
+        }
+    }
+
+    /**
+     * Reads the rows of a band of an image as packed bilevel pixels, 1 meaning black. Pixels
+     * darker than middle gray are black; transparent pixels are white.
+     */
+    private static final class Binarizer {
+
+        private final int width;
+
+        /** The pixels of a 1-bit image, or null to go through the color model */
+        private final byte[] packed;
+
+        private final int scanlineStride;
+
+        private final int offset;
+
+        /** true if a set bit of the 1-bit image is black */
+        private final boolean oneIsBlack;
+
+        private final BufferedImage image;
+
+        private int[] rgb;
+
+        Binarizer(Raster band, ColorModel colorModel) {
+            this.width = band.getWidth();
+            Raster origin = band.createTranslatedChild(0, 0);
+            int x0 = -origin.getSampleModelTranslateX();
+            int y0 = -origin.getSampleModelTranslateY();
+            if (colorModel instanceof IndexColorModel
+                    && ((IndexColorModel) colorModel).getMapSize() == 2
+                    && origin.getSampleModel() instanceof MultiPixelPackedSampleModel
+                    && origin.getDataBuffer() instanceof DataBufferByte
+                    && origin.getSampleModel().getSampleSize(0) == 1
+                    && ((MultiPixelPackedSampleModel) origin.getSampleModel()).getBitOffset(x0)
+                            == 0) {
+                MultiPixelPackedSampleModel sm
+                        = (MultiPixelPackedSampleModel) origin.getSampleModel();
+                IndexColorModel icm = (IndexColorModel) colorModel;
+                this.packed = ((DataBufferByte) origin.getDataBuffer()).getData();
+                this.scanlineStride = sm.getScanlineStride();
+                this.offset = sm.getOffset(x0, y0) + origin.getDataBuffer().getOffset();
+                this.oneIsBlack = isBlack(icm.getRGB(1)) && !isBlack(icm.getRGB(0));
+                this.image = null;
+            } else {
+                this.packed = null;
+                this.scanlineStride = 0;
+                this.offset = 0;
+                this.oneIsBlack = false;
+                this.image = new BufferedImage(colorModel,
+                        (WritableRaster) (origin instanceof WritableRaster ? origin
+                                : origin.createCompatibleWritableRaster()),
+                        colorModel.isAlphaPremultiplied(), null);
+                if (!(origin instanceof WritableRaster)) {
+                    image.setData(origin);
+                }
+            }
+        }
+
+        void getRow(int y, byte[] row) {
+            if (packed != null) {
+                System.arraycopy(packed, offset + y * scanlineStride, row, 0, row.length);
+                if (!oneIsBlack) {
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] = (byte) ~row[i];
+                    }
+                }
+            } else {
+                if (rgb == null) {
+                    rgb = new int[width];
+                }
+                image.getRGB(0, y, width, 1, rgb, 0, width);
+                Arrays.fill(row, (byte) 0);
+                for (int x = 0; x < width; x++) {
+                    if (isBlack(rgb[x])) {
+                        row[x >> 3] |= 0x80 >> (x & 7);
+                    }
+                }
+            }
+            //the bits after the last pixel are white
+            int trailing = row.length * 8 - width;
+            if (trailing > 0) {
+                row[row.length - 1] &= 0xFF << trailing;
+            }
+        }
+
+        private static boolean isBlack(int argb) {
+            int alpha = argb >>> 24;
+            //composite over white
+            int r = 255 - alpha * (255 - ((argb >> 16) & 0xFF)) / 255;
+            int g = 255 - alpha * (255 - ((argb >> 8) & 0xFF)) / 255;
+            int b = 255 - alpha * (255 - (argb & 0xFF)) / 255;
+            return r * 299 + g * 587 + b * 114 < 128000;
+        }
+    }
+}
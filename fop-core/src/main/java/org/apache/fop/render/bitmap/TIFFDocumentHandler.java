@@ -19,6 +19,15 @@
 
 package org.apache.fop.render.bitmap;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.xmlgraphics.image.writer.ImageWriter;
+import org.apache.xmlgraphics.image.writer.MultiImageWriter;
+
 import org.apache.fop.apps.MimeConstants;
 import org.apache.fop.render.bitmap.TIFFRendererConfig.TIFFRendererConfigParser;
 import org.apache.fop.render.intermediate.IFContext;
@@ -30,6 +39,11 @@ import org.apache.fop.render.intermediate.IFDocumentHandlerConfigurator;
  */
 public class TIFFDocumentHandler extends AbstractBitmapDocumentHandler {
 
+    /** logging instance */
+    private static Log log = LogFactory.getLog(TIFFDocumentHandler.class);
+
+    private boolean streaming;
+
     TIFFDocumentHandler(IFContext context) {
         super(context);
     }
@@ -45,6 +59,39 @@ public class TIFFDocumentHandler extends AbstractBitmapDocumentHandler {
         return "tif";
     }
 
+    /**
+     * Enables or disables streaming output. With streaming output, the page images are written
+     * as bilevel images, strip by strip, without buffering the encoded pages. This is only
+     * supported without compression and with PackBits and CCITT T.6 compression.
+     * @param streaming true to enable streaming output
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Indicates whether streaming output is enabled.
+     * @return true if streaming output is enabled
+     */
+    public boolean isStreaming() {
+        return this.streaming;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected MultiImageWriter createMultiImageWriter(ImageWriter writer, OutputStream out)
+            throws IOException {
+        if (streaming) {
+            String compression = getSettings().getCompressionMethod();
+            if (StreamingTIFFWriter.isSupported(compression)) {
+                return new StreamingTIFFWriter(out);
+            }
+            log.warn("Streaming TIFF output doesn't support " + compression
+                    + " compression. Falling back to the regular TIFF writer.");
+        }
+        return super.createMultiImageWriter(writer, out);
+    }
+
     /** {@inheritDoc} */
     public IFDocumentHandlerConfigurator getConfigurator() {
         return new TIFFRendererConfigurator(getUserAgent(), new TIFFRendererConfigParser());
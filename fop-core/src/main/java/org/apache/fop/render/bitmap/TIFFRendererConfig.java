@@ -44,7 +44,11 @@ public final class TIFFRendererConfig extends BitmapRendererConfig {
         /** option to encode one row per strip or a all rows in a single strip*/
         SINGLE_STRIP("single-strip", Boolean.FALSE),
         /** option to determine whether to use little or big endian encoding */
-        ENDIANNESS("endianness", Endianness.DEFAULT);
+        ENDIANNESS("endianness", Endianness.DEFAULT),
+        /** option to set the number of rows per strip */
+        ROWS_PER_STRIP("rows-per-strip", null),
+        /** option to write bilevel images strip by strip, without buffering the encoded pages */
+        STREAMING("streaming", Boolean.FALSE);
 
         private final String name;
         private final Object defaultValue;
@@ -89,6 +93,20 @@ public final class TIFFRendererConfig extends BitmapRendererConfig {
         return (Endianness) params.get(TIFFRendererOption.ENDIANNESS);
     }
 
+    /**
+     * @return the number of rows per strip or null if not set
+     */
+    public Integer getRowsPerStrip() {
+        return (Integer) params.get(TIFFRendererOption.ROWS_PER_STRIP);
+    }
+
+    /**
+     * @return True if bilevel images are written strip by strip, False if not or null if not set
+     */
+    public Boolean isStreaming() {
+        return (Boolean) params.get(TIFFRendererOption.STREAMING);
+    }
+
     /**
      * The TIFF renderer configuration parser.
      */
@@ -121,6 +139,21 @@ public final class TIFFRendererConfig extends BitmapRendererConfig {
                                 TIFFRendererOption.SINGLE_STRIP)));
                 setParam(TIFFRendererOption.ENDIANNESS,
                         Endianness.getEndianType(getValue(cfg, TIFFRendererOption.ENDIANNESS)));
+                String rowsPerStrip = getValue(cfg, TIFFRendererOption.ROWS_PER_STRIP);
+                if (rowsPerStrip != null) {
+                    int rows;
+                    try {
+                        rows = Integer.parseInt(rowsPerStrip.trim());
+                    } catch (NumberFormatException e) {
+                        throw new FOPException("Invalid rows-per-strip: " + rowsPerStrip, e);
+                    }
+                    if (rows < 1) {
+                        throw new FOPException("Invalid rows-per-strip: " + rowsPerStrip);
+                    }
+                    setParam(TIFFRendererOption.ROWS_PER_STRIP, rows);
+                }
+                setParam(TIFFRendererOption.STREAMING, Boolean.valueOf(getValue(cfg,
+                                TIFFRendererOption.STREAMING)));
             }
             return config;
         }
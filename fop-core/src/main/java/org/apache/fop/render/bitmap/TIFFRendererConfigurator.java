@@ -19,6 +19,8 @@
 
 package org.apache.fop.render.bitmap;
 
+import java.awt.image.BufferedImage;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -83,6 +85,11 @@ public class TIFFRendererConfigurator extends BitmapRendererConfigurator {
         return singleRowPerStrip == null ? false : singleRowPerStrip;
     }
 
+    private boolean isStreaming(TIFFRendererConfig config) {
+        Boolean streaming = config.isStreaming();
+        return streaming == null ? false : streaming;
+    }
+
     private Endianness getEndianness(TIFFRendererConfig config) {
         Endianness endianMode = config.getEndianness();
         return endianMode == null ? Endianness.DEFAULT : endianMode;
@@ -98,6 +105,23 @@ public class TIFFRendererConfigurator extends BitmapRendererConfigurator {
             setCompressionMethod(config.getCompressionType(), settings);
             settings.getWriterParams().setSingleStrip(isSingleStrip(config));
             settings.getWriterParams().setEndianness(getEndianness(config));
+            boolean streaming = isStreaming(config);
+            //otherwise, the document handler falls back to the regular writer
+            boolean streamingSupported = streaming
+                    && StreamingTIFFWriter.isSupported(settings.getCompressionMethod());
+            if (!isSingleStrip(config)) {
+                if (config.getRowsPerStrip() != null) {
+                    settings.getWriterParams().setRowsPerStrip(config.getRowsPerStrip());
+                } else if (streamingSupported) {
+                    settings.getWriterParams().setRowsPerStrip(
+                            StreamingTIFFWriter.DEFAULT_ROWS_PER_STRIP);
+                }
+            }
+            if (streamingSupported) {
+                //the page images are bilevel, so paint them on a 1-bit image
+                settings.setBufferedImageType(BufferedImage.TYPE_BYTE_BINARY);
+            }
+            tiffHandler.setStreaming(streaming);
         }
     }
 
@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The binary encoding of the intermediate format, written by {@link BinaryIFSerializer} and
+ * read by {@link BinaryIFParser}.</p>
+ *
+ * <p>A file starts with a magic number and a format version, followed by a sequence of
+ * records, each starting with a one byte record type. The painting operations inside page
+ * content have records of their own; everything else (the document and page structure,
+ * extensions, document navigation, structure trees, foreign objects) is stored as the SAX
+ * events of its XML representation. Integers are stored as variable length quantities
+ * (zig-zag encoded for signed values), and strings that are likely to repeat (font families,
+ * colors, borders, image URIs, XML names) are stored once and referenced by index later
+ * on.</p>
+ */
+final class BinaryIFFormat {
+
+    /** The magic number of the format: "FOPB" */
+    static final int MAGIC = 0x464F5042;
+
+    /** The version of the format */
+    static final int VERSION = 1;
+
+    static final int START_DOCUMENT = 1;
+    static final int END_DOCUMENT = 2;
+    static final int START_PREFIX_MAPPING = 3;
+    static final int END_PREFIX_MAPPING = 4;
+    static final int START_ELEMENT = 5;
+    static final int END_ELEMENT = 6;
+    static final int CHARACTERS = 7;
+    static final int PROCESSING_INSTRUCTION = 8;
+
+    static final int START_VIEWPORT = 16;
+    static final int END_VIEWPORT = 17;
+    static final int START_GROUP = 18;
+    static final int END_GROUP = 19;
+    static final int SET_FONT = 20;
+    static final int DRAW_TEXT = 21;
+    static final int CLIP_RECT = 22;
+    static final int FILL_RECT = 23;
+    static final int DRAW_BORDER_RECT = 24;
+    static final int DRAW_LINE = 25;
+    static final int DRAW_IMAGE = 26;
+    static final int SET_ID = 27;
+    static final int CLIP_BACKGROUND = 28;
+
+    /** font attributes present in a {@link #SET_FONT} record */
+    static final int FONT_FAMILY = 1;
+    static final int FONT_STYLE = 2;
+    static final int FONT_WEIGHT = 4;
+    static final int FONT_VARIANT = 8;
+    static final int FONT_SIZE = 16;
+    static final int FONT_COLOR = 32;
+
+    /** flags of a {@link #DRAW_TEXT} record */
+    static final int TEXT_HYPHENATED = 1;
+    static final int TEXT_DX = 2;
+    static final int TEXT_DP = 4;
+
+    private BinaryIFFormat() {
+    }
+
+    /**
+     * Indicates whether data starts with the magic number of this format.
+     * @param header the first bytes of the data
+     * @param length the number of bytes in the header
+     * @return true if the data is in this format
+     */
+    static boolean isBinaryIF(byte[] header, int length) {
+        return length >= 4 && ((header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16
+                | (header[2] & 0xFF) << 8 | (header[3] & 0xFF)) == MAGIC;
+    }
+
+    /**
+     * Writes the encoding to a stream.
+     */
+    static final class Output {
+
+        private final OutputStream out;
+        private final byte[] buf = new byte[8192];
+        private int count;
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+        Output(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeByte(int b) throws IOException {
+            if (count == buf.length) {
+                flushBuffer();
+            }
+            buf[count++] = (byte) b;
+        }
+
+        void writeUnsigned(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeInt(int value) throws IOException {
+            writeUnsigned((value << 1) ^ (value >> 31));
+        }
+
+        void writeDouble(double value) throws IOException {
+            long bits = Double.doubleToLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (bits >>> shift));
+            }
+        }
+
+        /** Writes a string that isn't expected to repeat. */
+        void writeString(String s) throws IOException {
+            if (s == null) {
+                writeUnsigned(0);
+                return;
+            }
+            int length = s.length();
+            writeUnsigned(length + 1);
+            for (int i = 0; i < length; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    writeByte(c);
+                } else if (c < 0x800) {
+                    writeByte(0xC0 | (c >> 6));
+                    writeByte(0x80 | (c & 0x3F));
+                } else {
+                    writeByte(0xE0 | (c >> 12));
+                    writeByte(0x80 | ((c >> 6) & 0x3F));
+                    writeByte(0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        /** Writes a string that is likely to repeat, as a reference to the string table. */
+        void writeSharedString(String s) throws IOException {
+            if (s == null) {
+                writeUnsigned(0);
+                return;
+            }
+            Integer index = strings.get(s);
+            if (index != null) {
+                writeUnsigned(index + 1);
+            } else {
+                int newIndex = strings.size();
+                strings.put(s, newIndex);
+                writeUnsigned(newIndex + 1);
+                writeString(s);
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            out.write(buf, 0, count);
+            count = 0;
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads the encoding from a stream.
+     */
+    static final class Input {
+
+        private final InputStream in;
+        private final byte[] buf = new byte[8192];
+        private int pos;
+        private int limit;
+        private char[] chars = new char[64];
+        private final List<String> strings = new ArrayList<String>();
+        private final List<Object> decoded = new ArrayList<Object>();
+
+        Input(InputStream in) {
+            this.in = in;
+        }
+
+        /** Reads a byte, or returns -1 at the end of the stream. */
+        int read() throws IOException {
+            if (pos == limit) {
+                limit = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        int readByte() throws IOException {
+            int b = read();
+            if (b < 0) {
+                throw new EOFException("Truncated binary intermediate format document");
+            }
+            return b;
+        }
+
+        int readUnsigned() throws IOException {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = readByte();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        int readInt() throws IOException {
+            int value = readUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        double readDouble() throws IOException {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | readByte();
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        String readString() throws IOException {
+            int length = readUnsigned() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                int c = readByte();
+                if (c >= 0xE0) {
+                    c = (c & 0x0F) << 12 | (readByte() & 0x3F) << 6 | (readByte() & 0x3F);
+                } else if (c >= 0xC0) {
+                    c = (c & 0x1F) << 6 | (readByte() & 0x3F);
+                }
+                chars[i] = (char) c;
+            }
+            return new String(chars, 0, length);
+        }
+
+        /** Reads a reference to the string table, returns its index or -1 for null. */
+        int readSharedStringIndex() throws IOException {
+            int index = readUnsigned() - 1;
+            if (index == strings.size()) {
+                strings.add(readString());
+                decoded.add(null);
+            } else if (index > strings.size()) {
+                throw new IOException("Invalid string reference in binary intermediate format");
+            }
+            return index;
+        }
+
+        String readSharedString() throws IOException {
+            int index = readSharedStringIndex();
+            return index < 0 ? null : strings.get(index);
+        }
+
+        String getSharedString(int index) {
+            return strings.get(index);
+        }
+
+        /** Returns the object decoded from an entry of the string table, if any. */
+        Object getDecoded(int index) {
+            return decoded.get(index);
+        }
+
+        void setDecoded(int index, Object value) {
+            decoded.set(index, value);
+        }
+    }
+}
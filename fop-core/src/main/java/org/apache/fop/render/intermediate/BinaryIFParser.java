@@ -0,0 +1,376 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.fo.expr.PropertyException;
+import org.apache.fop.render.intermediate.util.IFDocumentHandlerProxy;
+import org.apache.fop.traits.BorderProps;
+import org.apache.fop.traits.RuleStyle;
+import org.apache.fop.util.ColorUtil;
+
+/**
+ * This is a parser for the binary intermediate format written by {@link BinaryIFSerializer},
+ * which converts it into {@link IFPainter} events. The painting operations are passed on
+ * directly; the SAX events of everything else are passed on to the handler of the
+ * {@link IFParser}, so they are processed exactly like the XML intermediate format.
+ */
+public class BinaryIFParser {
+
+    /**
+     * Indicates whether data is in the binary intermediate format.
+     * @param header the first bytes of the data
+     * @param length the number of bytes in the header
+     * @return true if the data starts like a binary intermediate format document
+     */
+    public static boolean isBinaryIF(byte[] header, int length) {
+        return BinaryIFFormat.isBinaryIF(header, length);
+    }
+
+    /**
+     * Parses a binary intermediate format document and paints it.
+     * @param in the stream to read the document from, not closed
+     * @param documentHandler the intermediate format document handler used to process the IF events
+     * @param userAgent the user agent
+     * @throws IFException if an IF-related error occurs inside the target document handler
+     * @throws IOException if the document can't be read or isn't in the binary intermediate
+     *          format
+     */
+    public void parse(InputStream in, IFDocumentHandler documentHandler, FOUserAgent userAgent)
+            throws IFException, IOException {
+        BinaryIFFormat.Input input = new BinaryIFFormat.Input(in);
+        int magic = 0;
+        for (int i = 0; i < 4; i++) {
+            magic = (magic << 8) | input.readByte();
+        }
+        if (magic != BinaryIFFormat.MAGIC) {
+            throw new IOException("Not a binary intermediate format document");
+        }
+        int version = input.readUnsigned();
+        if (version != BinaryIFFormat.VERSION) {
+            throw new IOException("Unsupported binary intermediate format version: " + version);
+        }
+        PainterTracker tracker = new PainterTracker(documentHandler);
+        ContentHandler handler = new IFParser().getContentHandler(tracker, userAgent);
+        try {
+            new RecordReader(input, tracker, handler, userAgent).read();
+        } catch (SAXException se) {
+            //Unpack original IFException if applicable
+            Throwable cause = se.getCause();
+            if (cause instanceof IFException) {
+                throw (IFException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IFException("Error while parsing binary intermediate format", se);
+        }
+    }
+
+    /** Keeps track of the painter of the current page content. */
+    private static class PainterTracker extends IFDocumentHandlerProxy {
+
+        private IFPainter painter;
+
+        PainterTracker(IFDocumentHandler delegate) {
+            super(delegate);
+        }
+
+        /** {@inheritDoc} */
+        public IFPainter startPageContent() throws IFException {
+            painter = super.startPageContent();
+            return painter;
+        }
+
+        /** {@inheritDoc} */
+        public void endPageContent() throws IFException {
+            painter = null;
+            super.endPageContent();
+        }
+    }
+
+    private static class RecordReader {
+
+        private final BinaryIFFormat.Input input;
+        private final PainterTracker tracker;
+        private final IFContext context;
+        private final ContentHandler handler;
+        private final FOUserAgent userAgent;
+        private final AttributesImpl attributes = new AttributesImpl();
+
+        RecordReader(BinaryIFFormat.Input input, PainterTracker tracker, ContentHandler handler,
+                FOUserAgent userAgent) {
+            this.input = input;
+            this.tracker = tracker;
+            this.context = tracker.getContext();
+            this.handler = handler;
+            this.userAgent = userAgent;
+        }
+
+        void read() throws IOException, IFException, SAXException {
+            for (int type = input.read(); type >= 0; type = input.read()) {
+                switch (type) {
+                case BinaryIFFormat.START_DOCUMENT:
+                    handler.startDocument();
+                    break;
+                case BinaryIFFormat.END_DOCUMENT:
+                    handler.endDocument();
+                    break;
+                case BinaryIFFormat.START_PREFIX_MAPPING:
+                    handler.startPrefixMapping(input.readSharedString(), input.readSharedString());
+                    break;
+                case BinaryIFFormat.END_PREFIX_MAPPING:
+                    handler.endPrefixMapping(input.readSharedString());
+                    break;
+                case BinaryIFFormat.START_ELEMENT:
+                    readStartElement();
+                    break;
+                case BinaryIFFormat.END_ELEMENT:
+                    handler.endElement(input.readSharedString(), input.readSharedString(),
+                            input.readSharedString());
+                    break;
+                case BinaryIFFormat.CHARACTERS:
+                    char[] chars = input.readString().toCharArray();
+                    handler.characters(chars, 0, chars.length);
+                    break;
+                case BinaryIFFormat.PROCESSING_INSTRUCTION:
+                    handler.processingInstruction(input.readSharedString(), input.readString());
+                    break;
+                case BinaryIFFormat.START_VIEWPORT:
+                    readStartViewport();
+                    break;
+                case BinaryIFFormat.END_VIEWPORT:
+                    getPainter().endViewport();
+                    break;
+                case BinaryIFFormat.START_GROUP:
+                    AffineTransform[] transforms = readTransforms();
+                    getPainter().startGroup(transforms, input.readSharedString());
+                    break;
+                case BinaryIFFormat.END_GROUP:
+                    getPainter().endGroup();
+                    break;
+                case BinaryIFFormat.SET_FONT:
+                    readSetFont();
+                    break;
+                case BinaryIFFormat.DRAW_TEXT:
+                    readDrawText();
+                    break;
+                case BinaryIFFormat.CLIP_RECT:
+                    getPainter().clipRect(readRectangle());
+                    break;
+                case BinaryIFFormat.CLIP_BACKGROUND:
+                    readClipBackground();
+                    break;
+                case BinaryIFFormat.FILL_RECT:
+                    Rectangle rect = readRectangle();
+                    getPainter().fillRect(rect, readColor());
+                    break;
+                case BinaryIFFormat.DRAW_BORDER_RECT:
+                    readDrawBorderRect();
+                    break;
+                case BinaryIFFormat.DRAW_LINE:
+                    readDrawLine();
+                    break;
+                case BinaryIFFormat.DRAW_IMAGE:
+                    String uri = input.readSharedString();
+                    getPainter().drawImage(uri, readRectangle());
+                    break;
+                case BinaryIFFormat.SET_ID:
+                    context.setID(input.readSharedString());
+                    break;
+                default:
+                    throw new IOException("Invalid record type in binary intermediate format: "
+                            + type);
+                }
+            }
+        }
+
+        private IFPainter getPainter() throws IFException {
+            if (tracker.painter == null) {
+                throw new IFException("Painting operation outside of page content");
+            }
+            return tracker.painter;
+        }
+
+        private void readStartElement() throws IOException, SAXException {
+            String uri = input.readSharedString();
+            String localName = input.readSharedString();
+            String qName = input.readSharedString();
+            attributes.clear();
+            for (int i = input.readUnsigned(); i > 0; i--) {
+                attributes.addAttribute(input.readSharedString(), input.readSharedString(),
+                        input.readSharedString(), input.readSharedString(), input.readString());
+            }
+            handler.startElement(uri, localName, qName, attributes);
+        }
+
+        private void readStartViewport() throws IOException, IFException {
+            AffineTransform[] transforms = readTransforms();
+            Dimension size = new Dimension(input.readInt(), input.readInt());
+            Rectangle clipRect = input.readByte() != 0 ? readRectangle() : null;
+            getPainter().startViewport(transforms, size, clipRect);
+        }
+
+        private void readSetFont() throws IOException, IFException {
+            int changes = input.readUnsigned();
+            String family = null;
+            String style = null;
+            Integer weight = null;
+            String variant = null;
+            Integer size = null;
+            Color color = null;
+            if ((changes & BinaryIFFormat.FONT_FAMILY) != 0) {
+                family = input.readSharedString();
+            }
+            if ((changes & BinaryIFFormat.FONT_STYLE) != 0) {
+                style = input.readSharedString();
+            }
+            if ((changes & BinaryIFFormat.FONT_WEIGHT) != 0) {
+                weight = input.readInt();
+            }
+            if ((changes & BinaryIFFormat.FONT_VARIANT) != 0) {
+                variant = input.readSharedString();
+            }
+            if ((changes & BinaryIFFormat.FONT_SIZE) != 0) {
+                size = input.readInt();
+            }
+            if ((changes & BinaryIFFormat.FONT_COLOR) != 0) {
+                color = readColor();
+            }
+            getPainter().setFont(family, style, weight, variant, size, color);
+        }
+
+        private void readDrawText() throws IOException, IFException {
+            int flags = input.readUnsigned();
+            int x = input.readInt();
+            int y = input.readInt();
+            int letterSpacing = input.readInt();
+            int wordSpacing = input.readInt();
+            int[][] dp = null;
+            if ((flags & BinaryIFFormat.TEXT_DX) != 0) {
+                int[] dx = new int[input.readUnsigned()];
+                for (int i = 0; i < dx.length; i++) {
+                    dx[i] = input.readInt();
+                }
+                dp = IFUtil.convertDXToDP(dx);
+            } else if ((flags & BinaryIFFormat.TEXT_DP) != 0) {
+                dp = new int[input.readUnsigned()][4];
+                for (int[] pa : dp) {
+                    for (int k = 0; k < 4; k++) {
+                        pa[k] = input.readInt();
+                    }
+                }
+            }
+            String text = input.readString();
+            boolean hyphenated = (flags & BinaryIFFormat.TEXT_HYPHENATED) != 0;
+            if (hyphenated) {
+                context.setHyphenated(true);
+            }
+            getPainter().drawText(x, y, letterSpacing, wordSpacing, dp, text);
+            context.setHyphenated(false);
+        }
+
+        private void readClipBackground() throws IOException, IFException {
+            Rectangle rect = readRectangle();
+            BorderProps top = readBorder();
+            BorderProps bottom = readBorder();
+            BorderProps left = readBorder();
+            BorderProps right = readBorder();
+            getPainter().clipBackground(rect, top, bottom, left, right);
+        }
+
+        private void readDrawBorderRect() throws IOException, IFException {
+            Rectangle rect = readRectangle();
+            BorderProps top = readBorder();
+            BorderProps bottom = readBorder();
+            BorderProps left = readBorder();
+            BorderProps right = readBorder();
+            Color innerBackgroundColor = readColor();
+            getPainter().drawBorderRect(rect, top, bottom, left, right, innerBackgroundColor);
+        }
+
+        private void readDrawLine() throws IOException, IFException {
+            Point start = new Point(input.readInt(), input.readInt());
+            Point end = new Point(input.readInt(), input.readInt());
+            int width = input.readInt();
+            Color color = readColor();
+            RuleStyle style = RuleStyle.valueOf(input.readSharedString());
+            getPainter().drawLine(start, end, width, color, style);
+        }
+
+        private AffineTransform[] readTransforms() throws IOException {
+            AffineTransform[] transforms = new AffineTransform[input.readUnsigned()];
+            double[] matrix = new double[6];
+            for (int i = 0; i < transforms.length; i++) {
+                for (int k = 0; k < 6; k++) {
+                    matrix[k] = input.readDouble();
+                }
+                transforms[i] = new AffineTransform(matrix);
+            }
+            return transforms;
+        }
+
+        private Rectangle readRectangle() throws IOException {
+            return new Rectangle(input.readInt(), input.readInt(), input.readInt(),
+                    input.readInt());
+        }
+
+        private BorderProps readBorder() throws IOException {
+            int index = input.readSharedStringIndex();
+            if (index < 0) {
+                return null;
+            }
+            BorderProps border = (BorderProps) input.getDecoded(index);
+            if (border == null) {
+                border = BorderProps.valueOf(userAgent, input.getSharedString(index));
+                input.setDecoded(index, border);
+            }
+            return border;
+        }
+
+        private Color readColor() throws IOException, IFException {
+            int index = input.readSharedStringIndex();
+            if (index < 0) {
+                return null;
+            }
+            Color color = (Color) input.getDecoded(index);
+            if (color == null) {
+                try {
+                    color = ColorUtil.parseColorString(userAgent, input.getSharedString(index));
+                } catch (PropertyException pe) {
+                    throw new IFException("Error parsing a color", pe);
+                }
+                input.setDecoded(index, color);
+            }
+            return color;
+        }
+    }
+}
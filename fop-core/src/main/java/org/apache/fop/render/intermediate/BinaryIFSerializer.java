@@ -0,0 +1,557 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Paint;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.io.IOException;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.stream.StreamResult;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.ImageSessionContext;
+
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.traits.BorderProps;
+import org.apache.fop.traits.RuleStyle;
+import org.apache.fop.util.ColorUtil;
+import org.apache.fop.util.GenerationHelperContentHandler;
+
+/**
+ * IFPainter implementation that serializes the intermediate format to the compact binary
+ * encoding described in {@link BinaryIFFormat}, which is read back by {@link BinaryIFParser}.
+ * The painting operations are encoded directly, without formatting their parameters as
+ * attribute strings; everything else is serialized like the {@link IFSerializer} does, with
+ * its SAX events encoded in binary. Painting operations that refer to the structure tree or
+ * carry foreign attributes are serialized like the {@link IFSerializer} does as well.
+ */
+public class BinaryIFSerializer extends IFSerializer {
+
+    private BinaryIFFormat.Output out;
+
+    /** Holds the font state of the current page, like the IFSerializer's own state */
+    private IFState fontState;
+
+    public BinaryIFSerializer(IFContext context) {
+        super(context);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getMimeType() {
+        return MimeConstants.MIME_FOP_IF_BINARY;
+    }
+
+    /**
+     * Page indexes aren't supported by the binary encoding, since its records refer to
+     * strings shared with the preceding pages.
+     * @return false
+     */
+    @Override
+    public boolean supportsPageIndex() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setResult(Result result) throws IFException {
+        if (!(result instanceof StreamResult)
+                || ((StreamResult) result).getOutputStream() == null) {
+            throw new IFException(
+                    "The binary intermediate format can only be written to an OutputStream");
+        }
+        this.out = new BinaryIFFormat.Output(((StreamResult) result).getOutputStream());
+        try {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                out.writeByte(BinaryIFFormat.MAGIC >>> shift);
+            }
+            out.writeUnsigned(BinaryIFFormat.VERSION);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in setResult()", ioe);
+        }
+        this.handler = new GenerationHelperContentHandler(
+                new SAXEncoder(), getMainNamespace(), getContext());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endDocument() throws IFException {
+        super.endDocument();
+        try {
+            out.flush();
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in endDocument()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public IFPainter startPageContent() throws IFException {
+        IFPainter painter = super.startPageContent();
+        fontState = IFState.create();
+        return painter;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endPageContent() throws IFException {
+        fontState = null;
+        super.endPageContent();
+    }
+
+    //---=== IFPainter ===---
+
+    /** {@inheritDoc} */
+    @Override
+    public void startViewport(AffineTransform transform, Dimension size, Rectangle clipRect)
+            throws IFException {
+        startViewport(new AffineTransform[] {transform}, size, clipRect);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startViewport(AffineTransform[] transforms, Dimension size, Rectangle clipRect)
+            throws IFException {
+        try {
+            out.writeByte(BinaryIFFormat.START_VIEWPORT);
+            writeTransforms(transforms);
+            out.writeInt(size.width);
+            out.writeInt(size.height);
+            if (clipRect != null) {
+                out.writeByte(1);
+                writeRectangle(clipRect);
+            } else {
+                out.writeByte(0);
+            }
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in startViewport()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endViewport() throws IFException {
+        writeRecordType(BinaryIFFormat.END_VIEWPORT);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startGroup(AffineTransform transform, String layer) throws IFException {
+        startGroup(new AffineTransform[] {transform}, layer);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startGroup(AffineTransform[] transforms, String layer) throws IFException {
+        try {
+            out.writeByte(BinaryIFFormat.START_GROUP);
+            writeTransforms(transforms);
+            out.writeSharedString(layer != null && layer.length() > 0 ? layer : null);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in startGroup()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endGroup() throws IFException {
+        writeRecordType(BinaryIFFormat.END_GROUP);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void drawImage(String uri, Rectangle rect) throws IFException {
+        if (!getContext().getForeignAttributes().isEmpty()
+                || getContext().getStructureTreeElement() != null) {
+            super.drawImage(uri, rect);
+            return;
+        }
+        try {
+            writeID();
+            out.writeByte(BinaryIFFormat.DRAW_IMAGE);
+            out.writeSharedString(uri);
+            writeRectangle(rect);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in drawImage()", ioe);
+        } finally {
+            ImageSessionContext session = getUserAgent().getImageSessionContext();
+            ImageManager imageManager = getUserAgent().getImageManager();
+            imageManager.closeImage(uri, session);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clipRect(Rectangle rect) throws IFException {
+        try {
+            out.writeByte(BinaryIFFormat.CLIP_RECT);
+            writeRectangle(rect);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in clipRect()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clipBackground(Rectangle rect, BorderProps bpsBefore, BorderProps bpsAfter,
+            BorderProps bpsStart, BorderProps bpsEnd) throws IFException {
+        if (!hasRoundedCorners(bpsBefore, bpsAfter, bpsStart, bpsEnd)) {
+            //written as a plain clip-rect in the XML intermediate format as well
+            clipRect(rect);
+            return;
+        }
+        try {
+            out.writeByte(BinaryIFFormat.CLIP_BACKGROUND);
+            writeRectangle(rect);
+            writeBorders(bpsBefore, bpsAfter, bpsStart, bpsEnd);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in clipBackground()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void fillRect(Rectangle rect, Paint fill) throws IFException {
+        if (fill == null) {
+            return;
+        }
+        if (!(fill instanceof Color)) {
+            super.fillRect(rect, fill);
+            return;
+        }
+        try {
+            out.writeByte(BinaryIFFormat.FILL_RECT);
+            writeRectangle(rect);
+            writeColor((Color) fill);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in fillRect()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void drawBorderRect(Rectangle rect, BorderProps top, BorderProps bottom,
+            BorderProps left, BorderProps right, Color innerBackgroundColor) throws IFException {
+        if (top == null && bottom == null && left == null && right == null) {
+            return;
+        }
+        try {
+            out.writeByte(BinaryIFFormat.DRAW_BORDER_RECT);
+            writeRectangle(rect);
+            writeBorders(top, bottom, left, right);
+            writeColor(innerBackgroundColor);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in drawBorderRect()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void drawLine(Point start, Point end, int width, Color color, RuleStyle style)
+            throws IFException {
+        try {
+            writeID();
+            out.writeByte(BinaryIFFormat.DRAW_LINE);
+            out.writeInt(start.x);
+            out.writeInt(start.y);
+            out.writeInt(end.x);
+            out.writeInt(end.y);
+            out.writeInt(width);
+            writeColor(color);
+            out.writeSharedString(style.getName());
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in drawLine()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void drawText(int x, int y, int letterSpacing, int wordSpacing,
+            int[][] dp, String text) throws IFException {
+        if (getContext().getStructureTreeElement() != null) {
+            super.drawText(x, y, letterSpacing, wordSpacing, dp, text);
+            return;
+        }
+        try {
+            writeID();
+            int flags = getContext().isHyphenated() ? BinaryIFFormat.TEXT_HYPHENATED : 0;
+            int[] dx = null;
+            if (dp != null && !IFUtil.isDPIdentity(dp)) {
+                if (IFUtil.isDPOnlyDX(dp)) {
+                    dx = IFUtil.convertDPToDX(dp);
+                    flags |= BinaryIFFormat.TEXT_DX;
+                } else {
+                    flags |= BinaryIFFormat.TEXT_DP;
+                }
+            }
+            out.writeByte(BinaryIFFormat.DRAW_TEXT);
+            out.writeUnsigned(flags);
+            out.writeInt(x);
+            out.writeInt(y);
+            out.writeInt(letterSpacing);
+            out.writeInt(wordSpacing);
+            if (dx != null) {
+                out.writeUnsigned(dx.length);
+                for (int adjustment : dx) {
+                    out.writeInt(adjustment);
+                }
+            } else if ((flags & BinaryIFFormat.TEXT_DP) != 0) {
+                out.writeUnsigned(dp.length);
+                for (int[] pa : dp) {
+                    for (int k = 0; k < 4; k++) {
+                        out.writeInt(pa != null ? pa[k] : 0);
+                    }
+                }
+            }
+            out.writeString(text);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in drawText()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setFont(String family, String style, Integer weight, String variant, Integer size,
+            Color color) throws IFException {
+        int changes = 0;
+        if (family != null && !family.equals(fontState.getFontFamily())) {
+            fontState.setFontFamily(family);
+            changes |= BinaryIFFormat.FONT_FAMILY;
+        }
+        if (style != null && !style.equals(fontState.getFontStyle())) {
+            fontState.setFontStyle(style);
+            changes |= BinaryIFFormat.FONT_STYLE;
+        }
+        if (weight != null && weight != fontState.getFontWeight()) {
+            fontState.setFontWeight(weight);
+            changes |= BinaryIFFormat.FONT_WEIGHT;
+        }
+        if (variant != null && !variant.equals(fontState.getFontVariant())) {
+            fontState.setFontVariant(variant);
+            changes |= BinaryIFFormat.FONT_VARIANT;
+        }
+        if (size != null && size != fontState.getFontSize()) {
+            fontState.setFontSize(size);
+            changes |= BinaryIFFormat.FONT_SIZE;
+        }
+        if (color != null && !org.apache.xmlgraphics.java2d.color.ColorUtil.isSameColor(
+                color, fontState.getTextColor())) {
+            fontState.setTextColor(color);
+            changes |= BinaryIFFormat.FONT_COLOR;
+        }
+        if (changes == 0) {
+            return;
+        }
+        try {
+            out.writeByte(BinaryIFFormat.SET_FONT);
+            out.writeUnsigned(changes);
+            if ((changes & BinaryIFFormat.FONT_FAMILY) != 0) {
+                out.writeSharedString(family);
+            }
+            if ((changes & BinaryIFFormat.FONT_STYLE) != 0) {
+                out.writeSharedString(style);
+            }
+            if ((changes & BinaryIFFormat.FONT_WEIGHT) != 0) {
+                out.writeInt(weight);
+            }
+            if ((changes & BinaryIFFormat.FONT_VARIANT) != 0) {
+                out.writeSharedString(variant);
+            }
+            if ((changes & BinaryIFFormat.FONT_SIZE) != 0) {
+                out.writeInt(size);
+            }
+            if ((changes & BinaryIFFormat.FONT_COLOR) != 0) {
+                writeColor(color);
+            }
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in setFont()", ioe);
+        }
+    }
+
+    private void writeRecordType(int type) throws IFException {
+        try {
+            out.writeByte(type);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error while writing binary intermediate format", ioe);
+        }
+    }
+
+    private void writeID() throws IOException {
+        String id = getContext().getID();
+        if (!currentID.equals(id)) {
+            out.writeByte(BinaryIFFormat.SET_ID);
+            out.writeSharedString(id);
+            currentID = id;
+        }
+    }
+
+    /** Writes the transformations that aren't the identity, like IFUtil.toString() does. */
+    private void writeTransforms(AffineTransform[] transforms) throws IOException {
+        int count = 0;
+        for (AffineTransform transform : transforms) {
+            if (!transform.isIdentity()) {
+                count++;
+            }
+        }
+        out.writeUnsigned(count);
+        double[] matrix = new double[6];
+        for (AffineTransform transform : transforms) {
+            if (!transform.isIdentity()) {
+                transform.getMatrix(matrix);
+                for (double value : matrix) {
+                    out.writeDouble(value);
+                }
+            }
+        }
+    }
+
+    private void writeRectangle(Rectangle rect) throws IOException {
+        out.writeInt(rect.x);
+        out.writeInt(rect.y);
+        out.writeInt(rect.width);
+        out.writeInt(rect.height);
+    }
+
+    private void writeBorders(BorderProps top, BorderProps bottom, BorderProps left,
+            BorderProps right) throws IOException {
+        out.writeSharedString(top != null ? top.toString() : null);
+        out.writeSharedString(bottom != null ? bottom.toString() : null);
+        out.writeSharedString(left != null ? left.toString() : null);
+        out.writeSharedString(right != null ? right.toString() : null);
+    }
+
+    private void writeColor(Color color) throws IOException {
+        out.writeSharedString(color != null ? ColorUtil.colorToString(color) : null);
+    }
+
+    /**
+     * Encodes the SAX events of the XML representation of everything but the painting
+     * operations.
+     */
+    private class SAXEncoder extends DefaultHandler {
+
+        @Override
+        public void startDocument() throws SAXException {
+            writeEvent(BinaryIFFormat.START_DOCUMENT);
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            writeEvent(BinaryIFFormat.END_DOCUMENT);
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) throws SAXException {
+            try {
+                out.writeByte(BinaryIFFormat.START_PREFIX_MAPPING);
+                out.writeSharedString(prefix);
+                out.writeSharedString(uri);
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) throws SAXException {
+            try {
+                out.writeByte(BinaryIFFormat.END_PREFIX_MAPPING);
+                out.writeSharedString(prefix);
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName,
+                Attributes attributes) throws SAXException {
+            try {
+                out.writeByte(BinaryIFFormat.START_ELEMENT);
+                out.writeSharedString(uri);
+                out.writeSharedString(localName);
+                out.writeSharedString(qName);
+                out.writeUnsigned(attributes.getLength());
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    out.writeSharedString(attributes.getURI(i));
+                    out.writeSharedString(attributes.getLocalName(i));
+                    out.writeSharedString(attributes.getQName(i));
+                    out.writeSharedString(attributes.getType(i));
+                    out.writeString(attributes.getValue(i));
+                }
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            try {
+                out.writeByte(BinaryIFFormat.END_ELEMENT);
+                out.writeSharedString(uri);
+                out.writeSharedString(localName);
+                out.writeSharedString(qName);
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            try {
+                out.writeByte(BinaryIFFormat.CHARACTERS);
+                out.writeString(new String(ch, start, length));
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            characters(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) throws SAXException {
+            try {
+                out.writeByte(BinaryIFFormat.PROCESSING_INSTRUCTION);
+                out.writeSharedString(target);
+                out.writeString(data);
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+        }
+
+        private void writeEvent(int type) throws SAXException {
+            try {
+                out.writeByte(type);
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+        }
+    }
+}
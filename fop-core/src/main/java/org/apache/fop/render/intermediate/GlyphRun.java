@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+import java.util.Arrays;
+
+/**
+ * <p>A run of text painted by {@link IFGlyphRunPainter#drawText(int, int, int, int, GlyphRun)}, with
+ * the position adjustments of its characters packed into a single array rather than one
+ * 4-tuple per character.</p>
+ *
+ * <p>For each character, the run holds an [X,Y] placement adjustment and an [X,Y] advancement
+ * adjustment, in that order, like the 'dp' array of
+ * {@link IFPainter#drawText(int, int, int, int, int[][], String)}. Characters after the last
+ * one with an adjustment take up no space in the array.</p>
+ */
+public final class GlyphRun {
+
+    private static final int[] NO_ADJUSTMENTS = new int[0];
+
+    private final String text;
+
+    /** four values per character, up to the last character with a non-zero adjustment */
+    private final int[] adjustments;
+
+    private final boolean dxOnly;
+
+    private GlyphRun(String text, int[] adjustments, boolean dxOnly) {
+        this.text = text;
+        this.adjustments = adjustments;
+        this.dxOnly = dxOnly;
+    }
+
+    /**
+     * Creates a run from the text and the 'dp' array of a call to
+     * {@link IFPainter#drawText(int, int, int, int, int[][], String)}.
+     * @param text the text
+     * @param dp an array of 4-tuples, expressing [X,Y] placment adjustments and [X,Y]
+     * advancement adjustments, in that order (may be null)
+     * @return the run
+     */
+    public static GlyphRun fromDP(String text, int[][] dp) {
+        Builder builder = new Builder();
+        for (int i = 0, n = text.length(); i < n; i++) {
+            builder.append(text.charAt(i));
+            if (dp != null && i < dp.length && dp[i] != null) {
+                builder.adjust(dp[i][0], dp[i][1], dp[i][2], dp[i][3]);
+            }
+        }
+        return builder.build();
+    }
+
+    /** @return the text */
+    public String getText() {
+        return text;
+    }
+
+    /** @return the number of characters */
+    public int getLength() {
+        return text.length();
+    }
+
+    /** @return true if any character has a non-zero adjustment */
+    public boolean hasAdjustments() {
+        return adjustments.length > 0;
+    }
+
+    /**
+     * Indicates whether the adjustments can be expressed as the older 'dx' adjustments, that
+     * is, whether the X placement and X advancement adjustments of each character are equal.
+     * This is the same test as {@link IFUtil#isDPOnlyDX(int[][])}.
+     * @return true if the adjustments only consist of 'dx' adjustments
+     */
+    public boolean isDXOnly() {
+        return dxOnly;
+    }
+
+    /**
+     * @param index the index of a character
+     * @return the X placement adjustment of the character, which is its 'dx' adjustment
+     */
+    public int getXPlacement(int index) {
+        return get(index, 0);
+    }
+
+    /**
+     * @param index the index of a character
+     * @return the Y placement adjustment of the character
+     */
+    public int getYPlacement(int index) {
+        return get(index, 1);
+    }
+
+    /**
+     * @param index the index of a character
+     * @return the X advancement adjustment of the character
+     */
+    public int getXAdvance(int index) {
+        return get(index, 2);
+    }
+
+    /**
+     * @param index the index of a character
+     * @return the Y advancement adjustment of the character
+     */
+    public int getYAdvance(int index) {
+        return get(index, 3);
+    }
+
+    private int get(int index, int offset) {
+        int i = index * 4 + offset;
+        return i < adjustments.length ? adjustments[i] : 0;
+    }
+
+    /**
+     * Returns the adjustments as an array of 4-tuples, for painters that take a 'dp' array.
+     * @return the adjustments, up to the last character with a non-zero adjustment, or null
+     * if there are none
+     */
+    public int[][] toDP() {
+        if (adjustments.length == 0) {
+            return null;
+        }
+        int[][] dp = new int[adjustments.length / 4][];
+        for (int i = 0; i < dp.length; i++) {
+            int o = i * 4;
+            if (adjustments[o] != 0 || adjustments[o + 1] != 0
+                    || adjustments[o + 2] != 0 || adjustments[o + 3] != 0) {
+                dp[i] = new int[4];
+                System.arraycopy(adjustments, o, dp[i], 0, 4);
+            }
+        }
+        return dp;
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "GlyphRun(" + text + ", " + Arrays.toString(adjustments) + ")";
+    }
+
+    /**
+     * Builds runs character by character. A builder can be reused after {@link #reset()}, so
+     * the buffer holding the adjustments is only allocated once.
+     */
+    public static final class Builder {
+
+        private static final int INITIAL_BUFFER_SIZE = 64;
+
+        private final StringBuilder text = new StringBuilder();
+
+        private int[] adjustments = new int[INITIAL_BUFFER_SIZE];
+
+        /** the number of characters up to the last one with a non-zero adjustment */
+        private int adjusted;
+
+        /**
+         * Appends a character without adjustments.
+         * @param ch the character
+         */
+        public void append(char ch) {
+            text.append(ch);
+        }
+
+        /**
+         * Adds a 'dx' adjustment to the last character appended, which moves it and all the
+         * characters after it.
+         * @param dx the adjustment
+         */
+        public void adjust(int dx) {
+            if (dx != 0) {
+                adjust(dx, 0, dx, 0);
+            }
+        }
+
+        /**
+         * Adds position adjustments to the last character appended.
+         * @param xPlacement the X placement adjustment
+         * @param yPlacement the Y placement adjustment
+         * @param xAdvance the X advancement adjustment
+         * @param yAdvance the Y advancement adjustment
+         */
+        public void adjust(int xPlacement, int yPlacement, int xAdvance, int yAdvance) {
+            if (xPlacement == 0 && yPlacement == 0 && xAdvance == 0 && yAdvance == 0) {
+                return;
+            }
+            int index = text.length() - 1;
+            int o = index * 4;
+            if (o + 4 > adjustments.length) {
+                adjustments = Arrays.copyOf(adjustments, Math.max(adjustments.length * 2, o + 4));
+            }
+            adjustments[o] += xPlacement;
+            adjustments[o + 1] += yPlacement;
+            adjustments[o + 2] += xAdvance;
+            adjustments[o + 3] += yAdvance;
+            adjusted = Math.max(adjusted, index + 1);
+        }
+
+        /** @return the number of characters appended */
+        public int length() {
+            return text.length();
+        }
+
+        /**
+         * Creates a run of the characters appended since the last reset.
+         * @return the run
+         */
+        public GlyphRun build() {
+            //trailing characters whose adjustments cancelled out take up no space
+            int n = adjusted * 4;
+            while (n > 0 && adjustments[n - 1] == 0 && adjustments[n - 2] == 0
+                    && adjustments[n - 3] == 0 && adjustments[n - 4] == 0) {
+                n -= 4;
+            }
+            boolean dxOnly = true;
+            for (int o = 0; o < n && dxOnly; o += 4) {
+                dxOnly = adjustments[o] == adjustments[o + 2];
+            }
+            int[] packed = n > 0 ? Arrays.copyOf(adjustments, n) : NO_ADJUSTMENTS;
+            return new GlyphRun(text.toString(), packed, dxOnly);
+        }
+
+        /** Removes all characters. */
+        public void reset() {
+            text.setLength(0);
+            Arrays.fill(adjustments, 0, adjusted * 4, 0);
+            adjusted = 0;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+/**
+ * Interface to paint text as glyph runs. This is an optional interface for painter
+ * implementations which can use the packed position adjustments of a {@link GlyphRun}
+ * without creating an array per character. Other painters get the text through
+ * {@link IFPainter#drawText(int, int, int, int, int[][], String)}.
+ */
+public interface IFGlyphRunPainter {
+
+    /**
+     * Draws text. This is the same as {@link IFPainter#drawText(int, int, int, int, int[][],
+     * String)}, except that the position adjustments are packed into the glyph run.
+     * @param x X-coordinate of the starting point of the text
+     * @param y Y-coordinate of the starting point of the text
+     * @param letterSpacing additional spacing between characters (may be 0)
+     * @param wordSpacing additional spacing between words (may be 0)
+     * @param run the text and its position adjustments
+     * @throws IFException if an error occurs while handling this event
+     */
+    void drawText(int x, int y, int letterSpacing, int wordSpacing, GlyphRun run)
+            throws IFException;
+
+}
@@ -0,0 +1,524 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * <p>An index of the pages of an intermediate format file: the byte ranges of its document
+ * header, page sequences, pages and document trailer. It allows to parse a range of pages of a
+ * stored intermediate format file without parsing the pages before and after them, see
+ * {@link IFParser#parse(File, IFPageIndex, int, int, IFDocumentHandler,
+ * org.apache.fop.apps.FOUserAgent)}.</p>
+ *
+ * <p>The index is produced by the {@link IFSerializer} while it writes the file (see
+ * {@link IFSerializer#setPageIndexOutputStream(OutputStream)}), or by scanning an existing file
+ * with {@link #create(InputStream)}. It is stored in a sidecar file next to the intermediate
+ * format file. Only files in an ASCII compatible encoding (like the default UTF-8) can be
+ * indexed.</p>
+ */
+public final class IFPageIndex {
+
+    /** The magic number of the stored format: "FOPI" */
+    private static final int MAGIC = 0x464F5049;
+
+    /** The version of the stored format */
+    private static final int VERSION = 1;
+
+    /** the length of the indexed file */
+    private final long length;
+    /** the offset of the first page sequence, or of the trailer if there's none */
+    private final long headerEnd;
+    /** the offset of the document trailer, or of the document end tag if there's none */
+    private final long trailerStart;
+    /** the offset of the document end tag */
+    private final long documentEnd;
+    /** the start, first page, end tag and end offsets of each page sequence */
+    private final long[] sequences;
+    /** the start and end offsets of each page */
+    private final long[] pages;
+    /** the page sequence of each page */
+    private final int[] pageSequences;
+
+    private IFPageIndex(long length, long headerEnd, long trailerStart, long documentEnd,
+            long[] sequences, long[] pages, int[] pageSequences) {
+        this.length = length;
+        this.headerEnd = headerEnd;
+        this.trailerStart = trailerStart;
+        this.documentEnd = documentEnd;
+        this.sequences = sequences;
+        this.pages = pages;
+        this.pageSequences = pageSequences;
+    }
+
+    /**
+     * Returns the number of pages in the indexed file.
+     * @return the number of pages
+     */
+    public int getPageCount() {
+        return pageSequences.length;
+    }
+
+    /**
+     * Returns the number of page sequences in the indexed file.
+     * @return the number of page sequences
+     */
+    public int getPageSequenceCount() {
+        return sequences.length / 4;
+    }
+
+    /**
+     * Opens a stream of an intermediate format document holding a range of the pages of the
+     * indexed file: its document header, the pages in the range inside their page sequences,
+     * and optionally its document trailer.
+     * @param file the indexed intermediate format file
+     * @param firstPage the index of the first page, starting at 0
+     * @param lastPage the index of the last page, inclusive
+     * @param withTrailer true to include the document trailer, false for an empty one
+     * @return the stream, to be closed by the caller
+     * @throws IOException if the file can't be read or doesn't match this index
+     */
+    public InputStream openPages(File file, int firstPage, int lastPage, boolean withTrailer)
+            throws IOException {
+        if (firstPage < 0 || lastPage >= getPageCount() || firstPage > lastPage) {
+            throw new IllegalArgumentException("Invalid page range " + firstPage + "-" + lastPage
+                    + " for " + getPageCount() + " pages");
+        }
+        if (file.length() != length) {
+            throw new IOException("The page index doesn't match " + file);
+        }
+        List<Long> ranges = new ArrayList<Long>();
+        addRange(ranges, 0, headerEnd);
+        int sequence = -1;
+        for (int page = firstPage; page <= lastPage; page++) {
+            if (pageSequences[page] != sequence) {
+                if (sequence >= 0) {
+                    addRange(ranges, sequences[sequence * 4 + 2], sequences[sequence * 4 + 3]);
+                }
+                sequence = pageSequences[page];
+                addRange(ranges, sequences[sequence * 4], sequences[sequence * 4 + 1]);
+            }
+            addRange(ranges, pages[page * 2], pages[page * 2 + 1]);
+        }
+        addRange(ranges, sequences[sequence * 4 + 2], sequences[sequence * 4 + 3]);
+        addRange(ranges, withTrailer ? trailerStart : documentEnd, length);
+        return new BufferedInputStream(new RangeInputStream(file, ranges));
+    }
+
+    private static void addRange(List<Long> ranges, long start, long end) {
+        int size = ranges.size();
+        if (size > 0 && ranges.get(size - 1) == start) {
+            ranges.set(size - 1, end);
+        } else {
+            ranges.add(start);
+            ranges.add(end);
+        }
+    }
+
+    /**
+     * Writes this index to a stream.
+     * @param out the stream, not closed
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out));
+        dout.writeInt(MAGIC);
+        dout.writeInt(VERSION);
+        dout.writeLong(length);
+        dout.writeLong(headerEnd);
+        dout.writeLong(trailerStart);
+        dout.writeLong(documentEnd);
+        dout.writeInt(getPageSequenceCount());
+        for (long offset : sequences) {
+            dout.writeLong(offset);
+        }
+        dout.writeInt(getPageCount());
+        for (int i = 0; i < getPageCount(); i++) {
+            dout.writeInt(pageSequences[i]);
+            dout.writeLong(pages[i * 2]);
+            dout.writeLong(pages[i * 2 + 1]);
+        }
+        dout.flush();
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo(OutputStream)}.
+     * @param in the stream, not closed
+     * @return the page index
+     * @throws IOException if an I/O error occurs or the stream doesn't hold a page index
+     */
+    public static IFPageIndex read(InputStream in) throws IOException {
+        DataInputStream din = new DataInputStream(new BufferedInputStream(in));
+        if (din.readInt() != MAGIC) {
+            throw new IOException("Not an intermediate format page index");
+        }
+        int version = din.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported intermediate format page index version: "
+                    + version);
+        }
+        long length = din.readLong();
+        long headerEnd = din.readLong();
+        long trailerStart = din.readLong();
+        long documentEnd = din.readLong();
+        long[] sequences = new long[din.readInt() * 4];
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = din.readLong();
+        }
+        int pageCount = din.readInt();
+        long[] pages = new long[pageCount * 2];
+        int[] pageSequences = new int[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            pageSequences[i] = din.readInt();
+            pages[i * 2] = din.readLong();
+            pages[i * 2 + 1] = din.readLong();
+        }
+        return new IFPageIndex(length, headerEnd, trailerStart, documentEnd,
+                sequences, pages, pageSequences);
+    }
+
+    /**
+     * Creates the index of an existing intermediate format file.
+     * @param in the intermediate format file, not closed
+     * @return the page index
+     * @throws IOException if an I/O error occurs
+     */
+    public static IFPageIndex create(InputStream in) throws IOException {
+        Builder builder = new Builder(new NullOutputStream());
+        byte[] buf = new byte[8192];
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            builder.write(buf, 0, len);
+        }
+        return builder.getPageIndex();
+    }
+
+    /**
+     * A stream that builds the page index of an intermediate format document while passing it
+     * on to another stream. It finds the elements of the document with a simple scanner that
+     * tracks the nesting of elements and skips over comments, CDATA sections, processing
+     * instructions and attribute values.
+     */
+    static final class Builder extends FilterOutputStream {
+
+        private static final int TEXT = 0;
+        private static final int MARKUP = 1;
+        private static final int DECLARATION_START = 2;
+        private static final int START_TAG_NAME = 3;
+        private static final int END_TAG_NAME = 4;
+        private static final int TAG = 5;
+        private static final int ATTRIBUTE_VALUE = 6;
+        private static final int COMMENT = 7;
+        private static final int CDATA = 8;
+        private static final int PROCESSING_INSTRUCTION = 9;
+        private static final int DECLARATION = 10;
+
+        private long position;
+        private int state = TEXT;
+        private final StringBuilder name = new StringBuilder();
+        private boolean endTag;
+        private long tagStart;
+        private int quote;
+        private int previous;
+        private int repeats;
+
+        private int depth;
+        private long headerEnd = -1;
+        private long trailerStart = -1;
+        private long documentEnd = -1;
+        private final List<Long> sequences = new ArrayList<Long>();
+        private final List<Long> pages = new ArrayList<Long>();
+        private final List<Integer> pageSequences = new ArrayList<Integer>();
+        private boolean inPageSequence;
+        private long pageStart;
+
+        /**
+         * Creates a new builder.
+         * @param out the stream the document is passed on to
+         */
+        Builder(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            scan(b & 0xFF);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            for (int i = off; i < off + len; i++) {
+                scan(b[i] & 0xFF);
+            }
+        }
+
+        private void scan(int c) {
+            switch (state) {
+            case TEXT:
+                if (c == '<') {
+                    tagStart = position;
+                    state = MARKUP;
+                }
+                break;
+            case MARKUP:
+                name.setLength(0);
+                if (c == '/') {
+                    state = END_TAG_NAME;
+                } else if (c == '?') {
+                    state = PROCESSING_INSTRUCTION;
+                } else if (c == '!') {
+                    state = DECLARATION_START;
+                } else {
+                    name.append((char) c);
+                    state = START_TAG_NAME;
+                }
+                break;
+            case DECLARATION_START:
+                repeats = 0;
+                if (c == '-') {
+                    state = COMMENT;
+                } else if (c == '[') {
+                    state = CDATA;
+                } else {
+                    state = DECLARATION;
+                }
+                break;
+            case START_TAG_NAME:
+            case END_TAG_NAME:
+                if (c == '>' || c == '/' || c <= ' ') {
+                    endTag = state == END_TAG_NAME;
+                    state = TAG;
+                    scan(c);
+                    return;
+                }
+                name.append((char) c);
+                break;
+            case TAG:
+                if (c == '"' || c == '\'') {
+                    quote = c;
+                    state = ATTRIBUTE_VALUE;
+                } else if (c == '>') {
+                    if (endTag) {
+                        endElement(position + 1);
+                    } else {
+                        startElement(position + 1, previous == '/');
+                    }
+                    state = TEXT;
+                }
+                break;
+            case ATTRIBUTE_VALUE:
+                if (c == quote) {
+                    state = TAG;
+                }
+                break;
+            case COMMENT:
+                if (c == '>' && repeats >= 2) {
+                    state = TEXT;
+                }
+                repeats = c == '-' ? repeats + 1 : 0;
+                break;
+            case CDATA:
+                if (c == '>' && repeats >= 2) {
+                    state = TEXT;
+                }
+                repeats = c == ']' ? repeats + 1 : 0;
+                break;
+            case PROCESSING_INSTRUCTION:
+                if (c == '>' && previous == '?') {
+                    state = TEXT;
+                }
+                break;
+            case DECLARATION:
+                if (c == '>') {
+                    state = TEXT;
+                }
+                break;
+            default:
+                throw new IllegalStateException();
+            }
+            if (state != START_TAG_NAME || c > ' ') {
+                previous = c;
+            }
+            position++;
+        }
+
+        private String getLocalName() {
+            int colon = name.indexOf(":");
+            return colon < 0 ? name.toString() : name.substring(colon + 1);
+        }
+
+        private void startElement(long end, boolean empty) {
+            String localName = getLocalName();
+            if (depth == 1) {
+                if (IFConstants.EL_PAGE_SEQUENCE.equals(localName)) {
+                    if (headerEnd < 0) {
+                        headerEnd = tagStart;
+                    }
+                    sequences.add(tagStart);
+                    inPageSequence = true;
+                } else if (IFConstants.EL_TRAILER.equals(localName)) {
+                    if (headerEnd < 0) {
+                        headerEnd = tagStart;
+                    }
+                    trailerStart = tagStart;
+                }
+            } else if (depth == 2 && inPageSequence && IFConstants.EL_PAGE.equals(localName)) {
+                if (sequences.size() % 4 == 1) {
+                    sequences.add(tagStart);
+                }
+                pageStart = tagStart;
+                if (empty) {
+                    addPage(end);
+                }
+            }
+            if (!empty) {
+                depth++;
+            }
+        }
+
+        private void endElement(long end) {
+            depth--;
+            String localName = getLocalName();
+            if (depth == 0) {
+                documentEnd = tagStart;
+            } else if (depth == 1 && inPageSequence
+                    && IFConstants.EL_PAGE_SEQUENCE.equals(localName)) {
+                if (sequences.size() % 4 == 1) {
+                    sequences.add(tagStart);
+                }
+                sequences.add(tagStart);
+                sequences.add(end);
+                inPageSequence = false;
+            } else if (depth == 2 && inPageSequence && IFConstants.EL_PAGE.equals(localName)) {
+                addPage(end);
+            }
+        }
+
+        private void addPage(long end) {
+            pages.add(pageStart);
+            pages.add(end);
+            pageSequences.add(sequences.size() / 4);
+        }
+
+        /**
+         * Returns the index of the document written so far, which should be complete.
+         * @return the page index
+         * @throws IOException if the document isn't complete
+         */
+        IFPageIndex getPageIndex() throws IOException {
+            if (documentEnd < 0) {
+                throw new IOException("Incomplete intermediate format document");
+            }
+            long trailer = trailerStart < 0 ? documentEnd : trailerStart;
+            return new IFPageIndex(position, headerEnd < 0 ? trailer : headerEnd, trailer,
+                    documentEnd, toLongArray(sequences), toLongArray(pages),
+                    toIntArray(pageSequences));
+        }
+
+        private static long[] toLongArray(List<Long> list) {
+            long[] array = new long[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+            return array;
+        }
+
+        private static int[] toIntArray(List<Integer> list) {
+            int[] array = new int[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+            return array;
+        }
+    }
+
+    /**
+     * Reads a list of byte ranges of a file one after the other.
+     */
+    private static final class RangeInputStream extends InputStream {
+
+        private final RandomAccessFile file;
+        private final List<Long> ranges;
+        private int range = -2;
+        private long remaining;
+
+        RangeInputStream(File file, List<Long> ranges) throws IOException {
+            this.file = new RandomAccessFile(file, "r");
+            this.ranges = ranges;
+        }
+
+        private boolean nextRange() throws IOException {
+            while (remaining == 0) {
+                range += 2;
+                if (range >= ranges.size()) {
+                    return false;
+                }
+                file.seek(ranges.get(range));
+                remaining = ranges.get(range + 1) - ranges.get(range);
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextRange()) {
+                return -1;
+            }
+            remaining--;
+            return file.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextRange()) {
+                return -1;
+            }
+            int count = file.read(b, off, (int) Math.min(len, remaining));
+            if (count < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            remaining -= count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+}
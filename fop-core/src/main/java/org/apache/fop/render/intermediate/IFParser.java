@@ -24,6 +24,9 @@ import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -34,6 +37,7 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.stream.StreamSource;
 
 import org.w3c.dom.DOMImplementation;
 import org.w3c.dom.Document;
@@ -56,8 +60,15 @@ import org.apache.fop.fo.ElementMapping;
 import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fo.expr.PropertyException;
 import org.apache.fop.fo.extensions.InternalElementMapping;
+import org.apache.fop.render.intermediate.extensions.AbstractAction;
+import org.apache.fop.render.intermediate.extensions.Bookmark;
+import org.apache.fop.render.intermediate.extensions.BookmarkTree;
 import org.apache.fop.render.intermediate.extensions.DocumentNavigationExtensionConstants;
 import org.apache.fop.render.intermediate.extensions.DocumentNavigationHandler;
+import org.apache.fop.render.intermediate.extensions.GoToXYAction;
+import org.apache.fop.render.intermediate.extensions.Link;
+import org.apache.fop.render.intermediate.extensions.NamedDestination;
+import org.apache.fop.render.intermediate.util.IFDocumentHandlerProxy;
 import org.apache.fop.traits.BorderProps;
 import org.apache.fop.traits.RuleStyle;
 import org.apache.fop.util.ColorUtil;
@@ -122,6 +133,180 @@ public class IFParser implements IFConstants {
         }
     }
 
+    /**
+     * Parses a range of pages of an intermediate file and paints them. Only the document
+     * header, the requested pages and the document trailer are parsed, the other pages are
+     * skipped using the page index of the file. The pages are passed on with indices starting
+     * at 0. Unless all pages are requested, links, named destinations and bookmarks pointing
+     * to pages outside the range are left out and the others are renumbered accordingly.
+     * @param file the intermediate file
+     * @param pageIndex the page index of the file
+     * @param firstPage the index of the first page to parse, starting at 0
+     * @param lastPage the index of the last page to parse, inclusive
+     * @param documentHandler the intermediate format document handler used to process the IF events
+     * @param userAgent the user agent
+     * @throws TransformerException if an error occurs while parsing the area tree XML
+     * @throws IFException if an IF-related error occurs inside the target document handler
+     * @throws IOException if the file can't be read or doesn't match the page index
+     */
+    public void parse(File file, IFPageIndex pageIndex, int firstPage, int lastPage,
+            IFDocumentHandler documentHandler, FOUserAgent userAgent)
+            throws TransformerException, IFException, IOException {
+        if (firstPage > 0 || lastPage < pageIndex.getPageCount() - 1) {
+            documentHandler = new PageRangeFilter(documentHandler, firstPage, lastPage);
+        }
+        InputStream in = pageIndex.openPages(file, firstPage, lastPage, true);
+        try {
+            parse(new StreamSource(in, file.toURI().toASCIIString()), documentHandler, userAgent);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static class PageRangeFilter extends IFDocumentHandlerProxy {
+
+        private final int firstPage;
+        private final int lastPage;
+
+        /** The renumbered index of the page being parsed, -1 outside pages. */
+        private int currentPage = -1;
+
+        PageRangeFilter(IFDocumentHandler delegate, int firstPage, int lastPage) {
+            super(delegate);
+            this.firstPage = firstPage;
+            this.lastPage = lastPage;
+        }
+
+        /** {@inheritDoc} */
+        public void startPage(int index, String name, String pageMasterName, Dimension size)
+                throws IFException {
+            currentPage = index - firstPage;
+            super.startPage(currentPage, name, pageMasterName, size);
+        }
+
+        /** {@inheritDoc} */
+        public void endPage() throws IFException {
+            super.endPage();
+            currentPage = -1;
+        }
+
+        /** {@inheritDoc} */
+        public IFDocumentNavigationHandler getDocumentNavigationHandler() {
+            IFDocumentNavigationHandler navHandler = super.getDocumentNavigationHandler();
+            return navHandler != null ? new PageRangeNavigationHandler(navHandler, this) : null;
+        }
+    }
+
+    /**
+     * Passes on the document navigation of a page range. Page indices are renumbered from the
+     * first page of the range, and internal destinations outside the range are left out.
+     */
+    private static class PageRangeNavigationHandler implements IFDocumentNavigationHandler {
+
+        private final IFDocumentNavigationHandler delegate;
+        private final PageRangeFilter filter;
+
+        PageRangeNavigationHandler(IFDocumentNavigationHandler delegate, PageRangeFilter filter) {
+            this.delegate = delegate;
+            this.filter = filter;
+        }
+
+        /** {@inheritDoc} */
+        public void renderNamedDestination(NamedDestination destination) throws IFException {
+            AbstractAction action = renumber(destination.getAction(), -1);
+            if (action != null) {
+                delegate.renderNamedDestination(new NamedDestination(destination.getName(), action));
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void renderBookmarkTree(BookmarkTree tree) throws IFException {
+            BookmarkTree filtered = new BookmarkTree();
+            for (Object bookmark : tree.getBookmarks()) {
+                Bookmark b = filter((Bookmark) bookmark);
+                if (b != null) {
+                    filtered.addBookmark(b);
+                }
+            }
+            if (!filtered.getBookmarks().isEmpty()) {
+                delegate.renderBookmarkTree(filtered);
+            }
+        }
+
+        /**
+         * Returns a bookmark with the children pointing into the range, or null if neither the
+         * bookmark nor any of its children do. A bookmark only kept for its children has no
+         * action.
+         */
+        private Bookmark filter(Bookmark bookmark) {
+            AbstractAction action = renumber(bookmark.getAction(), -1);
+            Bookmark filtered = new Bookmark(bookmark.getTitle(), bookmark.isShown(), action);
+            for (Object child : bookmark.getChildBookmarks()) {
+                Bookmark c = filter((Bookmark) child);
+                if (c != null) {
+                    filtered.addChildBookmark(c);
+                }
+            }
+            if (action == null && bookmark.getAction() != null
+                    && filtered.getChildBookmarks().isEmpty()) {
+                return null;
+            }
+            return filtered;
+        }
+
+        /** {@inheritDoc} */
+        public void renderLink(Link link) throws IFException {
+            AbstractAction action = renumber(link.getAction(), filter.currentPage);
+            if (action != null) {
+                delegate.renderLink(new Link(action, link.getTargetRect()));
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void addResolvedAction(AbstractAction action) throws IFException {
+            action = renumber(action, -1);
+            if (action != null) {
+                delegate.addResolvedAction(action);
+            }
+        }
+
+        /**
+         * Returns the index of the current page in the parsed file, so the page indices of the
+         * actions read while the page is parsed are consistent with the other page indices.
+         * @return the index of the current page, or a negative value if there's none
+         */
+        public int getPageIndex() {
+            int pageIndex = delegate.getPageIndex();
+            return pageIndex >= 0 ? pageIndex + filter.firstPage : pageIndex;
+        }
+
+        /**
+         * Renumbers the target page of an internal destination.
+         * @param action the action, may be null
+         * @param currentPage the renumbered index of the page the action is on, or -1 if it
+         *          isn't on a page
+         * @return the action to pass on, or null if it points to a page outside the range
+         */
+        private AbstractAction renumber(AbstractAction action, final int currentPage) {
+            if (action instanceof GoToXYAction && action.isComplete()) {
+                GoToXYAction goTo = (GoToXYAction) action;
+                final int pageIndex = goTo.getPageIndex() - filter.firstPage;
+                if (pageIndex < 0 || pageIndex > filter.lastPage - filter.firstPage) {
+                    return null;
+                }
+                GoToXYAction renumbered = new GoToXYAction(goTo.getID(), pageIndex,
+                        goTo.getTargetLocation(), new PageIndexContext() {
+                            public int getPageIndex() {
+                                return currentPage >= 0 ? currentPage : pageIndex;
+                            }
+                        });
+                renumbered.setStructureTreeElement(goTo.getStructureTreeElement());
+                return renumbered;
+            }
+            return action;
+        }
+    }
+
     /**
      * Creates a new ContentHandler instance that you can send the area tree XML to. The parsed
      * pages are added to the AreaTreeModel instance you pass in as a parameter.
@@ -1165,9 +1165,7 @@ public class IFRenderer extends AbstractPathOrientedRenderer {
     }
 
     private class TextUtil {
-        private static final int INITIAL_BUFFER_SIZE = 16;
-        private int[][] dp = new int[INITIAL_BUFFER_SIZE][];
-        private final StringBuffer text = new StringBuffer();
+        private final GlyphRun.Builder run = new GlyphRun.Builder();
         private int startx;
         private int starty;
         private int tls;
@@ -1175,45 +1173,21 @@ public class IFRenderer extends AbstractPathOrientedRenderer {
         // private final static boolean COMBINED = false; // no longer referenced
 
         void addChar(char ch) {
-            text.append(ch);
+            run.append(ch);
         }
 
         void adjust(int dx) {
-            if (dx != 0) {
-                adjust(new int[] {
-                        dx,                         // xPlaAdjust
-                        0,                          // yPlaAdjust
-                        dx,                         // xAdvAdjust
-                        0                           // yAdvAdjust
-                    });
-            }
+            run.adjust(dx);
         }
 
         void adjust(int[] pa) {
-            if (!IFUtil.isPAIdentity(pa)) {
-                int idx = text.length();
-                if (idx > dp.length - 1) {
-                    int newSize = Math.max(dp.length, idx + 1) + INITIAL_BUFFER_SIZE;
-                    int[][] newDP = new int[newSize][];
-                    // reuse prior DP[0]...DP[dp.length-1]
-                    System.arraycopy(dp, 0, newDP, 0, dp.length);
-                    // switch to new DP, leaving DP[dp.length]...DP[newDP.length-1] unpopulated
-                    dp = newDP;
-                }
-                if (dp[idx - 1] == null) {
-                    dp[idx - 1] = new int[4];
-                }
-                IFUtil.adjustPA(dp[idx - 1], pa);
+            if (pa != null) {
+                run.adjust(pa[0], pa[1], pa[2], pa[3]);
             }
         }
 
         void reset() {
-            if (text.length() > 0) {
-                text.setLength(0);
-                for (int i = 0, n = dp.length; i < n; i++) {
-                    dp[i] = null;
-                }
-            }
+            run.reset();
         }
 
         void setStartPosition(int x, int y) {
@@ -1227,14 +1201,18 @@ public class IFRenderer extends AbstractPathOrientedRenderer {
         }
 
         void flush() {
-            if (text.length() > 0) {
+            if (run.length() > 0) {
                 try {
                     /* if (COMBINED) { // COMBINED is always false
-                        painter.drawText(startx, starty, 0, 0,
-                                         trimAdjustments(dp, text.length()), text.toString());
+                        painter.drawText(startx, starty, 0, 0, run.build());
                     } else { */
-                        painter.drawText(startx, starty, tls, tws,
-                                         trimAdjustments(dp, text.length()), text.toString());
+                        GlyphRun glyphRun = run.build();
+                        if (painter instanceof IFGlyphRunPainter) {
+                            ((IFGlyphRunPainter) painter).drawText(startx, starty, tls, tws, glyphRun);
+                        } else {
+                            painter.drawText(startx, starty, tls, tws, glyphRun.toDP(),
+                                    glyphRun.getText());
+                        }
                     /* } */
                 } catch (IFException e) {
                     handleIFException(e);
@@ -1242,38 +1220,6 @@ public class IFRenderer extends AbstractPathOrientedRenderer {
                 reset();
             }
         }
-
-        /**
-         * Trim adjustments array <code>dp</code> to be no greater length than
-         * text length, and where trailing all-zero entries are removed.
-         * @param dp a position adjustments array (or null)
-         * @param textLength the length of the associated text
-         * @return either the original value of <code>dp</code> or a copy
-         * of its first N significant adjustment entries, such that N is
-         * no greater than text length, and the last entry has a non-zero
-         * adjustment.
-         */
-        private int[][] trimAdjustments(int[][] dp, int textLength) {
-            if (dp != null) {
-                int tl = textLength;
-                int pl = dp.length;
-                int i  = (tl < pl) ? tl : pl;
-                while (i > 0) {
-                    int[] pa = dp [ i - 1 ];
-                    if ((pa != null) && !IFUtil.isPAIdentity(pa)) {
-                        break;
-                    } else {
-                        i--;
-                    }
-                }
-                if (i == 0) {
-                    dp = null;
-                } else if (i < pl) {
-                    dp = IFUtil.copyDP(dp, 0, i);
-                }
-            }
-            return dp;
-        }
     }
 
     /** {@inheritDoc} */
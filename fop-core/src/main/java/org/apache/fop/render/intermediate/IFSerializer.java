@@ -25,11 +25,16 @@ import java.awt.Paint;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import javax.xml.transform.Result;
+import javax.xml.transform.stream.StreamResult;
+
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -82,14 +87,61 @@ implements IFConstants, IFPainter, IFDocumentNavigationHandler {
     /** Holds the intermediate format state */
     private IFState state;
 
-    private String currentID = "";
+    /**
+     * The ID last written on the current page. Subclasses writing IDs in another form
+     * have to keep it up to date, so their output and the one of this class stay in sync.
+     */
+    protected String currentID = "";
 
     private IFStructureTreeBuilder structureTreeBuilder;
 
+    private OutputStream pageIndexOutputStream;
+    private IFPageIndex.Builder pageIndexBuilder;
+
     public IFSerializer(IFContext context) {
         super(context);
     }
 
+    /**
+     * Requests a page index of the generated intermediate format file, written to the given
+     * stream at the end of the document. Only output written to a {@link StreamResult} with an
+     * {@link OutputStream} can be indexed. This method has to be called before
+     * {@link #setResult(Result)}. If {@link #supportsPageIndex()} returns false,
+     * {@link #startDocument()} fails.
+     * @param out the stream to write the page index to, not closed
+     * @see IFPageIndex
+     */
+    public void setPageIndexOutputStream(OutputStream out) {
+        this.pageIndexOutputStream = out;
+    }
+
+    /**
+     * Indicates whether a page index can be generated for the output of this serializer.
+     * @return true if {@link #setPageIndexOutputStream(OutputStream)} is supported
+     */
+    public boolean supportsPageIndex() {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setResult(Result result) throws IFException {
+        if (pageIndexOutputStream != null) {
+            if (result instanceof StreamResult
+                    && ((StreamResult) result).getOutputStream() != null) {
+                pageIndexBuilder = new IFPageIndex.Builder(
+                        ((StreamResult) result).getOutputStream());
+                StreamResult indexedResult = new StreamResult(pageIndexBuilder);
+                indexedResult.setSystemId(result.getSystemId());
+                result = indexedResult;
+            } else {
+                throw new IFException(
+                        "A page index can only be generated for output to an OutputStream");
+            }
+        }
+        super.setResult(result);
+    }
+
     /** {@inheritDoc} */
     @Override
     protected String getMainNamespace() {
@@ -174,6 +226,10 @@ implements IFConstants, IFPainter, IFDocumentNavigationHandler {
     /** {@inheritDoc} */
     @Override
     public void startDocument() throws IFException {
+        if (pageIndexOutputStream != null && !supportsPageIndex()) {
+            throw new IFException("A page index can't be generated for " + getMimeType()
+                    + " output");
+        }
         super.startDocument();
         try {
             handler.startDocument();
@@ -250,8 +306,14 @@ implements IFConstants, IFPainter, IFDocumentNavigationHandler {
             handler.endElement(EL_DOCUMENT);
             handler.endDocument();
             finishDocumentNavigation();
+            if (pageIndexBuilder != null) {
+                pageIndexBuilder.flush();
+                pageIndexBuilder.getPageIndex().writeTo(pageIndexOutputStream);
+            }
         } catch (SAXException e) {
             throw new IFException("SAX error in endDocument()", e);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error while writing the page index", ioe);
         }
     }
 
@@ -585,7 +647,7 @@ implements IFConstants, IFPainter, IFDocumentNavigationHandler {
 
     //TODO create a class representing all borders should exist
     //with query methods like this
-    private boolean hasRoundedCorners(BorderProps bpsBefore, BorderProps bpsAfter,
+    boolean hasRoundedCorners(BorderProps bpsBefore, BorderProps bpsAfter,
             BorderProps bpsStart, BorderProps bpsEnd) {
         boolean rtn = false;
 
@@ -20,15 +20,20 @@
 package org.apache.fop.render.intermediate.util;
 
 import java.awt.Dimension;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 
 import javax.xml.transform.Source;
 import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamSource;
 
 import org.apache.xmlgraphics.xmp.Metadata;
 
 import org.apache.fop.render.intermediate.IFDocumentHandler;
 import org.apache.fop.render.intermediate.IFDocumentNavigationHandler;
 import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFPageIndex;
 import org.apache.fop.render.intermediate.IFParser;
 
 /**
@@ -107,6 +112,36 @@ public class IFConcatenator {
                 getTargetHandler().getContext().getUserAgent());
     }
 
+    /**
+     * Appends another intermediate format document to the current output file, like
+     * {@link #appendDocument(Source)}, using the page index of the document to skip its
+     * document trailer without parsing it. The trailer of the first document is still parsed,
+     * since its document-level extensions are transferred.
+     * @param file the input document
+     * @param pageIndex the page index of the input document
+     * @throws TransformerException if an XML-related exception occurs during
+     * @throws IFException if an IF-related error occurs
+     * @throws IOException if the file can't be read or doesn't match the page index
+     */
+    public void appendDocument(File file, IFPageIndex pageIndex)
+            throws TransformerException, IFException, IOException {
+        int pageCount = pageIndex.getPageCount();
+        if (pageCount == 0) {
+            if (inFirstDocument) {
+                //no pages, but the document-level extensions are transferred all the same
+                appendDocument(new StreamSource(file));
+                inFirstDocument = false;
+            }
+            return;
+        }
+        InputStream in = pageIndex.openPages(file, 0, pageCount - 1, inFirstDocument);
+        try {
+            appendDocument(new StreamSource(in, file.toURI().toASCIIString()));
+        } finally {
+            in.close();
+        }
+    }
+
     private class IFPageSequenceFilter extends IFDocumentHandlerProxy {
 
         private boolean inPageSequence;
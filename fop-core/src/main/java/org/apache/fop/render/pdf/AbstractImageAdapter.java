@@ -163,8 +163,7 @@ public abstract class AbstractImageAdapter implements PDFImage {
         PDFICCStream pdfICCStream;
         if (!defaultsRGB) {
             if (cs == null) {
-                pdfICCStream = doc.getFactory().makePDFICCStream();
-                pdfICCStream.setColorSpace(prof, pdfCS);
+                pdfICCStream = doc.getFactory().makePDFICCStream(prof, pdfCS);
                 cs = doc.getFactory().makeICCBasedColorSpace(null, null, pdfICCStream);
             } else {
                 pdfICCStream = cs.getICCStream();
@@ -348,6 +347,12 @@ public abstract class AbstractImageAdapter implements PDFImage {
         return multipleFiltersAllowed;
     }
 
+    /** {@inheritDoc} */
+    public boolean isContentRepeatable() {
+        //a raw stream may only be readable once
+        return image.isCacheable();
+    }
+
     /**
      * Disallows multiple filters.
      */
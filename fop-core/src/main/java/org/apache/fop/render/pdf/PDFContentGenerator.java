@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import org.apache.fop.pdf.PDFColorHandler;
+import org.apache.fop.pdf.PDFContentWriter;
 import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFFilterList;
 import org.apache.fop.pdf.PDFLinearization;
@@ -86,6 +87,9 @@ public class PDFContentGenerator {
             protected void write(StringBuffer code) {
                 currentStream.add(code);
             }
+            protected void write(PDFContentWriter code) {
+                currentStream.getContentWriter().add(code);
+            }
         };
 
         this.currentState = new PDFPaintingState();
@@ -128,6 +132,14 @@ public class PDFContentGenerator {
         return this.currentStream;
     }
 
+    /**
+     * Returns the writer that adds operators and operands to the stream as bytes.
+     * @return the content writer of the PDF stream
+     */
+    public PDFContentWriter getContentWriter() {
+        return this.currentStream.getContentWriter();
+    }
+
     /**
      * Returns the {@link PDFPaintingState} associated with this instance.
      * @return the PDF state
@@ -365,12 +377,11 @@ public class PDFContentGenerator {
      * @param rect the clip rectangle
      */
     public void clipRect(Rectangle rect) {
-        StringBuffer sb = new StringBuffer();
-        sb.append(format(rect.x / 1000f)).append(' ');
-        sb.append(format(rect.y / 1000f)).append(' ');
-        sb.append(format(rect.width / 1000f)).append(' ');
-        sb.append(format(rect.height / 1000f)).append(" re W n\n");
-        add(sb.toString());
+        getContentWriter()
+                .addNumber(rect.x / 1000f).add(' ')
+                .addNumber(rect.y / 1000f).add(' ')
+                .addNumber(rect.width / 1000f).add(' ')
+                .addNumber(rect.height / 1000f).add(" re W n\n");
     }
 
     /**
@@ -397,7 +408,7 @@ public class PDFContentGenerator {
     public void updateLineWidth(float width) {
         if (getState().setLineWidth(width)) {
             //Only write if value has changed WRT the current line width
-            getStream().add(format(width) + " w\n");
+            getContentWriter().addNumber(width).add(" w\n");
         }
     }
 
@@ -407,7 +418,7 @@ public class PDFContentGenerator {
      */
     public void updateCharacterSpacing(float value) {
         if (getState().setCharacterSpacing(value)) {
-            getStream().add(format(value) + " Tc\n");
+            getContentWriter().addNumber(value).add(" Tc\n");
         }
     }
 
@@ -421,7 +432,7 @@ public class PDFContentGenerator {
         assert stream != null;
         StringBuffer sb = new StringBuffer();
         setColor(col, fill, sb);
-        stream.add(sb.toString());
+        stream.add(sb);
     }
 
     /**
@@ -482,11 +493,7 @@ public class PDFContentGenerator {
      */
     public void placeImage(float x, float y, float w, float h, PDFXObject xobj) {
         saveGraphicsState();
-        add(format(w) + " 0 0 "
-                          + format(-h) + " "
-                          + format(x) + " "
-                          + format(y + h)
-                          + " cm\n" + xobj.getName() + " Do\n");
+        placeImage(w, h, x, y + h, xobj, '\n');
         restoreGraphicsState();
     }
 
@@ -513,12 +520,26 @@ public class PDFContentGenerator {
     public void placeImage(float x, float y, float w, float h, PDFXObject xobj,
             String structElemType, int mcid) {
         saveGraphicsState(structElemType, mcid);
-        add(format(w) + " 0 0 "
-                          + format(-h) + " "
-                          + format(x) + " "
-                          + format(y + h)
-                          + " cm\n" + xobj.getName() + " Do\n");
+        placeImage(w, h, x, y + h, xobj, '\n');
         restoreGraphicsStateAccess();
     }
 
+    /**
+     * Writes the "cm" and "Do" operators that place an image.
+     * @param w width for image
+     * @param h height for image
+     * @param x X coordinate
+     * @param top Y coordinate of the top of the image
+     * @param xobj the image XObject
+     * @param separator the character between the operators
+     */
+    void placeImage(float w, float h, float x, float top, PDFXObject xobj, char separator) {
+        getContentWriter()
+                .addNumber(w).add(" 0 0 ")
+                .addNumber(-h).add(' ')
+                .addNumber(x).add(' ')
+                .addNumber(top)
+                .add(" cm").add(separator).add(xobj.getName().toString()).add(" Do\n");
+    }
+
 }
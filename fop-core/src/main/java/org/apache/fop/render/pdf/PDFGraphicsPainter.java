@@ -25,6 +25,7 @@ import java.awt.Rectangle;
 import java.io.IOException;
 
 import org.apache.fop.fo.Constants;
+import org.apache.fop.pdf.PDFContentWriter;
 import org.apache.fop.render.intermediate.ArcToBezierCurveTransformer;
 import org.apache.fop.render.intermediate.BezierCurvePainter;
 import org.apache.fop.render.intermediate.BorderPainter;
@@ -232,15 +233,6 @@ public class PDFGraphicsPainter implements GraphicsPainter, BezierCurvePainter {
         restoreGraphicsState();
     }
 
-    private static String format(int coordinate) {
-        //TODO lose scale?
-        return format(coordinate / 1000f);
-    }
-
-    private static String format(float coordinate) {
-        return PDFContentGenerator.format(coordinate);
-    }
-
     /** {@inheritDoc} */
     public void moveTo(int x, int y) {
         generator.moveTo(x, y);
@@ -309,16 +301,16 @@ public class PDFGraphicsPainter implements GraphicsPainter, BezierCurvePainter {
         }
 
         public PDFContentGeneratorHelper moveTo(int x, int y) {
-            return add("m", format(x), format(y));
+            return args(x, y).add("m");
         }
 
         public PDFContentGeneratorHelper lineTo(int x, int y) {
-            return add("l", format(x), format(y));
+            return args(x, y).add("l");
         }
 
         /** {@inheritDoc} */
         public PDFContentGeneratorHelper cubicBezierTo(int p1x, int p1y, int p2x, int p2y, int p3x, int p3y) {
-            return add("c", format(p1x), format(p1y), format(p2x), format(p2y), format(p3x), format(p3y));
+            return args(p1x, p1y).args(p2x, p2y).args(p3x, p3y).add("c");
         }
 
         public PDFContentGeneratorHelper closePath() {
@@ -343,65 +335,59 @@ public class PDFGraphicsPainter implements GraphicsPainter, BezierCurvePainter {
         }
 
         public PDFContentGeneratorHelper setSolidLine() {
-            generator.add("[] 0 d ");
+            generator.getContentWriter().add("[] 0 d ");
             return this;
         }
 
         public PDFContentGeneratorHelper setRoundCap() {
-            return add("J", "1");
+            generator.getContentWriter().add("1 ");
+            return add("J");
         }
 
         public PDFContentGeneratorHelper strokeLine(float xStart, float yStart, float xEnd, float yEnd) {
-            add("m", xStart, yStart);
-            return addLine("l S", xEnd, yEnd);
+            args(xStart, yStart).add("m");
+            return args(xEnd, yEnd).addLine("l S");
         }
 
         public PDFContentGeneratorHelper fillRect(int xStart, int yStart, int xEnd, int yEnd) {
-            String xS = format(xStart);
-            String xE = format(xEnd);
-            String yS = format(yStart);
-            String yE = format(yEnd);
-            return addLine("m", xS, yS)
-                    .addLine("l", xE, yS)
-                    .addLine("l", xE, yE)
-                    .addLine("l", xS, yE)
+            return args(xStart, yStart).addLine("m")
+                    .args(xEnd, yStart).addLine("l")
+                    .args(xEnd, yEnd).addLine("l")
+                    .args(xStart, yEnd).addLine("l")
                     .addLine("h")
                     .addLine("f");
         }
 
         public PDFContentGeneratorHelper fillRidge(RuleStyle style, int xStart, int yStart, int xEnd,
                 int yEnd, int half) {
-            String xS = format(xStart);
-            String xE = format(xEnd);
-            String yS = format(yStart);
             if (style == RuleStyle.GROOVE) {
-                addLine("m", xS, yS)
-                        .addLine("l", xE, yS)
-                        .addLine("l", xE, format(yStart + half))
-                        .addLine("l", format(xStart + half), format(yStart + half))
-                        .addLine("l", xS, format(yStart + 2 * half));
+                args(xStart, yStart).addLine("m")
+                        .args(xEnd, yStart).addLine("l")
+                        .args(xEnd, yStart + half).addLine("l")
+                        .args(xStart + half, yStart + half).addLine("l")
+                        .args(xStart, yStart + 2 * half).addLine("l");
             } else {
-                addLine("m", xE, yS)
-                        .addLine("l", xE, format(yStart + 2 * half))
-                        .addLine("l", xS, format(yStart + 2 * half))
-                        .addLine("l", xS, format(yStart + half))
-                        .addLine("l", format(xEnd - half), format(yStart + half));
+                args(xEnd, yStart).addLine("m")
+                        .args(xEnd, yStart + 2 * half).addLine("l")
+                        .args(xStart, yStart + 2 * half).addLine("l")
+                        .args(xStart, yStart + half).addLine("l")
+                        .args(xEnd - half, yStart + half).addLine("l");
             }
             return addLine("h").addLine("f");
         }
 
         public PDFContentGeneratorHelper setLineWidth(float width) {
-            return addLine("w", width);
+            generator.getContentWriter().addNumber(width).add(' ');
+            return addLine("w");
         }
 
         public PDFContentGeneratorHelper setDashLine(float first, float... rest) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("[").append(format(first));
+            PDFContentWriter w = generator.getContentWriter();
+            w.add('[').addNumber(first);
             for (float unit : rest) {
-                sb.append(" ").append(format(unit));
+                w.add(' ').addNumber(unit);
             }
-            sb.append("] 0 d ");
-            generator.add(sb.toString());
+            w.add("] 0 d ");
             return this;
         }
 
@@ -417,74 +403,39 @@ public class PDFGraphicsPainter implements GraphicsPainter, BezierCurvePainter {
 
         public PDFContentGeneratorHelper transformFloatCoordinates(float a, float b, float c, float d,
                 float e, float f) {
-            return add("cm", a, b, c, d, e, f);
+            return args(a, b).args(c, d).args(e, f).add("cm");
         }
 
         public PDFContentGeneratorHelper transformCoordinates(int a, int b, int c, int d, int e, int f) {
-            return add("cm", format(a), format(b), format(c), format(d), format(e), format(f));
+            return args(a, b).args(c, d).args(e, f).add("cm");
         }
 
         public PDFContentGeneratorHelper transformCoordinatesLine(int a, int b, int c, int d, int e, int f) {
-            return addLine("cm", format(a), format(b), format(c), format(d), format(e), format(f));
+            return args(a, b).args(c, d).args(e, f).addLine("cm");
         }
 
         public PDFContentGeneratorHelper add(String op) {
             assert op.equals(op.trim());
-            generator.add(op + " ");
-            return this;
-        }
-
-        private PDFContentGeneratorHelper add(String op, String... args) {
-            add(createArgs(args), op);
+            generator.getContentWriter().add(op).add(' ');
             return this;
         }
 
         public PDFContentGeneratorHelper addLine(String op) {
             assert op.equals(op.trim());
-            generator.add(op + "\n");
-            return this;
-        }
-
-        public PDFContentGeneratorHelper addLine(String op, String... args) {
-            addLine(createArgs(args), op);
+            generator.getContentWriter().add(op).add('\n');
             return this;
         }
 
-        private PDFContentGeneratorHelper add(String op, float... args) {
-            add(createArgs(args), op);
-            return this;
+        /** Writes two operands given in millipoints, each followed by a space. */
+        private PDFContentGeneratorHelper args(int a, int b) {
+            return args(a / 1000f, b / 1000f);
         }
 
-        public PDFContentGeneratorHelper addLine(String op, float... args) {
-            addLine(createArgs(args), op);
+        /** Writes two operands, each followed by a space. */
+        private PDFContentGeneratorHelper args(float a, float b) {
+            generator.getContentWriter().addNumber(a).add(' ').addNumber(b).add(' ');
             return this;
         }
-
-        private StringBuilder createArgs(float... args) {
-            StringBuilder sb = new StringBuilder();
-            for (float arg : args) {
-                sb.append(format(arg)).append(" ");
-            }
-            return sb;
-        }
-
-        private StringBuilder createArgs(String... args) {
-            StringBuilder sb = new StringBuilder();
-            for (String arg : args) {
-                sb.append(arg).append(" ");
-            }
-            return sb;
-        }
-
-        private void add(StringBuilder args, String op) {
-            assert op.equals(op.trim());
-            generator.add(args.append(op).append(" ").toString());
-        }
-
-        private void addLine(StringBuilder args, String op) {
-            assert op.equals(op.trim());
-            generator.add(args.append(op).append("\n").toString());
-        }
     }
 
 }
@@ -46,6 +46,7 @@ import org.apache.fop.fonts.LazyFont;
 import org.apache.fop.fonts.SingleByteFont;
 import org.apache.fop.fonts.Typeface;
 import org.apache.fop.pdf.PDFArray;
+import org.apache.fop.pdf.PDFContentWriter;
 import org.apache.fop.pdf.PDFDictionary;
 import org.apache.fop.pdf.PDFName;
 import org.apache.fop.pdf.PDFNumber;
@@ -55,11 +56,12 @@ import org.apache.fop.pdf.PDFXObject;
 import org.apache.fop.render.RenderingContext;
 import org.apache.fop.render.intermediate.AbstractIFPainter;
 import org.apache.fop.render.intermediate.BorderPainter;
+import org.apache.fop.render.intermediate.GlyphRun;
 import org.apache.fop.render.intermediate.GraphicsPainter;
 import org.apache.fop.render.intermediate.IFContext;
 import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFGlyphRunPainter;
 import org.apache.fop.render.intermediate.IFState;
-import org.apache.fop.render.intermediate.IFUtil;
 import org.apache.fop.render.pdf.PDFLogicalStructureHandler.MarkedContentInfo;
 import org.apache.fop.traits.BorderProps;
 import org.apache.fop.traits.Direction;
@@ -69,7 +71,8 @@ import org.apache.fop.util.CharUtilities;
 /**
  * IFPainter implementation that produces PDF.
  */
-public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
+public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler>
+        implements IFGlyphRunPainter {
 
     /** The current content generator */
     protected PDFContentGenerator generator;
@@ -257,11 +260,8 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
      */
     private void placeImage(Rectangle rect, PDFXObject xobj) {
         generator.saveGraphicsState();
-        generator.add(format(rect.width) + " 0 0 "
-                          + format(-rect.height) + " "
-                          + format(rect.x) + " "
-                          + format(rect.y + rect.height)
-                          + " cm " + xobj.getName() + " Do\n");
+        generator.placeImage(rect.width / 1000f, rect.height / 1000f, rect.x / 1000f,
+                (rect.y + rect.height) / 1000f, xobj, ' ');
         generator.restoreGraphicsState();
     }
     /**
@@ -271,11 +271,8 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
      */
     private void placeImageAccess(Rectangle rect, PDFXObject xobj) {
         generator.saveGraphicsState(imageMCI.tag, imageMCI.mcid);
-        generator.add(format(rect.width) + " 0 0 "
-                          + format(-rect.height) + " "
-                          + format(rect.x) + " "
-                          + format(rect.y + rect.height)
-                          + " cm " + xobj.getName() + " Do\n");
+        generator.placeImage(rect.width / 1000f, rect.height / 1000f, rect.x / 1000f,
+                (rect.y + rect.height) / 1000f, xobj, ' ');
         generator.restoreGraphicsStateAccess();
     }
 
@@ -347,20 +344,19 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
                     throw new UnsupportedOperationException("Non-Color paints NYI");
                 }
             }
-            StringBuffer sb = new StringBuffer();
-            sb.append(format(rect.x)).append(' ');
-            sb.append(format(rect.y)).append(' ');
-            sb.append(format(rect.width)).append(' ');
-            sb.append(format(rect.height)).append(" re");
+            PDFContentWriter w = generator.getContentWriter();
+            w.addNumber(rect.x / 1000f).add(' ');
+            w.addNumber(rect.y / 1000f).add(' ');
+            w.addNumber(rect.width / 1000f).add(' ');
+            w.addNumber(rect.height / 1000f).add(" re");
             if (fill != null) {
-                sb.append(" f");
+                w.add(" f");
             }
             /* Removed from method signature as it is currently not used
             if (stroke != null) {
-                sb.append(" S");
+                w.add(" S");
             }*/
-            sb.append('\n');
-            generator.add(sb.toString());
+            w.add('\n');
             if (accessEnabled && getUserAgent().isPdfUAEnabled()) {
                 generator.endMarkedContentSequence();
             }
@@ -416,6 +412,13 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
     public void drawText(int x, int y, int letterSpacing, int wordSpacing, int[][] dp,
             String text)
             throws IFException {
+        drawText(x, y, letterSpacing, wordSpacing, GlyphRun.fromDP(text, dp));
+    }
+
+    /** {@inheritDoc} */
+    public void drawText(int x, int y, int letterSpacing, int wordSpacing, GlyphRun run)
+            throws IFException {
+        String text = run.getText();
         if (accessEnabled) {
             PDFStructElem structElem = (PDFStructElem) getContext().getStructureTreeElement();
             languageAvailabilityChecker.checkLanguageAvailability(text);
@@ -432,17 +435,16 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
         FontTriplet triplet = new FontTriplet(
                 state.getFontFamily(), state.getFontStyle(), state.getFontWeight());
 
-        if ((dp == null) || IFUtil.isDPOnlyDX(dp)) {
-            drawTextWithDX(x, y, text, triplet, letterSpacing,
-                             wordSpacing, IFUtil.convertDPToDX(dp));
+        if (run.isDXOnly()) {
+            drawTextWithDX(x, y, run, triplet, letterSpacing, wordSpacing);
         } else {
-            drawTextWithDP(x, y, text, triplet, letterSpacing,
-                             wordSpacing, dp);
+            drawTextWithDP(x, y, run, triplet, letterSpacing, wordSpacing);
         }
     }
 
-    private void drawTextWithDX(int x, int y, String text, FontTriplet triplet,
-            int letterSpacing, int wordSpacing, int[] dx) throws IFException {
+    private void drawTextWithDX(int x, int y, GlyphRun run, FontTriplet triplet,
+            int letterSpacing, int wordSpacing) throws IFException {
+        String text = run.getText();
         //TODO Ignored: state.getFontVariant()
         //TODO Opportunity for font caching if font state is more heavily used
         String fontKey = getFontKey(triplet);
@@ -473,10 +475,9 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
 
         textutil.writeTextMatrix(new AffineTransform(1, 0, shear, -1, x / 1000f, y / 1000f));
         int l = text.length();
-        int dxl = (dx != null ? dx.length : 0);
 
-        if (dx != null && dxl > 0 && dx[0] != 0) {
-            textutil.adjustGlyphTJ(-dx[0] / fontSize);
+        if (run.getXPlacement(0) != 0) {
+            textutil.adjustGlyphTJ(-run.getXPlacement(0) / fontSize);
         }
         for (int i = 0; i < l; i++) {
             int orgChar = text.charAt(i);
@@ -510,9 +511,7 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
             }
             textutil.writeTJMappedCodePoint(ch);
 
-            if (dx != null && i < dxl - 1) {
-                glyphAdjust += dx[i + 1];
-            }
+            glyphAdjust += run.getXPlacement(i + 1);
 
             if (glyphAdjust != 0) {
                 textutil.adjustGlyphTJ(-glyphAdjust / fontSize);
@@ -525,13 +524,11 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
         }
     }
 
-    private static int[] paZero = new int[4];
-
-    private void drawTextWithDP(int x, int y, String text, FontTriplet triplet,
-                                  int letterSpacing, int wordSpacing, int[][] dp) {
-        assert text != null;
+    private void drawTextWithDP(int x, int y, GlyphRun run, FontTriplet triplet,
+                                  int letterSpacing, int wordSpacing) {
+        assert run != null;
         assert triplet != null;
-        assert dp != null;
+        String          text            = run.getText();
         String          fk              = getFontInfo().getInternalFontKey(triplet);
         Typeface        tf              = getTypeface(fk);
         if (tf.isMultiByte() || tf.isCID()) {
@@ -564,17 +561,16 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
             generator.updateCharacterSpacing(letterSpacing / 1000f);
             for (int i = 0, n = text.length(); i < n; i++) {
                 char    ch              = text.charAt(i);
-                int[]   pa              = ((i >= dp.length) || (dp[i] == null)) ? paZero : dp[i];
-                double  xo              = xc + pa[0];
-                double  yo              = yc + pa[1];
+                double  xo              = xc + run.getXPlacement(i);
+                double  yo              = yc + run.getYPlacement(i);
                 double  xa              = f.getCharWidth(ch) + maybeWordOffsetX(wox, ch, null);
                 double  ya              = 0;
                 double  xd              = (xo - xoLast) / 1000f;
                 double  yd              = (yo - yoLast) / 1000f;
                 tu.writeTd(xd, yd);
                 tu.writeTj(f.mapChar(ch), tf.isMultiByte(), true);
-                xc += xa + pa[2];
-                yc += ya + pa[3];
+                xc += xa + run.getXAdvance(i);
+                yc += ya + run.getYAdvance(i);
                 xoLast = xo;
                 yoLast = yo;
             }
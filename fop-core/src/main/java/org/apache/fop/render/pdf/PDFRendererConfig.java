@@ -55,6 +55,8 @@ import static org.apache.fop.render.pdf.PDFEncryptionOption.NO_PRINT;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.NO_PRINTHQ;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.OWNER_PASSWORD;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.USER_PASSWORD;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_LEVEL;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
@@ -64,6 +66,7 @@ import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_VT_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAMING;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
 
 /**
@@ -150,6 +153,9 @@ public final class PDFRendererConfig implements RendererConfig {
                 parseAndPut(DISABLE_SRGB_COLORSPACE, cfg);
                 parseAndPut(MERGE_FONTS, cfg);
                 parseAndPut(LINEARIZATION, cfg);
+                parseAndPut(STREAMING, cfg);
+                parseAndPut(COMPRESSION_THREADS, cfg);
+                buildCompressionLevelsFromConfiguration(cfg);
 
                 parseAndPut(VERSION, cfg);
             } catch (ConfigurationException e) {
@@ -214,6 +220,28 @@ public final class PDFRendererConfig implements RendererConfig {
             put(FILTER_LIST, filterMap);
         }
 
+        private void buildCompressionLevelsFromConfiguration(Configuration cfg)
+                throws ConfigurationException {
+            Configuration[] levels = cfg.getChildren(COMPRESSION_LEVEL.getName());
+            if (levels.length == 0) {
+                return;
+            }
+            Map<String, Integer> levelMap = new HashMap<String, Integer>();
+            for (Configuration level : levels) {
+                String type = level.getAttribute("type", PDFFilterList.DEFAULT_FILTER);
+                int value = level.getValueAsInteger();
+                if (value < 0 || value > 9) {
+                    throw new ConfigurationException("Invalid compression level for type '"
+                            + type + "': " + value);
+                }
+                if (levelMap.put(type, value) != null) {
+                    throw new ConfigurationException("A compression-level of type '"
+                            + type + "' has already been defined");
+                }
+            }
+            put(COMPRESSION_LEVEL, levelMap);
+        }
+
         private String parseConfig(Configuration cfg, RendererConfigOption option) {
             Configuration child = cfg.getChild(option.getName());
             String value = child.getValue(null);
@@ -21,9 +21,12 @@ package org.apache.fop.render.pdf;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.Map;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.pdf.PDFAMode;
+import org.apache.fop.pdf.PDFFilterList;
 import org.apache.fop.pdf.PDFUAMode;
 import org.apache.fop.pdf.PDFVTMode;
 import org.apache.fop.pdf.PDFXMode;
@@ -93,6 +96,36 @@ public enum PDFRendererOption implements RendererConfigOption {
             return Boolean.valueOf(value);
         }
     },
+    /**
+     * Rendering Options key for strict streaming: finished pages are released immediately
+     * instead of being kept until the end of the document, default: false
+     */
+    STREAMING("streaming", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
+    /**
+     * Rendering Options key for the number of threads compressing streams while the document
+     * is built, default: 0 (streams are compressed when they are written)
+     */
+    COMPRESSION_THREADS("compression-threads", 0) {
+        @Override
+        Integer deserialize(String value) {
+            return Integer.valueOf(value);
+        }
+    },
+    /**
+     * Rendering Options key for the flate compression levels (0-9) per stream type, datatype:
+     * Map of filter list type to Integer. A single value applies to all stream types.
+     */
+    COMPRESSION_LEVEL("compression-level", null) {
+        @Override
+        Map<String, Integer> deserialize(String value) {
+            return Collections.singletonMap(PDFFilterList.DEFAULT_FILTER, Integer.valueOf(value));
+        }
+    },
     /** Rendering Options key for the ICC profile for the output intent. */
     OUTPUT_PROFILE("output-profile") {
         @Override
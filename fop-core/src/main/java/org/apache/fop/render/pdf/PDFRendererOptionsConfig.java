@@ -31,6 +31,8 @@ import org.apache.fop.pdf.PDFVTMode;
 import org.apache.fop.pdf.PDFXMode;
 import org.apache.fop.pdf.Version;
 
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_LEVEL;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
@@ -40,6 +42,7 @@ import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_VT_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAMING;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
 
 /**
@@ -142,4 +145,16 @@ public final class PDFRendererOptionsConfig {
     public Boolean getLinearizationEnabled() {
         return (Boolean)properties.get(LINEARIZATION);
     }
+
+    public Boolean getStreamingEnabled() {
+        return (Boolean)properties.get(STREAMING);
+    }
+
+    public Integer getCompressionThreads() {
+        return (Integer)properties.get(COMPRESSION_THREADS);
+    }
+
+    public Map<String, Integer> getCompressionLevels() {
+        return (Map<String, Integer>) properties.get(COMPRESSION_LEVEL);
+    }
 }
@@ -196,14 +196,13 @@ class PDFRenderingUtil {
         InputStream in = null;
         URI outputProfileUri = rendererConfig.getOutputProfileURI();
         if (outputProfileUri != null) {
-            this.outputProfile = pdfDoc.getFactory().makePDFICCStream();
             in = userAgent.getResourceResolver().getResource(rendererConfig.getOutputProfileURI());
             try {
                 profile = ColorProfileUtil.getICC_Profile(in);
             } finally {
                 IOUtils.closeQuietly(in);
             }
-            this.outputProfile.setColorSpace(profile, null);
+            this.outputProfile = pdfDoc.getFactory().makePDFICCStream(profile, null);
         } else {
             //Fall back to sRGB profile
             outputProfile = sRGBColorSpace.getICCStream();
@@ -621,6 +620,15 @@ class PDFRenderingUtil {
         this.pdfDoc.enableAccessibility(userAgent.isAccessibilityEnabled());
         pdfDoc.setMergeFontsEnabled(rendererConfig.getMergeFontsEnabled());
         pdfDoc.setLinearizationEnabled(rendererConfig.getLinearizationEnabled());
+        pdfDoc.setStreamingEnabled(rendererConfig.getStreamingEnabled());
+        pdfDoc.setCompressionThreads(rendererConfig.getCompressionThreads());
+        pdfDoc.setStreamEncoderPool(userAgent.getStreamEncoderPool());
+        Map<String, Integer> compressionLevels = rendererConfig.getCompressionLevels();
+        if (compressionLevels != null) {
+            for (Map.Entry<String, Integer> level : compressionLevels.entrySet()) {
+                pdfDoc.setCompressionLevel(level.getKey(), level.getValue());
+            }
+        }
 
         return this.pdfDoc;
     }
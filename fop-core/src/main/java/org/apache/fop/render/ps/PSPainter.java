@@ -49,8 +49,10 @@ import org.apache.fop.fonts.Typeface;
 import org.apache.fop.render.RenderingContext;
 import org.apache.fop.render.intermediate.AbstractIFPainter;
 import org.apache.fop.render.intermediate.BorderPainter;
+import org.apache.fop.render.intermediate.GlyphRun;
 import org.apache.fop.render.intermediate.GraphicsPainter;
 import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFGlyphRunPainter;
 import org.apache.fop.render.intermediate.IFState;
 import org.apache.fop.traits.BorderProps;
 import org.apache.fop.traits.RuleStyle;
@@ -60,7 +62,7 @@ import org.apache.fop.util.HexEncoder;
 /**
  * IFPainter implementation that produces PostScript.
  */
-public class PSPainter extends AbstractIFPainter<PSDocumentHandler> {
+public class PSPainter extends AbstractIFPainter<PSDocumentHandler> implements IFGlyphRunPainter {
 
     /** logging instance */
     private static Log log = LogFactory.getLog(PSPainter.class);
@@ -352,6 +354,13 @@ public class PSPainter extends AbstractIFPainter<PSDocumentHandler> {
     /** {@inheritDoc} */
     public void drawText(int x, int y, int letterSpacing, int wordSpacing,
             int[][] dp, String text) throws IFException {
+        drawText(x, y, letterSpacing, wordSpacing, GlyphRun.fromDP(text, dp));
+    }
+
+    /** {@inheritDoc} */
+    public void drawText(int x, int y, int letterSpacing, int wordSpacing, GlyphRun run)
+            throws IFException {
+        String text = run.getText();
         try {
             //Do not draw text if font-size is 0 as it creates an invalid PostScript file
             if (state.getFontSize() == 0) {
@@ -379,10 +388,8 @@ public class PSPainter extends AbstractIFPainter<PSDocumentHandler> {
             boolean otf = tf instanceof MultiByteFont && ((MultiByteFont)tf).isOTFFile();
             useFont(fontKey, sizeMillipoints, otf);
 
-            if (dp != null && dp[0] != null) {
-                x += dp[0][0];
-                y -= dp[0][1];
-            }
+            x += run.getXPlacement(0);
+            y -= run.getYPlacement(0);
             generator.writeln("1 0 0 -1 " + formatMptAsPt(generator, x)
                     + " " + formatMptAsPt(generator, y) + " Tm");
 
@@ -398,7 +405,7 @@ public class PSPainter extends AbstractIFPainter<PSDocumentHandler> {
                     if (currentEncoding != encoding) {
                         if (i > 0) {
                             writeText(text, start, i - start,
-                                    letterSpacing, wordSpacing, dp, font, tf, false);
+                                    letterSpacing, wordSpacing, run, font, tf, false);
                         }
                         if (encoding == 0) {
                             useFont(fontKey, sizeMillipoints, false);
@@ -423,7 +430,7 @@ public class PSPainter extends AbstractIFPainter<PSDocumentHandler> {
                         int encoding = newGlyphIdx / 256;
                         if (encoding != curEncoding) {
                             if (i != 0) {
-                                writeText(text, start, i - start, letterSpacing, wordSpacing, dp, font, tf,
+                                writeText(text, start, i - start, letterSpacing, wordSpacing, run, font, tf,
                                         true);
                                 start = i;
                             }
@@ -435,7 +442,7 @@ public class PSPainter extends AbstractIFPainter<PSDocumentHandler> {
                     useFont(fontKey, sizeMillipoints, false);
                 }
             }
-            writeText(text, start, textLen - start, letterSpacing, wordSpacing, dp, font, tf,
+            writeText(text, start, textLen - start, letterSpacing, wordSpacing, run, font, tf,
                     tf instanceof MultiByteFont);
         } catch (IOException ioe) {
             throw new IFException("I/O error in drawText()", ioe);
@@ -443,7 +450,7 @@ public class PSPainter extends AbstractIFPainter<PSDocumentHandler> {
     }
 
     private void writeText(String text, int start, int len,
-            int letterSpacing, int wordSpacing, int[][] dp,
+            int letterSpacing, int wordSpacing, GlyphRun run,
             Font font, Typeface tf, boolean multiByte) throws IOException {
         PSGenerator generator = getGenerator();
         int end = start + len;
@@ -482,16 +489,12 @@ public class PSPainter extends AbstractIFPainter<PSDocumentHandler> {
                 ch = font.mapCodePoint(orgChar);
             }
 
-            if (dp != null && i < dp.length && dp[i] != null) {
-                // get x advancement adjust
-                xGlyphAdjust -= dp[i][2] - dp[i][0];
-                yGlyphAdjust += dp[i][3] - dp[i][1];
-            }
-            if (dp != null && i < dp.length - 1 && dp[i + 1] != null) {
-                // get x placement adjust for next glyph
-                xGlyphAdjust -= dp[i + 1][0];
-                yGlyphAdjust += dp[i + 1][1];
-            }
+            // get x advancement adjust
+            xGlyphAdjust -= run.getXAdvance(i) - run.getXPlacement(i);
+            yGlyphAdjust += run.getYAdvance(i) - run.getYPlacement(i);
+            // get x placement adjust for next glyph
+            xGlyphAdjust -= run.getXPlacement(i + 1);
+            yGlyphAdjust += run.getYPlacement(i + 1);
             if (!multiByte || isOTF) {
                 char codepoint = (char)(ch % 256);
                 if (isOTF) {
@@ -65,16 +65,21 @@ public class FopPrintServlet extends FopServlet {
     protected void render(Source src, Transformer transformer, HttpServletResponse response)
             throws FOPException, TransformerException, IOException {
 
-        FOUserAgent foUserAgent = getFOUserAgent();
+        acquireRenderingPermit();
+        try {
+            FOUserAgent foUserAgent = getFOUserAgent();
 
-        //Setup FOP
-        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_PRINT, foUserAgent);
+            //Setup FOP
+            Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_PRINT, foUserAgent);
 
-        //Make sure the XSL transformation's result is piped through to FOP
-        Result res = new SAXResult(fop.getDefaultHandler());
+            //Make sure the XSL transformation's result is piped through to FOP
+            Result res = new SAXResult(fop.getDefaultHandler());
 
-        //Start the transformation and rendering process
-        transformer.transform(src, res);
+            //Start the transformation and rendering process
+            transformer.transform(src, res);
+        } finally {
+            releaseRenderingPermit();
+        }
 
         //Return the result
         reportOK(response);
@@ -23,8 +23,11 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.concurrent.Semaphore;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -32,6 +35,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -70,7 +74,16 @@ import org.apache.fop.apps.MimeConstants;
  * <br>
  * For this to work with Internet Explorer, you might need to append "ext=.pdf"
  * to the URL.
- * (todo) Ev. add caching mechanism for Templates objects
+ * <br>
+ * Servlet init params are:
+ * <ul>
+ *   <li>templates-cache-size: the number of compiled XSLT stylesheets kept (default: 16)</li>
+ *   <li>streaming: if "true", the PDF is written directly to the response instead of being
+ *       buffered in memory first (default: false). The response then has no Content-Length
+ *       and a rendering error can no longer be reported once output has started.</li>
+ *   <li>max-concurrent-renderings: the maximum number of documents rendered at the same
+ *       time, further requests wait for a running one to finish (default: unlimited)</li>
+ * </ul>
  */
 public class FopServlet extends HttpServlet {
 
@@ -83,12 +96,28 @@ public class FopServlet extends HttpServlet {
     /** Name of the parameter used for the XSLT file */
     protected static final String XSLT_REQUEST_PARAM = "xslt";
 
+    /** Name of the init parameter for the size of the stylesheet cache */
+    protected static final String TEMPLATES_CACHE_SIZE_INIT_PARAM = "templates-cache-size";
+    /** Name of the init parameter enabling streaming of the output */
+    protected static final String STREAMING_INIT_PARAM = "streaming";
+    /** Name of the init parameter for the maximum number of concurrent renderings */
+    protected static final String MAX_CONCURRENT_RENDERINGS_INIT_PARAM
+            = "max-concurrent-renderings";
+
+    private static final int DEFAULT_TEMPLATES_CACHE_SIZE = 16;
+
     /** The TransformerFactory used to create Transformer instances */
     protected TransformerFactory transFactory;
     /** The FopFactory used to create Fop instances */
     protected FopFactory fopFactory;
     /** URIResolver for use by this servlet */
     protected transient URIResolver uriResolver;
+    /** The cache of compiled XSLT stylesheets */
+    protected transient TemplatesCache templatesCache;
+    /** true if the output is written directly to the response */
+    protected boolean streaming;
+    /** Limits the number of concurrent renderings, null if unlimited */
+    private transient Semaphore renderingPermits;
 
     /**
      * {@inheritDoc}
@@ -99,6 +128,13 @@ public class FopServlet extends HttpServlet {
         transFactory.setAttribute("http://javax.xml.XMLConstants/property/accessExternalDTD", "");
         transFactory.setAttribute("http://javax.xml.XMLConstants/property/accessExternalStylesheet", "");
         this.transFactory.setURIResolver(this.uriResolver);
+        this.templatesCache = new TemplatesCache(
+                getIntInitParameter(TEMPLATES_CACHE_SIZE_INIT_PARAM, DEFAULT_TEMPLATES_CACHE_SIZE));
+        this.streaming = Boolean.valueOf(getInitParameter(STREAMING_INIT_PARAM)).booleanValue();
+        int maxConcurrentRenderings = getIntInitParameter(MAX_CONCURRENT_RENDERINGS_INIT_PARAM, 0);
+        if (maxConcurrentRenderings > 0) {
+            this.renderingPermits = new Semaphore(maxConcurrentRenderings, true);
+        }
         //Configure FopFactory as desired
         // TODO: Double check this behaves properly!!
         ResourceResolver resolver = new ResourceResolver() {
@@ -116,6 +152,18 @@ public class FopServlet extends HttpServlet {
         fopFactory = builder.build();
     }
 
+    private int getIntInitParameter(String name, int defaultValue) throws ServletException {
+        String value = getInitParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException nfe) {
+            throw new ServletException("Invalid value for init parameter " + name + ": " + value);
+        }
+    }
+
     /**
      * This method is called right after the FopFactory is instantiated and can be overridden
      * by subclasses to perform additional configuration.
@@ -221,16 +269,59 @@ public class FopServlet extends HttpServlet {
 
         //Setup sources
         Source xmlSrc = convertString2Source(xml);
-        Source xsltSrc = convertString2Source(xslt);
 
         //Setup the XSL transformation
-        Transformer transformer = this.transFactory.newTransformer(xsltSrc);
+        Transformer transformer = getTemplates(xslt).newTransformer();
         transformer.setURIResolver(this.uriResolver);
 
         //Start transformation and rendering process
         render(xmlSrc, transformer, response);
     }
 
+    /**
+     * Returns the compiled stylesheet for the given XSLT parameter, compiling it only if it
+     * isn't cached yet or has been modified since it was compiled.
+     * @param xslt the XSLT file
+     * @return the compiled stylesheet
+     * @throws TransformerException if the stylesheet cannot be compiled
+     */
+    protected Templates getTemplates(String xslt) throws TransformerException {
+        long lastModified = getLastModified(xslt);
+        Templates templates = templatesCache.get(xslt, lastModified);
+        if (templates == null) {
+            templates = this.transFactory.newTemplates(convertString2Source(xslt));
+            templatesCache.put(xslt, lastModified, templates);
+        }
+        return templates;
+    }
+
+    /**
+     * Determines the modification time of a file given as a request parameter without opening
+     * it.
+     * @param param a String parameter
+     * @return the modification time, or 0 if it cannot be determined
+     */
+    protected long getLastModified(String param) {
+        File file = null;
+        if (param.startsWith(ServletContextURIResolver.SERVLET_CONTEXT_PROTOCOL)) {
+            String path = param.substring(
+                    ServletContextURIResolver.SERVLET_CONTEXT_PROTOCOL.length());
+            try {
+                URL url = getServletContext().getResource(path);
+                if (url != null && "file".equals(url.getProtocol())) {
+                    file = new File(url.toURI());
+                }
+            } catch (MalformedURLException mfue) {
+                //unknown
+            } catch (URISyntaxException use) {
+                //unknown
+            }
+        } else {
+            file = new File(param);
+        }
+        return file != null ? file.lastModified() : 0;
+    }
+
     /**
      * Renders an input file (XML or XSL-FO) into a PDF file. It uses the JAXP
      * transformer given to optionally transform the input document to XSL-FO.
@@ -249,22 +340,62 @@ public class FopServlet extends HttpServlet {
     protected void render(Source src, Transformer transformer, HttpServletResponse response)
                 throws FOPException, TransformerException, IOException {
 
-        FOUserAgent foUserAgent = getFOUserAgent();
+        acquireRenderingPermit();
+        try {
+            FOUserAgent foUserAgent = getFOUserAgent();
+
+            if (streaming) {
+                //Send the result straight to the client
+                response.setContentType("application/pdf");
+                OutputStream out = response.getOutputStream();
+                Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, foUserAgent, out);
+                transformer.transform(src, new SAXResult(fop.getDefaultHandler()));
+                out.flush();
+                return;
+            }
+
+            //Setup output
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
 
-        //Setup output
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+            //Setup FOP
+            Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, foUserAgent, out);
 
-        //Setup FOP
-        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, foUserAgent, out);
+            //Make sure the XSL transformation's result is piped through to FOP
+            Result res = new SAXResult(fop.getDefaultHandler());
 
-        //Make sure the XSL transformation's result is piped through to FOP
-        Result res = new SAXResult(fop.getDefaultHandler());
+            //Start the transformation and rendering process
+            transformer.transform(src, res);
 
-        //Start the transformation and rendering process
-        transformer.transform(src, res);
+            //Return the result
+            sendPDF(out.toByteArray(), response);
+        } finally {
+            releaseRenderingPermit();
+        }
+    }
 
-        //Return the result
-        sendPDF(out.toByteArray(), response);
+    /**
+     * Waits until a document may be rendered if the number of concurrent renderings is
+     * limited. Each call must be followed by a call to {@link #releaseRenderingPermit()}.
+     * @throws FOPException if the thread is interrupted while waiting
+     */
+    protected void acquireRenderingPermit() throws FOPException {
+        if (renderingPermits != null) {
+            try {
+                renderingPermits.acquire();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new FOPException("Interrupted while waiting to render", ie);
+            }
+        }
+    }
+
+    /**
+     * Releases the permit obtained by {@link #acquireRenderingPermit()}.
+     */
+    protected void releaseRenderingPermit() {
+        if (renderingPermits != null) {
+            renderingPermits.release();
+        }
     }
 
     /** @return a new FOUserAgent for FOP */
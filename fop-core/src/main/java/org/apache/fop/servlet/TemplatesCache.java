@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.servlet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.transform.Templates;
+
+/**
+ * A bounded cache of compiled stylesheets, keyed by the stylesheet's URI. Each entry remembers
+ * the modification time of the stylesheet it was compiled from, so a changed stylesheet is
+ * compiled again. When the cache is full, the least recently used stylesheet is evicted.
+ * {@link Templates} objects are thread-safe, so cached instances can be used by concurrent
+ * requests.
+ */
+public class TemplatesCache {
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum number of stylesheets kept
+     */
+    public TemplatesCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns a cached stylesheet.
+     * @param uri the URI of the stylesheet
+     * @param lastModified the current modification time of the stylesheet
+     * @return the compiled stylesheet, or null if it is not cached or has been compiled from
+     *          an older version of the stylesheet
+     */
+    public synchronized Templates get(String uri, long lastModified) {
+        Entry entry = entries.get(uri);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.lastModified != lastModified) {
+            entries.remove(uri);
+            return null;
+        }
+        return entry.templates;
+    }
+
+    /**
+     * Adds a compiled stylesheet to the cache.
+     * @param uri the URI of the stylesheet
+     * @param lastModified the modification time of the stylesheet it was compiled from
+     * @param templates the compiled stylesheet
+     */
+    public synchronized void put(String uri, long lastModified, Templates templates) {
+        entries.put(uri, new Entry(templates, lastModified));
+    }
+
+    /** @return the number of cached stylesheets */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Removes all stylesheets from the cache. */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+        private final Templates templates;
+        private final long lastModified;
+
+        Entry(Templates templates, long lastModified) {
+            this.templates = templates;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -78,6 +78,7 @@ import org.apache.fop.pdf.PDFAnnotList;
 import org.apache.fop.pdf.PDFColor;
 import org.apache.fop.pdf.PDFColorHandler;
 import org.apache.fop.pdf.PDFConformanceException;
+import org.apache.fop.pdf.PDFContentWriter;
 import org.apache.fop.pdf.PDFDeviceColorSpace;
 import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFFunction;
@@ -170,6 +171,9 @@ public class PDFGraphics2D extends AbstractGraphics2D implements NativeImageHand
      */
     protected StringWriter currentStream = new StringWriter();
 
+    /** scratch buffer for formatting path operators */
+    private PDFContentWriter operators;
+
     /**
      * the current (internal) font name
      */
@@ -374,12 +378,26 @@ public class PDFGraphics2D extends AbstractGraphics2D implements NativeImageHand
     }*/
 
     private void concatMatrix(double[] matrix) {
-        currentStream.write(PDFNumber.doubleOut(matrix[0], DEC) + " "
-                + PDFNumber.doubleOut(matrix[1], DEC) + " "
-                + PDFNumber.doubleOut(matrix[2], DEC) + " "
-                + PDFNumber.doubleOut(matrix[3], DEC) + " "
-                + PDFNumber.doubleOut(matrix[4], DEC) + " "
-                + PDFNumber.doubleOut(matrix[5], DEC) + " cm\n");
+        PDFContentWriter w = beginOperator();
+        w.addNumber(matrix[0], DEC).add(' ');
+        w.addNumber(matrix[1], DEC).add(' ');
+        w.addNumber(matrix[2], DEC).add(' ');
+        w.addNumber(matrix[3], DEC).add(' ');
+        w.addNumber(matrix[4], DEC).add(' ');
+        w.addNumber(matrix[5], DEC).add(" cm\n");
+        endOperator();
+    }
+
+    private PDFContentWriter beginOperator() {
+        if (operators == null) {
+            operators = new PDFContentWriter();
+        }
+        operators.reset();
+        return operators;
+    }
+
+    private void endOperator() {
+        operators.writeTo(currentStream.getBuffer());
     }
 
     private void concatMatrix(AffineTransform transform) {
@@ -1576,10 +1594,12 @@ public class PDFGraphics2D extends AbstractGraphics2D implements NativeImageHand
 
         if (s instanceof Rectangle2D) {
             Rectangle2D rect = (Rectangle2D)s;
-            currentStream.write(PDFNumber.doubleOut(rect.getMinX(), DEC) + " "
-                    + PDFNumber.doubleOut(rect.getMinY(), DEC) + " ");
-            currentStream.write(PDFNumber.doubleOut(rect.getWidth(), DEC) + " "
-                    + PDFNumber.doubleOut(rect.getHeight(), DEC) + " re ");
+            PDFContentWriter w = beginOperator();
+            w.addNumber(rect.getMinX(), DEC).add(' ');
+            w.addNumber(rect.getMinY(), DEC).add(' ');
+            w.addNumber(rect.getWidth(), DEC).add(' ');
+            w.addNumber(rect.getHeight(), DEC).add(" re ");
+            endOperator();
             doDrawing(true, false, false);
         } else {
             PathIterator iter = s.getPathIterator(IDENTITY_TRANSFORM);
@@ -1614,54 +1634,56 @@ public class PDFGraphics2D extends AbstractGraphics2D implements NativeImageHand
     public void processPathIterator(PathIterator iter) {
         double lastX = 0.0;
         double lastY = 0.0;
+        double[] vals = new double[6];
+        PDFContentWriter w = beginOperator();
         while (!iter.isDone()) {
-            double[] vals = new double[6];
             int type = iter.currentSegment(vals);
             switch (type) {
             case PathIterator.SEG_CUBICTO:
                 lastX = vals[4];
                 lastY = vals[5];
-                currentStream.write(PDFNumber.doubleOut(vals[0], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[1], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[2], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[3], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[4], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[5], DEC) + " c\n");
+                w.addNumber(vals[0], DEC).add(' ');
+                w.addNumber(vals[1], DEC).add(' ');
+                w.addNumber(vals[2], DEC).add(' ');
+                w.addNumber(vals[3], DEC).add(' ');
+                w.addNumber(vals[4], DEC).add(' ');
+                w.addNumber(vals[5], DEC).add(" c\n");
                 break;
             case PathIterator.SEG_LINETO:
                 lastX = vals[0];
                 lastY = vals[1];
-                currentStream.write(PDFNumber.doubleOut(vals[0], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[1], DEC) + " l\n");
+                w.addNumber(vals[0], DEC).add(' ');
+                w.addNumber(vals[1], DEC).add(" l\n");
                 break;
             case PathIterator.SEG_MOVETO:
                 lastX = vals[0];
                 lastY = vals[1];
-                currentStream.write(PDFNumber.doubleOut(vals[0], DEC) + " "
-                                    + PDFNumber.doubleOut(vals[1], DEC) + " m\n");
+                w.addNumber(vals[0], DEC).add(' ');
+                w.addNumber(vals[1], DEC).add(" m\n");
                 break;
             case PathIterator.SEG_QUADTO:
                 double controlPointAX = lastX + ((2.0 / 3.0) * (vals[0] - lastX));
                 double controlPointAY = lastY + ((2.0 / 3.0) * (vals[1] - lastY));
                 double controlPointBX = vals[2] + ((2.0 / 3.0) * (vals[0] - vals[2]));
                 double controlPointBY = vals[3] + ((2.0 / 3.0) * (vals[1] - vals[3]));
-                currentStream.write(PDFNumber.doubleOut(controlPointAX, DEC) + " "
-                        + PDFNumber.doubleOut(controlPointAY, DEC) + " "
-                        + PDFNumber.doubleOut(controlPointBX, DEC) + " "
-                        + PDFNumber.doubleOut(controlPointBY, DEC) + " "
-                        + PDFNumber.doubleOut(vals[2], DEC) + " "
-                        + PDFNumber.doubleOut(vals[3], DEC) + " c\n");
+                w.addNumber(controlPointAX, DEC).add(' ');
+                w.addNumber(controlPointAY, DEC).add(' ');
+                w.addNumber(controlPointBX, DEC).add(' ');
+                w.addNumber(controlPointBY, DEC).add(' ');
+                w.addNumber(vals[2], DEC).add(' ');
+                w.addNumber(vals[3], DEC).add(" c\n");
                 lastX = vals[2];
                 lastY = vals[3];
                 break;
             case PathIterator.SEG_CLOSE:
-                currentStream.write("h\n");
+                w.add("h\n");
                 break;
             default:
                 break;
             }
             iter.next();
         }
+        endOperator();
     }
 
     /**
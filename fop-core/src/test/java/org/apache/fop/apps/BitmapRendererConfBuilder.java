@@ -24,6 +24,7 @@ import org.apache.fop.apps.FopConfBuilder.RendererConfBuilder;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.ANTI_ALIASING;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.BACKGROUND_COLOR;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.ENCODING_THREADS;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.JAVA2D_TRANSPARENT_PAGE_BACKGROUND;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY_ELEMENT;
 
@@ -62,6 +63,11 @@ public class BitmapRendererConfBuilder extends RendererConfBuilder {
         return this;
     }
 
+    public BitmapRendererConfBuilder setEncodingThreads(int threads) {
+        createTextElement(ENCODING_THREADS, String.valueOf(threads));
+        return this;
+    }
+
     public static String getMimeType() {
         return "Bitmap";
     }
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link FopBatch}.
+ */
+public class FopBatchTestCase {
+
+    private static final String FO = "org/apache/fop/area/concurrent-rendering.fo";
+
+    @Test
+    public void testProcess() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FopBatch batch = new FopBatch(fopFactory, MimeConstants.MIME_PDF, 2);
+        assertFalse(fopFactory.getFontManager().isFontListCachingEnabled());
+
+        List<FopBatch.Job> jobs = new ArrayList<FopBatch.Job>();
+        for (int i = 0; i < 5; i++) {
+            jobs.add(new FopBatch.Job("doc" + i, new StreamSource(
+                    getClass().getClassLoader().getResourceAsStream(FO)),
+                    new ByteArrayOutputStream()));
+        }
+        jobs.add(new FopBatch.Job("broken", new StreamSource(new StringReader("<broken/>")),
+                new ByteArrayOutputStream()));
+
+        final Map<String, FopBatch.JobResult> results = new HashMap<String, FopBatch.JobResult>();
+        batch.process(jobs.iterator(), new FopBatch.JobListener() {
+            public void jobFinished(FopBatch.JobResult result) {
+                assertNull(results.put(result.getJob().getId(), result));
+            }
+        });
+        assertEquals(jobs.size(), results.size());
+        for (int i = 0; i < 5; i++) {
+            FopBatch.JobResult result = results.get("doc" + i);
+            assertEquals(jobs.get(i), result.getJob());
+            assertTrue(result.isSuccessful());
+            assertTrue(result.getPageCount() > 0);
+            assertTrue(result.getElapsedNanos() > 0);
+            ByteArrayOutputStream out = (ByteArrayOutputStream) result.getJob().getOutputStream();
+            assertTrue(out.toString("ISO-8859-1").startsWith("%PDF-"));
+        }
+        FopBatch.JobResult broken = results.get("broken");
+        assertFalse(broken.isSuccessful());
+        assertNotNull(broken.getException());
+    }
+
+    @Test
+    public void testInFlightJobsAreBounded() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FopBatch batch = new FopBatch(fopFactory, MimeConstants.MIME_PDF, 2);
+        final AtomicInteger pulled = new AtomicInteger();
+        final AtomicInteger finished = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        Iterator<FopBatch.Job> jobs = new Iterator<FopBatch.Job>() {
+            public boolean hasNext() {
+                return pulled.get() < 8;
+            }
+
+            public FopBatch.Job next() {
+                int inFlight = pulled.incrementAndGet() - finished.get();
+                maxInFlight.set(Math.max(maxInFlight.get(), inFlight));
+                return new FopBatch.Job("doc" + pulled.get(), new StreamSource(
+                        getClass().getClassLoader().getResourceAsStream(FO)),
+                        new ByteArrayOutputStream());
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        batch.process(jobs, new FopBatch.JobListener() {
+            public void jobFinished(FopBatch.JobResult result) {
+                assertTrue(result.isSuccessful());
+                finished.incrementAndGet();
+            }
+        });
+        assertEquals(8, finished.get());
+        assertTrue(maxInFlight.get() <= 2);
+    }
+
+    @Test
+    public void testFailingIteratorReleasesSlots() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FopBatch batch = new FopBatch(fopFactory, MimeConstants.MIME_PDF, 2);
+        final AtomicInteger pulled = new AtomicInteger();
+        final AtomicInteger finished = new AtomicInteger();
+        final IllegalStateException failure = new IllegalStateException();
+        Iterator<FopBatch.Job> jobs = new Iterator<FopBatch.Job>() {
+            public boolean hasNext() {
+                return true;
+            }
+
+            public FopBatch.Job next() {
+                if (pulled.incrementAndGet() > 3) {
+                    throw failure;
+                }
+                return new FopBatch.Job("doc" + pulled.get(), new StreamSource(
+                        getClass().getClassLoader().getResourceAsStream(FO)),
+                        new ByteArrayOutputStream());
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        try {
+            batch.process(jobs, new FopBatch.JobListener() {
+                public void jobFinished(FopBatch.JobResult result) {
+                    finished.incrementAndGet();
+                }
+            });
+            fail("Expected FOPException");
+        } catch (FOPException e) {
+            assertSame(failure, e.getCause());
+        }
+        // the jobs submitted before the failure are finished
+        assertEquals(3, finished.get());
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testErrorsAreRethrown() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FopBatch batch = new FopBatch(fopFactory, MimeConstants.MIME_PDF, 1);
+        List<FopBatch.Job> jobs = new ArrayList<FopBatch.Job>();
+        jobs.add(new FopBatch.Job("doc", new StreamSource(
+                getClass().getClassLoader().getResourceAsStream(FO)), new ByteArrayOutputStream()));
+        batch.process(jobs.iterator(), new FopBatch.JobListener() {
+            public void jobFinished(FopBatch.JobResult result) {
+                throw new AssertionError();
+            }
+        });
+    }
+}
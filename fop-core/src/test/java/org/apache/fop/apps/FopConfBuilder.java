@@ -141,6 +141,16 @@ public class FopConfBuilder implements FontConfigurator<FopConfBuilder> {
         return createElement("accessibility", String.valueOf(setAccessibility));
     }
 
+    /**
+     * Set the &lt;incremental-release&gt; tag within the fop.xconf.
+     *
+     * @param incrementalRelease true to release finished content incrementally
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setIncrementalRelease(boolean incrementalRelease) {
+        return createElement("incremental-release", String.valueOf(incrementalRelease));
+    }
+
     @Deprecated
     public FopConfBuilder setHyphenationBaseURI(String uri) {
         return createElement("hyphenation-base", uri);
@@ -186,6 +196,29 @@ public class FopConfBuilder implements FontConfigurator<FopConfBuilder> {
         return createElement("prefer-renderer", String.valueOf(value));
     }
 
+    /**
+     * Set the &lt;cache&gt; tag of the &lt;image-loading&gt; tag within the fop.xconf.
+     *
+     * @param maxBytes the byte budget of the image cache
+     * @param eviction the eviction order
+     * @param pinnedURIs the URIs of the images that are never evicted
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setImageCache(String maxBytes, String eviction, String... pinnedURIs) {
+        Element imageLoading = fopConfDOM.createElement("image-loading");
+        Element el = fopConfDOM.createElement("cache");
+        el.setAttribute("max-bytes", maxBytes);
+        el.setAttribute("eviction", eviction);
+        for (String uri : pinnedURIs) {
+            Element pin = fopConfDOM.createElement("pin");
+            pin.appendChild(fopConfDOM.createTextNode(uri));
+            el.appendChild(pin);
+        }
+        imageLoading.appendChild(el);
+        root.appendChild(imageLoading);
+        return this;
+    }
+
     /**
      * Set the &lt;default-page-settings&gt; tag within the fop.xconf.
      *
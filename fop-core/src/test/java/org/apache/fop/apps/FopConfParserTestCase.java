@@ -23,13 +23,18 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.Collections;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.xml.sax.SAXException;
 
+import org.apache.fop.image.loader.FOPImageCache;
+import org.apache.fop.image.loader.ImageCachePolicy;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -93,6 +98,13 @@ public class FopConfParserTestCase {
         assertFalse(buildFactory().isAccessibilityEnabled());
     }
 
+    @Test
+    public void testIncrementalRelease() {
+        assertFalse(buildFactory().newFOUserAgent().isIncrementalReleaseEnabled());
+        builder.setIncrementalRelease(true);
+        assertTrue(buildFactory().newFOUserAgent().isIncrementalReleaseEnabled());
+    }
+
     @Test
     public void testSourceResolution() {
         float srcRes = 123.456f;
@@ -135,6 +147,31 @@ public class FopConfParserTestCase {
                 "", "");
     }
 
+    @Test
+    public void testImageCachePolicy() {
+        builder.setImageCache("1048576", "lfu", "images/logo.png");
+        ImageCachePolicy policy = getImageCache(buildFactory()).getPolicy();
+        assertEquals(1048576L, policy.getMaxBytes());
+        assertEquals(ImageCachePolicy.Eviction.LFU, policy.getEviction());
+        assertEquals(Collections.singleton("images/logo.png"), policy.getPinnedURIs());
+    }
+
+    @Test
+    public void testInvalidImageCachePolicy() {
+        builder.setStrictConfiguration(false);
+        builder.setImageCache("1048576", "fifo");
+        assertNull(getImageCache(buildFactory()).getPolicy());
+    }
+
+    @Test
+    public void testNoImageCachePolicy() {
+        assertNull(getImageCache(buildFactory()).getPolicy());
+    }
+
+    private static FOPImageCache getImageCache(FopFactory factory) {
+        return (FOPImageCache) factory.getImageManager().getCache();
+    }
+
     @Test
     public void testRelativeURINoBaseFont() throws Exception {
         checkRelativeURIs("test/config/relative-uri/no-base_font.xconf",
@@ -81,6 +81,7 @@ public class FopFactoryBuilderTestCase {
 
     public static void testDefaults(FopFactory factory, URI baseURI) {
         assertFalse(factory.isAccessibilityEnabled());
+        assertFalse(factory.isIncrementalReleaseEnabled());
         assertNull(factory.getLayoutManagerMakerOverride());
         assertEquals(FopFactoryConfig.DEFAULT_STRICT_FO_VALIDATION, factory.validateStrictly());
         assertEquals(FopFactoryConfig.DEFAULT_STRICT_USERCONFIG_VALIDATION,
@@ -106,6 +107,16 @@ public class FopFactoryBuilderTestCase {
         });
     }
 
+    @Test
+    public void testSetGetIncrementalRelease() {
+        runSetterTest(new Runnable() {
+            public void run() {
+                defaultBuilder.setIncrementalRelease(true);
+                assertTrue(buildFopFactory().isIncrementalReleaseEnabled());
+            }
+        });
+    }
+
     @Test
     public void testsetGetLMM() {
         runSetterTest(new Runnable() {
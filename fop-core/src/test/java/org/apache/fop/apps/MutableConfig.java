@@ -52,6 +52,10 @@ public final class MutableConfig implements FopFactoryConfig {
         return delegate.isAccessibilityEnabled();
     }
 
+    public boolean isIncrementalReleaseEnabled() {
+        return delegate.isIncrementalReleaseEnabled();
+    }
+
     public LayoutManagerMaker getLayoutManagerMakerOverride() {
         return delegate.getLayoutManagerMakerOverride();
     }
@@ -29,6 +29,8 @@ import static org.apache.fop.render.pdf.PDFEncryptionOption.ENCRYPTION_LENGTH;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.ENCRYPTION_PARAMS;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.OWNER_PASSWORD;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.USER_PASSWORD;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_LEVEL;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
 import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
@@ -68,6 +70,19 @@ public final class PDFRendererConfBuilder extends RendererConfBuilder {
         return this;
     }
 
+    public PDFRendererConfBuilder setCompressionThreads(int threads) {
+        createTextElement(COMPRESSION_THREADS, String.valueOf(threads));
+        return this;
+    }
+
+    public PDFRendererConfBuilder setCompressionLevel(String type, int level) {
+        Element levelEl = createTextElement(COMPRESSION_LEVEL, String.valueOf(level));
+        if (type != null) {
+            levelEl.setAttribute("type", type);
+        }
+        return this;
+    }
+
     public PDFRendererConfBuilder setPDFAMode(String value) {
         createTextElement(PDF_A_MODE, value);
         return this;
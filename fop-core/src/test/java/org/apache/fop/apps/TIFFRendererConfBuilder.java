@@ -21,7 +21,9 @@ package org.apache.fop.apps;
 
 import static org.apache.fop.render.bitmap.TIFFRendererConfig.TIFFRendererOption.COMPRESSION;
 import static org.apache.fop.render.bitmap.TIFFRendererConfig.TIFFRendererOption.ENDIANNESS;
+import static org.apache.fop.render.bitmap.TIFFRendererConfig.TIFFRendererOption.ROWS_PER_STRIP;
 import static org.apache.fop.render.bitmap.TIFFRendererConfig.TIFFRendererOption.SINGLE_STRIP;
+import static org.apache.fop.render.bitmap.TIFFRendererConfig.TIFFRendererOption.STREAMING;
 public class TIFFRendererConfBuilder extends BitmapRendererConfBuilder {
 
     public TIFFRendererConfBuilder() {
@@ -42,4 +44,14 @@ public class TIFFRendererConfBuilder extends BitmapRendererConfBuilder {
         createTextElement(ENDIANNESS, endianness);
         return this;
     }
+
+    public TIFFRendererConfBuilder setRowsPerStrip(String rows) {
+        createTextElement(ROWS_PER_STRIP, rows);
+        return this;
+    }
+
+    public TIFFRendererConfBuilder setStreaming(boolean streaming) {
+        createTextElement(STREAMING, String.valueOf(streaming));
+        return this;
+    }
 }
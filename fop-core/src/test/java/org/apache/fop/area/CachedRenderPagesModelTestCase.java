@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Tests that pages parked by the {@linkplain CachedRenderPagesModel} are restored unchanged.
+ */
+public class CachedRenderPagesModelTestCase {
+
+    /**
+     * Every page refers to the last one, so all pages are parked until the end of the
+     * document.
+     */
+    @Test
+    public void testParkedPagesAreRestoredUnchanged() throws Exception {
+        StringBuilder fo = new StringBuilder("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\""
+                + " xmlns:svg=\"http://www.w3.org/2000/svg\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-height=\"4in\" page-width=\"4in\" margin=\"0.2in\">"
+                + "<fo:region-body margin-top=\"0.4in\" column-count=\"2\"/>"
+                + "<fo:region-before extent=\"0.3in\"/></fo:simple-page-master>"
+                + "</fo:layout-master-set><fo:page-sequence master-reference=\"page\">"
+                + "<fo:static-content flow-name=\"xsl-region-before\"><fo:block>Page"
+                + " <fo:page-number/> of <fo:page-number-citation ref-id=\"last\"/></fo:block>"
+                + "</fo:static-content><fo:flow flow-name=\"xsl-region-body\">");
+        for (int page = 0; page < 12; page++) {
+            fo.append("<fo:block break-before=\"page\" border=\"1pt solid red\" text-align=\"justify\""
+                    + " id=\"b").append(page).append("\">Block ").append(page)
+                    .append(" refers to page <fo:page-number-citation ref-id=\"last\"/> and to"
+                    + " <fo:basic-link internal-destination=\"last\">the end</fo:basic-link>,"
+                    + " <fo:basic-link external-destination=\"url(http://xmlgraphics.apache.org/)\">"
+                    + "a site</fo:basic-link><fo:leader leader-pattern=\"dots\""
+                    + " leader-length=\"1in\"/><fo:inline-container inline-progression-dimension"
+                    + "=\"1in\"><fo:block>inline container</fo:block></fo:inline-container>"
+                    + "<fo:footnote><fo:inline>*</fo:inline><fo:footnote-body><fo:block>Note ")
+                    .append(page).append("</fo:block></fo:footnote-body></fo:footnote>"
+                    + "<fo:instream-foreign-object><svg:svg width=\"20\" height=\"20\">"
+                    + "<svg:rect width=\"10\" height=\"10\"/></svg:svg></fo:instream-foreign-object>"
+                    + "</fo:block><fo:table width=\"100%\" table-layout=\"fixed\"><fo:table-body>"
+                    + "<fo:table-row><fo:table-cell border=\"0.5pt solid blue\"><fo:block>cell"
+                    + "</fo:block></fo:table-cell></fo:table-row></fo:table-body></fo:table>"
+                    + "<fo:block-container height=\"0.3in\" overflow=\"hidden\"><fo:block>clipped"
+                    + " text which is far too long to fit</fo:block></fo:block-container>");
+        }
+        fo.append("<fo:block id=\"last\">The end</fo:block></fo:flow></fo:page-sequence></fo:root>");
+
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        String expected = render(fopFactory, fo.toString(), false);
+        String actual = render(fopFactory, fo.toString(), true);
+        assertTrue(actual.contains("<pageViewport "));
+        assertEquals(expected, actual);
+    }
+
+    private String render(FopFactory fopFactory, String fo, boolean conserveMemory)
+            throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setConserveMemoryPolicy(conserveMemory);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toString("UTF-8");
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Date;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopConfParser;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.render.xml.XMLRenderer;
+
+/**
+ * Tests that rendering pages on a separate thread produces the same output as the
+ * synchronous render pages model.
+ */
+public class ConcurrentRenderPagesModelTestCase {
+
+    private static final Date CREATION_DATE = new Date(1000000000000L);
+
+    @Test
+    public void testSameOutputAsSynchronousRendering() throws Exception {
+        String expected = render(false);
+        String actual = render(true);
+        assertTrue(actual.contains("<page "));
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Every page uses characters no previous page used, so glyphs of the subset font are
+     * mapped on the layout thread while earlier pages are painted on the rendering thread.
+     */
+    @Test
+    public void testSubsetFontIsIdenticalToSynchronousRendering() throws Exception {
+        String fopxconf = "<fop version=\"1.0\"><renderers><renderer mime=\"application/pdf\">"
+                + "<fonts><font embed-url=\"test/resources/fonts/ttf/DejaVuLGCSerif.ttf\">"
+                + "<font-triplet name=\"DejaVu\" style=\"normal\" weight=\"normal\"/>"
+                + "</font></fonts></renderer></renderers></fop>";
+        FopFactory fopFactory = new FopConfParser(new ByteArrayInputStream(fopxconf.getBytes("UTF-8")),
+                new File(".").toURI(), ResourceResolverFactory.createDefaultResourceResolver())
+                .getFopFactoryBuilder().build();
+        StringBuilder fo = new StringBuilder("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-height=\"3in\" page-width=\"4in\" margin=\"0.2in\"><fo:region-body/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\">"
+                + "<fo:flow flow-name=\"xsl-region-body\" font-family=\"DejaVu\">");
+        for (int page = 0; page < 120; page++) {
+            fo.append("<fo:block break-before=\"page\">");
+            for (int i = 0; i < 8; i++) {
+                //Latin Extended-A, Greek and Cyrillic, all covered by the font
+                char[] ranges = {'\u0100', '\u0391', '\u0410'};
+                fo.append(ranges[i % 3] + (page * 8 + i) % 48).append(' ');
+            }
+            fo.append("page ").append(page).append("</fo:block>");
+        }
+        fo.append("</fo:flow></fo:page-sequence></fo:root>");
+
+        String expected = renderPDF(fopFactory, fo.toString(), false);
+        String actual = renderPDF(fopFactory, fo.toString(), true);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testRenderingFailureIsReported() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setConcurrentRendering(true);
+        userAgent.setRendererOverride(new XMLRenderer(userAgent) {
+            @Override
+            public void renderPage(PageViewport page) throws IOException, FOPException {
+                throw new IOException("Page cannot be rendered");
+            }
+        });
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent,
+                new ByteArrayOutputStream());
+        Source src = new StreamSource(getClass().getResourceAsStream("concurrent-rendering.fo"));
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        try {
+            transformer.transform(src, new SAXResult(fop.getDefaultHandler()));
+            fail("The failure on the rendering thread must be reported");
+        } catch (Exception e) {
+            Throwable cause = e;
+            while (cause.getCause() != null && !(cause instanceof IOException)) {
+                cause = cause.getCause();
+            }
+            assertTrue(String.valueOf(cause.getMessage()).contains("Page cannot be rendered"));
+        }
+    }
+
+    private String renderPDF(FopFactory fopFactory, String fo, boolean concurrent)
+            throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setCreationDate(CREATION_DATE);
+        userAgent.setConcurrentRendering(concurrent);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)),
+                new SAXResult(fop.getDefaultHandler()));
+        //the file identifier and the metadata date are not reproducible
+        return out.toString("ISO-8859-1").replaceAll("/ID \\[<[0-9A-F]+> <[0-9A-F]+>\\]", "")
+                .replaceAll("<xmp:MetadataDate>[^<]*</xmp:MetadataDate>", "");
+    }
+
+    private String render(boolean concurrent) throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setCreationDate(CREATION_DATE);
+        userAgent.setConcurrentRendering(concurrent);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_IF, userAgent, out);
+        Source src = new StreamSource(getClass().getResourceAsStream("concurrent-rendering.fo"));
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(src, new SAXResult(fop.getDefaultHandler()));
+        return out.toString("UTF-8").replaceAll("<xmp:MetadataDate>[^<]*</xmp:MetadataDate>", "");
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.xmlgraphics.io.Resource;
+import org.apache.xmlgraphics.io.TempResourceResolver;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.area.inline.BasicLinkArea;
+import org.apache.fop.area.inline.InlineArea;
+import org.apache.fop.area.inline.UnresolvedPageNumber;
+import org.apache.fop.fo.Constants;
+
+/**
+ * Tests the {@linkplain PageSpillFile} class.
+ */
+public class PageSpillFileTestCase {
+
+    private PageViewport createPage(int number, int regionWidth) {
+        Rectangle viewArea = new Rectangle(0, 0, 595000, 842000);
+        PageViewport pageViewport = new PageViewport(viewArea, number,
+                Integer.toString(number), "page", false);
+        Page page = new Page();
+        RegionViewport region = new RegionViewport(new Rectangle(0, 0, regionWidth, 10000));
+        page.setRegionViewport(Constants.FO_REGION_BODY, region);
+        pageViewport.setPage(page);
+        return pageViewport;
+    }
+
+    private InternalResourceResolver createResolver(TempResourceResolver tempResolver) {
+        return ResourceResolverFactory.createInternalResourceResolver(new File(".").toURI(),
+                ResourceResolverFactory.createTempAwareResourceResolver(tempResolver,
+                        ResourceResolverFactory.createDefaultResourceResolver()));
+    }
+
+    @Test
+    public void testSaveAndLoadOutOfOrder() throws Exception {
+        PageSpillFile spillFile = new PageSpillFile(
+                ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI()));
+        try {
+            PageViewport first = createPage(1, 1000);
+            PageViewport second = createPage(2, 2000);
+            spillFile.save(first);
+            spillFile.save(second);
+            assertNull(first.getPage());
+            assertNull(second.getPage());
+            assertTrue(spillFile.contains(first));
+            assertEquals(2, spillFile.getPagesSpilled());
+            assertTrue(spillFile.getBytesSpilled() > 0);
+
+            spillFile.load(second);
+            assertNotNull(second.getPage());
+            assertEquals(2000, second.getPage().getRegionViewport(Constants.FO_REGION_BODY)
+                    .getViewArea().getBounds().width);
+            spillFile.load(first);
+            assertEquals(1000, first.getPage().getRegionViewport(Constants.FO_REGION_BODY)
+                    .getViewArea().getBounds().width);
+            assertFalse(spillFile.contains(first));
+            assertEquals(2, spillFile.getPagesRestored());
+        } finally {
+            spillFile.close();
+        }
+    }
+
+    @Test
+    public void testTemporaryResourcesAreReleased() throws Exception {
+        InMemoryTempResourceResolver tempResolver = new InMemoryTempResourceResolver();
+        PageSpillFile spillFile = new PageSpillFile(createResolver(tempResolver));
+        PageViewport first = createPage(1, 1000);
+        PageViewport second = createPage(2, 2000);
+        PageViewport third = createPage(3, 3000);
+        spillFile.save(first);
+        spillFile.save(second);
+        spillFile.save(third);
+        assertEquals(1, tempResolver.resources.size());
+
+        spillFile.load(second);
+        // the first page has been moved to a new resource, the third is still pending
+        assertEquals(2, tempResolver.resources.size());
+        spillFile.load(third);
+        assertEquals(1, tempResolver.resources.size());
+        spillFile.load(first);
+        assertEquals(0, tempResolver.resources.size());
+        assertEquals(1000, first.getPage().getRegionViewport(Constants.FO_REGION_BODY)
+                .getViewArea().getBounds().width);
+        assertEquals(3000, third.getPage().getRegionViewport(Constants.FO_REGION_BODY)
+                .getViewArea().getBounds().width);
+
+        spillFile.save(createPage(4, 4000));
+        spillFile.close();
+        assertEquals(0, tempResolver.resources.size());
+    }
+
+    @Test
+    public void testReferencesSurviveRoundTrip() throws Exception {
+        PageViewport pageViewport = createPage(1, 1000);
+        RegionViewport region = pageViewport.getPage().getRegionViewport(Constants.FO_REGION_BODY);
+        RegionReference body = new RegionReference(Constants.FO_REGION_BODY, "xsl-region-body",
+                region);
+        region.setRegionReference(body);
+        Block block = new Block();
+        body.addBlock(block);
+        LineArea line = new LineArea();
+        block.addChildArea(line);
+        UnresolvedPageNumber pageNumber = new UnresolvedPageNumber("target", null);
+        BasicLinkArea link = new BasicLinkArea();
+        LinkResolver resolver = new LinkResolver("target", link);
+        link.setResolver(resolver);
+        line.addInlineArea(pageNumber);
+        pageNumber.setParentArea(line);
+        line.addInlineArea(link);
+        pageViewport.addUnresolvedIDRef("target", pageNumber);
+        pageViewport.addUnresolvedIDRef("target", resolver);
+
+        PageSpillFile spillFile = new PageSpillFile(createResolver(new InMemoryTempResourceResolver()));
+        try {
+            spillFile.save(pageViewport);
+            PageViewport target = createPage(7, 1000);
+            target.setKey("P7");
+            pageViewport.resolveIDRef("target", Collections.singletonList(target));
+            spillFile.load(pageViewport);
+        } finally {
+            spillFile.close();
+        }
+
+        assertTrue(pageViewport.isResolved());
+        region = pageViewport.getPage().getRegionViewport(Constants.FO_REGION_BODY);
+        line = (LineArea) ((Block) region.getRegionReference().getBlocks().get(0))
+                .getChildAreas().get(0);
+        List<InlineArea> inlines = line.getInlineAreas();
+        pageNumber = (UnresolvedPageNumber) inlines.get(0);
+        assertTrue(pageNumber.isResolved());
+        assertEquals("7", pageNumber.getText());
+        assertSame(line, pageNumber.getParentArea());
+        link = (BasicLinkArea) inlines.get(1);
+        Trait.InternalLink internalLink = (Trait.InternalLink) link.getTrait(Trait.INTERNAL_LINK);
+        assertEquals("P7", internalLink.getPVKey());
+        assertTrue(link.getResolver().isResolved());
+    }
+
+    private static final class InMemoryTempResourceResolver implements TempResourceResolver {
+
+        private final Map<String, ByteArrayOutputStream> resources
+                = new HashMap<String, ByteArrayOutputStream>();
+
+        public Resource getResource(String id) throws IOException {
+            ByteArrayOutputStream data = resources.get(id);
+            if (data == null) {
+                throw new IOException(id + " does not exist");
+            }
+            final String resourceId = id;
+            return new Resource(new ByteArrayInputStream(data.toByteArray()) {
+                @Override
+                public void close() {
+                    resources.remove(resourceId);
+                }
+            });
+        }
+
+        public OutputStream getOutputStream(String id) throws IOException {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            resources.put(id, data);
+            return data;
+        }
+    }
+}
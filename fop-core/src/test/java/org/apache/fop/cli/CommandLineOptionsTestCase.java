@@ -25,6 +25,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.apps.FOPException;
@@ -70,4 +71,12 @@ public class CommandLineOptionsTestCase {
         CommandLineOptions clo3 = new CommandLineOptions();
         assertTrue(clo3.parse(cmd3));
     }
+
+    @Test
+    public void testIncrementalRelease() throws FOPException, IOException {
+        assertFalse(clo.getFOUserAgent().isIncrementalReleaseEnabled());
+        CommandLineOptions incremental = new CommandLineOptions();
+        assertTrue(incremental.parse(("-incremental " + commandLine).split(" ")));
+        assertTrue(incremental.getFOUserAgent().isIncrementalReleaseEnabled());
+    }
 }
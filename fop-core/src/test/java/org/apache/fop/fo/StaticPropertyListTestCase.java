@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.fo.flow.Block;
+import org.apache.fop.fo.pagination.Root;
+import org.apache.fop.fo.properties.FixedLength;
+import org.apache.fop.fo.properties.NumberProperty;
+import org.apache.fop.fo.properties.Property;
+import org.apache.fop.fotreetest.DummyFOEventHandler;
+
+/**
+ * Tests {@link StaticPropertyList}.
+ */
+public class StaticPropertyListTestCase {
+
+    /**
+     * The properties whose makers fail without an explicit value on an fo:block: column-number
+     * needs a table FO, the shorthands and the radii have no initial value, and min-width and
+     * max-width can't convert their initial value.
+     */
+    private static final Set<Integer> UNRESOLVABLE_ON_BLOCK = new HashSet<Integer>(Arrays.asList(
+            Constants.PR_COLUMN_NUMBER, Constants.PR_FONT, Constants.PR_PADDING,
+            Constants.PR_MAX_WIDTH, Constants.PR_MIN_WIDTH, Constants.PR_X_BORDER_RADIUS,
+            Constants.PR_X_BORDER_BEFORE_START_RADIUS, Constants.PR_X_BORDER_BEFORE_END_RADIUS,
+            Constants.PR_X_BORDER_AFTER_START_RADIUS, Constants.PR_X_BORDER_AFTER_END_RADIUS));
+
+    @Test
+    public void testExplicitProperties() {
+        StaticPropertyList pList = new StaticPropertyList(null, null);
+        assertNull(pList.getExplicit(Constants.PR_FONT_SIZE));
+        for (int propId = 1; propId <= Constants.PROPERTY_COUNT; propId++) {
+            pList.putExplicit(propId, NumberProperty.getInstance(propId));
+        }
+        for (int propId = 1; propId <= Constants.PROPERTY_COUNT; propId++) {
+            assertEquals(propId, pList.getExplicit(propId).getNumber().intValue());
+        }
+        Property fontSize = FixedLength.getInstance(12000);
+        pList.putExplicit(Constants.PR_FONT_SIZE, fontSize);
+        assertSame(fontSize, pList.getExplicit(Constants.PR_FONT_SIZE));
+    }
+
+    @Test
+    public void testCachedValues() throws Exception {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        Root root = new Root(null);
+        root.setFOEventHandler(new DummyFOEventHandler(userAgent));
+        StaticPropertyList parent = new StaticPropertyList(new Block(root), null);
+        Property fontSize = FixedLength.getInstance(12000);
+        parent.putExplicit(Constants.PR_FONT_SIZE, fontSize);
+        StaticPropertyList pList = new StaticPropertyList(new Block(root), parent);
+
+        // an inherited value
+        assertSame(fontSize, pList.get(Constants.PR_FONT_SIZE));
+        assertSame(fontSize, pList.get(Constants.PR_FONT_SIZE));
+
+        // the initial or inherited values of all properties, more than the cache holds: the
+        // values that are not cached are computed again
+        StaticPropertyList child = new StaticPropertyList(new Block(root), pList);
+        int resolved = 0;
+        for (int propId = 1; propId <= Constants.PROPERTY_COUNT; propId++) {
+            if (!UNRESOLVABLE_ON_BLOCK.contains(propId)) {
+                Property p = child.get(propId);
+                assertEquals(p, child.get(propId));
+                resolved++;
+            }
+        }
+        assertTrue(resolved > 255);
+
+        // a value that is computed anew for each list, unless it is cached
+        StaticPropertyList sibling = new StaticPropertyList(new Block(root), pList);
+        Property padding = sibling.get(Constants.PR_PADDING_BEFORE);
+        assertNotSame(padding, new StaticPropertyList(new Block(root), pList)
+                .get(Constants.PR_PADDING_BEFORE));
+        assertSame(padding, sibling.get(Constants.PR_PADDING_BEFORE));
+
+        // an explicit value replaces the cached one
+        Property explicit = FixedLength.getInstance(10000);
+        pList.putExplicit(Constants.PR_FONT_SIZE, explicit);
+        assertSame(explicit, pList.get(Constants.PR_FONT_SIZE));
+    }
+}
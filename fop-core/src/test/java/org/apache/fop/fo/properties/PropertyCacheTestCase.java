@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.properties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link PropertyCache}.
+ */
+public class PropertyCacheTestCase {
+
+    /** A value whose hash code is chosen by the test. */
+    private static final class Value {
+
+        private final int id;
+
+        private final int hash;
+
+        Value(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        public boolean equals(Object obj) {
+            return obj instanceof Value && ((Value) obj).id == id;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    public void testFetch() {
+        PropertyCache<Value> cache = new PropertyCache<Value>();
+        Value first = new Value(1, 1);
+        assertSame(first, cache.fetch(first));
+        assertSame(first, cache.fetch(new Value(1, 1)));
+    }
+
+    @Test
+    public void testCollisions() {
+        PropertyCache<Value> cache = new PropertyCache<Value>();
+        List<Value> values = new ArrayList<Value>();
+        for (int i = 0; i < 100; i++) {
+            //all values have the same hash code
+            values.add(cache.fetch(new Value(i, 42)));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertSame(values.get(i), cache.fetch(new Value(i, 42)));
+        }
+        assertEquals(99, cache.getCollisions());
+    }
+
+    @Test
+    public void testBounded() {
+        PropertyCache<Value> cache = new PropertyCache<Value>(16);
+        List<Value> values = new ArrayList<Value>();
+        for (int i = 0; i < 10000; i++) {
+            values.add(cache.fetch(new Value(i, i)));
+        }
+        int cached = 0;
+        for (int i = 0; i < values.size(); i++) {
+            if (cache.fetch(new Value(i, i)) == values.get(i)) {
+                cached++;
+            }
+        }
+        //one shard may hold up to the maximum divided by the number of shards, rounded up
+        assertTrue(cached >= 16 && cached <= 32);
+    }
+
+    @Test
+    public void testPin() {
+        PropertyCache<Value> cache = new PropertyCache<Value>();
+        Value weak = cache.fetch(new Value(1, 1));
+        Value pinned = cache.pin(new Value(1, 1));
+        assertSame(weak, pinned);
+        Value other = cache.pin(new Value(2, 2));
+        weak = null;
+        pinned = null;
+        System.gc();
+        assertSame(other, cache.fetch(new Value(2, 2)));
+        assertEquals(1, cache.fetch(new Value(1, 1)).id);
+    }
+
+    @Test
+    public void testPinnedLengths() {
+        assertSame(FixedLength.getInstance(0.5, "pt"), FixedLength.getInstance(500, "mpt"));
+        assertSame(FixedLength.getInstance(12, "pt"), FixedLength.getInstance(12000, "mpt"));
+    }
+
+    @Test
+    public void testConcurrentFetch() throws Exception {
+        final PropertyCache<Value> cache = new PropertyCache<Value>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Value[]>> results = new ArrayList<Future<Value[]>>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(new Callable<Value[]>() {
+                    public Value[] call() {
+                        Value[] values = new Value[1000];
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = cache.fetch(new Value(i, i % 37));
+                        }
+                        return values;
+                    }
+                }));
+            }
+            Value[] expected = results.get(0).get();
+            for (Future<Value[]> result : results) {
+                Value[] values = result.get();
+                for (int i = 0; i < values.length; i++) {
+                    assertSame(expected[i], values[i]);
+                }
+            }
+            assertNotSame(expected[0], expected[37]);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -23,6 +23,8 @@ import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -195,4 +197,52 @@ public class CIDSubsetTestCase {
             assertTrue(Arrays.binarySearch(widths, width) >= 0);
         }
     }
+
+    @Test
+    public void testConcurrentMapping() throws Exception {
+        final CIDSubset subset = new CIDSubset(mock(MultiByteFont.class));
+        final int glyphCount = 2000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t * 97;
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < glyphCount; i++) {
+                            int glyphIndex = 1 + (i + offset) % glyphCount;
+                            int selector = subset.mapCodePoint(glyphIndex, 0x4E00 + glyphIndex);
+                            assertEquals(glyphIndex, subset.getOriginalGlyphIndex(selector));
+                            assertEquals(selector, subset.getGlyphs().get(glyphIndex).intValue());
+                        }
+                    } catch (Throwable th) {
+                        failure.compareAndSet(null, th);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        // every glyph got exactly one selector, and the selectors are dense
+        assertEquals(glyphCount + 1, subset.getNumberOfGlyphs());
+        assertEquals(glyphCount + 1, subset.getGlyphs().size());
+        BitSet selectors = new BitSet();
+        for (int selector : subset.getGlyphs().values()) {
+            selectors.set(selector);
+        }
+        assertEquals(glyphCount + 1, selectors.cardinality());
+        assertEquals(glyphCount, selectors.length() - 1);
+        for (int selector = 1; selector <= glyphCount; selector++) {
+            int glyphIndex = subset.getOriginalGlyphIndex(selector);
+            assertEquals(0x4E00 + glyphIndex, subset.getUnicode(selector));
+        }
+    }
 }
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.fonts.autodetect.FontInfoFinder;
+
+/**
+ * Tests saving and loading the {@link FontCache}.
+ */
+public class FontCacheTestCase {
+
+    private static final String FONT = "test/resources/fonts/ttf/DejaVuLGCSerif.ttf";
+
+    private File cacheFile;
+    private InternalResourceResolver resolver;
+    private URI fontURI;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheFile = File.createTempFile("fop-fonts", ".cache");
+        resolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                new File(".").toURI());
+        fontURI = new File(FONT).getAbsoluteFile().toURI();
+    }
+
+    @After
+    public void tearDown() {
+        cacheFile.delete();
+    }
+
+    private EmbedFontInfo createFontInfo() {
+        EmbedFontInfo fontInfo = new EmbedFontInfo(new FontUris(fontURI, null), true, false,
+                Arrays.asList(new FontTriplet("DejaVu", "italic", 700, 1)), null,
+                EncodingMode.CID, EmbeddingMode.SUBSET, false, false);
+        fontInfo.setPostScriptName("DejaVuLGCSerif-BoldItalic");
+        return fontInfo;
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        FontCache cache = new FontCache();
+        cache.addFont(createFontInfo(), resolver);
+        cache.registerFailedFont("file:/broken.ttf", 42L);
+        cache.saveTo(cacheFile);
+        assertFalse(cache.hasChanged());
+
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        assertNotNull(loaded);
+        assertFalse(loaded.hasChanged());
+        String key = fontURI.toASCIIString();
+        assertTrue(loaded.containsFont(key));
+        long lastModified = FontCache.getLastModified(fontURI);
+        assertEquals(new File(FONT).lastModified(), lastModified);
+        EmbedFontInfo[] fontInfos = loaded.getFontInfos(key, lastModified);
+        assertEquals(1, fontInfos.length);
+        EmbedFontInfo fontInfo = fontInfos[0];
+        assertEquals("DejaVuLGCSerif-BoldItalic", fontInfo.getPostScriptName());
+        assertEquals(fontURI, fontInfo.getEmbedURI());
+        assertNull(fontInfo.getMetricsURI());
+        assertTrue(fontInfo.getKerning());
+        assertEquals(EncodingMode.CID, fontInfo.getEncodingMode());
+        assertEquals(EmbeddingMode.SUBSET, fontInfo.getEmbeddingMode());
+        assertEquals(new FontTriplet("DejaVu", "italic", 700), fontInfo.getFontTriplets().get(0));
+        assertEquals(1, fontInfo.getFontTriplets().get(0).getPriority());
+        assertTrue(loaded.isFailedFont("file:/broken.ttf", 42L));
+
+        // outdated entries are dropped
+        assertNull(loaded.getFontInfos(key, lastModified + 1));
+        assertFalse(loaded.containsFont(key));
+        assertTrue(loaded.hasChanged());
+    }
+
+    @Test
+    public void testResaveLoadedCache() throws Exception {
+        FontCache cache = new FontCache();
+        cache.addFont(createFontInfo(), resolver);
+        cache.saveTo(cacheFile);
+
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        loaded.registerFailedFont("file:/broken.ttf", 42L);
+        // the records are still mapped from the file being overwritten
+        loaded.saveTo(cacheFile);
+
+        FontCache reloaded = FontCache.loadFrom(cacheFile);
+        assertEquals("DejaVuLGCSerif-BoldItalic", reloaded.getFontInfos(fontURI.toASCIIString(),
+                FontCache.getLastModified(fontURI))[0].getPostScriptName());
+        assertTrue(reloaded.isFailedFont("file:/broken.ttf", 42L));
+    }
+
+    @Test
+    public void testLoadSerializedCache() throws Exception {
+        FontCache cache = new FontCache();
+        cache.addFont(createFontInfo(), resolver);
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(cacheFile));
+        try {
+            out.writeObject(cache);
+        } finally {
+            out.close();
+        }
+
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        assertNotNull(loaded);
+        assertTrue(loaded.containsFont(fontURI.toASCIIString()));
+        // converted to the binary format on the next save
+        assertTrue(loaded.hasChanged());
+    }
+
+    @Test
+    public void testSaveReplacesMappedFile() throws Exception {
+        FontCache cache = new FontCache();
+        cache.addFont(createFontInfo(), resolver);
+        cache.saveTo(cacheFile);
+        // the record of the font file is mapped but not decoded yet
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+
+        FontCache other = new FontCache();
+        other.registerFailedFont("file:/broken.ttf", 42L);
+        other.saveTo(cacheFile);
+
+        assertEquals("DejaVuLGCSerif-BoldItalic", loaded.getFontInfos(fontURI.toASCIIString(),
+                FontCache.getLastModified(fontURI))[0].getPostScriptName());
+        assertFalse(FontCache.loadFrom(cacheFile).containsFont(fontURI.toASCIIString()));
+        String[] files = cacheFile.getAbsoluteFile().getParentFile().list();
+        for (String name : files) {
+            assertFalse(name, name.startsWith(cacheFile.getName()) && name.endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    public void testMetricsAreCached() throws Exception {
+        File fontFile = File.createTempFile("fop-font", ".ttf");
+        try {
+            FileUtils.copyFile(new File(FONT), fontFile);
+            URI uri = fontFile.toURI();
+            FontCache cache = new FontCache();
+            EmbedFontInfo[] parsed = new FontInfoFinder().find(uri, resolver, cache);
+            assertNotNull(parsed[0].getCachedMetrics());
+            cache.saveTo(cacheFile);
+            // kept in the cache file only
+            assertNull(parsed[0].getCachedMetrics());
+
+            FontCache loaded = FontCache.loadFrom(cacheFile);
+            EmbedFontInfo[] fontInfos = loaded.getFontInfos(uri.toASCIIString(),
+                    FontCache.getLastModified(uri));
+            assertNotNull(fontInfos[0].getCachedMetrics());
+            LazyFont expected = new LazyFont(new EmbedFontInfo(new FontUris(uri, null), true, false,
+                    fontInfos[0].getFontTriplets(), null), resolver, false);
+            MultiByteFont expectedFont = (MultiByteFont) expected.getRealFont();
+
+            // advanced tables are only read from the font file when they are used
+            LazyFont advanced = new LazyFont(fontInfos[0], resolver, true);
+            assertNull(((MultiByteFont) advanced.getRealFont()).getGPOS());
+            assertTrue(advanced.performsPositioning());
+            assertNotNull(((MultiByteFont) advanced.getRealFont()).getGPOS());
+
+            // the font file isn't needed to set up the font
+            assertTrue(fontFile.delete());
+            LazyFont font = new LazyFont(fontInfos[0], resolver, false);
+            MultiByteFont cachedFont = (MultiByteFont) font.getRealFont();
+            assertEquals(expectedFont.getFontName(), cachedFont.getFontName());
+            assertEquals(expectedFont.getFamilyNames(), cachedFont.getFamilyNames());
+            assertEquals(expectedFont.getAscender(), cachedFont.getAscender());
+            assertEquals(expectedFont.getDescender(), cachedFont.getDescender());
+            assertEquals(expectedFont.getUnderlinePosition(12), cachedFont.getUnderlinePosition(12));
+            assertEquals(expectedFont.getStrikeoutPosition(12), cachedFont.getStrikeoutPosition(12));
+            assertTrue(Arrays.equals(expectedFont.getFontBBox(), cachedFont.getFontBBox()));
+            assertTrue(Arrays.equals(expectedFont.getWidths(), cachedFont.getWidths()));
+            assertTrue(Arrays.equals(expectedFont.getCMap(), cachedFont.getCMap()));
+            assertEquals(expectedFont.getKerningInfo(), cachedFont.getKerningInfo());
+            assertEquals(uri, cachedFont.getEmbedFileURI());
+            for (char c : "Hello, world!".toCharArray()) {
+                assertEquals(expected.mapChar(c), font.mapChar(c));
+                int glyph = font.mapChar(c);
+                assertEquals(expected.getWidth(glyph, 12), font.getWidth(glyph, 12));
+                assertEquals(expected.getBoundingBox(glyph, 12), font.getBoundingBox(glyph, 12));
+            }
+        } finally {
+            fontFile.delete();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.fonts.base14.Courier;
+import org.apache.fop.fonts.base14.Helvetica;
+
+public class FontInfoTestCase {
+
+    /**
+     * The layout and the rendering threads look up font instances at the same time when
+     * pages are rendered concurrently: each triplet and size must map to a single instance.
+     */
+    @Test
+    public void testConcurrentFontInstances() throws Exception {
+        final FontInfo fontInfo = new FontInfo();
+        fontInfo.addMetrics("F1", new Helvetica());
+        fontInfo.addFontProperties("F1", "Helvetica", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL);
+        fontInfo.addMetrics("F2", new Courier());
+        fontInfo.addFontProperties("F2", "Courier", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL);
+        final FontTriplet[] triplets = new FontTriplet[] {
+                new FontTriplet("Helvetica", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL),
+                new FontTriplet("Courier", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL)};
+        final Font[][][] fonts = new Font[4][][];
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[fonts.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int index = t;
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        Font[][] found = new Font[triplets.length][200];
+                        for (int size = 0; size < 200; size++) {
+                            for (int i = 0; i < triplets.length; i++) {
+                                found[i][size] = fontInfo.getFontInstance(triplets[i],
+                                        (size + 1) * 1000);
+                            }
+                        }
+                        fonts[index] = found;
+                    } catch (Throwable e) {
+                        failure.set(e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        for (int t = 1; t < fonts.length; t++) {
+            for (int i = 0; i < triplets.length; i++) {
+                for (int size = 0; size < 200; size++) {
+                    assertSame(fonts[0][i][size], fonts[t][i][size]);
+                }
+            }
+        }
+        assertEquals(2, fontInfo.getUsedFonts().size());
+        assertTrue(fontInfo.getUsedFonts().containsKey("F1"));
+        assertTrue(fontInfo.getUsedFonts().containsKey("F2"));
+    }
+}
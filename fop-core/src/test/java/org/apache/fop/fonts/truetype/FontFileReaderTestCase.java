@@ -21,17 +21,30 @@ package org.apache.fop.fonts.truetype;
 
 import java.io.ByteArrayInputStream;
 import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import org.apache.xmlgraphics.io.Resource;
+import org.apache.xmlgraphics.io.ResourceResolver;
+
+import org.apache.fop.apps.io.FileResource;
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
 /**
  * A test class for org.apache.fop.truetype.FontFileReader
  */
@@ -301,4 +314,78 @@ public class FontFileReaderTestCase {
         byte[] retrievedBytes = fontReader.getBytes(0, 256);
         assertTrue(Arrays.equals(byteArray, retrievedBytes));
     }
+
+    /**
+     * Test writing to a reader on shared, read-only font data.
+     * @throws IOException exception
+     */
+    @Test
+    public void testWriteToReadOnlyBuffer() throws IOException {
+        ByteBuffer shared = ByteBuffer.wrap(byteArray.clone()).asReadOnlyBuffer();
+        FontFileReader reader = new FontFileReader(shared);
+        assertEquals(256, reader.getFileSize());
+        reader.writeTTFUShort(10, 0xabcd);
+        assertEquals(0xabcd, reader.readTTFUShort(10));
+        assertEquals(9, reader.getBytes(9, 4)[0]);
+        assertEquals((byte) 0xab, reader.getBytes(9, 4)[1]);
+        assertEquals((byte) 0xcd, reader.getBytes(9, 4)[2]);
+        assertEquals(12, reader.getBytes(9, 4)[3]);
+        byte[] all = reader.getAllBytes();
+        assertEquals((byte) 0xcd, all[11]);
+        // the shared data is left untouched
+        assertEquals(11, shared.get(11));
+        assertEquals(0x0a0b, new FontFileReader(shared).readTTFUShort(10));
+    }
+
+    /**
+     * Test readers memory-mapping font files served from local files by the resource resolver.
+     * @throws Exception exception
+     */
+    @Test
+    public void testMappedFontFiles() throws Exception {
+        final File file = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").getAbsoluteFile();
+        InternalResourceResolver resolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                new File(".").toURI());
+        InputStream resource = resolver.getResource(file.toURI());
+        try {
+            assertTrue(resource instanceof FileResource);
+        } finally {
+            resource.close();
+        }
+        FontFileReader mapped = MappedFontFiles.createReader(resolver, file.toURI());
+        // resolvers serving fonts from elsewhere are read from
+        FontFileReader read = MappedFontFiles.createReader(
+                ResourceResolverFactory.createInternalResourceResolver(new File(".").toURI(),
+                        new ResourceResolver() {
+                            public Resource getResource(URI uri) throws IOException {
+                                return new Resource(new FileInputStream(file));
+                            }
+
+                            public OutputStream getOutputStream(URI uri) {
+                                throw new UnsupportedOperationException();
+                            }
+                        }), new URI("font:dejavu"));
+        assertEquals(read.getFileSize(), mapped.getFileSize());
+        assertTrue(Arrays.equals(read.getAllBytes(), mapped.getAllBytes()));
+    }
+
+    /**
+     * Test the readers of a font file share a single mapping.
+     * @throws Exception exception
+     */
+    @Test
+    public void testMappingIsShared() throws Exception {
+        File file = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+        FileResource first = new FileResource(file.getAbsoluteFile());
+        FileResource second = new FileResource(new File(file.getAbsoluteFile().getParentFile(),
+                "../ttf/" + file.getName()));
+        try {
+            ByteBuffer mapping = MappedFontFiles.getMapping(first);
+            assertSame(mapping, MappedFontFiles.getMapping(second));
+            assertEquals(file.length(), mapping.limit());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
 }
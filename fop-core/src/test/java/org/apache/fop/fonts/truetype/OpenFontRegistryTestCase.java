@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts.truetype;
+
+import java.io.File;
+import java.net.URI;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.fonts.CustomFont;
+import org.apache.fop.fonts.EmbeddingMode;
+import org.apache.fop.fonts.EncodingMode;
+import org.apache.fop.fonts.MultiByteFont;
+
+/**
+ * Tests {@link OpenFontRegistry}.
+ */
+public class OpenFontRegistryTestCase {
+
+    private final URI fontURI = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").toURI();
+
+    private final InternalResourceResolver resolver
+            = ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    @After
+    public void tearDown() {
+        OpenFontRegistry.clear();
+    }
+
+    @Test
+    public void testFontIsParsedOnce() throws Exception {
+        OpenFont font = OpenFontRegistry.getFont(resolver, fontURI, null, true, true);
+        assertSame(font, OpenFontRegistry.getFont(resolver, fontURI, null, true, true));
+        assertNotSame(font, OpenFontRegistry.getFont(resolver, fontURI, null, false, true));
+    }
+
+    @Test
+    public void testLoadersShareParsedFont() throws Exception {
+        CustomFont font1 = load();
+        CustomFont font2 = load();
+        assertNotSame(font1, font2);
+        assertEquals(font1.getFontName(), font2.getFontName());
+        assertSame(((MultiByteFont) font1).getGSUB(), ((MultiByteFont) font2).getGSUB());
+
+        // the per-document state is not shared
+        ((MultiByteFont) font1).mapChar('A');
+        assertEquals(2, ((MultiByteFont) font1).getUsedGlyphs().size());
+        assertEquals(1, ((MultiByteFont) font2).getUsedGlyphs().size());
+    }
+
+    private CustomFont load() throws Exception {
+        OFFontLoader loader = new OFFontLoader(fontURI, null, true, EmbeddingMode.AUTO,
+                EncodingMode.AUTO, true, true, resolver, false, false);
+        return loader.getFont();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link HyphenationTreeFormat}.
+ */
+public class HyphenationTreeFormatTestCase {
+
+    private static final String PATTERNS = "<?xml version='1.0' encoding='utf-8'?>"
+            + "<hyphenation-info><hyphen-min before='2' after='2'/>"
+            + "<classes>aA bB eE hH kK lL nN oO tT</classes>"
+            + "<exceptions>ta-ble ba<hyphen pre='k' no='c' post='k'/>ken</exceptions>"
+            + "<patterns>1he 1lo 1ke</patterns></hyphenation-info>";
+
+    private HyphenationTree loadPatterns() throws Exception {
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new InputSource(new ByteArrayInputStream(PATTERNS.getBytes("UTF-8"))));
+        return hTree;
+    }
+
+    private void assertSameHyphenation(HyphenationTree expected, HyphenationTree actual) {
+        String[] words = {"hello", "Hello", "table", "backen", "thelo"};
+        for (String word : words) {
+            assertEquals(String.valueOf(expected.hyphenate(word, 1, 1)),
+                    String.valueOf(actual.hyphenate(word, 1, 1)));
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        HyphenationTree hTree = loadPatterns();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HyphenationTreeFormat.write(hTree, out);
+        byte[] data = out.toByteArray();
+        assertTrue(HyphenationTreeFormat.isCompiled(data, data.length));
+
+        HyphenationTree read = HyphenationTreeFormat.read(ByteBuffer.wrap(data));
+        assertSameHyphenation(hTree, read);
+        assertEquals(hTree.stoplist.keySet(), read.stoplist.keySet());
+        List hyphenatedWord = (List) read.stoplist.get("backen");
+        assertEquals(3, hyphenatedWord.size());
+        assertEquals("ba", hyphenatedWord.get(0));
+        Hyphen hyphen = (Hyphen) hyphenatedWord.get(1);
+        assertEquals("k", hyphen.preBreak);
+        assertEquals("c", hyphen.noBreak);
+        assertEquals("k", hyphen.postBreak);
+        assertEquals("ken", hyphenatedWord.get(2));
+    }
+
+    @Test
+    public void testReadMappedFile() throws Exception {
+        HyphenationTree hTree = loadPatterns();
+        File file = File.createTempFile("fop-hyph", ".hyp");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                HyphenationTreeFormat.write(hTree, out);
+            } finally {
+                out.close();
+            }
+            FileInputStream in = new FileInputStream(file);
+            try {
+                assertSameHyphenation(hTree, HyphenationTreeFormat.readMapped(in.getChannel()));
+            } finally {
+                in.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSerializedFileIsNotMapped() throws Exception {
+        File file = File.createTempFile("fop-hyph", ".hyp");
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
+            try {
+                out.writeObject(loadPatterns());
+            } finally {
+                out.close();
+            }
+            FileInputStream in = new FileInputStream(file);
+            try {
+                assertNull(HyphenationTreeFormat.readMapped(in.getChannel()));
+            } finally {
+                in.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSerializedTreeIsNotCompiled() throws Exception {
+        byte[] header = {(byte) 0xac, (byte) 0xed, 0, 5};
+        assertFalse(HyphenationTreeFormat.isCompiled(header, header.length));
+        assertFalse(HyphenationTreeFormat.isCompiled(header, 2));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image.loader;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.impl.ImageBuffered;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
+
+/**
+ * Tests {@link FOPImageCache}.
+ */
+public class FOPImageCacheTestCase {
+
+    /** An image of 100 bytes */
+    private static Image newImage(String uri) {
+        return new ImageBuffered(new ImageInfo(uri, "image/png"),
+                new BufferedImage(10, 10, BufferedImage.TYPE_BYTE_GRAY), null);
+    }
+
+    private static FOPImageCache newCache(long maxBytes, ImageCachePolicy.Eviction eviction,
+            String... pinnedURIs) {
+        FOPImageCache cache = new FOPImageCache();
+        cache.setPolicy(new ImageCachePolicy(maxBytes, eviction, Arrays.asList(pinnedURIs)));
+        return cache;
+    }
+
+    private static Image get(FOPImageCache cache, String uri) {
+        return cache.getImage(uri, ImageFlavor.BUFFERED_IMAGE);
+    }
+
+    @Test
+    public void testEstimateSize() {
+        assertEquals(100, FOPImageCache.estimateSize(newImage("a")));
+        assertEquals(300, FOPImageCache.estimateSize(new ImageBuffered(new ImageInfo("a", "image/png"),
+                new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR), null)));
+    }
+
+    @Test
+    public void testWithoutPolicy() {
+        FOPImageCache cache = new FOPImageCache();
+        Image image = newImage("a");
+        assertNull(get(cache, "a"));
+        cache.putImage(image);
+        assertSame(image, get(cache, "a"));
+        ImageCacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+        assertEquals(0, statistics.getEntries());
+        assertEquals(0.5, statistics.getHitRatio(), 0);
+    }
+
+    @Test
+    public void testLRU() {
+        FOPImageCache cache = fill(newCache(250, ImageCachePolicy.Eviction.LRU));
+        //b was used more often, but a more recently
+        assertNull(get(cache, "b"));
+        assertNotNull(get(cache, "a"));
+        assertNotNull(get(cache, "c"));
+        ImageCacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getEvictions());
+        assertEquals(2, statistics.getEntries());
+        assertEquals(200, statistics.getBytes());
+    }
+
+    @Test
+    public void testLFU() {
+        FOPImageCache cache = fill(newCache(250, ImageCachePolicy.Eviction.LFU));
+        assertNull(get(cache, "a"));
+        assertNotNull(get(cache, "b"));
+        assertNotNull(get(cache, "c"));
+        assertEquals(1, cache.getStatistics().getEvictions());
+    }
+
+    private static FOPImageCache fill(FOPImageCache cache) {
+        cache.putImage(newImage("a"));
+        cache.putImage(newImage("b"));
+        get(cache, "b");
+        get(cache, "b");
+        get(cache, "a");
+        cache.putImage(newImage("c"));
+        return cache;
+    }
+
+    @Test
+    public void testPinned() {
+        FOPImageCache cache = newCache(150, ImageCachePolicy.Eviction.LRU, "a");
+        Image pinned = newImage("a");
+        cache.putImage(pinned);
+        cache.putImage(newImage("b"));
+        cache.putImage(newImage("c"));
+        assertSame(pinned, get(cache, "a"));
+        assertNull(get(cache, "b"));
+        assertNull(get(cache, "c"));
+        ImageCacheStatistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.getEvictions());
+        assertEquals(100, statistics.getBytes());
+
+        //pinned images stay even if they exceed the budget on their own
+        cache = newCache(50, ImageCachePolicy.Eviction.LFU, "a");
+        cache.putImage(pinned);
+        assertSame(pinned, get(cache, "a"));
+    }
+
+    @Test
+    public void testSetPolicyClears() {
+        FOPImageCache cache = newCache(1000, ImageCachePolicy.Eviction.LRU);
+        cache.putImage(newImage("a"));
+        cache.setPolicy(new ImageCachePolicy(1000, ImageCachePolicy.Eviction.LFU,
+                Collections.<String>emptySet()));
+        assertNull(get(cache, "a"));
+        assertEquals(0, cache.getStatistics().getBytes());
+    }
+
+    @Test
+    public void testPinnedURIsAreResolved() {
+        FOPImageCache cache = newCache(150, ImageCachePolicy.Eviction.LRU,
+                "url(images/a.png)", "file:/base/images/b.png");
+        cache.setBaseURI(URI.create("file:/base/"));
+        Image a = newImage("file:/base/images/a.png");
+        Image b = newImage("./images/b.png");
+        cache.putImage(a);
+        cache.putImage(b);
+        cache.putImage(newImage("images/c.png"));
+        assertSame(a, get(cache, "file:/base/images/a.png"));
+        assertSame(b, get(cache, "./images/b.png"));
+        assertNull(get(cache, "images/c.png"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonCacheableImageIsRejected() {
+        FOPImageCache cache = newCache(1000, ImageCachePolicy.Eviction.LRU);
+        ImageRawStream image = new ImageRawStream(new ImageInfo("a", "image/jpeg"),
+                ImageFlavor.RAW_JPEG, new ByteArrayInputStream(new byte[] {1, 2, 3, 4}));
+        assertFalse(image.isCacheable());
+        cache.putImage(image);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.intermediate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.Date;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.render.intermediate.BinaryIFParser;
+import org.apache.fop.render.intermediate.BinaryIFSerializer;
+import org.apache.fop.render.intermediate.IFContext;
+import org.apache.fop.render.intermediate.IFParser;
+import org.apache.fop.render.intermediate.IFSerializer;
+
+/**
+ * Tests that the binary intermediate format round-trips losslessly to the XML intermediate
+ * format.
+ */
+public class BinaryIFTestCase {
+
+    private static final String FO = "<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'"
+            + " xmlns:fox='http://xmlgraphics.apache.org/fop/extensions'>"
+            + "<fo:layout-master-set><fo:simple-page-master master-name='page'"
+            + " page-width='300pt' page-height='300pt' margin='10pt'>"
+            + "<fo:region-body margin-top='20pt'/><fo:region-before extent='15pt'/>"
+            + "</fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:bookmark-tree><fo:bookmark internal-destination='second'>"
+            + "<fo:bookmark-title>Second</fo:bookmark-title></fo:bookmark></fo:bookmark-tree>"
+            + "<fo:page-sequence master-reference='page'>"
+            + "<fo:static-content flow-name='xsl-region-before'>"
+            + "<fo:block text-align='end'>Page <fo:page-number/></fo:block></fo:static-content>"
+            + "<fo:flow flow-name='xsl-region-body'>"
+            + "<fo:block color='#3366cc' font-weight='bold' letter-spacing='1pt'>"
+            + "Letter spaced text &amp; &lt;markup&gt; é€</fo:block>"
+            + "<fo:block text-align='justify'>Justified text that is long enough to wrap"
+            + " onto a second line, with a <fo:basic-link internal-destination='second'"
+            + " color='blue'>link</fo:basic-link> and a <fo:inline baseline-shift='super'"
+            + " font-size='6pt'>superscript</fo:inline>.</fo:block>"
+            + "<fo:block><fo:leader leader-pattern='rule' leader-length='100pt'"
+            + " rule-style='dashed'/></fo:block>"
+            + "<fo:block border='2pt solid red' background-color='yellow' padding='3pt'"
+            + " fox:border-radius='4pt'>Rounded</fo:block>"
+            + "<fo:block border-top='1pt dotted green' border-bottom='3pt double black'>"
+            + "Borders</fo:block>"
+            + "<fo:block><fo:external-graphic src='test/resources/images/box1.png'"
+            + " content-width='20pt'/></fo:block>"
+            + "<fo:block id='second' break-before='page' font-family='monospace'>"
+            + "Second page</fo:block>"
+            + "<fo:block-container reference-orientation='90' width='50pt' height='80pt'"
+            + " overflow='hidden'><fo:block>Rotated</fo:block></fo:block-container>"
+            + "</fo:flow></fo:page-sequence></fo:root>";
+
+    private static final Date CREATION_DATE = new Date(1000000000000L);
+
+    private FopFactory fopFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        fopFactory = FopFactory.newInstance(new File(".").toURI());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        byte[] xml = render(new IFSerializer(new IFContext(newUserAgent(false))));
+        byte[] binary = render(new BinaryIFSerializer(new IFContext(newUserAgent(false))));
+        assertFalse(BinaryIFParser.isBinaryIF(xml, xml.length));
+        assertTrue(BinaryIFParser.isBinaryIF(binary, binary.length));
+        assertTrue(binary.length < xml.length);
+
+        //the binary format written during rendering decodes to the XML written during rendering
+        assertEquals(toString(xml), toString(binaryToXML(binary)));
+        //converting XML to binary is lossless as well
+        assertEquals(toString(xmlToXML(xml)), toString(binaryToXML(xmlToBinary(xml))));
+    }
+
+    @Test
+    public void testRoundTripWithAccessibility() throws Exception {
+        byte[] xml = render(new IFSerializer(new IFContext(newUserAgent(true))));
+        byte[] binary = render(new BinaryIFSerializer(new IFContext(newUserAgent(true))));
+        assertTrue(binary.length < xml.length);
+
+        //the structure tree and the references to it survive the binary format
+        String expected = toString(xmlToXML(xml));
+        assertEquals(expected, toString(binaryToXML(xmlToBinary(xml))));
+        assertEquals(expected, toString(xmlToXML(binaryToXML(binary))));
+    }
+
+    private static String toString(byte[] document) throws Exception {
+        //the metadata date is the time of writing
+        return new String(document, "UTF-8").replaceAll(
+                "<xmp:MetadataDate>[^<]*</xmp:MetadataDate>", "");
+    }
+
+    private FOUserAgent newUserAgent(boolean accessibility) {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setAccessibility(accessibility);
+        userAgent.setCreationDate(CREATION_DATE);
+        return userAgent;
+    }
+
+    private byte[] render(IFSerializer serializer) throws Exception {
+        FOUserAgent userAgent = serializer.getContext().getUserAgent();
+        serializer.mimicDocumentHandler(userAgent.getRendererFactory().createDocumentHandler(
+                userAgent, MimeConstants.MIME_PDF));
+        if (userAgent.isAccessibilityEnabled()) {
+            userAgent.setStructureTreeEventHandler(serializer.getStructureTreeEventHandler());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.setResult(new StreamResult(out));
+        userAgent.setDocumentHandlerOverride(serializer);
+        Fop fop = fopFactory.newFop(userAgent);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(FO)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toByteArray();
+    }
+
+    private byte[] xmlToXML(byte[] xml) throws Exception {
+        FOUserAgent userAgent = newUserAgent(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IFSerializer serializer = new IFSerializer(new IFContext(userAgent));
+        serializer.setResult(new StreamResult(out));
+        new IFParser().parse(new StreamSource(new ByteArrayInputStream(xml)), serializer,
+                userAgent);
+        return out.toByteArray();
+    }
+
+    private byte[] xmlToBinary(byte[] xml) throws Exception {
+        FOUserAgent userAgent = newUserAgent(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IFSerializer serializer = new BinaryIFSerializer(new IFContext(userAgent));
+        serializer.setResult(new StreamResult(out));
+        new IFParser().parse(new StreamSource(new ByteArrayInputStream(xml)), serializer,
+                userAgent);
+        return out.toByteArray();
+    }
+
+    private byte[] binaryToXML(byte[] binary) throws Exception {
+        FOUserAgent userAgent = newUserAgent(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IFSerializer serializer = new IFSerializer(new IFContext(userAgent));
+        serializer.setResult(new StreamResult(out));
+        new BinaryIFParser().parse(new ByteArrayInputStream(binary), serializer, userAgent);
+        return out.toByteArray();
+    }
+}
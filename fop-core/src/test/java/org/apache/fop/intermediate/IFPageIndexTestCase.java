@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.intermediate;
+
+import java.awt.Dimension;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.xmlgraphics.xmp.Metadata;
+import org.apache.xmlgraphics.xmp.schemas.DublinCoreSchema;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.render.intermediate.IFContext;
+import org.apache.fop.render.intermediate.IFDocumentHandler;
+import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFPageIndex;
+import org.apache.fop.render.intermediate.IFParser;
+import org.apache.fop.render.intermediate.IFSerializer;
+import org.apache.fop.render.intermediate.util.IFConcatenator;
+import org.apache.fop.render.intermediate.util.IFDocumentHandlerProxy;
+
+/**
+ * Tests the page index of intermediate format files.
+ */
+public class IFPageIndexTestCase {
+
+    private static final String FO = "<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'>"
+            + "<fo:layout-master-set><fo:simple-page-master master-name='page'"
+            + " page-width='200pt' page-height='200pt'>"
+            + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:bookmark-tree><fo:bookmark internal-destination='p1'>"
+            + "<fo:bookmark-title>one</fo:bookmark-title></fo:bookmark>"
+            + "<fo:bookmark internal-destination='p4'><fo:bookmark-title>four</fo:bookmark-title>"
+            + "</fo:bookmark></fo:bookmark-tree>"
+            + "<fo:page-sequence master-reference='page'><fo:flow flow-name='xsl-region-body'>"
+            + "<fo:block>page 0 &lt;page&gt;</fo:block>"
+            + "<fo:block break-before='page' id='p1'>page 1</fo:block>"
+            + "<fo:block break-before='page'>page 2 <fo:basic-link internal-destination='p1'>"
+            + "back</fo:basic-link> <fo:basic-link internal-destination='p4'>forward"
+            + "</fo:basic-link> <fo:basic-link external-destination='url(http://xmlgraphics"
+            + ".apache.org/)'>site</fo:basic-link></fo:block>"
+            + "</fo:flow></fo:page-sequence>"
+            + "<fo:page-sequence master-reference='page'><fo:flow flow-name='xsl-region-body'>"
+            + "<fo:block>page 3</fo:block>"
+            + "<fo:block break-before='page' id='p4'>page 4</fo:block>"
+            + "</fo:flow></fo:page-sequence></fo:root>";
+
+    private FopFactory fopFactory;
+    private File ifFile;
+    private IFPageIndex pageIndex;
+    private byte[] storedPageIndex;
+
+    @Before
+    public void setUp() throws Exception {
+        fopFactory = FopFactory.newInstance(new File(".").toURI());
+        ifFile = File.createTempFile("fop-page-index", ".if.xml");
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        IFSerializer serializer = new IFSerializer(new IFContext(userAgent));
+        serializer.mimicDocumentHandler(userAgent.getRendererFactory().createDocumentHandler(
+                userAgent, MimeConstants.MIME_PDF));
+        ByteArrayOutputStream indexOut = new ByteArrayOutputStream();
+        serializer.setPageIndexOutputStream(indexOut);
+        OutputStream out = new FileOutputStream(ifFile);
+        try {
+            serializer.setResult(new StreamResult(out));
+            userAgent.setDocumentHandlerOverride(serializer);
+            Fop fop = fopFactory.newFop(userAgent);
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.transform(new StreamSource(new StringReader(FO)),
+                    new SAXResult(fop.getDefaultHandler()));
+        } finally {
+            out.close();
+        }
+        storedPageIndex = indexOut.toByteArray();
+        pageIndex = IFPageIndex.read(new ByteArrayInputStream(storedPageIndex));
+    }
+
+    @After
+    public void tearDown() {
+        ifFile.delete();
+    }
+
+    @Test
+    public void testPageIndex() throws Exception {
+        assertEquals(5, pageIndex.getPageCount());
+        assertEquals(2, pageIndex.getPageSequenceCount());
+
+        InputStream in = new FileInputStream(ifFile);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            IFPageIndex.create(in).writeTo(out);
+            assertArrayEquals(storedPageIndex, out.toByteArray());
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testParsePageRange() throws Exception {
+        PageRecorder recorder = parse(2, 3);
+        assertEquals(2, recorder.pageSequences);
+        assertEquals(2, recorder.pages.size());
+        assertEquals(0, recorder.pages.get(0).intValue());
+        assertEquals(1, recorder.pages.get(1).intValue());
+        assertEquals(1, recorder.documents);
+
+        recorder = parse(0, 4);
+        assertEquals(2, recorder.pageSequences);
+        assertEquals(5, recorder.pages.size());
+        assertEquals(4, recorder.pages.get(4).intValue());
+    }
+
+    @Test
+    public void testNavigationInPageRange() throws Exception {
+        String all = parse(0, 4).out.toString("UTF-8");
+        assertTrue(all.contains("<nav:goto-xy id=\"p4\" page-index=\"4\""));
+        assertTrue(all.contains("<nav:bookmark title=\"four\""));
+
+        // page 1 becomes page 0 and the destinations on page 4 are left out
+        String range = parse(1, 3).out.toString("UTF-8");
+        assertTrue(range.contains("<nav:goto-xy id=\"p1\" page-index=\"0\" page-index-relative=\"-1\""));
+        assertTrue(range.contains("<nav:goto-uri "));
+        assertTrue(range.contains("<nav:bookmark title=\"one\""));
+        assertFalse(range.contains("page-index=\"4\""));
+        assertFalse(range.contains("<nav:bookmark title=\"four\""));
+    }
+
+    private PageRecorder parse(int firstPage, int lastPage) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        PageRecorder recorder = new PageRecorder(userAgent);
+        new IFParser().parse(ifFile, pageIndex, firstPage, lastPage, recorder, userAgent);
+        return recorder;
+    }
+
+    @Test
+    public void testConcatenate() throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        PageRecorder recorder = new PageRecorder(userAgent);
+        IFConcatenator concatenator = new IFConcatenator(recorder, null);
+        concatenator.appendDocument(ifFile, pageIndex);
+        concatenator.appendDocument(ifFile, pageIndex);
+        concatenator.finish();
+        assertEquals(4, recorder.pageSequences);
+        assertEquals(10, recorder.pages.size());
+        assertEquals(9, recorder.pages.get(9).intValue());
+    }
+
+    @Test
+    public void testConcatenateKeepsExtensionsOfFirstDocument() throws Exception {
+        File first = File.createTempFile("fop-page-index", ".if.xml");
+        File second = File.createTempFile("fop-page-index", ".if.xml");
+        try {
+            IFPageIndex firstIndex = createDocument(first, 1, "first");
+            IFPageIndex secondIndex = createDocument(second, 1, "second");
+            FOUserAgent userAgent = fopFactory.newFOUserAgent();
+            PageRecorder recorder = new PageRecorder(userAgent);
+            IFConcatenator concatenator = new IFConcatenator(recorder, null);
+            concatenator.appendDocument(first, firstIndex);
+            concatenator.appendDocument(second, secondIndex);
+            concatenator.finish();
+            assertEquals(2, recorder.pages.size());
+            assertEquals(Arrays.asList("first header", "first trailer"), recorder.titles);
+        } finally {
+            first.delete();
+            second.delete();
+        }
+    }
+
+    @Test
+    public void testConcatenateDocumentWithoutPages() throws Exception {
+        File empty = File.createTempFile("fop-page-index", ".if.xml");
+        try {
+            IFPageIndex emptyIndex = createDocument(empty, 0, "empty");
+            FOUserAgent userAgent = fopFactory.newFOUserAgent();
+            PageRecorder recorder = new PageRecorder(userAgent);
+            IFConcatenator concatenator = new IFConcatenator(recorder, null);
+            concatenator.appendDocument(empty, emptyIndex);
+            concatenator.appendDocument(ifFile, pageIndex);
+            concatenator.finish();
+            assertEquals(5, recorder.pages.size());
+            // the empty document is the first one, not the next one
+            assertEquals(Arrays.asList("empty header", "empty trailer"), recorder.titles);
+        } finally {
+            empty.delete();
+        }
+    }
+
+    /**
+     * Creates an intermediate format document with document-level metadata in its header and
+     * trailer.
+     */
+    private IFPageIndex createDocument(File file, int pageCount, String title) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        IFSerializer serializer = new IFSerializer(new IFContext(userAgent));
+        ByteArrayOutputStream indexOut = new ByteArrayOutputStream();
+        serializer.setPageIndexOutputStream(indexOut);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            serializer.setResult(new StreamResult(out));
+            serializer.startDocument();
+            serializer.startDocumentHeader();
+            serializer.handleExtensionObject(createMetadata(title + " header"));
+            serializer.endDocumentHeader();
+            if (pageCount > 0) {
+                serializer.startPageSequence(null);
+                for (int i = 0; i < pageCount; i++) {
+                    serializer.startPage(i, String.valueOf(i + 1), "page",
+                            new Dimension(200000, 200000));
+                    serializer.startPageContent();
+                    serializer.endPageContent();
+                    serializer.startPageTrailer();
+                    serializer.endPageTrailer();
+                    serializer.endPage();
+                }
+                serializer.endPageSequence();
+            }
+            serializer.startDocumentTrailer();
+            serializer.handleExtensionObject(createMetadata(title + " trailer"));
+            serializer.endDocumentTrailer();
+            serializer.endDocument();
+        } finally {
+            out.close();
+        }
+        return IFPageIndex.read(new ByteArrayInputStream(indexOut.toByteArray()));
+    }
+
+    private static Metadata createMetadata(String title) {
+        Metadata metadata = new Metadata();
+        DublinCoreSchema.getAdapter(metadata).setTitle(title);
+        return metadata;
+    }
+
+    private static final class PageRecorder extends IFDocumentHandlerProxy {
+
+        private int documents;
+        private int pageSequences;
+        private final List<Integer> pages = new ArrayList<Integer>();
+        private final List<String> titles = new ArrayList<String>();
+        private final ByteArrayOutputStream out;
+
+        PageRecorder(FOUserAgent userAgent) throws IFException {
+            this(userAgent, new ByteArrayOutputStream());
+        }
+
+        private PageRecorder(FOUserAgent userAgent, ByteArrayOutputStream out) throws IFException {
+            super(createSerializer(userAgent, out));
+            this.out = out;
+        }
+
+        private static IFDocumentHandler createSerializer(FOUserAgent userAgent,
+                OutputStream out) throws IFException {
+            IFSerializer serializer = new IFSerializer(new IFContext(userAgent));
+            serializer.setResult(new StreamResult(out));
+            return serializer;
+        }
+
+        @Override
+        public void startDocument() throws IFException {
+            documents++;
+            super.startDocument();
+        }
+
+        @Override
+        public void startPageSequence(String id) throws IFException {
+            pageSequences++;
+            super.startPageSequence(id);
+        }
+
+        @Override
+        public void startPage(int index, String name, String pageMasterName,
+                Dimension size) throws IFException {
+            pages.add(index);
+            super.startPage(index, name, pageMasterName, size);
+        }
+
+        @Override
+        public void handleExtensionObject(Object extension) throws IFException {
+            if (extension instanceof Metadata) {
+                titles.add(DublinCoreSchema.getAdapter((Metadata) extension).getTitle());
+            }
+            super.handleExtensionObject(extension);
+        }
+    }
+}
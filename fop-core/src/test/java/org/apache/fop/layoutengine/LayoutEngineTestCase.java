@@ -160,6 +160,7 @@ public class LayoutEngineTestCase {
 
             //Setup FOP for area tree rendering
             FOUserAgent ua = effFactory.newFOUserAgent();
+            configure(ua);
             ua.getEventBroadcaster().addEventListener(eventsChecker);
 
             XMLRenderer atrenderer = new XMLRenderer(ua);
@@ -183,6 +184,13 @@ public class LayoutEngineTestCase {
         checkAll(effFactory, testFile, result, eventsChecker);
     }
 
+    /**
+     * Configures the user agent a test case is run with.
+     * @param ua the user agent
+     */
+    protected void configure(FOUserAgent ua) {
+    }
+
     private static class EventsChecker implements EventListener {
 
         private final List<Event> events = new ArrayList<Event>();
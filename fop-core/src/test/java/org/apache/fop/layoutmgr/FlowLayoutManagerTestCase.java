@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.pagination.Flow;
+import org.apache.fop.fo.pagination.PageSequence;
+
+public class FlowLayoutManagerTestCase {
+
+    private static final String FO = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+            + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+            + " page-width=\"10cm\" page-height=\"3cm\"><fo:region-body margin-top=\"1cm\"/>"
+            + "<fo:region-before extent=\"1cm\"/></fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:page-sequence master-reference=\"page\">"
+            + "<fo:static-content flow-name=\"xsl-region-before\"><fo:block>"
+            + "<fo:retrieve-marker retrieve-class-name=\"title\"/></fo:block></fo:static-content>"
+            + "<fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block id=\"b1\">one</fo:block>"
+            + "<fo:block id=\"b2\"><fo:marker marker-class-name=\"title\">Two</fo:marker>two</fo:block>"
+            + "<fo:block id=\"b3\" break-before=\"page\">three</fo:block>"
+            + "<fo:table id=\"b4\" break-before=\"page\"><fo:table-body><fo:table-row>"
+            + "<fo:table-cell><fo:block>four</fo:block></fo:table-cell>"
+            + "</fo:table-row></fo:table-body></fo:table>"
+            + "<fo:block id=\"b5\" break-before=\"page\">five</fo:block>"
+            + "<fo:block id=\"b6\">six <fo:page-number-citation ref-id=\"b1\"/></fo:block>"
+            + "</fo:flow></fo:page-sequence></fo:root>";
+
+    @Test
+    public void testFinishedChildrenAreReleased() throws Exception {
+        List<Object> result = layout(true);
+        Flow flow = (Flow) result.get(0);
+        //only the block holding a marker and the one being laid out at the end are left
+        assertArrayEquals(new String[] {"b2", "b6"}, getChildIds(flow));
+        assertFalse(((PageSequence) result.get(1)).hasChildren());
+    }
+
+    @Test
+    public void testChildrenAreKeptByDefault() throws Exception {
+        List<Object> result = layout(false);
+        assertArrayEquals(new String[] {"b1", "b2", "b3", "b4", "b5", "b6"},
+                getChildIds((Flow) result.get(0)));
+    }
+
+    @Test
+    public void testOutputIsUnchanged() throws Exception {
+        assertEquals(render(false), render(true));
+    }
+
+    private List<Object> layout(boolean incrementalRelease) throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setIncrementalRelease(incrementalRelease);
+        final List<Object> result = new ArrayList<Object>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userAgent.setFOEventHandlerOverride(new AreaTreeHandler(userAgent,
+                MimeConstants.MIME_FOP_AREA_TREE, out) {
+            @Override
+            public void endFlow(Flow fl) {
+                super.endFlow(fl);
+                result.add(fl);
+            }
+
+            @Override
+            public void endPageSequence(PageSequence pageSequence) {
+                super.endPageSequence(pageSequence);
+                result.add(pageSequence);
+            }
+        });
+        transform(fopFactory, userAgent, out);
+        assertEquals(2, result.size());
+        return result;
+    }
+
+    private String render(boolean incrementalRelease) throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setIncrementalRelease(incrementalRelease);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transform(fopFactory, userAgent, out);
+        return out.toString("UTF-8");
+    }
+
+    private void transform(FopFactory fopFactory, FOUserAgent userAgent,
+            ByteArrayOutputStream out) throws Exception {
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(FO)),
+                new SAXResult(fop.getDefaultHandler()));
+    }
+
+    private static String[] getChildIds(Flow flow) {
+        List<String> ids = new ArrayList<String>();
+        FONode.FONodeIterator children = flow.getChildNodes();
+        while (children != null && children.hasNext()) {
+            ids.add(((FObj) children.next()).getId());
+        }
+        return ids.toArray(new String[ids.size()]);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@linkplain PackedKnuthSequence} class.
+ */
+public class PackedKnuthSequenceTestCase {
+
+    private BlockKnuthSequence createSequence() {
+        BlockKnuthSequence seq = new BlockKnuthSequence();
+        seq.add(new KnuthBox(1000, null, false));
+        seq.add(new KnuthPenalty(50, KnuthPenalty.FLAGGED_PENALTY, true, null, false));
+        seq.add(new KnuthGlue(300, 100, 50, null, false));
+        seq.add(new KnuthGlue(200, 20, 10, null, false));
+        seq.add(new KnuthPenalty(0, -KnuthElement.INFINITE, false, null, false));
+        seq.add(new KnuthGlue(500, 0, 0, null, false));
+        seq.add(new KnuthBox(2000, null, false));
+        seq.add(new KnuthPenalty(0, KnuthElement.INFINITE, false, null, false));
+        return seq;
+    }
+
+    @Test
+    public void testElementProperties() {
+        BlockKnuthSequence seq = createSequence();
+        PackedKnuthSequence packed = new PackedKnuthSequence(seq);
+        assertEquals(seq.size(), packed.size());
+        for (int i = 0; i < seq.size(); i++) {
+            KnuthElement element = (KnuthElement) seq.get(i);
+            assertEquals(element, packed.getElement(i));
+            assertEquals(element.isBox(), packed.isBox(i));
+            assertEquals(element.isGlue(), packed.isGlue(i));
+            assertEquals(element.isPenalty(), packed.isPenalty(i));
+            assertEquals(element.isForcedBreak(), packed.isForcedBreak(i));
+            assertEquals(element.getWidth(), packed.getWidth(i));
+            if (element.isGlue()) {
+                assertEquals(element.getStretch(), packed.getStretch(i));
+                assertEquals(element.getShrink(), packed.getShrink(i));
+            }
+            if (element.isPenalty()) {
+                assertEquals(element.getPenalty(), packed.getPenalty(i));
+                assertEquals(((KnuthPenalty) element).isPenaltyFlagged(),
+                        packed.isFlaggedPenalty(i));
+            }
+        }
+        assertTrue(packed.isAllowedPenalty(1));
+        assertFalse(packed.isAllowedPenalty(7));
+    }
+
+    @Test
+    public void testSuppressedGlue() {
+        PackedKnuthSequence packed = new PackedKnuthSequence(createSequence());
+        // glues up to the forced break
+        assertArrayEquals(new int[] {500, 120, 60}, packed.getSuppressedGlue(1));
+        // a forced break doesn't stop at itself
+        assertArrayEquals(new int[] {500, 0, 0}, packed.getSuppressedGlue(4));
+        assertArrayEquals(new int[] {0, 0, 0}, packed.getSuppressedGlue(0));
+    }
+
+    @Test
+    public void testViewOf() {
+        BlockKnuthSequence seq = createSequence();
+        PackedKnuthSequence packed = new PackedKnuthSequence(seq);
+        assertTrue(packed.isViewOf(seq));
+        assertFalse(packed.isViewOf(createSequence()));
+        seq.add(0, KnuthPenalty.DUMMY_ZERO_PENALTY);
+        assertFalse(packed.isViewOf(seq));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.area.PageViewport;
+import org.apache.fop.area.RenderPagesModel;
+import org.apache.fop.fo.Constants;
+
+/**
+ * Tests that the layout of page independent static contents is reused.
+ */
+public class StaticContentCacheTestCase {
+
+    private static final String FO = "<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'>"
+            + "<fo:layout-master-set><fo:simple-page-master master-name='page'"
+            + " page-width='200pt' page-height='200pt'>"
+            + "<fo:region-body margin='50pt'/>"
+            + "<fo:region-before extent='40pt'/><fo:region-after extent='40pt'/>"
+            + "</fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:page-sequence master-reference='page'>"
+            + "<fo:static-content flow-name='xsl-region-before'>"
+            + "<fo:block>Letterhead</fo:block><fo:block>Second line</fo:block></fo:static-content>"
+            + "<fo:static-content flow-name='xsl-region-after'>"
+            + "<fo:block>Page <fo:page-number/></fo:block></fo:static-content>"
+            + "<fo:flow flow-name='xsl-region-body'>"
+            + "<fo:block>one</fo:block><fo:block break-before='page'>two</fo:block>"
+            + "<fo:block break-before='page'>three</fo:block>"
+            + "</fo:flow></fo:page-sequence></fo:root>";
+
+    private final List<List<Area>> before = new ArrayList<List<Area>>();
+    private final List<List<Area>> after = new ArrayList<List<Area>>();
+
+    private final List<List> beforeElementLists = new ArrayList<List>();
+    private final List<List> afterElementLists = new ArrayList<List>();
+
+    @Test
+    public void testLayoutIsReused() throws Exception {
+        ElementListObserver.Observer observer = new ElementListObserver.Observer() {
+            public void observe(List elementList, String category, String id) {
+                if ("static-content".equals(category)) {
+                    if ("xsl-region-before".equals(id)) {
+                        beforeElementLists.add(elementList);
+                    } else if ("xsl-region-after".equals(id)) {
+                        afterElementLists.add(elementList);
+                    }
+                }
+            }
+        };
+        ElementListObserver.addObserver(observer);
+        try {
+            FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+            FOUserAgent userAgent = fopFactory.newFOUserAgent();
+            userAgent.setFOEventHandlerOverride(new CollectingAreaTreeHandler(userAgent,
+                    new ByteArrayOutputStream()));
+            Fop fop = fopFactory.newFop(userAgent);
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.transform(new StreamSource(new StringReader(FO)),
+                    new SAXResult(fop.getDefaultHandler()));
+        } finally {
+            ElementListObserver.removeObserver(observer);
+        }
+
+        // the letterhead is laid out once and its element list reported for every page
+        assertEquals(3, beforeElementLists.size());
+        assertSame(beforeElementLists.get(0), beforeElementLists.get(1));
+        assertSame(beforeElementLists.get(0), beforeElementLists.get(2));
+        assertEquals(3, before.size());
+        assertEquals(2, before.get(0).size());
+        for (int i = 1; i < before.size(); i++) {
+            assertEquals(before.get(0).size(), before.get(i).size());
+            for (int j = 0; j < before.get(0).size(); j++) {
+                // every page gets its own copy of the areas
+                Area first = before.get(0).get(j);
+                Area copy = before.get(i).get(j);
+                assertNotSame(first, copy);
+                assertEquals(first.getIPD(), copy.getIPD());
+                assertEquals(first.getBPD(), copy.getBPD());
+                assertEquals(first.getTraits(), copy.getTraits());
+            }
+        }
+        // the footer holds a page number, so it's laid out on every page
+        assertEquals(3, afterElementLists.size());
+        assertNotSame(afterElementLists.get(0), afterElementLists.get(1));
+        assertEquals(3, after.size());
+        assertFalse(after.get(0).isEmpty());
+        assertNotSame(after.get(0).get(0), after.get(1).get(0));
+    }
+
+    private class CollectingAreaTreeHandler extends AreaTreeHandler {
+
+        CollectingAreaTreeHandler(FOUserAgent userAgent, OutputStream out) throws FOPException {
+            super(userAgent, MimeConstants.MIME_FOP_AREA_TREE, out);
+        }
+
+        @Override
+        protected void setupModel(FOUserAgent userAgent, String outputFormat,
+                OutputStream stream) throws FOPException {
+            this.model = new RenderPagesModel(userAgent, outputFormat, fontInfo, stream) {
+                @Override
+                public void addPage(PageViewport page) {
+                    before.add(getBlocks(page, Constants.FO_REGION_BEFORE));
+                    after.add(getBlocks(page, Constants.FO_REGION_AFTER));
+                    super.addPage(page);
+                }
+            };
+        }
+
+        private List<Area> getBlocks(PageViewport page, int region) {
+            return new ArrayList<Area>(page.getPage().getRegionViewport(region)
+                    .getRegionReference().getBlocks());
+        }
+    }
+}
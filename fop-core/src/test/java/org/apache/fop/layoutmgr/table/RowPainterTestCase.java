@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.table;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.fo.flow.table.GridUnit;
+import org.apache.fop.fo.flow.table.PrimaryGridUnit;
+import org.apache.fop.fo.flow.table.Table;
+import org.apache.fop.fo.flow.table.TablePart;
+
+public class RowPainterTestCase {
+
+    private static final String ROW = "<fo:table-row><fo:table-cell><fo:block>a</fo:block>"
+            + "</fo:table-cell><fo:table-cell><fo:block>b</fo:block></fo:table-cell>"
+            + "</fo:table-row>";
+
+    /** A row whose second cell is broken over two pages. */
+    private static final String BROKEN_ROW = "<fo:table-row><fo:table-cell><fo:block>c"
+            + "</fo:block></fo:table-cell><fo:table-cell><fo:block>1</fo:block>"
+            + "<fo:block>2</fo:block><fo:block>3</fo:block><fo:block>4</fo:block>"
+            + "<fo:block>5</fo:block><fo:block>6</fo:block></fo:table-cell></fo:table-row>";
+
+    private static final String SPANNING_ROWS = "<fo:table-row><fo:table-cell"
+            + " number-rows-spanned=\"2\"><fo:block>d</fo:block></fo:table-cell>"
+            + "<fo:table-cell><fo:block>e</fo:block></fo:table-cell></fo:table-row>"
+            + "<fo:table-row><fo:table-cell><fo:block>f</fo:block></fo:table-cell>"
+            + "</fo:table-row>";
+
+    @Test
+    public void testFinishedRowsAreReleased() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            body.append(ROW);
+        }
+        body.append(BROKEN_ROW).append(SPANNING_ROWS).append(ROW);
+        String fo = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-width=\"10cm\" page-height=\"80pt\"><fo:region-body/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\">"
+                + "<fo:flow flow-name=\"xsl-region-body\" font-size=\"10pt\">"
+                + "<fo:table table-layout=\"fixed\" width=\"100%\" border=\"1pt solid\">"
+                + "<fo:table-column column-width=\"50%\"/><fo:table-column column-width=\"50%\"/>"
+                + "<fo:table-header>" + ROW + "</fo:table-header>"
+                + "<fo:table-body>" + body + "</fo:table-body>"
+                + "</fo:table></fo:flow></fo:page-sequence></fo:root>";
+
+        Table table = layout(fo);
+        List<List<GridUnit>> header = getRows(table.getTableHeader());
+        assertEquals(1, header.size());
+        assertReleased(header.get(0), false);
+        List<List<GridUnit>> rows = getRows((TablePart) table.getChildNodes().next());
+        assertEquals(10, rows.size());
+        for (int i = 0; i < 7; i++) {
+            assertReleased(rows.get(i), true);
+        }
+        assertReleased(rows.get(7), false);
+        assertReleased(rows.get(8), false);
+        assertReleased(rows.get(9), true);
+    }
+
+    private Table layout(String fo) throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        final List<Table> tables = new ArrayList<Table>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userAgent.setFOEventHandlerOverride(new AreaTreeHandler(userAgent,
+                MimeConstants.MIME_FOP_AREA_TREE, out) {
+            @Override
+            public void endTable(Table tbl) {
+                super.endTable(tbl);
+                tables.add(tbl);
+            }
+        });
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)),
+                new SAXResult(fop.getDefaultHandler()));
+        assertEquals(1, tables.size());
+        return tables.get(0);
+    }
+
+    private static List<List<GridUnit>> getRows(TablePart part) {
+        List<List<GridUnit>> rows = new ArrayList<List<GridUnit>>();
+        for (Object rowGroup : part.getRowGroups()) {
+            for (Object row : (List) rowGroup) {
+                rows.add((List<GridUnit>) row);
+            }
+        }
+        return rows;
+    }
+
+    private static void assertReleased(List<GridUnit> row, boolean released) {
+        for (GridUnit gu : row) {
+            if (gu.isPrimary()) {
+                if (released) {
+                    assertNull(((PrimaryGridUnit) gu).getElements());
+                } else {
+                    assertNotNull(((PrimaryGridUnit) gu).getElements());
+                }
+            }
+        }
+    }
+}
@@ -19,14 +19,21 @@
 
 package org.apache.fop.layoutmgr.table;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.apache.fop.datatypes.Length;
 import org.apache.fop.fo.FONode.FONodeIterator;
 import org.apache.fop.fo.flow.table.Table;
+import org.apache.fop.fo.flow.table.TableColumn;
 import org.apache.fop.layoutmgr.LayoutContext;
 import org.apache.fop.layoutmgr.PositionIterator;
 
@@ -61,4 +68,28 @@ public class TableContentLayoutManagerTestCase {
         verify(tlm).repeatAddAreasForSavedTableHeaderTableCellLayoutManagers();
     }
 
+    @Test
+    public void testColumnWidthsAreComputedOnce() {
+        TableLayoutManager tlm = mock(TableLayoutManager.class);
+        Length width1 = mock(Length.class);
+        when(width1.getValue(tlm)).thenReturn(20000);
+        Length width2 = mock(Length.class);
+        when(width2.getValue(tlm)).thenReturn(30000);
+        TableColumn column1 = mock(TableColumn.class);
+        when(column1.getColumnWidth()).thenReturn(width1);
+        TableColumn column2 = mock(TableColumn.class);
+        when(column2.getColumnWidth()).thenReturn(width2);
+        FONodeIterator foni = mock(FONodeIterator.class);
+        when(foni.hasNext()).thenReturn(false);
+        Table t = mock(Table.class);
+        when(t.getChildNodes()).thenReturn(foni);
+        when(t.getColumns()).thenReturn(Arrays.asList(column1, column2));
+        when(tlm.getTable()).thenReturn(t);
+        TableContentLayoutManager tclm = new TableContentLayoutManager(tlm);
+        int[] widths = tclm.getColumnWidths();
+        assertArrayEquals(new int[] {20000, 30000}, widths);
+        assertSame(widths, tclm.getColumnWidths());
+        verify(width1, times(1)).getValue(tlm);
+        verify(width2, times(1)).getValue(tlm);
+    }
 }
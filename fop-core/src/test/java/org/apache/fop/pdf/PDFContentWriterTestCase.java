@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link PDFContentWriter}.
+ */
+public class PDFContentWriterTestCase {
+
+    private final PDFContentWriter writer = new PDFContentWriter();
+
+    private void assertNumber(double value, int dec) {
+        writer.reset();
+        writer.addNumber(value, dec);
+        assertEquals(value + " (" + dec + ")", PDFNumber.doubleOut(value, dec), writer.toString());
+    }
+
+    @Test
+    public void testNumbers() {
+        assertNumber(0, 6);
+        assertNumber(-0.0, 6);
+        assertNumber(12, 6);
+        assertNumber(-12.5, 6);
+        assertNumber(0.0005, 6);
+        assertNumber(0.0000005, 6);
+        assertNumber(-0.0000004, 6);
+        assertNumber(99.9999999, 6);
+        assertNumber(1.0000005, 6);
+        assertNumber(12345678.9, 2);
+        assertNumber(1e20, 6);
+        assertNumber(-1e20, 6);
+        assertNumber(Double.NaN, 6);
+        assertNumber(Double.POSITIVE_INFINITY, 6);
+        assertNumber(0.1234567890123, 16);
+        assertNumber(100.12345611111111f, 6);
+    }
+
+    @Test
+    public void testMillipoints() {
+        //coordinates are usually millipoints converted to float points
+        for (int mpt = -2000000; mpt <= 2000000; mpt += 7) {
+            assertNumber(mpt / 1000f, 6);
+            assertNumber(mpt / 1000.0, 8);
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            int dec = random.nextInt(11);
+            double magnitude = Math.pow(10, random.nextInt(16) - 6);
+            assertNumber((random.nextDouble() - 0.5) * magnitude, dec);
+            //values close to multiples of 10^-dec and to ties
+            double grid = Math.round(random.nextDouble() * magnitude * 1000) / 1000.0;
+            assertNumber(grid, dec);
+            assertNumber(grid + 0.5 / Math.pow(10, dec), dec);
+            assertNumber((float) grid, dec);
+        }
+    }
+
+    @Test
+    public void testText() {
+        writer.add("/F1 ").addInt(12).add(' ').addInt(-345).add(" Tf\n");
+        writer.add('(').addOctal(0).add(' ').addOctal(255).add(' ').addHex(0x20AC, 4).add(')');
+        writer.add("€");
+        assertEquals("/F1 12 -345 Tf\n(0 377 20AC)?", writer.toString());
+        writer.reset();
+        writer.addInt(Long.MIN_VALUE);
+        assertEquals(Long.toString(Long.MIN_VALUE), writer.toString());
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFContentWriter streamWriter = new PDFContentWriter(out);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            streamWriter.addInt(i).add(" 0 m\n");
+            expected.append(i).append(" 0 m\n");
+        }
+        assertEquals(true, out.size() > 0);
+        streamWriter.flush();
+        assertEquals(0, streamWriter.size());
+        assertEquals(expected.toString(), out.toString("ISO-8859-1"));
+    }
+}
@@ -19,12 +19,21 @@
 
 package org.apache.fop.pdf;
 
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.awt.geom.Rectangle2D;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test case for {@link PDFDocument}
@@ -59,4 +68,256 @@ public class PDFDocumentTestCase {
         PDFDocument.flushTextBuffer(textBuffer, out);
         assertEquals(fullString, out.toString());
     }
+
+    @Test
+    public void testStreamingReleasesPages() throws IOException {
+        assertEquals(0, outputPages(true).pageObjs.size());
+        assertEquals(2, outputPages(false).pageObjs.size());
+    }
+
+    private PDFDocument outputPages(boolean streaming) throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setStreamingEnabled(streaming);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        PDFResources resources = new PDFResources(doc);
+        doc.addObject(resources);
+        Rectangle2D.Float f = new Rectangle2D.Float();
+        for (int i = 0; i < 2; i++) {
+            PDFPage page = new PDFPage(resources, i, f, f, f, f);
+            doc.assignObjectNumber(page);
+            doc.addObject(page);
+            doc.output(out);
+        }
+        doc.outputTrailer(out);
+        String pdf = out.toString("ISO-8859-1");
+        assertTrue(pdf.contains("/Kids [3 0 R 4 0 R ]"));
+        assertTrue(pdf.contains("startxref"));
+        return doc;
+    }
+
+    @Test
+    public void testCompressionThreadsKeepOutput() throws IOException {
+        String serial = outputStreams(0, -1);
+        assertEquals(serial, outputStreams(1, -1));
+        assertEquals(serial, outputStreams(3, -1));
+        assertTrue(serial.contains("/Filter /FlateDecode"));
+    }
+
+    @Test
+    public void testCompressionLevel() throws IOException {
+        String stored = outputStreams(0, 0);
+        assertTrue(stored.length() > outputStreams(0, 9).length());
+        assertEquals(stored, outputStreams(2, 0));
+    }
+
+    @Test
+    public void testSharedStreamEncoderPool() throws IOException {
+        String serial = outputStreams(0, -1);
+        StreamEncoderPool pool = new StreamEncoderPool();
+        //the pool outlives the documents and grows to the most threads asked for
+        assertEquals(serial, outputStreams(2, -1, pool));
+        assertEquals(serial, outputStreams(3, -1, pool));
+        assertEquals(serial, outputStreams(1, -1, pool));
+        assertEquals(3, pool.getThreads());
+    }
+
+    private String outputStreams(int threads, int level) throws IOException {
+        return outputStreams(threads, level, null);
+    }
+
+    private String outputStreams(int threads, int level, StreamEncoderPool pool)
+            throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setCompressionThreads(threads);
+        doc.setStreamEncoderPool(pool);
+        doc.getInfo().setCreationDate(new Date(1000000000000L));
+        if (level >= 0) {
+            doc.setCompressionLevel(PDFFilterList.DEFAULT_FILTER, level);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        PDFResources resources = new PDFResources(doc);
+        doc.addObject(resources);
+        Rectangle2D.Float f = new Rectangle2D.Float();
+        for (int i = 0; i < 20; i++) {
+            PDFPage page = new PDFPage(resources, i, f, f, f, f);
+            doc.assignObjectNumber(page);
+            doc.addObject(page);
+            //streams with the length written on the fly and with a direct length
+            PDFStream content = new PDFStream(i % 2 == 0);
+            content.setDocument(doc);
+            for (int j = 0; j < 200 * i; j++) {
+                content.add(j + " " + i + " m " + (j * i) + " 0 l S\n");
+            }
+            doc.registerObject(content);
+            page.setContents(new PDFReference(content));
+            doc.output(out);
+        }
+        doc.outputTrailer(out);
+        //the file ID depends on the current time
+        return out.toString("ISO-8859-1").replaceAll("/ID \\[[^\\]]*\\]", "");
+    }
+
+    @Test
+    public void testObjectOffsetList() {
+        ObjectOffsetList offsets = new ObjectOffsetList();
+        offsets.record(2, 100L);
+        assertEquals(3, offsets.size());
+        assertNull(offsets.get(0));
+        assertNull(offsets.get(1));
+        assertEquals(Long.valueOf(100L), offsets.get(2));
+        offsets.record(1, 50L);
+        assertEquals(Long.valueOf(50L), offsets.get(1));
+        offsets.add(Long.valueOf(200L));
+        assertEquals(4, offsets.size());
+        assertEquals(Long.valueOf(200L), offsets.get(3));
+        for (int i = 4; i < 1000; i++) {
+            offsets.record(i, i);
+        }
+        assertEquals(Long.valueOf(999L), offsets.get(999));
+    }
+
+    @Test
+    public void testImagesSharedByContent() {
+        PDFDocument doc = new PDFDocument("");
+        byte[] data = new byte[] {1, 2, 3, 4, 5, 6};
+        PDFImageXObject first = doc.addImage(null, new BitmapImage("a", 2, 1, data, null));
+        assertSame(first, doc.addImage(null, new BitmapImage("b", 2, 1, data.clone(), null)));
+        assertSame(first, doc.getXObject("b"));
+        assertNotSame(first, doc.addImage(null, new BitmapImage("c", 1, 2, data, null)));
+        assertNotSame(first, doc.addImage(null,
+                new BitmapImage("d", 2, 1, new byte[] {1, 2, 3, 4, 5, 7}, null)));
+    }
+
+    @Test
+    public void testImageDataIsReadOnce() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        byte[] data = new byte[] {1, 2, 3, 4, 5, 6};
+        ReadOnceImage first = new ReadOnceImage("a", data);
+        ReadOnceImage second = new ReadOnceImage("b", data.clone());
+        PDFImageXObject xObject = doc.addImage(null, first);
+        assertSame(xObject, doc.addImage(null, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        xObject.output(out);
+        assertEquals(1, first.reads);
+        assertEquals(1, second.reads);
+        assertTrue(out.toString("ISO-8859-1").contains("/Width 2"));
+    }
+
+    @Test
+    public void testLargeImageDataIsNotBuffered() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        byte[] data = new byte[3 * 256 * 256];
+        CountingImage first = new CountingImage("a", 256, 256, data);
+        PDFImageXObject xObject = doc.addImage(null, first);
+        assertSame(xObject, doc.addImage(null, new CountingImage("b", 256, 256, data.clone())));
+        assertEquals(1, first.reads);
+        //the data was only digested, it is read again on output
+        xObject.output(new ByteArrayOutputStream());
+        assertEquals(2, first.reads);
+    }
+
+    @Test
+    public void testNonRepeatableImagesAreNotShared() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        byte[] data = new byte[] {1, 2, 3, 4, 5, 6};
+        ReadOnceImage first = new ReadOnceImage("a", data, false);
+        PDFImageXObject xObject = doc.addImage(null, first);
+        assertNotSame(xObject, doc.addImage(null, new ReadOnceImage("b", data.clone(), false)));
+        assertEquals(0, first.reads);
+        xObject.output(new ByteArrayOutputStream());
+        assertEquals(1, first.reads);
+    }
+
+    @Test
+    public void testFormsSharedByContent() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        PDFReference resources = doc.getResources().makeReference();
+        Rectangle2D bbox = new Rectangle2D.Double(0, 0, 100, 50);
+        PDFFormXObject first = doc.addFormXObject(null, createFormStream("0 0 m 100 50 l S"),
+                resources, bbox, null, "a");
+        assertSame(first, doc.addFormXObject(null, createFormStream("0 0 m 100 50 l S"),
+                resources, (Rectangle2D) bbox.clone(), null, "b"));
+        assertSame(first, doc.getXObject("b"));
+        assertNotSame(first, doc.addFormXObject(null, createFormStream("0 0 m 100 50 l S"),
+                resources, new Rectangle2D.Double(0, 0, 100, 60), null, "c"));
+        assertNotSame(first, doc.addFormXObject(null, createFormStream("0 0 m 100 60 l S"),
+                resources, bbox, null, "d"));
+        //forms that may still change aren't shared
+        assertNotSame(first, doc.addFormXObject(null, createFormStream("0 0 m 100 50 l S"),
+                resources, "e"));
+    }
+
+    private PDFStream createFormStream(String content) throws IOException {
+        PDFStream stream = new PDFStream();
+        stream.setData(content.getBytes("ISO-8859-1"));
+        return stream;
+    }
+
+    /** An image counting how often its data is read. */
+    private static final class CountingImage extends BitmapImage {
+
+        private int reads;
+
+        CountingImage(String key, int width, int height, byte[] data) {
+            super(key, width, height, data, null);
+        }
+
+        @Override
+        public void outputContents(OutputStream out) throws IOException {
+            reads++;
+            super.outputContents(out);
+        }
+    }
+
+    /** An image failing when its data is read more than once, like a raw image stream. */
+    private static final class ReadOnceImage extends BitmapImage {
+
+        private final boolean repeatable;
+
+        private int reads;
+
+        ReadOnceImage(String key, byte[] data) {
+            this(key, data, true);
+        }
+
+        ReadOnceImage(String key, byte[] data, boolean repeatable) {
+            super(key, 2, 1, data, null);
+            this.repeatable = repeatable;
+        }
+
+        @Override
+        public boolean isContentRepeatable() {
+            return repeatable;
+        }
+
+        @Override
+        public void outputContents(OutputStream out) throws IOException {
+            if (reads++ > 0) {
+                throw new IOException("The image data has been read already");
+            }
+            super.outputContents(out);
+        }
+    }
+
+    @Test
+    public void testICCProfilesSharedByContent() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        ICC_Profile profile = ICC_Profile.getInstance(ColorSpace.CS_sRGB);
+        PDFICCStream stream = doc.getFactory().makePDFICCStream(profile, null);
+        assertSame(stream, doc.getFactory().makePDFICCStream(
+                ICC_Profile.getInstance(profile.getData()), null));
+        assertNotSame(stream, doc.getFactory().makePDFICCStream(ICC_Profile.getInstance(
+                ColorSpace.CS_GRAY), null));
+
+        //the profile is released once written, the stream can still be shared
+        stream.output(new ByteArrayOutputStream());
+        assertNull(stream.getICCProfile());
+        PDFICCStream shared = doc.getFactory().makePDFICCStream(
+                ICC_Profile.getInstance(profile.getData()), null);
+        assertSame(stream, shared);
+        PDFICCBasedColorSpace cs = doc.getFactory().makeICCBasedColorSpace(null, null, shared);
+        assertEquals(3, cs.getNumComponents());
+    }
 }
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import org.apache.xmlgraphics.image.writer.ImageWriter;
+import org.apache.xmlgraphics.image.writer.ImageWriterParams;
+import org.apache.xmlgraphics.image.writer.MultiImageWriter;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.render.intermediate.IFContext;
+
+public class AbstractBitmapDocumentHandlerTestCase {
+
+    private static final String FO = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+            + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+            + " page-width=\"4cm\" page-height=\"3cm\"><fo:region-body/>"
+            + "</fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block>first page</fo:block>"
+            + "<fo:block break-before=\"page\" background-color=\"yellow\">second page</fo:block>"
+            + "<fo:block break-before=\"page\" border=\"1pt solid red\">third page</fo:block>"
+            + "<fo:block break-before=\"page\">fourth page</fo:block>"
+            + "</fo:flow></fo:page-sequence></fo:root>";
+
+    @Test
+    public void testEncodingThreads() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        byte[] serial = renderTIFF(fopFactory, 0);
+        assertTrue(serial.length > 0);
+        assertArrayEquals(serial, renderTIFF(fopFactory, 2));
+    }
+
+    /**
+     * Without a multi-image writer, each page is written to a file of its own, and the pages
+     * are encoded on several threads.
+     */
+    @Test
+    public void testEncodingThreadsWithFilePerPage() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        File serialDir = createTempDir();
+        File parallelDir = createTempDir();
+        try {
+            renderPNG(fopFactory, new File(serialDir, "page1.png"), 0);
+            renderPNG(fopFactory, new File(parallelDir, "page1.png"), 3);
+            for (int i = 1; i <= 4; i++) {
+                byte[] serial = FileUtils.readFileToByteArray(new File(serialDir, "page" + i + ".png"));
+                assertTrue(serial.length > 0);
+                assertArrayEquals(serial,
+                        FileUtils.readFileToByteArray(new File(parallelDir, "page" + i + ".png")));
+            }
+        } finally {
+            FileUtils.deleteDirectory(serialDir);
+            FileUtils.deleteDirectory(parallelDir);
+        }
+    }
+
+    /**
+     * The first page fails while the second one is being written, and the second one doesn't
+     * react to interruption, like ImageIO: the failure is only reported once it is written.
+     */
+    @Test
+    public void testAbortWaitsForRunningPages() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        final FailingMultiImageWriter writer = new FailingMultiImageWriter(1) {
+            @Override
+            protected void write(int page) {
+                if (page == 2) {
+                    sleepUninterruptibly(500);
+                }
+            }
+        };
+        AbstractBitmapDocumentHandler documentHandler
+                = new TIFFDocumentHandler(new IFContext(userAgent)) {
+            @Override
+            protected MultiImageWriter createMultiImageWriter(ImageWriter imageWriter,
+                    OutputStream out) {
+                return writer;
+            }
+        };
+        try {
+            render(fopFactory, userAgent, documentHandler, 2);
+            fail("Expected the failure of the first page to be reported");
+        } catch (Exception e) {
+            //expected
+        }
+        assertEquals(0, writer.writing);
+    }
+
+    /**
+     * The last page fails to be written after a while, so the failure is only reported when
+     * the document ends: the multi-image writer is closed nonetheless.
+     */
+    @Test
+    public void testWriterIsClosedWhenEncodingFails() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        final FailingMultiImageWriter writer = new FailingMultiImageWriter(4);
+        AbstractBitmapDocumentHandler documentHandler
+                = new TIFFDocumentHandler(new IFContext(userAgent)) {
+            @Override
+            protected MultiImageWriter createMultiImageWriter(ImageWriter imageWriter,
+                    OutputStream out) {
+                return writer;
+            }
+        };
+        try {
+            render(fopFactory, userAgent, documentHandler, 2);
+            fail("Expected the failure of the last page to be reported");
+        } catch (Exception e) {
+            //expected
+        }
+        assertEquals(4, writer.pages);
+        assertTrue(writer.closed);
+    }
+
+    private void renderPNG(FopFactory fopFactory, File outputFile, int encodingThreads)
+            throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setOutputFile(outputFile);
+        OutputStream out = new FileOutputStream(outputFile);
+        try {
+            PNGDocumentHandler documentHandler = new PNGDocumentHandler(new IFContext(userAgent));
+            documentHandler.getSettings().setEncodingThreads(encodingThreads);
+            userAgent.setDocumentHandlerOverride(documentHandler);
+            Fop fop = fopFactory.newFop(MimeConstants.MIME_PNG, userAgent, out);
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.transform(new StreamSource(new StringReader(FO)),
+                    new SAXResult(fop.getDefaultHandler()));
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    private static File createTempDir() throws IOException {
+        File dir = File.createTempFile("fop-png", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        return dir;
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        long end = System.currentTimeMillis() + millis;
+        boolean interrupted = false;
+        for (long left = millis; left > 0; left = end - System.currentTimeMillis()) {
+            try {
+                Thread.sleep(left);
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] renderTIFF(FopFactory fopFactory, int encodingThreads) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        return render(fopFactory, userAgent, new TIFFDocumentHandler(new IFContext(userAgent)),
+                encodingThreads);
+    }
+
+    private byte[] render(FopFactory fopFactory, FOUserAgent userAgent,
+            AbstractBitmapDocumentHandler documentHandler, int encodingThreads) throws Exception {
+        documentHandler.getSettings().setEncodingThreads(encodingThreads);
+        userAgent.setDocumentHandlerOverride(documentHandler);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_TIFF, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(FO)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toByteArray();
+    }
+
+    private static class FailingMultiImageWriter implements MultiImageWriter {
+
+        private final int failingPage;
+
+        private volatile int pages;
+
+        private volatile int writing;
+
+        private volatile boolean closed;
+
+        FailingMultiImageWriter(int failingPage) {
+            this.failingPage = failingPage;
+        }
+
+        public void writeImage(RenderedImage image, ImageWriterParams params) throws IOException {
+            int page = ++pages;
+            writing++;
+            try {
+                if (page == failingPage) {
+                    if (page > 1) {
+                        sleepUninterruptibly(500);
+                    }
+                    throw new IOException("Page " + page + " could not be written");
+                }
+                write(page);
+            } finally {
+                writing--;
+            }
+        }
+
+        protected void write(int page) {
+        }
+
+        public void close() {
+            closed = true;
+        }
+    }
+}
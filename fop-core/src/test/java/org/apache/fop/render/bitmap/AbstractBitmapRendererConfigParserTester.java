@@ -30,6 +30,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.apps.AbstractRendererConfigParserTester;
+import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.BitmapRendererConfBuilder;
 import org.apache.fop.render.bitmap.BitmapRendererConfig.BitmapRendererConfigParser;
 
@@ -122,4 +123,18 @@ public class AbstractBitmapRendererConfigParserTester
         parseConfig(createRenderer());
         assertEquals(BufferedImage.TYPE_INT_ARGB, (int) conf.getColorMode());
     }
+
+    @Test
+    public void testEncodingThreads() throws Exception {
+        parseConfig(createRenderer().setEncodingThreads(4));
+        assertEquals(4, (int) conf.getEncodingThreads());
+
+        parseConfig(createRenderer());
+        assertEquals(0, (int) conf.getEncodingThreads());
+    }
+
+    @Test(expected = FOPException.class)
+    public void testNegativeEncodingThreads() throws Exception {
+        parseConfig(createRenderer().setEncodingThreads(-1));
+    }
 }
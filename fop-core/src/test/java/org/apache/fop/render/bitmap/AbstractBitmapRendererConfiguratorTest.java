@@ -117,4 +117,10 @@ public abstract class AbstractBitmapRendererConfiguratorTest extends
         parseConfig(createBuilder());
         assertEquals(BufferedImage.TYPE_INT_ARGB, settings.getBufferedImageType());
     }
+
+    @Test
+    public void testEncodingThreads() throws Exception {
+        parseConfig(createBuilder().setEncodingThreads(2));
+        assertEquals(2, settings.getEncodingThreads());
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.xmlgraphics.image.codec.tiff.TIFFImageDecoder;
+import org.apache.xmlgraphics.image.codec.util.MemoryCacheSeekableStream;
+import org.apache.xmlgraphics.image.writer.Endianness;
+import org.apache.xmlgraphics.image.writer.ImageWriterParams;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.render.intermediate.IFContext;
+
+public class StreamingTIFFWriterTestCase {
+
+    private static final String FO = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+            + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+            + " page-width=\"4cm\" page-height=\"3cm\"><fo:region-body/>"
+            + "</fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block>first page</fo:block>"
+            + "<fo:block break-before=\"page\" border=\"1pt solid black\">second page</fo:block>"
+            + "<fo:block break-before=\"page\">third page</fo:block>"
+            + "</fo:flow></fo:page-sequence></fo:root>";
+
+    @Test
+    public void testCompressionAndStrips() throws Exception {
+        BufferedImage[] pages = {
+            createPage(BufferedImage.TYPE_BYTE_BINARY, 301, 203),
+            createPage(BufferedImage.TYPE_INT_RGB, 250, 97),
+            createPage(BufferedImage.TYPE_BYTE_BINARY, 1800, 40)};
+        String[] compressions = {null, TIFFCompressionValue.PACKBITS.getName(),
+                TIFFCompressionValue.CCITT_T6.getName()};
+        int[] rowsPerStrip = {ImageWriterParams.SINGLE_STRIP, 1, 7, 64};
+        for (String compression : compressions) {
+            for (int rows : rowsPerStrip) {
+                for (Endianness endianness : new Endianness[] {
+                        Endianness.BIG_ENDIAN, Endianness.LITTLE_ENDIAN}) {
+                    ImageWriterParams params = new ImageWriterParams();
+                    params.setCompressionMethod(compression);
+                    params.setRowsPerStrip(rows);
+                    params.setEndianness(endianness);
+                    params.setResolution(300);
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    StreamingTIFFWriter writer = new StreamingTIFFWriter(out);
+                    for (BufferedImage page : pages) {
+                        writer.writeImage(page, params);
+                    }
+                    writer.close();
+                    assertPages(pages, out.toByteArray());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStreamingDocumentHandler() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        TIFFDocumentHandler documentHandler = new TIFFDocumentHandler(new IFContext(userAgent));
+        documentHandler.setStreaming(true);
+        BitmapRenderingSettings settings = documentHandler.getSettings();
+        settings.setCompressionMethod(TIFFCompressionValue.CCITT_T6.getName());
+        settings.setBufferedImageType(BufferedImage.TYPE_BYTE_BINARY);
+        settings.getWriterParams().setRowsPerStrip(StreamingTIFFWriter.DEFAULT_ROWS_PER_STRIP);
+        userAgent.setDocumentHandlerOverride(documentHandler);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_TIFF, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(FO)),
+                new SAXResult(fop.getDefaultHandler()));
+
+        TIFFImageDecoder decoder = new TIFFImageDecoder(
+                new MemoryCacheSeekableStream(new ByteArrayInputStream(out.toByteArray())), null);
+        assertEquals(3, decoder.getNumPages());
+        RenderedImage page = decoder.decodeAsRenderedImage(1);
+        //the default resolution is 72 dpi
+        assertEquals(113, page.getWidth());
+        assertEquals(85, page.getHeight());
+    }
+
+    private static BufferedImage createPage(int type, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, width, height);
+        g2d.setColor(Color.BLACK);
+        g2d.setStroke(new BasicStroke(3));
+        g2d.drawOval(5, 5, width - 10, height - 10);
+        g2d.fillRect(width / 3, 0, 70, height / 2);
+        g2d.drawLine(0, height - 1, width - 1, 0);
+        g2d.setFont(new Font("Serif", Font.PLAIN, 24));
+        g2d.drawString("Streaming TIFF", 10, height / 2);
+        g2d.dispose();
+        return image;
+    }
+
+    private static void assertPages(BufferedImage[] expected, byte[] tiff) throws Exception {
+        TIFFImageDecoder decoder = new TIFFImageDecoder(
+                new MemoryCacheSeekableStream(new ByteArrayInputStream(tiff)), null);
+        assertEquals(expected.length, decoder.getNumPages());
+        for (int i = 0; i < expected.length; i++) {
+            RenderedImage page = decoder.decodeAsRenderedImage(i);
+            BufferedImage actual = new BufferedImage(page.getWidth(), page.getHeight(),
+                    BufferedImage.TYPE_INT_RGB);
+            actual.createGraphics().drawRenderedImage(page, new AffineTransform());
+            assertEquals(expected[i].getWidth(), actual.getWidth());
+            assertEquals(expected[i].getHeight(), actual.getHeight());
+            for (int y = 0; y < actual.getHeight(); y++) {
+                for (int x = 0; x < actual.getWidth(); x++) {
+                    assertEquals("Pixel " + x + "," + y + " of page " + i,
+                            expected[i].getRGB(x, y) & 0xFFFFFF, actual.getRGB(x, y) & 0xFFFFFF);
+                }
+            }
+        }
+    }
+}
@@ -23,10 +23,12 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.xmlgraphics.image.writer.Endianness;
 
+import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FopConfBuilder;
 import org.apache.fop.apps.TIFFRendererConfBuilder;
 import org.apache.fop.render.bitmap.TIFFRendererConfig.TIFFRendererConfigParser;
@@ -72,4 +74,25 @@ extends AbstractBitmapRendererConfigParserTester {
             assertEquals(value, getConfig().getEndianness());
         }
     }
+
+    @Test
+    public void testRowsPerStrip() throws Exception {
+        parseConfig(createRenderer());
+        assertNull(getConfig().getRowsPerStrip());
+        parseConfig(createRenderer().setRowsPerStrip("16"));
+        assertEquals(Integer.valueOf(16), getConfig().getRowsPerStrip());
+    }
+
+    @Test(expected = FOPException.class)
+    public void testInvalidRowsPerStrip() throws Exception {
+        parseConfig(createRenderer().setRowsPerStrip("0"));
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        parseConfig(createRenderer().setStreaming(true));
+        assertTrue(getConfig().isStreaming());
+        parseConfig(createRenderer().setStreaming(false));
+        assertFalse(getConfig().isStreaming());
+    }
 }
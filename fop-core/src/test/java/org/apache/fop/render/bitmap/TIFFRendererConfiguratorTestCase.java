@@ -26,6 +26,7 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
 
 import org.apache.xmlgraphics.image.writer.Endianness;
 
@@ -82,4 +83,27 @@ public class TIFFRendererConfiguratorTestCase extends AbstractBitmapRendererConf
         }
     }
 
+    @Test
+    public void testRowsPerStrip() throws Exception {
+        parseConfig(createBuilder().setRowsPerStrip("16"));
+        assertEquals(16, settings.getWriterParams().getRowsPerStrip());
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        parseConfig(createBuilder().setStreaming(true)
+                .setCompressionMode(CCITT_T6.getName()));
+        verify((TIFFDocumentHandler) docHandler).setStreaming(true);
+        assertEquals(BufferedImage.TYPE_BYTE_BINARY, settings.getBufferedImageType());
+        assertEquals(StreamingTIFFWriter.DEFAULT_ROWS_PER_STRIP,
+                settings.getWriterParams().getRowsPerStrip());
+    }
+
+    @Test
+    public void testStreamingWithUnsupportedCompression() throws Exception {
+        parseConfig(createBuilder().setStreaming(true)
+                .setCompressionMode(TIFFCompressionValue.LZW.getName()));
+        verify((TIFFDocumentHandler) docHandler).setStreaming(true);
+        assertEquals(BufferedImage.TYPE_INT_ARGB, settings.getBufferedImageType());
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+package org.apache.fop.render.intermediate;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.xmlgraphics.util.QName;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.traits.RuleStyle;
+
+/**
+ * Tests the {@link BinaryIFSerializer} where binary records and XML fallbacks are mixed.
+ */
+public class BinaryIFSerializerTestCase {
+
+    private FOUserAgent userAgent;
+
+    @Before
+    public void setUp() {
+        userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+    }
+
+    @Test
+    public void testIDsOfBinaryRecordsAndFallbacks() throws Exception {
+        BinaryIFSerializer serializer = new BinaryIFSerializer(new IFContext(userAgent));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.setResult(new StreamResult(out));
+        serializer.startDocument();
+        serializer.startDocumentHeader();
+        serializer.endDocumentHeader();
+        serializer.startPageSequence(null);
+        serializer.startPage(0, "1", "page", new Dimension(100000, 100000));
+        serializer.startPageContent();
+        IFContext context = serializer.getContext();
+
+        context.setID("a");
+        drawLine(serializer);
+        // foreign attributes make the image fall back to the XML serialization
+        context.setID("b");
+        context.setForeignAttributes(Collections.singletonMap(
+                new QName("http://example.org/test", "test:attr"), "value"));
+        serializer.drawImage("image.png", new Rectangle(0, 0, 1000, 1000));
+        context.resetForeignAttributes();
+        context.setID("a");
+        drawLine(serializer);
+        context.setID("b");
+        drawLine(serializer);
+
+        serializer.endPageContent();
+        serializer.startPageTrailer();
+        serializer.endPageTrailer();
+        serializer.endPage();
+        serializer.endPageSequence();
+        serializer.startDocumentTrailer();
+        serializer.endDocumentTrailer();
+        serializer.endDocument();
+
+        String xml = toXML(out.toByteArray());
+        Matcher ids = Pattern.compile("<id name=\"([^\"]*)\"").matcher(xml);
+        StringBuilder sequence = new StringBuilder();
+        while (ids.find()) {
+            sequence.append(ids.group(1));
+        }
+        assertEquals("abab", sequence.toString());
+    }
+
+    @Test(expected = IFException.class)
+    public void testPageIndexIsRejected() throws Exception {
+        BinaryIFSerializer serializer = new BinaryIFSerializer(new IFContext(userAgent));
+        assertFalse(serializer.supportsPageIndex());
+        serializer.setPageIndexOutputStream(new ByteArrayOutputStream());
+        serializer.setResult(new StreamResult(new ByteArrayOutputStream()));
+        serializer.startDocument();
+    }
+
+    private void drawLine(IFPainter painter) throws IFException {
+        painter.drawLine(new Point(0, 0), new Point(1000, 0), 100, Color.black, RuleStyle.SOLID);
+    }
+
+    private String toXML(byte[] binary) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IFSerializer serializer = new IFSerializer(new IFContext(userAgent));
+        serializer.setResult(new StreamResult(out));
+        new BinaryIFParser().parse(new ByteArrayInputStream(binary), serializer, userAgent);
+        return out.toString("UTF-8");
+    }
+}
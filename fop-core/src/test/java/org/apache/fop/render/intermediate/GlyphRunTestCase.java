@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link GlyphRun}.
+ */
+public class GlyphRunTestCase {
+
+    @Test
+    public void testNoAdjustments() {
+        GlyphRun run = GlyphRun.fromDP("abc", null);
+        assertEquals("abc", run.getText());
+        assertEquals(3, run.getLength());
+        assertFalse(run.hasAdjustments());
+        assertTrue(run.isDXOnly());
+        assertEquals(0, run.getXPlacement(1));
+        assertNull(run.toDP());
+        //all-zero adjustments are the same as none
+        assertNull(GlyphRun.fromDP("ab", new int[][] {{0, 0, 0, 0}, null}).toDP());
+    }
+
+    @Test
+    public void testDX() {
+        GlyphRun.Builder builder = new GlyphRun.Builder();
+        builder.append('a');
+        builder.append('b');
+        builder.adjust(-50);
+        builder.adjust(-20);
+        builder.append('c');
+        builder.append('d');
+        GlyphRun run = builder.build();
+        assertTrue(run.isDXOnly());
+        assertEquals(0, run.getXPlacement(0));
+        assertEquals(-70, run.getXPlacement(1));
+        assertEquals(-70, run.getXAdvance(1));
+        assertEquals(0, run.getXPlacement(3));
+        assertEquals(0, run.getXPlacement(4));
+        //trailing characters without adjustments are trimmed like IFRenderer always did
+        int[][] dp = run.toDP();
+        assertEquals(2, dp.length);
+        assertNull(dp[0]);
+        assertArrayEquals(new int[] {-70, 0, -70, 0}, dp[1]);
+        assertTrue(IFUtil.isDPOnlyDX(dp));
+    }
+
+    @Test
+    public void testDP() {
+        int[][] dp = new int[][] {null, {10, 20, 30, 40}, null, {0, -5, 0, 0}};
+        GlyphRun run = GlyphRun.fromDP("abcd", dp);
+        assertFalse(run.isDXOnly());
+        assertEquals(10, run.getXPlacement(1));
+        assertEquals(20, run.getYPlacement(1));
+        assertEquals(30, run.getXAdvance(1));
+        assertEquals(40, run.getYAdvance(1));
+        assertEquals(-5, run.getYPlacement(3));
+        int[][] copy = run.toDP();
+        assertEquals(4, copy.length);
+        assertNull(copy[0]);
+        assertNull(copy[2]);
+        assertArrayEquals(dp[1], copy[1]);
+        assertArrayEquals(dp[3], copy[3]);
+    }
+
+    @Test
+    public void testBuilderReuse() {
+        GlyphRun.Builder builder = new GlyphRun.Builder();
+        for (int i = 0; i < 100; i++) {
+            builder.append('x');
+            builder.adjust(i, 0, 0, 0);
+        }
+        GlyphRun first = builder.build();
+        assertEquals(100, first.getLength());
+        assertEquals(99, first.getXPlacement(99));
+        assertFalse(first.isDXOnly());
+
+        builder.reset();
+        assertEquals(0, builder.length());
+        builder.append('y');
+        builder.append('z');
+        GlyphRun second = builder.build();
+        assertEquals("yz", second.getText());
+        assertFalse(second.hasAdjustments());
+        //runs don't share state with the builder
+        assertEquals(99, first.getXPlacement(99));
+    }
+}
@@ -24,13 +24,16 @@ import java.io.IOException;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.endsWith;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import org.apache.fop.fo.Constants;
+import org.apache.fop.pdf.PDFContentWriter;
 import org.apache.fop.pdf.PDFNumber;
 
 public class PDFGraphicsPainterTestCase {
@@ -39,9 +42,13 @@ public class PDFGraphicsPainterTestCase {
 
     private PDFContentGenerator generator;
 
+    private PDFContentWriter writer;
+
     @Before
     public void setup() {
         generator = mock(PDFContentGenerator.class);
+        writer = new PDFContentWriter();
+        when(generator.getContentWriter()).thenReturn(writer);
         sut = new PDFGraphicsPainter(generator);
     }
 
@@ -50,7 +57,7 @@ public class PDFGraphicsPainterTestCase {
         int x = 10;
         int y = 20;
         sut.moveTo(x, y);
-        verify(generator).add(op("m", x, y));
+        assertEquals(op("m", x, y), writer.toString());
     }
 
     @Test
@@ -58,7 +65,7 @@ public class PDFGraphicsPainterTestCase {
         int x = 10;
         int y = 20;
         sut.lineTo(x, y);
-        verify(generator).add(op("l", x, y));
+        assertEquals(op("l", x, y), writer.toString());
     }
 
     @Test
@@ -71,31 +78,31 @@ public class PDFGraphicsPainterTestCase {
         double endAngle = Math.PI / 2;
         sut.arcTo(startAngle, endAngle, x, y, width, height);
         //TODO stricter verification
-        verify(generator).add(endsWith(" c "));
+        assertTrue(writer.toString().endsWith(" c "));
     }
 
     @Test
     public void closePath() {
         sut.closePath();
-        verify(generator).add(op("h"));
+        assertEquals(op("h"), writer.toString());
     }
 
     @Test
     public void clip() {
         sut.clip();
-        verify(generator).add(opln("W\nn"));
+        assertEquals(opln("W\nn"), writer.toString());
     }
 
     @Test
     public void saveGraphicsState() {
         sut.saveGraphicsState();
-        verify(generator).add(opln("q"));
+        assertEquals(opln("q"), writer.toString());
     }
 
     @Test
     public void restoreGraphicsState() {
         sut.restoreGraphicsState();
-        verify(generator).add(opln("Q"));
+        assertEquals(opln("Q"), writer.toString());
     }
 
     @Test
@@ -127,21 +134,22 @@ public class PDFGraphicsPainterTestCase {
     public void cubicBezierTo() {
         int[] args = new int[]{1, 2, 3, 4, 5, 6};
         sut.cubicBezierTo(args[0], args[1], args[2], args[3], args[4], args[5]);
-        verify(generator).add(op("c", args));
+        assertEquals(op("c", args), writer.toString());
     }
 
     @Test
     public void testDrawBorderLineDashed() {
         sut.drawBorderLine(0, 0, 0, 0, true, true, Constants.EN_DASHED, null);
         verify(generator, never()).add(any(String.class));
+        assertEquals(0, writer.size());
     }
 
     private void testTransformCoordinatesF(float... args) {
-        verify(generator).add(opf("cm", args));
+        assertEquals(opf("cm", args), writer.toString());
     }
 
     private void testTransformCoordinates(int... args) {
-        verify(generator).add(op("cm", args));
+        assertEquals(op("cm", args), writer.toString());
     }
 
     private String opf(String op, float... args) {
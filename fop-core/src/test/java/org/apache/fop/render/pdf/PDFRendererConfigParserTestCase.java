@@ -19,15 +19,19 @@
 
 package org.apache.fop.render.pdf;
 
+import java.util.Map;
+
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.apps.AbstractRendererConfigParserTester;
 import org.apache.fop.apps.PDFRendererConfBuilder;
 import org.apache.fop.pdf.PDFAMode;
+import org.apache.fop.pdf.PDFFilterList;
 import org.apache.fop.pdf.PDFXMode;
 import org.apache.fop.pdf.Version;
 import org.apache.fop.render.pdf.PDFRendererConfig.PDFRendererConfigParser;
@@ -182,6 +186,33 @@ public class PDFRendererConfigParserTestCase
         }
     }
 
+    @Test
+    public void testCompressionThreads() throws Exception {
+        parseConfig(createRenderer());
+        assertNull(conf.getConfigOptions().getCompressionThreads());
+        parseConfig(createRenderer().setCompressionThreads(4));
+        assertEquals(Integer.valueOf(4), conf.getConfigOptions().getCompressionThreads());
+    }
+
+    @Test
+    public void testCompressionLevels() throws Exception {
+        parseConfig(createRenderer());
+        assertNull(conf.getConfigOptions().getCompressionLevels());
+        parseConfig(createRenderer()
+                .setCompressionLevel(null, 6)
+                .setCompressionLevel(PDFFilterList.IMAGE_FILTER, 1));
+        Map<String, Integer> levels = conf.getConfigOptions().getCompressionLevels();
+        assertEquals(2, levels.size());
+        assertEquals(Integer.valueOf(6), levels.get(PDFFilterList.DEFAULT_FILTER));
+        assertEquals(Integer.valueOf(1), levels.get(PDFFilterList.IMAGE_FILTER));
+    }
+
+    @Test
+    public void testInvalidCompressionLevel() throws Exception {
+        parseConfig(createRenderer().setCompressionLevel(null, 10));
+        assertNull(conf.getConfigOptions().getCompressionLevels());
+    }
+
     @Test
     public void testPDFVersions() throws Exception {
         for (int i = 0; i <= 7; i++) {
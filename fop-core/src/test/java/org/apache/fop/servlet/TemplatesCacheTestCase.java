@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.servlet;
+
+import java.io.StringReader;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests {@link TemplatesCache}.
+ */
+public class TemplatesCacheTestCase {
+
+    private Templates compile() throws Exception {
+        String xslt = "<xsl:stylesheet version='1.0'"
+                + " xmlns:xsl='http://www.w3.org/1999/XSL/Transform'/>";
+        return TransformerFactory.newInstance().newTemplates(
+                new StreamSource(new StringReader(xslt)));
+    }
+
+    @Test
+    public void testModifiedStylesheetIsDropped() throws Exception {
+        TemplatesCache cache = new TemplatesCache(4);
+        Templates templates = compile();
+        cache.put("a.xsl", 1000L, templates);
+        assertSame(templates, cache.get("a.xsl", 1000L));
+        assertNull(cache.get("a.xsl", 2000L));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        TemplatesCache cache = new TemplatesCache(2);
+        Templates a = compile();
+        Templates b = compile();
+        cache.put("a.xsl", 0, a);
+        cache.put("b.xsl", 0, b);
+        cache.get("a.xsl", 0);
+        cache.put("c.xsl", 0, compile());
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get("a.xsl", 0));
+        assertNull(cache.get("b.xsl", 0));
+    }
+}